@@ -0,0 +1,148 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Building and serializing a trace timeline as the former {@code Map<String, Object>}
+ * response versus the typed {@link TraceTimeline} view. Run with {@code ./gradlew jmh};
+ * the gc profiler reports {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TraceViewBenchmark {
+
+    @Param({"10", "200", "2000"})
+    private int spanCount;
+
+    private List<TraceEvent> spans;
+    private ObjectWriter writer;
+    private Map<String, Object> mapTimeline;
+    private TraceTimeline typedTimeline;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        writer = objectMapper.writer();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        spans = new ArrayList<>(spanCount);
+        for (int i = 0; i < spanCount; i++) {
+            TraceEvent span = new TraceEvent("trace-1", "span-" + i, "service-" + i % 8, "operation-" + i % 20);
+            span.setParentSpanId(i > 0 ? "span-" + (i - 1) / 4 : null);
+            span.setTimestamp(start.plusNanos(i * 150_000L));
+            span.setDurationMicros(1_000L + i * 37L);
+            span.setHttpMethod("GET");
+            span.setHttpUrl("/orders/" + i);
+            span.setHttpStatusCode(i % 50 == 0 ? 500 : 200);
+            span.setStatus(i % 50 == 0 ? TraceEvent.Status.ERROR : TraceEvent.Status.SUCCESS);
+            spans.add(span);
+        }
+        mapTimeline = buildMap();
+        typedTimeline = buildTyped();
+    }
+
+    @Benchmark
+    public Map<String, Object> buildMapTimeline() {
+        return buildMap();
+    }
+
+    @Benchmark
+    public TraceTimeline buildTypedTimeline() {
+        return buildTyped();
+    }
+
+    @Benchmark
+    public byte[] serializeMapTimeline() throws Exception {
+        return writer.writeValueAsBytes(mapTimeline);
+    }
+
+    @Benchmark
+    public byte[] serializeTypedTimeline() throws Exception {
+        return writer.writeValueAsBytes(typedTimeline);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeMapTimeline() throws Exception {
+        return writer.writeValueAsBytes(buildMap());
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeTypedTimeline() throws Exception {
+        return writer.writeValueAsBytes(buildTyped());
+    }
+
+    /** As TelemetryService built the timeline before it returned {@link TraceTimeline}. */
+    private Map<String, Object> buildMap() {
+        long startMicros = spans.get(0).getTimestampMicros();
+        long endMicros = spans.get(spans.size() - 1).getTimestampMicros();
+        List<Map<String, Object>> timeline = spans.stream()
+            .map(event -> {
+                Map<String, Object> eventMap = new HashMap<>();
+                eventMap.put("spanId", event.getSpanId());
+                eventMap.put("parentSpanId", event.getParentSpanId());
+                eventMap.put("serviceName", event.getServiceName());
+                eventMap.put("operation", event.getOperation());
+                eventMap.put("timestamp", event.getTimestamp());
+                eventMap.put("durationMs", event.getDurationMs());
+                eventMap.put("durationMicros", event.hasDuration() ? event.getDurationMicros() : null);
+                eventMap.put("status", event.getStatus());
+                eventMap.put("httpMethod", event.getHttpMethod());
+                eventMap.put("httpUrl", event.getHttpUrl());
+                eventMap.put("httpRoute", "/orders/{id}");
+                eventMap.put("httpStatusCode", event.getHttpStatusCode());
+                eventMap.put("errorMessage", event.getErrorMessage());
+                return Collections.unmodifiableMap(eventMap);
+            })
+            .collect(Collectors.toUnmodifiableList());
+        long totalDurationMicros = endMicros - startMicros;
+        return Map.of(
+            "traceId", "trace-1",
+            "events", timeline,
+            "totalDuration", EpochMicros.toMillis(totalDurationMicros),
+            "totalDurationMicros", totalDurationMicros,
+            "startTime", EpochMicros.toLocalDateTime(startMicros),
+            "endTime", EpochMicros.toLocalDateTime(endMicros),
+            "serviceCount", spans.stream().map(TraceEvent::getServiceName).distinct().count()
+        );
+    }
+
+    private TraceTimeline buildTyped() {
+        TimelineSpan[] timeline = new TimelineSpan[spans.size()];
+        Set<String> services = new HashSet<>();
+        for (int i = 0; i < timeline.length; i++) {
+            TraceEvent event = spans.get(i);
+            timeline[i] = TimelineSpan.of(event, "/orders/{id}");
+            services.add(event.getServiceName());
+        }
+        return new TraceTimeline("trace-1", Collections.unmodifiableList(Arrays.asList(timeline)),
+            spans.get(0).getTimestampMicros(), spans.get(spans.size() - 1).getTimestampMicros(), services.size());
+    }
+}
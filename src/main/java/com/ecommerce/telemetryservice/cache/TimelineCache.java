@@ -0,0 +1,189 @@
+package com.ecommerce.telemetryservice.cache;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.view.TraceTimeline;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LRU cache of built trace timelines, bounded by the total span count of the cached
+ * traces and expiring after a TTL. Only traces that have gone quiet are cached: a trace
+ * that received spans within {@code telemetry.timeline-cache.quiet-seconds} is always
+ * rebuilt.
+ * <p>
+ * Ingest only notes the time of the last write per trace, a single map put. A cached
+ * timeline loaded before that time is stale and dropped on its next read, so the write
+ * path never takes the cache lock. Write times are kept until the trace is quiet again;
+ * {@link #prune} then drops them together with the entries they invalidate.
+ */
+@Component
+public class TimelineCache {
+
+    private record Entry(TraceTimeline timeline, int spanCount, long loadedMicros) {
+    }
+
+    @Value("${telemetry.timeline-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telemetry.timeline-cache.max-spans:100000}")
+    private long maxSpans;
+
+    @Value("${telemetry.timeline-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${telemetry.timeline-cache.quiet-seconds:60}")
+    private long quietSeconds;
+
+    @Autowired
+    private TimelineCacheMetrics metrics;
+
+    // Access order: the eldest entry is the least recently read
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedSpans;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        metrics.registerGauges(this);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Notes that spans of the traces were written; call after they are readable. */
+    public void recordWrites(List<TraceEvent> events) {
+        if (!enabled) {
+            return;
+        }
+        long now = EpochMicros.now();
+        String previous = null;
+        for (TraceEvent event : events) {
+            // Batches usually hold runs of spans of the same trace
+            if (!event.getTraceId().equals(previous)) {
+                lastWrites.put(event.getTraceId(), now);
+                previous = event.getTraceId();
+            }
+        }
+    }
+
+    /**
+     * The cached timeline of a quiet trace, or null when it has to be built; then build
+     * it and hand it to {@link #put} with the time {@code find} was called.
+     */
+    public synchronized TraceTimeline find(String traceId) {
+        if (!enabled) {
+            return null;
+        }
+        long now = EpochMicros.now();
+        Long lastWrite = lastWrites.get(traceId);
+        if (lastWrite != null && now - lastWrite < quietSeconds * 1_000_000L) {
+            metrics.recordBypass();
+            return null;
+        }
+        Entry entry = entries.get(traceId);
+        if (entry == null) {
+            metrics.recordMiss();
+            return null;
+        }
+        if (lastWrite != null && lastWrite >= entry.loadedMicros()) {
+            remove(traceId);
+            metrics.recordInvalidation();
+            metrics.recordMiss();
+            return null;
+        }
+        if (now - entry.loadedMicros() >= ttlSeconds * 1_000_000L) {
+            remove(traceId);
+            metrics.recordExpired();
+            metrics.recordMiss();
+            return null;
+        }
+        metrics.recordHit();
+        return entry.timeline();
+    }
+
+    /**
+     * Caches a timeline whose reads started at {@code loadedMicros}, unless spans of the
+     * trace were written since or shortly before, or the load took so long that the
+     * write times it is checked against may already be pruned.
+     */
+    public synchronized void put(String traceId, TraceTimeline timeline, int spanCount, long loadedMicros) {
+        if (!enabled || spanCount > maxSpans) {
+            return;
+        }
+        long quietMicros = quietSeconds * 1_000_000L;
+        Long lastWrite = lastWrites.get(traceId);
+        if (lastWrite != null && loadedMicros - lastWrite < quietMicros || EpochMicros.now() - loadedMicros >= quietMicros) {
+            return;
+        }
+        remove(traceId);
+        entries.put(traceId, new Entry(timeline, spanCount, loadedMicros));
+        cachedSpans += spanCount;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (cachedSpans > maxSpans && eldest.hasNext()) {
+            cachedSpans -= eldest.next().getValue().spanCount();
+            eldest.remove();
+            metrics.recordSizeEviction();
+        }
+    }
+
+    /** Drops everything, e.g. after retention deleted spans. */
+    public synchronized void clear() {
+        entries.clear();
+        cachedSpans = 0;
+    }
+
+    /**
+     * Forgets the write times of traces that are quiet again, dropping the entries they
+     * invalidate first, and drops expired entries.
+     */
+    @Scheduled(fixedDelayString = "${telemetry.timeline-cache.prune-interval-ms:10000}")
+    public synchronized void prune() {
+        long now = EpochMicros.now();
+        for (Map.Entry<String, Long> write : lastWrites.entrySet()) {
+            if (now - write.getValue() >= quietSeconds * 1_000_000L) {
+                Entry entry = entries.get(write.getKey());
+                if (entry != null && write.getValue() >= entry.loadedMicros()) {
+                    remove(write.getKey());
+                    metrics.recordInvalidation();
+                }
+                lastWrites.remove(write.getKey(), write.getValue());
+            }
+        }
+        Iterator<Entry> cached = entries.values().iterator();
+        while (cached.hasNext()) {
+            Entry entry = cached.next();
+            if (now - entry.loadedMicros() >= ttlSeconds * 1_000_000L) {
+                cachedSpans -= entry.spanCount();
+                cached.remove();
+                metrics.recordExpired();
+            }
+        }
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getSpanCount() {
+        return cachedSpans;
+    }
+
+    private void remove(String traceId) {
+        Entry removed = entries.remove(traceId);
+        if (removed != null) {
+            cachedSpans -= removed.spanCount();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.telemetryservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes {@link TimelineCache} activity as {@code telemetry.timeline.cache.requests{result}}
+ * (hit, miss, or bypass for traces still receiving spans),
+ * {@code telemetry.timeline.cache.evictions{cause}} (size, expired or invalidated) and the
+ * {@code telemetry.timeline.cache.entries} and {@code telemetry.timeline.cache.spans} gauges.
+ */
+@Component
+public class TimelineCacheMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter bypasses;
+    private Counter sizeEvictions;
+    private Counter expiredEvictions;
+    private Counter invalidations;
+
+    @PostConstruct
+    public void init() {
+        hits = meterRegistry.counter("telemetry.timeline.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("telemetry.timeline.cache.requests", "result", "miss");
+        bypasses = meterRegistry.counter("telemetry.timeline.cache.requests", "result", "bypass");
+        sizeEvictions = meterRegistry.counter("telemetry.timeline.cache.evictions", "cause", "size");
+        expiredEvictions = meterRegistry.counter("telemetry.timeline.cache.evictions", "cause", "expired");
+        invalidations = meterRegistry.counter("telemetry.timeline.cache.evictions", "cause", "invalidated");
+    }
+
+    /** Called by the cache once it is set up; the cache depends on these metrics, not the reverse. */
+    public void registerGauges(TimelineCache timelineCache) {
+        Gauge.builder("telemetry.timeline.cache.entries", timelineCache, TimelineCache::getEntryCount)
+            .description("Trace timelines held by the cache")
+            .register(meterRegistry);
+        Gauge.builder("telemetry.timeline.cache.spans", timelineCache, TimelineCache::getSpanCount)
+            .description("Spans in the cached timelines, the weight bounded by telemetry.timeline-cache.max-spans")
+            .register(meterRegistry);
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordBypass() {
+        bypasses.increment();
+    }
+
+    public void recordSizeEviction() {
+        sizeEvictions.increment();
+    }
+
+    public void recordExpired() {
+        expiredEvictions.increment();
+    }
+
+    public void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    public double getHitRatio() {
+        double hitCount = hits.count();
+        double total = hitCount + misses.count() + bypasses.count();
+        return total > 0 ? hitCount / total : 0.0;
+    }
+}
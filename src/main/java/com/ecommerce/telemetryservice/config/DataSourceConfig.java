@@ -0,0 +1,136 @@
+package com.ecommerce.telemetryservice.config;
+
+import com.ecommerce.telemetryservice.shard.ShardRoutingDataSource;
+import com.ecommerce.telemetryservice.shard.ShardSchemaInitializer;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with one Hikari write pool and one read pool
+ * per shard, behind a {@link ShardRoutingDataSource}. Read-only transactions (dashboard
+ * queries) use the read pool, so a burst of them waits for read connections instead of
+ * taking the ones ingest needs.
+ * <p>
+ * Shard 0 is {@code spring.datasource}; {@code telemetry.shards.urls} adds more.
+ * {@code telemetry.pools.read.urls} points the read pools at replicas, one per shard in
+ * shard order; by default they connect to the primaries. Pools are named
+ * {@code telemetry-write-<shard>} and {@code telemetry-read-<shard>}, and Hikari publishes
+ * their connection wait time as {@code hikaricp.connections.acquire{pool}}.
+ * <p>
+ * Only active with shards, replicas or {@code telemetry.pools.enabled}; a single database
+ * otherwise keeps Boot's auto-configured data source.
+ */
+@Configuration
+@Conditional(DataSourceConfig.PoolsConfigured.class)
+public class DataSourceConfig {
+
+    static class PoolsConfigured extends AnyNestedCondition {
+
+        PoolsConfigured() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty("telemetry.shards.urls")
+        static class Shards {
+        }
+
+        @ConditionalOnProperty("telemetry.pools.read.urls")
+        static class Replicas {
+        }
+
+        @ConditionalOnProperty(name = "telemetry.pools.enabled", havingValue = "true")
+        static class SplitPools {
+        }
+    }
+
+    @Value("${telemetry.shards.urls:}")
+    private String shardUrls;
+
+    @Value("${telemetry.pools.read.urls:}")
+    private String readUrls;
+
+    @Value("${telemetry.pools.write.max-size:10}")
+    private int writePoolSize;
+
+    @Value("${telemetry.pools.write.connection-timeout-ms:30000}")
+    private long writeConnectionTimeoutMs;
+
+    @Value("${telemetry.pools.read.max-size:10}")
+    private int readPoolSize;
+
+    @Value("${telemetry.pools.read.connection-timeout-ms:30000}")
+    private long readConnectionTimeoutMs;
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        List<String> primaries = new ArrayList<>();
+        primaries.add(properties.determineUrl());
+        primaries.addAll(split(shardUrls));
+        List<String> replicas = split(readUrls);
+        if (!replicas.isEmpty() && replicas.size() != primaries.size()) {
+            throw new IllegalArgumentException("telemetry.pools.read.urls needs one URL per shard: "
+                + replicas.size() + " for " + primaries.size() + " shards");
+        }
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        List<DataSource> writePools = new ArrayList<>();
+        List<DataSource> readPools = new ArrayList<>();
+        for (int shard = 0; shard < primaries.size(); shard++) {
+            writePools.add(pool(properties, primaries.get(shard), "telemetry-write-" + shard,
+                writePoolSize, writeConnectionTimeoutMs, false, registry));
+            readPools.add(pool(properties, replicas.isEmpty() ? primaries.get(shard) : replicas.get(shard), "telemetry-read-" + shard,
+                readPoolSize, readConnectionTimeoutMs, true, registry));
+        }
+        return new ShardRoutingDataSource(writePools, readPools);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource shardRoutingDataSource, EntityManagerFactoryBuilder entityManagerFactoryBuilder,
+                                                         JpaProperties jpaProperties, HibernateProperties hibernateProperties) {
+        return new ShardSchemaInitializer(shardRoutingDataSource, entityManagerFactoryBuilder, jpaProperties, hibernateProperties);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String url, String name, int maxSize,
+                                         long connectionTimeoutMs, boolean readOnly, MeterRegistry registry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(maxSize);
+        pool.setConnectionTimeout(connectionTimeoutMs);
+        pool.setReadOnly(readOnly);
+        if (registry != null) {
+            pool.setMetricRegistry(registry);
+        }
+        return pool;
+    }
+
+    private static List<String> split(String urls) {
+        return Arrays.stream(urls.split(","))
+            .map(String::trim)
+            .filter(url -> !url.isEmpty())
+            .toList();
+    }
+}
@@ -1,8 +1,20 @@
 package com.ecommerce.telemetryservice.controller;
 
 import com.ecommerce.telemetryservice.dto.TraceEventDto;
+import com.ecommerce.telemetryservice.ingest.WriteBehindFullException;
 import com.ecommerce.telemetryservice.model.TraceEvent;
 import com.ecommerce.telemetryservice.service.TelemetryService;
+import com.ecommerce.telemetryservice.view.CursorPage;
+import com.ecommerce.telemetryservice.view.EndpointStats;
+import com.ecommerce.telemetryservice.view.HealthStatus;
+import com.ecommerce.telemetryservice.view.LiveServiceMetrics;
+import com.ecommerce.telemetryservice.view.OperationLatency;
+import com.ecommerce.telemetryservice.view.ServiceMetrics;
+import com.ecommerce.telemetryservice.view.ServiceRollup;
+import com.ecommerce.telemetryservice.view.ServiceTimeSeries;
+import com.ecommerce.telemetryservice.view.TextSearchResult;
+import com.ecommerce.telemetryservice.view.TraceListItem;
+import com.ecommerce.telemetryservice.view.TraceTimeline;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,9 +24,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +49,7 @@ public class TelemetryController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Event recorded successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid event data provided"),
+        @ApiResponse(responseCode = "503", description = "Write-behind buffer full, retry later"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<TraceEvent> recordEvent(@RequestBody TraceEventDto eventDto) {
@@ -44,6 +62,7 @@ public class TelemetryController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Events recorded successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid event data provided"),
+        @ApiResponse(responseCode = "503", description = "Write-behind buffer full, retry later"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<List<TraceEvent>> recordEventsBatch(@RequestBody List<TraceEventDto> eventDtos) {
@@ -72,21 +91,21 @@ public class TelemetryController {
         @ApiResponse(responseCode = "404", description = "No timeline found for the specified trace ID"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Map<String, Object>> getTraceTimeline(
+    public ResponseEntity<TraceTimeline> getTraceTimeline(
         @Parameter(description = "Unique identifier of the trace", required = true, example = "trace-123-abc")
         @PathVariable String traceId) {
-        Map<String, Object> timeline = telemetryService.getTraceTimeline(traceId);
+        TraceTimeline timeline = telemetryService.getTraceTimeline(traceId);
         return ResponseEntity.ok(timeline);
     }
     
     @GetMapping("/traces")
-    @Operation(summary = "Get paginated traces", description = "Retrieves a paginated list of traces with optional filtering by service, operation, and status")
+    @Operation(summary = "Get paginated traces", description = "Retrieves a paginated list of traces with optional filtering by service, operation, status, and metadata tags. Filters are applied before paging")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Traces retrieved successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid pagination or filter parameters"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Page<Map<String, Object>>> getTraces(
+    public ResponseEntity<Page<TraceListItem>> getTraces(
             @Parameter(description = "Page number (0-based)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page", example = "20")
@@ -95,13 +114,98 @@ public class TelemetryController {
             @RequestParam(required = false) String serviceName,
             @Parameter(description = "Filter by operation name", example = "register_user")
             @RequestParam(required = false) String operation,
-            @Parameter(description = "Filter by status code", example = "200")
-            @RequestParam(required = false) String status) {
-        PageRequest pageRequest = PageRequest.of(page, size, Sort.by("timestamp").descending());
-        Page<Map<String, Object>> traces = telemetryService.getTraces(pageRequest, serviceName, operation, status);
+            @Parameter(description = "Filter by span status: SUCCESS, ERROR or TIMEOUT, any case", example = "ERROR")
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Filter by metadata attribute in key:value form; repeat to require several", example = "paymentProvider:stripe")
+            @RequestParam(name = "tag", required = false) List<String> tags,
+            @Parameter(description = "Sort by trace start (timestamp) or duration", example = "timestamp")
+            @RequestParam(defaultValue = "timestamp") String sortBy,
+            @Parameter(description = "Sort direction, asc or desc", example = "desc")
+            @RequestParam(defaultValue = "desc") String direction,
+            @Parameter(description = "Count all matching traces; when false the total only tells whether there is a next page", example = "true")
+            @RequestParam(defaultValue = "true") boolean count) {
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.fromString(direction), sortBy));
+        Page<TraceListItem> traces = telemetryService.getTraces(pageRequest, serviceName, operation, status, tags, count);
         return ResponseEntity.ok(traces);
     }
     
+    @GetMapping("/traces/scroll")
+    @Operation(summary = "Scroll through traces", description = "Lists traces with the same filters and sorting as the paginated listing, keyset-paged: pass the nextCursor of a page to get the next one. Deep pages cost the same as the first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Traces retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or filter parameters"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<CursorPage<TraceListItem>> scrollTraces(
+            @Parameter(description = "Opaque cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of items per page", example = "20")
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Filter by service name", example = "user-service")
+            @RequestParam(required = false) String serviceName,
+            @Parameter(description = "Filter by operation name", example = "register_user")
+            @RequestParam(required = false) String operation,
+            @Parameter(description = "Filter by span status: SUCCESS, ERROR or TIMEOUT, any case", example = "ERROR")
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Filter by metadata attribute in key:value form; repeat to require several", example = "paymentProvider:stripe")
+            @RequestParam(name = "tag", required = false) List<String> tags,
+            @Parameter(description = "Sort by trace start (timestamp) or duration", example = "timestamp")
+            @RequestParam(defaultValue = "timestamp") String sortBy,
+            @Parameter(description = "Sort direction, asc or desc", example = "desc")
+            @RequestParam(defaultValue = "desc") String direction) {
+        Sort sort = Sort.by(Sort.Direction.fromString(direction), sortBy);
+        CursorPage<TraceListItem> traces = telemetryService.getTracesAfter(cursor, size, sort, serviceName, operation, status, tags);
+        return ResponseEntity.ok(traces);
+    }
+    
+    @GetMapping("/spans")
+    @Operation(summary = "List spans", description = "Lists spans newest first, keyset-paged: pass the nextCursor of a page to get the next one")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Spans retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or filter parameters"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<CursorPage<TraceEvent>> getSpans(
+            @Parameter(description = "Opaque cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Number of spans per page", example = "100")
+            @RequestParam(defaultValue = "100") int size,
+            @Parameter(description = "Filter by service name", example = "payment-service")
+            @RequestParam(required = false) String serviceName,
+            @Parameter(description = "Filter by operation name", example = "process_payment")
+            @RequestParam(required = false) String operation,
+            @Parameter(description = "Filter by span status: SUCCESS, ERROR or TIMEOUT, any case", example = "ERROR")
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Window start (ISO date-time), inclusive", example = "2024-01-15T10:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Window end (ISO date-time), exclusive", example = "2024-01-15T11:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        CursorPage<TraceEvent> spans = telemetryService.getSpans(cursor, size, serviceName, operation, status, from, to);
+        return ResponseEntity.ok(spans);
+    }
+    
+    @GetMapping("/search")
+    @Operation(summary = "Search error messages and URLs", description = "Finds spans whose error message or HTTP URL contains the given text within a time window, newest traces first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Search completed successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid search parameters"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<TextSearchResult> searchText(
+            @Parameter(description = "Text to search for (case-insensitive)", required = true, example = "card declined")
+            @RequestParam String q,
+            @Parameter(description = "Restrict the search to errorMessage or httpUrl", example = "errorMessage")
+            @RequestParam(required = false) String field,
+            @Parameter(description = "Window start (ISO date-time); defaults to 24 hours before the window end", example = "2024-01-15T10:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Window end (ISO date-time); defaults to now", example = "2024-01-15T11:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Maximum number of matching traces", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        TextSearchResult result = telemetryService.searchText(q, field, from, to, limit);
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/services")
     @Operation(summary = "Get all services", description = "Retrieves a list of all services that have recorded telemetry data")
     @ApiResponses(value = {
@@ -127,28 +231,121 @@ public class TelemetryController {
         return ResponseEntity.ok(operations);
     }
     
+    @GetMapping("/services/{serviceName}/endpoints")
+    @Operation(summary = "Get service endpoint metrics", description = "Retrieves request count, latency and error metrics per HTTP method and route template for a specific service")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Endpoint metrics retrieved successfully"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<EndpointStats>> getServiceEndpoints(
+        @Parameter(description = "Name of the service", required = true, example = "order-service")
+        @PathVariable String serviceName) {
+        List<EndpointStats> endpoints = telemetryService.getServiceEndpoints(serviceName);
+        return ResponseEntity.ok(endpoints);
+    }
+    
     @GetMapping("/services/{serviceName}/metrics")
-    @Operation(summary = "Get service metrics", description = "Retrieves performance and health metrics for a specific service")
+    @Operation(summary = "Get service metrics", description = "Retrieves request count, latency, errors and per-operation counts for a specific service, aggregated in the database over an optional window")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Service metrics retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid window"),
         @ApiResponse(responseCode = "404", description = "Service not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Map<String, Object>> getServiceMetrics(
+    public ResponseEntity<ServiceMetrics> getServiceMetrics(
         @Parameter(description = "Name of the service", required = true, example = "user-service")
-        @PathVariable String serviceName) {
-        Map<String, Object> metrics = telemetryService.getServiceMetrics(serviceName);
+        @PathVariable String serviceName,
+        @Parameter(description = "Window start (ISO date-time, inclusive); unbounded when omitted", example = "2024-01-01T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @Parameter(description = "Window end (ISO date-time, exclusive); unbounded when omitted", example = "2024-01-02T00:00:00")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ServiceMetrics metrics = telemetryService.getServiceMetrics(serviceName, from, to);
         return ResponseEntity.ok(metrics);
     }
     
+    @GetMapping("/services/{serviceName}/rollup")
+    @Operation(summary = "Get service rollup over a window", description = "Retrieves request count, error rate and latency for a service over an arbitrary window, answered from minute/hour/day rollups instead of raw spans")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rollup retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid window"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<ServiceRollup> getServiceRollup(
+            @Parameter(description = "Name of the service", required = true, example = "order-service")
+            @PathVariable String serviceName,
+            @Parameter(description = "Restrict to one operation", example = "create_order")
+            @RequestParam(required = false) String operation,
+            @Parameter(description = "Window start (ISO date-time); defaults to 24 hours before the window end", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Window end (ISO date-time); defaults to now", example = "2024-01-31T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ServiceRollup rollup = telemetryService.getServiceRollup(serviceName, operation, from, to);
+        return ResponseEntity.ok(rollup);
+    }
+
+    @GetMapping("/services/{serviceName}/timeseries")
+    @Operation(summary = "Get service time series", description = "Retrieves request count, error count and latency percentiles per time bucket, from rollups for whole-minute steps and from database-side bucketing for finer ones, which only reach back to before spans are compacted")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Time series retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid window or step, or a sub-minute step over compacted spans"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<ServiceTimeSeries> getServiceTimeSeries(
+            @Parameter(description = "Name of the service", required = true, example = "order-service")
+            @PathVariable String serviceName,
+            @Parameter(description = "Restrict to one operation", example = "create_order")
+            @RequestParam(required = false) String operation,
+            @Parameter(description = "Window start (ISO date-time); defaults to 24 hours before the window end", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Window end (ISO date-time); defaults to now", example = "2024-01-02T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Bucket width from 10s to 1d (s, m, h or d); defaults to one giving at most 300 points", example = "5m")
+            @RequestParam(required = false) String step) {
+        ServiceTimeSeries timeSeries = telemetryService.getServiceTimeSeries(serviceName, operation, from, to, step);
+        return ResponseEntity.ok(timeSeries);
+    }
+
+    @GetMapping("/services/{serviceName}/live")
+    @Operation(summary = "Get live service metrics", description = "Retrieves request rate, error rate and latency of a service for the last 1, 5 and 15 minutes, per operation and in total, from in-memory per-second counters")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Live metrics retrieved successfully"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<LiveServiceMetrics> getLiveMetrics(
+            @Parameter(description = "Name of the service", required = true, example = "order-service")
+            @PathVariable String serviceName) {
+        LiveServiceMetrics live = telemetryService.getLiveMetrics(serviceName);
+        return ResponseEntity.ok(live);
+    }
+
+    @GetMapping("/services/{serviceName}/operations/{operation}/latency")
+    @Operation(summary = "Get operation latency percentiles", description = "Retrieves p50/p90/p99/p99.9 latency of one operation over an arbitrary window, merged from the histograms stored with each rollup bucket")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Latency retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid window"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<OperationLatency> getOperationLatency(
+            @Parameter(description = "Name of the service", required = true, example = "order-service")
+            @PathVariable String serviceName,
+            @Parameter(description = "Name of the operation", required = true, example = "create_order")
+            @PathVariable String operation,
+            @Parameter(description = "Window start (ISO date-time); defaults to 24 hours before the window end", example = "2024-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Window end (ISO date-time); defaults to now", example = "2024-01-31T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        OperationLatency latency = telemetryService.getOperationLatency(serviceName, operation, from, to);
+        return ResponseEntity.ok(latency);
+    }
+
     @GetMapping("/health")
     @Operation(summary = "Get system health status", description = "Retrieves overall health status and system information")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Health status retrieved successfully"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Map<String, Object>> getHealthStatus() {
-        Map<String, Object> health = telemetryService.getHealthStatus();
+    public ResponseEntity<HealthStatus> getHealthStatus() {
+        HealthStatus health = telemetryService.getHealthStatus();
         return ResponseEntity.ok(health);
     }
     
@@ -165,4 +362,29 @@ public class TelemetryController {
         Map<String, Object> result = telemetryService.cleanupOldTraces(olderThanDays);
         return ResponseEntity.ok(result);
     }
+    
+    /**
+     * Filters, windows, steps, sorts and cursors are validated where they are parsed;
+     * whatever they reject is the caller's mistake, not a server error.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(error(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+    
+    /** Ingest is shedding load until the write-behind buffer drains; the client should retry. */
+    @ExceptionHandler(WriteBehindFullException.class)
+    public ResponseEntity<Map<String, Object>> handleBufferFull(WriteBehindFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+    
+    private static Map<String, Object> error(HttpStatus status, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("status", status.value());
+        error.put("error", status.getReasonPhrase());
+        error.put("message", message);
+        return error;
+    }
 }
\ No newline at end of file
@@ -12,7 +12,11 @@ public class TraceEventDto {
     private String operation;
     private TraceEvent.EventType eventType;
     private LocalDateTime timestamp;
+    // Epoch microseconds; takes precedence over timestamp when both are sent
+    private Long timestampMicros;
     private Long durationMs;
+    // Microsecond duration; takes precedence over durationMs when both are sent
+    private Long durationMicros;
     private TraceEvent.Status status;
     private String metadata;
     private String httpMethod;
@@ -46,9 +50,15 @@ public class TraceEventDto {
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     
+    public Long getTimestampMicros() { return timestampMicros; }
+    public void setTimestampMicros(Long timestampMicros) { this.timestampMicros = timestampMicros; }
+    
     public Long getDurationMs() { return durationMs; }
     public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
     
+    public Long getDurationMicros() { return durationMicros; }
+    public void setDurationMicros(Long durationMicros) { this.durationMicros = durationMicros; }
+    
     public TraceEvent.Status getStatus() { return status; }
     public void setStatus(TraceEvent.Status status) { this.status = status; }
     
@@ -0,0 +1,242 @@
+package com.ecommerce.telemetryservice.index;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.snapshot.SnapshotFormat;
+import com.ecommerce.telemetryservice.snapshot.SnapshotParticipant;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Inverted index from metadata attributes ({@code key=value}) to the traces carrying them.
+ * <p>
+ * Metadata JSON is read once at ingest with Jackson's streaming parser; scalar fields are
+ * indexed under their dotted path ({@code shipping.region}) and scalar array elements under
+ * the array's path. Each attribute maps to a {@link PostingList} of trace ordinals, so a
+ * multi-tag query is an intersection of sorted int runs, smallest list first.
+ */
+@Component
+public class AttributeIndex implements SpanIndex, SnapshotParticipant {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final char SEPARATOR = '\u0000';
+
+    @Autowired
+    private TraceDictionary traceDictionary;
+
+    @Value("${telemetry.index.attributes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telemetry.index.attributes.max-attributes-per-span:32}")
+    private int maxAttributesPerSpan;
+
+    @Value("${telemetry.index.attributes.max-value-length:128}")
+    private int maxValueLength;
+
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+    private long prunedRetirements;
+
+    @Override
+    public String getName() {
+        return "attributes";
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void index(TraceEvent event) {
+        if (!enabled || event.getTraceId() == null) {
+            return;
+        }
+        String metadata = event.getMetadata();
+        if (metadata == null || metadata.isEmpty() || metadata.charAt(0) != '{') {
+            return;
+        }
+        List<String> attributes = extractAttributes(metadata);
+        if (attributes.isEmpty()) {
+            return;
+        }
+        Lock ordinalsInUse = traceDictionary.ordinalsInUse();
+        ordinalsInUse.lock();
+        try {
+            int ordinal = traceDictionary.ordinalFor(event);
+            for (String attribute : attributes) {
+                postings.computeIfAbsent(attribute, a -> new PostingList()).add(ordinal);
+            }
+        } finally {
+            ordinalsInUse.unlock();
+        }
+    }
+
+    /**
+     * Returns the traces carrying every given attribute, newest first.
+     *
+     * @param tags attribute key to required value
+     */
+    public List<String> findTraceIds(Map<String, String> tags) {
+        Lock ordinalsInUse = traceDictionary.ordinalsInUse();
+        ordinalsInUse.lock();
+        try {
+            return findTraceIdsWithStableOrdinals(tags);
+        } finally {
+            ordinalsInUse.unlock();
+        }
+    }
+
+    private List<String> findTraceIdsWithStableOrdinals(Map<String, String> tags) {
+        List<int[]> lists = new ArrayList<>(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            PostingList list = postings.get(tag.getKey() + SEPARATOR + tag.getValue());
+            if (list == null) {
+                return List.of();
+            }
+            lists.add(list.toArray());
+        }
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+        lists.sort(Comparator.comparingInt(a -> a.length));
+        int[] matches = lists.get(0);
+        for (int i = 1; i < lists.size() && matches.length > 0; i++) {
+            matches = PostingList.intersect(matches, lists.get(i));
+        }
+        return traceDictionary.traceIdsNewestFirst(matches);
+    }
+
+    /**
+     * Removes ordinals retired from the {@link TraceDictionary}; attribute postings are not
+     * time-partitioned, so the cutoff itself is not needed.
+     */
+    @Override
+    public synchronized void prune(long cutoffMicros) {
+        long retirements = traceDictionary.getRetiredCount();
+        if (retirements == prunedRetirements) {
+            return;
+        }
+        prunedRetirements = retirements;
+        for (Iterator<PostingList> it = postings.values().iterator(); it.hasNext(); ) {
+            if (it.next().removeIf(ordinal -> !traceDictionary.isLive(ordinal))) {
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void renumber(int[] ordinalMap) {
+        postings.values().removeIf(list -> list.renumber(ordinalMap));
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "attributes";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out, boolean shutdown) throws IOException {
+        List<Map.Entry<String, PostingList>> entries = new ArrayList<>(postings.entrySet());
+        out.writeInt(entries.size());
+        for (Map.Entry<String, PostingList> entry : entries) {
+            SnapshotFormat.writeString(out, entry.getKey());
+            SnapshotFormat.writeSortedInts(out, entry.getValue().toArray());
+        }
+    }
+
+    @Override
+    public synchronized void restoreSnapshot(ByteBuffer in) {
+        postings.clear();
+        prunedRetirements = 0;
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            String attribute = SnapshotFormat.readString(in);
+            postings.put(attribute, PostingList.of(SnapshotFormat.readSortedInts(in)));
+        }
+    }
+
+    @Override
+    public long getSizeBytes() {
+        long bytes = 0;
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            bytes += 64 + entry.getKey().length() + entry.getValue().sizeBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getTermCount() {
+        return postings.size();
+    }
+
+    private List<String> extractAttributes(String metadata) {
+        List<String> attributes = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(metadata)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return attributes;
+            }
+            Deque<String> prefixes = new ArrayDeque<>();
+            String prefix = "";
+            String field = null;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && attributes.size() < maxAttributesPerSpan) {
+                switch (token) {
+                    case FIELD_NAME:
+                        field = parser.currentName();
+                        break;
+                    case START_OBJECT:
+                        prefixes.push(prefix);
+                        prefix = prefix + field + ".";
+                        break;
+                    case END_OBJECT:
+                        if (prefixes.isEmpty()) {
+                            return attributes;
+                        }
+                        prefix = prefixes.pop();
+                        break;
+                    case START_ARRAY:
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                            if (token.isScalarValue()) {
+                                addAttribute(attributes, prefix + field, parser);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                        break;
+                    default:
+                        if (token.isScalarValue()) {
+                            addAttribute(attributes, prefix + field, parser);
+                        }
+                }
+            }
+        } catch (IOException e) {
+            // Metadata is free-form; anything that is not a JSON object simply isn't indexed
+        }
+        return attributes;
+    }
+
+    private void addAttribute(List<String> attributes, String key, JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL || attributes.size() >= maxAttributesPerSpan) {
+            return;
+        }
+        String value = parser.getText();
+        if (value.length() <= maxValueLength) {
+            attributes.add(key + SEPARATOR + value);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.ecommerce.telemetryservice.index;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.snapshot.SnapshotFormat;
+import com.ecommerce.telemetryservice.snapshot.SnapshotParticipant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Word index over {@code errorMessage} and {@code httpUrl}, partitioned into time buckets.
+ * <p>
+ * Text is lower-cased and split on anything that is not a letter or digit, so
+ * {@code /api/orders/42?expand=items} yields {@code api, orders, 42, expand, items}.
+ * Each bucket keeps a sorted term dictionary per field pointing at posting lists of trace
+ * ordinals. A query matches traces holding every query word in one bucket, with the last
+ * word matched as a prefix so partially typed words still hit.
+ * <p>
+ * Bucketing by span time keeps window queries to the buckets they overlap and lets
+ * retention drop whole buckets instead of editing posting lists. Matches are candidates:
+ * callers verify the actual substring against the spans.
+ */
+@Component
+public class FullTextIndex implements SpanIndex, SnapshotParticipant {
+
+    public enum Field {
+        ERROR_MESSAGE('e'),
+        HTTP_URL('u');
+
+        private final char prefix;
+
+        Field(char prefix) {
+            this.prefix = prefix;
+        }
+
+        String term(String token) {
+            return prefix + ":" + token;
+        }
+
+        public String text(TraceEvent event) {
+            return this == ERROR_MESSAGE ? event.getErrorMessage() : event.getHttpUrl();
+        }
+    }
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MAX_TOKENS_PER_FIELD = 64;
+    private static final int MAX_PREFIX_EXPANSION = 256;
+
+    @Autowired
+    private TraceDictionary traceDictionary;
+
+    @Value("${telemetry.index.fulltext.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telemetry.index.fulltext.bucket-minutes:60}")
+    private long bucketMinutes;
+
+    private final ConcurrentSkipListMap<Long, ConcurrentSkipListMap<String, PostingList>> buckets = new ConcurrentSkipListMap<>();
+
+    @Override
+    public String getName() {
+        return "fulltext";
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void index(TraceEvent event) {
+        if (!enabled || event.getTraceId() == null || (event.getErrorMessage() == null && event.getHttpUrl() == null)) {
+            return;
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (Field field : Field.values()) {
+            for (String token : tokenize(field.text(event))) {
+                terms.add(field.term(token));
+            }
+        }
+        if (terms.isEmpty()) {
+            return;
+        }
+        long timestamp = event.getTimestampMicros() != EpochMicros.NONE ? event.getTimestampMicros() : EpochMicros.now();
+        Lock ordinalsInUse = traceDictionary.ordinalsInUse();
+        ordinalsInUse.lock();
+        try {
+            int ordinal = traceDictionary.ordinalFor(event);
+            ConcurrentSkipListMap<String, PostingList> bucket = buckets.computeIfAbsent(bucketOf(timestamp), b -> new ConcurrentSkipListMap<>());
+            for (String term : terms) {
+                bucket.computeIfAbsent(term, t -> new PostingList()).add(ordinal);
+            }
+        } finally {
+            ordinalsInUse.unlock();
+        }
+    }
+
+    /**
+     * Returns traces with a span in the window whose text in one of the fields contains all
+     * words of the query, newest first.
+     */
+    public List<String> findTraceIds(String query, Set<Field> fields, long fromMicros, long toMicros) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || fields.isEmpty()) {
+            return List.of();
+        }
+        Lock ordinalsInUse = traceDictionary.ordinalsInUse();
+        ordinalsInUse.lock();
+        try {
+            int[] matches = new int[0];
+            for (ConcurrentSkipListMap<String, PostingList> bucket : buckets.subMap(bucketOf(fromMicros), true, bucketOf(toMicros), true).values()) {
+                for (Field field : fields) {
+                    matches = union(matches, match(bucket, field, tokens));
+                }
+            }
+            return traceDictionary.traceIdsNewestFirst(matches);
+        } finally {
+            ordinalsInUse.unlock();
+        }
+    }
+
+    /**
+     * Drops every bucket that ends before the cutoff.
+     */
+    @Override
+    public void prune(long cutoffMicros) {
+        buckets.headMap(bucketOf(cutoffMicros), false).clear();
+    }
+
+    @Override
+    public void renumber(int[] ordinalMap) {
+        for (ConcurrentSkipListMap<String, PostingList> bucket : buckets.values()) {
+            bucket.values().removeIf(list -> list.renumber(ordinalMap));
+        }
+        buckets.values().removeIf(Map::isEmpty);
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "fulltext";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out, boolean shutdown) throws IOException {
+        List<Map.Entry<Long, ConcurrentSkipListMap<String, PostingList>>> snapshot = new ArrayList<>(buckets.entrySet());
+        out.writeLong(bucketMinutes);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<Long, ConcurrentSkipListMap<String, PostingList>> bucket : snapshot) {
+            List<Map.Entry<String, PostingList>> terms = new ArrayList<>(bucket.getValue().entrySet());
+            out.writeLong(bucket.getKey());
+            out.writeInt(terms.size());
+            for (Map.Entry<String, PostingList> term : terms) {
+                SnapshotFormat.writeString(out, term.getKey());
+                SnapshotFormat.writeSortedInts(out, term.getValue().toArray());
+            }
+        }
+    }
+
+    /** Buckets are keyed by their index, so they only carry over with the same bucket size. */
+    @Override
+    public boolean canRestore(ByteBuffer in) {
+        return in.getLong() == bucketMinutes;
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer in) {
+        buckets.clear();
+        in.getLong();
+        int bucketCount = in.getInt();
+        for (int i = 0; i < bucketCount; i++) {
+            ConcurrentSkipListMap<String, PostingList> bucket = new ConcurrentSkipListMap<>();
+            buckets.put(in.getLong(), bucket);
+            int termCount = in.getInt();
+            for (int j = 0; j < termCount; j++) {
+                String term = SnapshotFormat.readString(in);
+                bucket.put(term, PostingList.of(SnapshotFormat.readSortedInts(in)));
+            }
+        }
+    }
+
+    @Override
+    public long getSizeBytes() {
+        long bytes = 0;
+        for (ConcurrentSkipListMap<String, PostingList> bucket : buckets.values()) {
+            for (Map.Entry<String, PostingList> entry : bucket.entrySet()) {
+                bytes += 64 + entry.getKey().length() + entry.getValue().sizeBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public long getTermCount() {
+        return buckets.values().stream().mapToLong(Map::size).sum();
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    /** Lower-cased runs of letters and digits, capped in length and count. */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length() && tokens.size() < MAX_TOKENS_PER_FIELD; i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)).toLowerCase(Locale.ROOT);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private int[] match(ConcurrentSkipListMap<String, PostingList> bucket, Field field, List<String> tokens) {
+        List<int[]> lists = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            PostingList list = bucket.get(field.term(tokens.get(i)));
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list.toArray());
+        }
+        String prefix = field.term(tokens.get(tokens.size() - 1));
+        ConcurrentNavigableMap<String, PostingList> expansion = bucket.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        int[] last = new int[0];
+        int expanded = 0;
+        for (PostingList list : expansion.values()) {
+            last = union(last, list.toArray());
+            if (++expanded == MAX_PREFIX_EXPANSION) {
+                break;
+            }
+        }
+        lists.add(last);
+        lists.sort(Comparator.comparingInt(a -> a.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = PostingList.intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private long bucketOf(long timestampMicros) {
+        long bucketMicros = bucketMinutes * 60_000_000L;
+        return Math.floorDiv(timestampMicros, bucketMicros);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        return PostingList.union(a, b);
+    }
+}
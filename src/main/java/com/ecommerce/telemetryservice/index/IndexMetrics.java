@@ -0,0 +1,61 @@
+package com.ecommerce.telemetryservice.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the footprint of every {@link SpanIndex} as {@code telemetry.index.size.bytes{index}}
+ * and {@code telemetry.index.terms{index}}, and lookup latency as the
+ * {@code telemetry.index.lookup{index}} timer with p50/p99.
+ */
+@Component
+public class IndexMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private List<SpanIndex> indexes;
+
+    @Autowired
+    private TraceDictionary traceDictionary;
+
+    private final Map<String, Timer> lookupTimers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (SpanIndex index : indexes) {
+            Gauge.builder("telemetry.index.size.bytes", index, SpanIndex::getSizeBytes)
+                .tag("index", index.getName())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+            Gauge.builder("telemetry.index.terms", index, SpanIndex::getTermCount)
+                .tag("index", index.getName())
+                .register(meterRegistry);
+        }
+        Gauge.builder("telemetry.index.size.bytes", traceDictionary, TraceDictionary::getSizeBytes)
+            .tag("index", "traces")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("telemetry.index.traces", traceDictionary, TraceDictionary::getTraceCount)
+            .description("Traces referenced by the in-memory indexes")
+            .register(meterRegistry);
+    }
+
+    public void recordLookup(String index, long elapsedNanos) {
+        lookupTimers.computeIfAbsent(index, name -> Timer.builder("telemetry.index.lookup")
+                .tag("index", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry))
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
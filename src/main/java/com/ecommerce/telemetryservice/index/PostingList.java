@@ -0,0 +1,196 @@
+package com.ecommerce.telemetryservice.index;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Sorted set of trace ordinals stored as delta-encoded varints.
+ * <p>
+ * Ordinals are handed out in arrival order, so nearly every add is an append to the
+ * encoded run. The rare out-of-order add (a late span of an older trace) goes to a small
+ * unsorted tail that is merged into the run once it fills up.
+ */
+final class PostingList {
+
+    private static final int TAIL_CAPACITY = 32;
+
+    private byte[] encoded = new byte[8];
+    private int encodedLength;
+    private int encodedCount;
+    private int lastEncoded = -1;
+
+    private int[] tail;
+    private int tailSize;
+
+    synchronized void add(int ordinal) {
+        if (ordinal > lastEncoded) {
+            append(ordinal - lastEncoded);
+            lastEncoded = ordinal;
+            encodedCount++;
+            return;
+        }
+        if (ordinal == lastEncoded) {
+            return;
+        }
+        if (tail == null) {
+            tail = new int[TAIL_CAPACITY];
+        }
+        for (int i = 0; i < tailSize; i++) {
+            if (tail[i] == ordinal) {
+                return;
+            }
+        }
+        tail[tailSize++] = ordinal;
+        if (tailSize == TAIL_CAPACITY) {
+            rewrite(toArray());
+        }
+    }
+
+    /** All ordinals in ascending order, without duplicates. */
+    synchronized int[] toArray() {
+        int[] result = new int[encodedCount + tailSize];
+        int position = 0;
+        int value = -1;
+        for (int i = 0; i < encodedCount; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            result[i] = value;
+        }
+        if (tailSize == 0) {
+            return result;
+        }
+        System.arraycopy(tail, 0, result, encodedCount, tailSize);
+        Arrays.sort(result);
+        int unique = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[unique++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    /**
+     * Drops every ordinal matching the predicate.
+     *
+     * @return true when the list is now empty
+     */
+    synchronized boolean removeIf(IntPredicate predicate) {
+        int[] values = toArray();
+        int kept = 0;
+        for (int value : values) {
+            if (!predicate.test(value)) {
+                values[kept++] = value;
+            }
+        }
+        if (kept != values.length || tailSize > 0) {
+            rewrite(Arrays.copyOf(values, kept));
+        }
+        return kept == 0;
+    }
+
+    /**
+     * Replaces every ordinal by {@code ordinalMap[ordinal]}, dropping those mapped to -1.
+     * The map must keep the relative order of the ordinals it keeps.
+     *
+     * @return true when the list is now empty
+     */
+    synchronized boolean renumber(int[] ordinalMap) {
+        int[] values = toArray();
+        int kept = 0;
+        for (int value : values) {
+            int renumbered = ordinalMap[value];
+            if (renumbered >= 0) {
+                values[kept++] = renumbered;
+            }
+        }
+        rewrite(Arrays.copyOf(values, kept));
+        return kept == 0;
+    }
+
+    static PostingList of(int[] ascending) {
+        PostingList list = new PostingList();
+        list.rewrite(ascending);
+        return list;
+    }
+
+    synchronized int size() {
+        return encodedCount + tailSize;
+    }
+
+    synchronized long sizeBytes() {
+        return encoded.length + (tail != null ? tail.length * 4L : 0);
+    }
+
+    private void rewrite(int[] sorted) {
+        encoded = new byte[Math.max(8, sorted.length * 2)];
+        encodedLength = 0;
+        encodedCount = 0;
+        lastEncoded = -1;
+        tail = null;
+        tailSize = 0;
+        for (int value : sorted) {
+            append(value - lastEncoded);
+            lastEncoded = value;
+            encodedCount++;
+        }
+    }
+
+    private void append(int delta) {
+        if (encodedLength + 5 > encoded.length) {
+            encoded = Arrays.copyOf(encoded, encoded.length * 2);
+        }
+        while ((delta & ~0x7F) != 0) {
+            encoded[encodedLength++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        encoded[encodedLength++] = (byte) delta;
+    }
+
+    /** Intersection of two ascending ordinal arrays. */
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /** Union of two ascending ordinal arrays. */
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
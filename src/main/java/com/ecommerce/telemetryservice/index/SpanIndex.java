@@ -0,0 +1,38 @@
+package com.ecommerce.telemetryservice.index;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+
+/**
+ * A secondary in-memory index over spans. Implementations are fed every span at ingest
+ * (and once at startup from the database and cold segments) by
+ * {@link com.ecommerce.telemetryservice.service.IndexMaintainer}, and pruned alongside
+ * retention cleanup. Traces are referenced by their {@link TraceDictionary} ordinal.
+ * <p>
+ * Indexes return candidate traces; the database and storage tiers stay authoritative, so
+ * an entry that outlives its span only costs a wasted lookup.
+ */
+public interface SpanIndex {
+
+    /** Short name used as the {@code index} tag on metrics. */
+    String getName();
+
+    void index(TraceEvent event);
+
+    /**
+     * Drops entries older than the cutoff. Called after the {@link TraceDictionary} has
+     * retired every trace whose newest span is older than the cutoff.
+     */
+    void prune(long cutoffMicros);
+
+    /**
+     * Rewrites every posting through {@link TraceDictionary#compact}'s map from old to new
+     * ordinal, dropping ordinals mapped to {@code -1}.
+     */
+    void renumber(int[] ordinalMap);
+
+    /** Approximate heap footprint of the index structures. */
+    long getSizeBytes();
+
+    /** Number of distinct terms (keys) held by the index. */
+    long getTermCount();
+}
@@ -0,0 +1,226 @@
+package com.ecommerce.telemetryservice.index;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.snapshot.SnapshotFormat;
+import com.ecommerce.telemetryservice.snapshot.SnapshotParticipant;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Maps traceIds to dense int ordinals shared by every {@link SpanIndex}, so posting lists
+ * hold small deltas instead of strings. Ordinals are assigned in arrival order and never
+ * reused; retention retires them instead. Once retired slots outnumber live ones,
+ * {@link #compact} renumbers the live traces densely, in the same order, and has the
+ * indexes rewrite their postings, so memory and retention scans follow the live traces
+ * rather than every trace ever seen.
+ * <p>
+ * Snapshotted after the indexes, so every ordinal their postings reference is included.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class TraceDictionary implements SnapshotParticipant {
+
+    private Map<String, Integer> ordinals = new HashMap<>();
+    private List<String> traceIds = new ArrayList<>();
+    private long[] lastSeenMicros = new long[1024];
+    private int liveCount;
+    private long traceIdBytes;
+    private long retiredCount;
+    private long compactions;
+    private long compactionsAtSnapshotStart;
+
+    // Shared by whoever holds an ordinal across calls, exclusive while compact() renumbers
+    private final ReentrantReadWriteLock renumbering = new ReentrantReadWriteLock();
+
+    /**
+     * To be held while an ordinal is handed out and added to postings, or read from
+     * postings and resolved to a traceId, so {@link #compact} cannot renumber in between.
+     */
+    public Lock ordinalsInUse() {
+        return renumbering.readLock();
+    }
+
+    public synchronized int ordinalFor(TraceEvent event) {
+        long ts = event.getTimestampMicros();
+        Integer ordinal = ordinals.get(event.getTraceId());
+        if (ordinal == null) {
+            ordinal = traceIds.size();
+            ordinals.put(event.getTraceId(), ordinal);
+            traceIds.add(event.getTraceId());
+            if (ordinal == lastSeenMicros.length) {
+                lastSeenMicros = Arrays.copyOf(lastSeenMicros, lastSeenMicros.length * 2);
+            }
+            lastSeenMicros[ordinal] = ts;
+            liveCount++;
+            traceIdBytes += 40 + event.getTraceId().length();
+        } else if (ts > lastSeenMicros[ordinal]) {
+            lastSeenMicros[ordinal] = ts;
+        }
+        return ordinal;
+    }
+
+    /** The traceId of a live ordinal, or null once it has been retired. */
+    public synchronized String traceId(int ordinal) {
+        return traceIds.get(ordinal);
+    }
+
+    /** Resolves ascending ordinals to live traceIds, newest first. */
+    public synchronized List<String> traceIdsNewestFirst(int[] ascendingOrdinals) {
+        List<String> result = new ArrayList<>(ascendingOrdinals.length);
+        for (int i = ascendingOrdinals.length - 1; i >= 0; i--) {
+            String traceId = traceIds.get(ascendingOrdinals[i]);
+            if (traceId != null) {
+                result.add(traceId);
+            }
+        }
+        return result;
+    }
+
+    public synchronized boolean isLive(int ordinal) {
+        return traceIds.get(ordinal) != null;
+    }
+
+    /**
+     * Retires every trace whose newest span is older than the cutoff.
+     *
+     * @return number of traces retired
+     */
+    public synchronized int retireBefore(long cutoffMicros) {
+        int retired = 0;
+        for (int ordinal = 0; ordinal < traceIds.size(); ordinal++) {
+            String traceId = traceIds.get(ordinal);
+            if (traceId != null && lastSeenMicros[ordinal] < cutoffMicros) {
+                ordinals.remove(traceId);
+                traceIds.set(ordinal, null);
+                traceIdBytes -= 40 + traceId.length();
+                retired++;
+            }
+        }
+        liveCount -= retired;
+        retiredCount += retired;
+        return retired;
+    }
+
+    /**
+     * Renumbers the live traces 0..n-1 in their current order once at least half of the
+     * ordinals are retired, and hands the old-to-new map ({@code -1} for retired) to
+     * {@code renumberPostings} while no ordinal is in use.
+     *
+     * @return true when the ordinals were renumbered
+     */
+    public boolean compact(Consumer<int[]> renumberPostings) {
+        renumbering.writeLock().lock();
+        try {
+            int[] ordinalMap;
+            synchronized (this) {
+                int slots = traceIds.size();
+                if (slots == liveCount || liveCount * 2 > slots) {
+                    return false;
+                }
+                ordinalMap = new int[slots];
+                Map<String, Integer> liveOrdinals = new HashMap<>();
+                List<String> liveTraceIds = new ArrayList<>(liveCount);
+                long[] liveLastSeen = new long[capacityFor(liveCount)];
+                for (int ordinal = 0; ordinal < slots; ordinal++) {
+                    String traceId = traceIds.get(ordinal);
+                    if (traceId == null) {
+                        ordinalMap[ordinal] = -1;
+                        continue;
+                    }
+                    int renumbered = liveTraceIds.size();
+                    ordinalMap[ordinal] = renumbered;
+                    liveOrdinals.put(traceId, renumbered);
+                    liveTraceIds.add(traceId);
+                    liveLastSeen[renumbered] = lastSeenMicros[ordinal];
+                }
+                ordinals = liveOrdinals;
+                traceIds = liveTraceIds;
+                lastSeenMicros = liveLastSeen;
+                compactions++;
+            }
+            renumberPostings.accept(ordinalMap);
+            return true;
+        } finally {
+            renumbering.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the start of a snapshot round, before any index writes its postings; the
+     * dictionary section then refuses to pair them with renumbered ordinals.
+     */
+    public synchronized void beginSnapshot() {
+        compactionsAtSnapshotStart = compactions;
+    }
+
+    /** Total traces retired since startup; lets indexes skip pruning when nothing changed. */
+    public synchronized long getRetiredCount() {
+        return retiredCount;
+    }
+
+    public synchronized int getTraceCount() {
+        return liveCount;
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "traces";
+    }
+
+    @Override
+    public synchronized void writeSnapshot(DataOutputStream out, boolean shutdown) throws IOException {
+        if (compactions != compactionsAtSnapshotStart) {
+            throw new IllegalStateException("trace ordinals were renumbered while the indexes were written");
+        }
+        out.writeLong(retiredCount);
+        out.writeInt(traceIds.size());
+        for (int ordinal = 0; ordinal < traceIds.size(); ordinal++) {
+            SnapshotFormat.writeString(out, traceIds.get(ordinal));
+            out.writeLong(lastSeenMicros[ordinal]);
+        }
+    }
+
+    /** Ordinals are restored unchanged, including retired ones, so index postings stay valid. */
+    @Override
+    public synchronized void restoreSnapshot(ByteBuffer in) {
+        ordinals.clear();
+        traceIds.clear();
+        liveCount = 0;
+        traceIdBytes = 0;
+        retiredCount = in.getLong();
+        int size = in.getInt();
+        lastSeenMicros = new long[capacityFor(size)];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            String traceId = SnapshotFormat.readString(in);
+            lastSeenMicros[ordinal] = in.getLong();
+            traceIds.add(traceId);
+            if (traceId != null) {
+                ordinals.put(traceId, ordinal);
+                liveCount++;
+                traceIdBytes += 40 + traceId.length();
+            }
+        }
+    }
+
+    private static int capacityFor(int size) {
+        return Math.max(1024, Integer.highestOneBit(Math.max(1, size)) * 2);
+    }
+
+    public synchronized long getSizeBytes() {
+        // ~48 bytes per map entry, 8 per list slot, 8 per timestamp, plus the id strings
+        return traceIds.size() * 8L + lastSeenMicros.length * 8L + ordinals.size() * 48L + traceIdBytes;
+    }
+}
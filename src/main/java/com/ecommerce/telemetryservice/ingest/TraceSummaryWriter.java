@@ -0,0 +1,124 @@
+package com.ecommerce.telemetryservice.ingest;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.model.TraceSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps {@code trace_summaries} and {@code trace_operations} up to date with every batch
+ * of spans written to {@code trace_events}. The batch is first folded into one summary
+ * and one operation set per trace, then merged into the stored rows with one batched
+ * {@code MERGE} per table and shard.
+ * <p>
+ * The merge adds to what is stored inside the statement, rather than reading the row and
+ * saving it back, so concurrent batches holding spans of the same trace cannot overwrite
+ * each other's counts. Two batches that both start a new trace both take the insert
+ * branch, and the later one fails on the key once the earlier commits; the statements
+ * are then rolled back to a savepoint and run again, now updating the row.
+ * <p>
+ * Runs in the caller's transaction, the one that stores the spans, so the spans and
+ * their summaries are committed together or not at all.
+ */
+@Component
+public class TraceSummaryWriter {
+
+    private static final String MERGE_SUMMARY =
+        "MERGE INTO trace_summaries t USING (SELECT CAST(? AS VARCHAR(255)) AS trace_id, CAST(? AS BIGINT) AS start_micros, " +
+        "CAST(? AS BIGINT) AS end_micros, CAST(? AS INTEGER) AS span_count, CAST(? AS INTEGER) AS error_count, " +
+        "CAST(? AS INTEGER) AS timeout_count, CAST(? AS BIGINT) AS max_duration_micros, " +
+        "CAST(? AS VARCHAR(255)) AS root_service, CAST(? AS VARCHAR(255)) AS root_operation) s " +
+        "ON t.trace_id = s.trace_id " +
+        "WHEN MATCHED THEN UPDATE SET " +
+        "start_micros = LEAST(t.start_micros, s.start_micros), " +
+        "end_micros = GREATEST(t.end_micros, s.end_micros), " +
+        "duration_micros = GREATEST(t.end_micros, s.end_micros) - LEAST(t.start_micros, s.start_micros), " +
+        "span_count = t.span_count + s.span_count, " +
+        "error_count = t.error_count + s.error_count, " +
+        "timeout_count = t.timeout_count + s.timeout_count, " +
+        "max_duration_micros = GREATEST(t.max_duration_micros, s.max_duration_micros), " +
+        "root_service = COALESCE(s.root_service, t.root_service), " +
+        "root_operation = COALESCE(s.root_operation, t.root_operation) " +
+        "WHEN NOT MATCHED THEN INSERT (trace_id, start_micros, end_micros, duration_micros, span_count, error_count, " +
+        "timeout_count, max_duration_micros, root_service, root_operation) VALUES (s.trace_id, s.start_micros, s.end_micros, " +
+        "s.end_micros - s.start_micros, s.span_count, s.error_count, s.timeout_count, s.max_duration_micros, " +
+        "s.root_service, s.root_operation)";
+
+    private static final String MERGE_OPERATION =
+        "MERGE INTO trace_operations t USING (SELECT CAST(? AS VARCHAR(255)) AS trace_id, CAST(? AS VARCHAR(255)) AS service_name, " +
+        "CAST(? AS VARCHAR(255)) AS operation, CAST(? AS BIGINT) AS first_micros) s " +
+        "ON t.trace_id = s.trace_id AND t.service_name = s.service_name AND t.operation = s.operation " +
+        "WHEN MATCHED AND s.first_micros < t.first_micros THEN UPDATE SET first_micros = s.first_micros " +
+        "WHEN NOT MATCHED THEN INSERT (trace_id, service_name, operation, first_micros) " +
+        "VALUES (s.trace_id, s.service_name, s.operation, s.first_micros)";
+
+    private static final int MERGE_ATTEMPTS = 3;
+
+    private record OperationKey(String traceId, String serviceName, String operation) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Spans of one shard; must run inside the transaction on that shard that stored them. */
+    public void record(List<TraceEvent> spans) {
+        if (spans.isEmpty()) {
+            return;
+        }
+        // Sorted, so concurrent batches lock the rows they share in the same order
+        Map<String, TraceSummary> summaries = new TreeMap<>();
+        Map<OperationKey, Long> operations = new TreeMap<>(Comparator.comparing(OperationKey::traceId)
+            .thenComparing(OperationKey::serviceName).thenComparing(OperationKey::operation));
+        for (TraceEvent span : spans) {
+            summaries.computeIfAbsent(span.getTraceId(), TraceSummary::new).add(span);
+            operations.merge(new OperationKey(span.getTraceId(), span.getServiceName(), span.getOperation()),
+                span.getTimestampMicros(), Math::min);
+        }
+
+        List<Object[]> summaryRows = new ArrayList<>(summaries.size());
+        for (TraceSummary summary : summaries.values()) {
+            summaryRows.add(new Object[] {
+                summary.getTraceId(), summary.getStartMicros(), summary.getEndMicros(), summary.getSpanCount(),
+                summary.getErrorCount(), summary.getTimeoutCount(), summary.getMaxDurationMicros(),
+                summary.getRootService(), summary.getRootOperation()
+            });
+        }
+        List<Object[]> operationRows = new ArrayList<>(operations.size());
+        for (Map.Entry<OperationKey, Long> operation : operations.entrySet()) {
+            OperationKey key = operation.getKey();
+            operationRows.add(new Object[] { key.traceId(), key.serviceName(), key.operation(), operation.getValue() });
+        }
+        merge(MERGE_SUMMARY, summaryRows);
+        merge(MERGE_OPERATION, operationRows);
+    }
+
+    private void merge(String sql, List<Object[]> rows) {
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+            try {
+                jdbcTemplate.batchUpdate(sql, rows);
+                return;
+            } catch (DuplicateKeyException e) {
+                // A concurrent batch inserted one of the rows first
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    connection.rollback(savepoint);
+                    return null;
+                });
+                if (attempt == MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ecommerce.telemetryservice.ingest;
+
+import com.ecommerce.telemetryservice.model.UrlTemplate;
+import com.ecommerce.telemetryservice.repository.UrlTemplateRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-way, write-through cache of the {@code url_templates} dictionary. Every template
+ * ever seen stays in memory; the trie in {@link UrlTemplater} keeps that set small.
+ */
+@Component
+public class UrlTemplateDictionary {
+
+    @Autowired
+    private UrlTemplateRepository urlTemplateRepository;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> templates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (UrlTemplate entry : urlTemplateRepository.findAll()) {
+            ids.put(entry.getTemplate(), entry.getId());
+            templates.put(entry.getId(), entry.getTemplate());
+        }
+    }
+
+    /** Returns the dictionary id of the template, adding it on first sight; null for null. */
+    public Integer idFor(String template) {
+        if (template == null) {
+            return null;
+        }
+        Integer id = ids.get(template);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(template);
+            if (id == null) {
+                id = urlTemplateRepository.save(new UrlTemplate(template)).getId();
+                templates.put(id, template);
+                ids.put(template, id);
+            }
+            return id;
+        }
+    }
+
+    public String templateFor(Integer id) {
+        return id != null ? templates.get(id) : null;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
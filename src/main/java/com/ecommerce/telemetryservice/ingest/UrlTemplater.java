@@ -0,0 +1,293 @@
+package com.ecommerce.telemetryservice.ingest;
+
+import com.ecommerce.telemetryservice.model.UrlTemplate;
+import com.ecommerce.telemetryservice.snapshot.SnapshotFormat;
+import com.ecommerce.telemetryservice.snapshot.SnapshotParticipant;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses raw request URLs into route templates, e.g. {@code /orders/83412/items/9?x=1}
+ * becomes {@code /orders/{id}/items/{id}}.
+ * <p>
+ * Paths are walked segment by segment through a trie:
+ * <ul>
+ *   <li>configured rules ({@code telemetry.url-templates.rules}, such as
+ *       {@code /api/products/{sku}}) are loaded as variable nodes up front, so any
+ *       segment at that position takes the rule's name;</li>
+ *   <li>segments that look like identifiers (numbers, UUIDs, long hex strings, tokens
+ *       containing a run of four or more digits) become {@code {id}};</li>
+ *   <li>any other segment is learned as a literal child, until a node has seen
+ *       {@code max-literal-children} distinct literals; the node then collapses and every
+ *       unseen segment below it is treated as a variable. This catches slugs and other
+ *       identifiers the detector misses and keeps the trie bounded.</li>
+ * </ul>
+ * Segments longer than {@value #MAX_LITERAL_LENGTH} characters are never learned as
+ * literals, and a template that would outgrow the {@code url_templates} column ends in
+ * {@code /*} for the rest of the path.
+ * The learned trie is snapshotted so routes keep their templates across restarts.
+ */
+@Component
+public class UrlTemplater implements SnapshotParticipant {
+
+    private static final String ID = "{id}";
+    private static final String REST = "/*";
+    private static final int MAX_SEGMENTS = 32;
+    private static final int MAX_LITERAL_LENGTH = 64;
+
+    @Value("${telemetry.url-templates.rules:}")
+    private String[] rules;
+
+    @Value("${telemetry.url-templates.max-literal-children:100}")
+    private int maxLiteralChildren;
+
+    @Value("${telemetry.url-templates.max-nodes:10000}")
+    private int maxNodes;
+
+    private final Node root = new Node("", false);
+    private final AtomicInteger nodeCount = new AtomicInteger(1);
+
+    @PostConstruct
+    public void init() {
+        if (rules == null) {
+            return;
+        }
+        for (String rule : rules) {
+            String path = rule.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            Node node = root;
+            for (String segment : path.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    if (node.variable == null) {
+                        node.variable = new Node(segment, true);
+                        nodeCount.incrementAndGet();
+                    }
+                    node = node.variable;
+                } else {
+                    node = node.literals.computeIfAbsent(segment, s -> {
+                        nodeCount.incrementAndGet();
+                        return new Node(s, false);
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the route template for a URL, or null when there is no URL. Scheme, host,
+     * query string and fragment are dropped.
+     */
+    public String template(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        String path = pathOf(url);
+        StringBuilder template = new StringBuilder(path.length());
+        Node node = root;
+        int segments = 0;
+        int start = 0;
+        while (start < path.length() && segments < MAX_SEGMENTS) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                node = next(node, path.substring(start, end));
+                if (template.length() + 1 + node.label.length() > UrlTemplate.MAX_LENGTH - REST.length()) {
+                    template.append(REST);
+                    break;
+                }
+                template.append('/').append(node.label);
+                segments++;
+            }
+            start = end + 1;
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+
+    public int getNodeCount() {
+        return nodeCount.get();
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "url-templates";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out, boolean shutdown) throws IOException {
+        SnapshotFormat.writeString(out, rulesKey());
+        writeNode(out, root);
+    }
+
+    /** Rule nodes are part of the trie, so it only carries over with the same rules. */
+    @Override
+    public boolean canRestore(ByteBuffer in) {
+        return rulesKey().equals(SnapshotFormat.readString(in));
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer in) {
+        SnapshotFormat.readString(in); // rules, checked by canRestore
+        SnapshotFormat.readString(in); // root label
+        root.literals.clear();
+        root.variable = null;
+        root.collapsed = (in.get() & 2) != 0;
+        nodeCount.set(1);
+        readChildren(in, root);
+    }
+
+    private String rulesKey() {
+        return rules != null ? String.join(",", Arrays.stream(rules).map(String::trim).toArray(String[]::new)) : "";
+    }
+
+    private static void writeNode(DataOutputStream out, Node node) throws IOException {
+        SnapshotFormat.writeString(out, node.label);
+        out.writeByte((node.fromRule ? 1 : 0) | (node.collapsed ? 2 : 0));
+        out.writeInt(node.literals.size());
+        for (Node literal : node.literals.values()) {
+            writeNode(out, literal);
+        }
+        Node variable = node.variable;
+        out.writeBoolean(variable != null);
+        if (variable != null) {
+            writeNode(out, variable);
+        }
+    }
+
+    private Node readNode(ByteBuffer in) {
+        String label = SnapshotFormat.readString(in);
+        byte flags = in.get();
+        Node node = new Node(label, (flags & 1) != 0);
+        node.collapsed = (flags & 2) != 0;
+        nodeCount.incrementAndGet();
+        readChildren(in, node);
+        return node;
+    }
+
+    private void readChildren(ByteBuffer in, Node node) {
+        int literals = in.getInt();
+        for (int i = 0; i < literals; i++) {
+            Node literal = readNode(in);
+            node.literals.put(literal.label, literal);
+        }
+        if (in.get() != 0) {
+            node.variable = readNode(in);
+        }
+    }
+
+    private Node next(Node node, String segment) {
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            return literal;
+        }
+        Node variable = node.variable;
+        if (variable != null && (variable.fromRule || node.collapsed)) {
+            return variable;
+        }
+        if (segment.length() <= MAX_LITERAL_LENGTH && !looksLikeId(segment)) {
+            if (!node.collapsed && node.literals.size() < maxLiteralChildren && nodeCount.get() < maxNodes) {
+                return node.literals.computeIfAbsent(segment, s -> {
+                    nodeCount.incrementAndGet();
+                    return new Node(s, false);
+                });
+            }
+            node.collapsed = true;
+        }
+        return variableOf(node);
+    }
+
+    private Node variableOf(Node node) {
+        Node variable = node.variable;
+        if (variable == null) {
+            synchronized (node) {
+                variable = node.variable;
+                if (variable == null) {
+                    variable = new Node(ID, false);
+                    node.variable = variable;
+                    nodeCount.incrementAndGet();
+                }
+            }
+        }
+        return variable;
+    }
+
+    static String pathOf(String url) {
+        int start = 0;
+        int scheme = url.indexOf("://");
+        if (scheme >= 0) {
+            int slash = url.indexOf('/', scheme + 3);
+            if (slash < 0) {
+                return "";
+            }
+            start = slash;
+        }
+        int end = url.length();
+        for (int i = start; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        return url.substring(start, end);
+    }
+
+    static boolean looksLikeId(String segment) {
+        int length = segment.length();
+        int digits = 0;
+        int digitRun = 0;
+        int longestDigitRun = 0;
+        boolean hex = true;
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                longestDigitRun = Math.max(longestDigitRun, ++digitRun);
+            } else {
+                digitRun = 0;
+                if (!((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || (c == '-' && length == 36))) {
+                    hex = false;
+                }
+            }
+        }
+        if (digits == length) {
+            return true;
+        }
+        if (hex && length == 36 && segment.charAt(8) == '-' && segment.charAt(13) == '-'
+            && segment.charAt(18) == '-' && segment.charAt(23) == '-') {
+            return true;
+        }
+        if (hex && length >= 16 && digits > 0) {
+            return true;
+        }
+        return longestDigitRun >= 4;
+    }
+
+    private static final class Node {
+        private final String label;
+        private final boolean fromRule;
+        private final Map<String, Node> literals = new ConcurrentHashMap<>();
+        private volatile Node variable;
+        private volatile boolean collapsed;
+
+        Node(String label, boolean fromRule) {
+            this.label = label;
+            this.fromRule = fromRule;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.ecommerce.telemetryservice.ingest;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer for ingested spans. Ingest hands spans over and returns at once; a
+ * background job writes them to the database in batches. Until then the spans are kept
+ * by traceId so trace reads can merge them with the stored ones (read-your-writes).
+ * <p>
+ * Bounded by size and age: a batch that would take the buffer past
+ * {@code telemetry.write-behind.max-spans} makes the ingesting thread flush first, and is
+ * rejected with a {@link WriteBehindFullException} if the database cannot take the spans; spans are otherwise held no longer than
+ * {@code telemetry.write-behind.max-age-ms} plus one flush interval. A span leaves
+ * the buffer only after it was written, so it is always found in one place or the other
+ * by a reader that checks the buffer first.
+ */
+@Component
+public class WriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private record Batch(List<TraceEvent> events, long bufferedAtMillis) {
+    }
+
+    @Value("${telemetry.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${telemetry.write-behind.max-spans:50000}")
+    private int maxSpans;
+
+    @Value("${telemetry.write-behind.max-age-ms:1000}")
+    private long maxAgeMs;
+
+    @Value("${telemetry.write-behind.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    private final Map<String, List<TraceEvent>> byTrace = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedDeque<Batch> pending = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private volatile Consumer<List<TraceEvent>> writer;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Sets what persists a flushed batch; called once by the owner of the repositories. */
+    public void setWriter(Consumer<List<TraceEvent>> writer) {
+        this.writer = writer;
+    }
+
+    public void add(List<TraceEvent> events) {
+        if (!reserve(events.size())) {
+            flush();
+            if (!reserve(events.size())) {
+                throw new WriteBehindFullException(pendingCount.get());
+            }
+        }
+        for (TraceEvent event : events) {
+            byTrace.compute(event.getTraceId(), (traceId, spans) -> {
+                List<TraceEvent> list = spans != null ? spans : new ArrayList<>();
+                list.add(event);
+                return list;
+            });
+        }
+        pending.offerLast(new Batch(List.copyOf(events), System.currentTimeMillis()));
+    }
+
+    // Claims room for the spans before they are enqueued, so concurrent ingests cannot overshoot max-spans together
+    private boolean reserve(int count) {
+        while (true) {
+            int current = pendingCount.get();
+            if (current + count > maxSpans) {
+                return false;
+            }
+            if (pendingCount.compareAndSet(current, current + count)) {
+                return true;
+            }
+        }
+    }
+
+    /** Spans of the trace not yet written, in arrival order; empty if none. */
+    public List<TraceEvent> findByTraceId(String traceId) {
+        List<TraceEvent> found = new ArrayList<>();
+        byTrace.computeIfPresent(traceId, (id, spans) -> {
+            found.addAll(spans);
+            return spans;
+        });
+        return found.isEmpty() ? Collections.emptyList() : found;
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.write-behind.flush-interval-ms:200}")
+    public void flushExpired() {
+        Batch oldest = pending.peekFirst();
+        if (oldest != null && System.currentTimeMillis() - oldest.bufferedAtMillis() >= maxAgeMs) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every waiting span, in batches of {@code flush-batch-size}. A batch that
+     * fails to write is put back at the head of the queue and the flush stops there; the
+     * writer must therefore skip spans of the batch it already stored.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Batch> drained = new ArrayList<>();
+            List<TraceEvent> chunk = new ArrayList<>();
+            Batch batch;
+            while ((batch = pending.pollFirst()) != null) {
+                drained.add(batch);
+                chunk.addAll(batch.events());
+                if (chunk.size() >= flushBatchSize || pending.isEmpty()) {
+                    try {
+                        writer.accept(chunk);
+                    } catch (RuntimeException e) {
+                        for (int i = drained.size() - 1; i >= 0; i--) {
+                            pending.offerFirst(drained.get(i));
+                        }
+                        log.warn("Write-behind flush failed, {} spans kept for retry", chunk.size(), e);
+                        return;
+                    }
+                    release(chunk);
+                    drained.clear();
+                    chunk = new ArrayList<>();
+                }
+            }
+        }
+    }
+
+    private void release(List<TraceEvent> written) {
+        for (TraceEvent event : written) {
+            byTrace.computeIfPresent(event.getTraceId(), (traceId, spans) -> {
+                spans.removeIf(span -> span == event);
+                return spans.isEmpty() ? null : spans;
+            });
+        }
+        pendingCount.addAndGet(-written.size());
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.telemetryservice.ingest;
+
+/**
+ * Thrown when a batch does not fit into the write-behind buffer even after a flush,
+ * i.e. the database is not keeping up. The caller may retry later.
+ */
+public class WriteBehindFullException extends IllegalStateException {
+
+    public WriteBehindFullException(int pendingSpans) {
+        super("Write-behind buffer is full: " + pendingSpans + " spans waiting");
+    }
+}
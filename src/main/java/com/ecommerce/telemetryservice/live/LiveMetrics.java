@@ -0,0 +1,106 @@
+package com.ecommerce.telemetryservice.live;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Real-time RED metrics for the last 1, 5 and 15 minutes, kept entirely in memory: one
+ * {@link SecondRing} per (serviceName, operation), updated on ingest without locks and
+ * summed per query in O(window seconds) without touching the database.
+ * <p>
+ * Spans are counted in the second of their timestamp. Spans from the future count in the
+ * current second; spans older than the ring are only in the rollups.
+ */
+@Component
+public class LiveMetrics {
+
+    public static final int MAX_WINDOW_SECONDS = SecondRing.SECONDS;
+
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+
+    @Value("${telemetry.live.enabled:true}")
+    private boolean enabled;
+
+    private final Map<String, Map<String, SecondRing>> rings = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(TraceEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = currentSecond();
+        long second = Math.min(Math.floorDiv(event.getTimestampMicros(), MICROS_PER_SECOND), now);
+        if (second <= now - SecondRing.SECONDS) {
+            return;
+        }
+        ring(event.getServiceName(), event.getOperation())
+            .record(second, event.getStatus() == TraceEvent.Status.ERROR, event.hasDuration() ? event.getDurationMicros() : -1);
+    }
+
+    public void recordAll(List<TraceEvent> events) {
+        for (TraceEvent event : events) {
+            record(event);
+        }
+    }
+
+    /**
+     * The last {@code windowSeconds} seconds of the service, up to and including the
+     * current one, per operation in name order.
+     */
+    public Map<String, LiveWindow> window(String serviceName, int windowSeconds) {
+        if (windowSeconds < 1 || windowSeconds > MAX_WINDOW_SECONDS) {
+            throw new IllegalArgumentException("Live windows are 1 to " + MAX_WINDOW_SECONDS + " seconds, not " + windowSeconds);
+        }
+        long now = currentSecond();
+        Map<String, LiveWindow> operations = new TreeMap<>();
+        for (Map.Entry<String, SecondRing> operation : rings.getOrDefault(serviceName, Map.of()).entrySet()) {
+            LiveWindow window = new LiveWindow(windowSeconds);
+            operation.getValue().sum(now - windowSeconds + 1, now, window);
+            if (window.getRequestCount() > 0) {
+                operations.put(operation.getKey(), window);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Drops the rings of operations without spans for longer than the ring covers. A span
+     * recorded into a ring while it is dropped is lost from the live view only.
+     */
+    @Scheduled(fixedDelayString = "${telemetry.live.prune-interval-ms:60000}")
+    public void prune() {
+        long horizon = currentSecond() - SecondRing.SECONDS;
+        for (Map<String, SecondRing> operations : rings.values()) {
+            operations.values().removeIf(ring -> ring.getLastSecond() <= horizon);
+        }
+        rings.values().removeIf(Map::isEmpty);
+    }
+
+    public int getRingCount() {
+        return rings.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private SecondRing ring(String serviceName, String operation) {
+        Map<String, SecondRing> operations = rings.get(serviceName);
+        if (operations == null) {
+            operations = rings.computeIfAbsent(serviceName, service -> new ConcurrentHashMap<>());
+        }
+        SecondRing ring = operations.get(operation);
+        return ring != null ? ring : operations.computeIfAbsent(operation, op -> new SecondRing());
+    }
+
+    private static long currentSecond() {
+        return Math.floorDiv(EpochMicros.now(), MICROS_PER_SECOND);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.telemetryservice.live;
+
+/**
+ * RED totals (rate, errors, duration) of the seconds summed by {@link LiveMetrics}.
+ */
+public class LiveWindow {
+
+    private final int seconds;
+    private long requestCount;
+    private long errorCount;
+    private long durationSumMicros;
+    private long durationCount;
+    private long maxDurationMicros = -1;
+
+    public LiveWindow(int seconds) {
+        this.seconds = seconds;
+    }
+
+    void add(long count, long errors, long durationSum, long durations, long maxDuration) {
+        requestCount += count;
+        errorCount += errors;
+        durationSumMicros += durationSum;
+        durationCount += durations;
+        maxDurationMicros = Math.max(maxDurationMicros, maxDuration);
+    }
+
+    public void merge(LiveWindow other) {
+        add(other.requestCount, other.errorCount, other.durationSumMicros, other.durationCount, other.maxDurationMicros);
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public double getRequestsPerSecond() {
+        return (double) requestCount / seconds;
+    }
+
+    /** Percentage of requests that failed. */
+    public double getErrorRate() {
+        return requestCount > 0 ? (double) errorCount / requestCount * 100 : 0.0;
+    }
+
+    public long getDurationCount() {
+        return durationCount;
+    }
+
+    public double getAverageDurationMicros() {
+        return durationCount > 0 ? (double) durationSumMicros / durationCount : 0.0;
+    }
+
+    /** -1 when no request in the window reported a duration. */
+    public long getMaxDurationMicros() {
+        return maxDurationMicros;
+    }
+}
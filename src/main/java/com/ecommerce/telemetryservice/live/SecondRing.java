@@ -0,0 +1,95 @@
+package com.ecommerce.telemetryservice.live;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Request, error and duration counters per epoch second for the last {@link #SECONDS}
+ * seconds of one (service, operation), in a ring indexed by second. Updates are
+ * lock-free: a slot still holding an older second is claimed with a CAS on its stamp,
+ * cleared and then published, and counters are plain atomic adds.
+ */
+final class SecondRing {
+
+    static final int SECONDS = 15 * 60;
+
+    // Stamp of a slot being cleared; real stamps are epoch seconds
+    private static final long CLEARING = -1;
+
+    private final AtomicLongArray stamps = new AtomicLongArray(SECONDS);
+    private final AtomicLongArray counts = new AtomicLongArray(SECONDS);
+    private final AtomicLongArray errors = new AtomicLongArray(SECONDS);
+    private final AtomicLongArray durationSums = new AtomicLongArray(SECONDS);
+    private final AtomicLongArray durationCounts = new AtomicLongArray(SECONDS);
+    private final AtomicLongArray maxDurations = new AtomicLongArray(SECONDS);
+    private final AtomicLong lastSecond = new AtomicLong();
+
+    /**
+     * @param durationMicros negative when the span has no duration
+     * @return false when the slot already moved on to a newer second
+     */
+    boolean record(long second, boolean error, long durationMicros) {
+        int slot = (int) Math.floorMod(second, (long) SECONDS);
+        while (true) {
+            long stamp = stamps.get(slot);
+            if (stamp == second) {
+                break;
+            }
+            if (stamp == CLEARING) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (stamp > second) {
+                return false;
+            }
+            if (stamps.compareAndSet(slot, stamp, CLEARING)) {
+                counts.set(slot, 0);
+                errors.set(slot, 0);
+                durationSums.set(slot, 0);
+                durationCounts.set(slot, 0);
+                maxDurations.set(slot, -1);
+                stamps.set(slot, second);
+                break;
+            }
+        }
+
+        counts.incrementAndGet(slot);
+        if (error) {
+            errors.incrementAndGet(slot);
+        }
+        if (durationMicros >= 0) {
+            durationSums.addAndGet(slot, durationMicros);
+            durationCounts.incrementAndGet(slot);
+            if (durationMicros > maxDurations.get(slot)) {
+                maxDurations.accumulateAndGet(slot, durationMicros, Math::max);
+            }
+        }
+        if (second > lastSecond.get()) {
+            lastSecond.accumulateAndGet(second, Math::max);
+        }
+        return true;
+    }
+
+    /** Adds the seconds in {@code [fromSecond, toSecond]} to the target. */
+    void sum(long fromSecond, long toSecond, LiveWindow target) {
+        for (long second = Math.max(fromSecond, toSecond - SECONDS + 1); second <= toSecond; second++) {
+            int slot = (int) Math.floorMod(second, (long) SECONDS);
+            if (stamps.get(slot) != second) {
+                continue;
+            }
+            long count = counts.get(slot);
+            long errorCount = errors.get(slot);
+            long durationSum = durationSums.get(slot);
+            long durationCount = durationCounts.get(slot);
+            long maxDuration = maxDurations.get(slot);
+            // Skip a slot that was reused for a newer second while it was read
+            if (stamps.get(slot) == second) {
+                target.add(count, errorCount, durationSum, durationCount, maxDuration);
+            }
+        }
+    }
+
+    long getLastSecond() {
+        return lastSecond.get();
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.telemetryservice.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conversions between epoch microseconds, the primitive time representation used by the
+ * span model and storage, and the {@link LocalDateTime} values exchanged at the API.
+ * <p>
+ * Epoch micros are absolute, so they keep their meaning across time zones; a
+ * {@code LocalDateTime} is interpreted in the server's default zone when converted.
+ */
+public final class EpochMicros {
+
+    /** Marker for an absent timestamp. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+
+    private EpochMicros() {
+    }
+
+    public static long now() {
+        return of(Instant.now());
+    }
+
+    public static long of(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), MICROS_PER_SECOND), instant.getNano() / 1_000);
+    }
+
+    /** Epoch micros of the timestamp in the default zone, or {@link #NONE} for null. */
+    public static long of(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NONE;
+        }
+        return of(timestamp.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /** The timestamp in the default zone, or null for {@link #NONE}. */
+    public static LocalDateTime toLocalDateTime(long micros) {
+        if (micros == NONE) {
+            return null;
+        }
+        long seconds = Math.floorDiv(micros, MICROS_PER_SECOND);
+        long nanos = Math.floorMod(micros, MICROS_PER_SECOND) * 1_000;
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), ZoneId.systemDefault());
+    }
+
+    /** Whole milliseconds of a micros interval. */
+    public static long toMillis(long micros) {
+        return micros / 1_000;
+    }
+
+    public static long fromMillis(long millis) {
+        return Math.multiplyExact(millis, 1_000L);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.telemetryservice.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paged listing: the sort key and tie-breaker of the last item
+ * returned, e.g. (trace start, traceId) or (span timestamp, span id). The next page starts
+ * strictly after it, so it costs the same at any depth and is not shifted by items
+ * inserted in the meantime.
+ * <p>
+ * Handed out as an opaque URL-safe token: {@code [byte version][long key][utf-8 tieBreaker]}.
+ */
+public record KeysetCursor(long key, String tieBreaker) {
+
+    private static final byte VERSION = 1;
+
+    public String encode() {
+        byte[] tie = tieBreaker.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + tie.length);
+        buffer.put(VERSION).putLong(key).put(tie);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @return the decoded cursor, or null for a null or empty token (the first page)
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Unsupported cursor: " + token);
+            }
+            long key = buffer.getLong();
+            byte[] tie = new byte[buffer.remaining()];
+            buffer.get(tie);
+            return new KeysetCursor(key, new String(tie, StandardCharsets.UTF_8));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.telemetryservice.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses span metadata with DEFLATE primed by a shared preset dictionary.
+ * <p>
+ * Metadata payloads are small JSON documents that repeat the same handful of keys
+ * ({@code orderId}, {@code paymentProvider}, {@code region}, ...), which plain DEFLATE
+ * cannot exploit within a single short document. The preset dictionary below is
+ * assembled by hand from the keys and common values the order, payment, product, user
+ * and notification services send; fragments that occur most often sit at the end,
+ * where back-references are cheapest. {@code MetadataCodecTest} measures the ratio it
+ * reaches on a sample of such payloads.
+ * <p>
+ * Encoded form: {@code [byte format][bytes...]}. Format {@link #FORMAT_RAW} stores UTF-8
+ * as-is and is used whenever compression would not pay off. Dictionaries are versioned
+ * by format byte, so a revised dictionary can be added without rewriting old rows.
+ * Size and decode statistics are kept by {@code MetadataMetrics}.
+ */
+public final class MetadataCodec {
+
+    static final byte FORMAT_RAW = 0;
+    static final byte FORMAT_DEFLATE_DICT_V1 = 1;
+
+    private static final int MIN_COMPRESSIBLE_BYTES = 64;
+
+    private static final byte[] DICTIONARY_V1 = (
+        "\"notificationType\":\"EMAIL\"\"channel\":\"SMS\"\"template\":\"order_confirmation\""
+        + "\"productId\":\"\"sku\":\"\"category\":\"\"inventory\":\"stock\":\"price\":"
+        + "\"email\":\"@example.com\"\"username\":\"\"role\":\"CUSTOMER\""
+        + "\"gateway\":\"\"transactionId\":\"txn_\"\"refundId\":\"\"reason\":\""
+        + "\"cartId\":\"\"customerId\":\"\"shippingAddress\":{\"items\":[{\"quantity\":"
+        + "\"currency\":\"USD\"\"currency\":\"EUR\"\"amount\":\"totalAmount\":"
+        + "\"region\":\"us-east-1\"\"region\":\"eu-west-1\"\"paymentMethod\":\"CREDIT_CARD\""
+        + "\"paymentProvider\":\"stripe\"\"paymentProvider\":\"paypal\"\"paymentId\":\""
+        + "\"status\":\"SUCCESS\"\"status\":\"ERROR\"\"status\":\"PENDING\"true,false,null,"
+        + "\"userId\":\"\"orderId\":\"order_\",\"orderId\":\"}"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private MetadataCodec() {
+    }
+
+    public static byte[] encode(String metadata) {
+        return encode(metadata.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] encode(byte[] raw) {
+        byte[] encoded = raw.length >= MIN_COMPRESSIBLE_BYTES ? deflate(raw) : null;
+        if (encoded == null || encoded.length >= raw.length + 1) {
+            encoded = new byte[raw.length + 1];
+            encoded[0] = FORMAT_RAW;
+            System.arraycopy(raw, 0, encoded, 1, raw.length);
+        }
+        return encoded;
+    }
+
+    public static String decode(byte[] encoded, int rawLength) {
+        byte[] raw;
+        switch (encoded[0]) {
+            case FORMAT_RAW:
+                raw = Arrays.copyOfRange(encoded, 1, encoded.length);
+                break;
+            case FORMAT_DEFLATE_DICT_V1:
+                raw = inflate(encoded, rawLength);
+                break;
+            default:
+                throw new IllegalStateException("Unknown metadata format " + encoded[0]);
+        }
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            out.write(FORMAT_DEFLATE_DICT_V1);
+            byte[] chunk = new byte[Math.max(64, raw.length)];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] encoded, int rawLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY_V1);
+            inflater.setInput(encoded, 1, encoded.length - 1);
+            byte[] raw = new byte[rawLength];
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != rawLength) {
+                throw new IllegalStateException("Truncated metadata payload: expected " + rawLength + " bytes, got " + inflated);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt metadata payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.telemetryservice.model;
+
+import com.ecommerce.telemetryservice.storage.MetadataMetrics;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Reports metadata writes, span loads and later metadata decodes to {@link MetadataMetrics}.
+ * Hibernate creates entity listeners through Spring, which injects the metrics bean;
+ * in contexts without it, such as repository test slices, nothing is recorded.
+ */
+public class MetadataListener {
+
+    @Autowired(required = false)
+    private MetadataMetrics metadataMetrics;
+
+    @PrePersist
+    @PreUpdate
+    void onWrite(Object entity) {
+        if (metadataMetrics != null && entity instanceof TraceEventMetadata metadata) {
+            metadataMetrics.recordWrite(metadata.getRawLength(), metadata.getStoredLength());
+        }
+    }
+
+    @PostLoad
+    void onLoad(Object entity) {
+        if (metadataMetrics != null && entity instanceof TraceEvent event) {
+            metadataMetrics.recordEntityLoad();
+            event.onMetadataDecode(metadataMetrics::recordDecode);
+        }
+    }
+}
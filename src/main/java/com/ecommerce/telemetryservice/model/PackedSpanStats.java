@@ -0,0 +1,93 @@
+package com.ecommerce.telemetryservice.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Counts and durations of the spans of one (service, operation, method, route template)
+ * in one minute that no longer have a row in {@code trace_events}, because they were
+ * packed into a trace blob or moved to a cold segment. Service-level queries add these
+ * to what they aggregate from the rows, so moving spans out of the table does not make
+ * them disappear from service lists, metrics and counts.
+ * <p>
+ * Written with a {@code MERGE} by the compactors that delete the rows; read through
+ * {@code PackedSpanStatsRepository}. Windows over packed spans are resolved to the minute.
+ */
+@Entity
+@Table(name = "packed_span_stats", indexes = {
+    @Index(name = "idx_packed_span_stats_key", columnList = "tier, bucket_micros, service_name, operation, http_method, url_template_id"),
+    @Index(name = "idx_packed_span_stats_service", columnList = "service_name, bucket_micros")
+})
+public class PackedSpanStats {
+
+    public static final long BUCKET_MICROS = 60_000_000L;
+
+    /** Where the spans went; each expires with its tier's retention. */
+    public enum Tier {
+        BLOB, SEGMENT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Tier tier;
+
+    @Column(name = "bucket_micros", nullable = false)
+    private long bucketMicros;
+
+    @Column(name = "service_name", nullable = false)
+    private String serviceName;
+
+    @Column(nullable = false)
+    private String operation;
+
+    @Column(name = "http_method")
+    private String httpMethod;
+
+    @Column(name = "url_template_id")
+    private Integer urlTemplateId;
+
+    private long spanCount;
+    private long errorCount;
+
+    // Spans that reported a duration; min and max are Long.MAX_VALUE and -1 while there are none
+    private long durationCount;
+    private long durationSumMicros;
+    private long durationMinMicros;
+    private long durationMaxMicros;
+
+    protected PackedSpanStats() {
+    }
+
+    public static long bucketOf(long timestampMicros) {
+        return Math.floorDiv(timestampMicros, BUCKET_MICROS) * BUCKET_MICROS;
+    }
+
+    public Long getId() { return id; }
+
+    public Tier getTier() { return tier; }
+
+    public long getBucketMicros() { return bucketMicros; }
+
+    public String getServiceName() { return serviceName; }
+
+    public String getOperation() { return operation; }
+
+    public String getHttpMethod() { return httpMethod; }
+
+    public Integer getUrlTemplateId() { return urlTemplateId; }
+
+    public long getSpanCount() { return spanCount; }
+
+    public long getErrorCount() { return errorCount; }
+
+    public long getDurationCount() { return durationCount; }
+
+    public long getDurationSumMicros() { return durationSumMicros; }
+
+    public long getDurationMinMicros() { return durationMinMicros; }
+
+    public long getDurationMaxMicros() { return durationMaxMicros; }
+}
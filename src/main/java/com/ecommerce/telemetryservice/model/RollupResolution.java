@@ -0,0 +1,31 @@
+package com.ecommerce.telemetryservice.model;
+
+/**
+ * Bucket widths of the span rollups, finest first. Buckets are aligned to the epoch, so
+ * hour and day buckets are UTC hours and days.
+ */
+public enum RollupResolution {
+    MINUTE(60_000_000L),
+    HOUR(3_600_000_000L),
+    DAY(86_400_000_000L);
+
+    private final long widthMicros;
+
+    RollupResolution(long widthMicros) {
+        this.widthMicros = widthMicros;
+    }
+
+    public long getWidthMicros() {
+        return widthMicros;
+    }
+
+    /** Start of the bucket containing the timestamp. */
+    public long bucketStart(long micros) {
+        return Math.floorDiv(micros, widthMicros) * widthMicros;
+    }
+
+    /** Smallest bucket boundary at or after the timestamp. */
+    public long ceil(long micros) {
+        return -Math.floorDiv(-micros, widthMicros) * widthMicros;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecommerce.telemetryservice.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Pre-aggregated spans of one (serviceName, operation, status) over one time bucket.
+ * Rows are kept independently of {@code trace_events}, so long-range dashboards keep
+ * working after raw spans are removed by retention.
+ */
+@Entity
+@Table(name = "span_rollups", indexes = {
+    @Index(name = "idx_span_rollups_lookup", columnList = "resolution, service_name, bucket_start_micros"),
+    @Index(name = "idx_span_rollups_bucket", columnList = "resolution, bucket_start_micros")
+})
+public class SpanRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupResolution resolution;
+
+    @Column(name = "bucket_start_micros", nullable = false)
+    private long bucketStartMicros;
+
+    @Column(name = "service_name", nullable = false)
+    private String serviceName;
+
+    @Column(nullable = false)
+    private String operation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TraceEvent.Status status;
+
+    private long spanCount;
+    private long errorCount;
+
+    // Spans that reported a duration; the sum, min and max cover only those
+    private long durationCount;
+    private long durationSumMicros;
+    private long durationMinMicros;
+    private long durationMaxMicros;
+
+    // LatencyHistogram of the durations
+    @Lob
+    private byte[] latencyHistogram;
+
+    public SpanRollup() {
+    }
+
+    public SpanRollup(RollupResolution resolution, long bucketStartMicros, String serviceName, String operation, TraceEvent.Status status) {
+        this.resolution = resolution;
+        this.bucketStartMicros = bucketStartMicros;
+        this.serviceName = serviceName;
+        this.operation = operation;
+        this.status = status;
+    }
+
+    public Long getId() { return id; }
+
+    public RollupResolution getResolution() { return resolution; }
+
+    public long getBucketStartMicros() { return bucketStartMicros; }
+
+    public String getServiceName() { return serviceName; }
+
+    public String getOperation() { return operation; }
+
+    public TraceEvent.Status getStatus() { return status; }
+
+    public long getSpanCount() { return spanCount; }
+    public void setSpanCount(long spanCount) { this.spanCount = spanCount; }
+
+    public long getErrorCount() { return errorCount; }
+    public void setErrorCount(long errorCount) { this.errorCount = errorCount; }
+
+    public long getDurationCount() { return durationCount; }
+    public void setDurationCount(long durationCount) { this.durationCount = durationCount; }
+
+    public long getDurationSumMicros() { return durationSumMicros; }
+    public void setDurationSumMicros(long durationSumMicros) { this.durationSumMicros = durationSumMicros; }
+
+    public long getDurationMinMicros() { return durationMinMicros; }
+    public void setDurationMinMicros(long durationMinMicros) { this.durationMinMicros = durationMinMicros; }
+
+    public long getDurationMaxMicros() { return durationMaxMicros; }
+    public void setDurationMaxMicros(long durationMaxMicros) { this.durationMaxMicros = durationMaxMicros; }
+
+    public byte[] getLatencyHistogram() { return latencyHistogram; }
+    public void setLatencyHistogram(byte[] latencyHistogram) { this.latencyHistogram = latencyHistogram; }
+}
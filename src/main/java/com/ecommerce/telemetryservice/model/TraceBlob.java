@@ -0,0 +1,79 @@
+package com.ecommerce.telemetryservice.model;
+
+import jakarta.persistence.*;
+
+import java.util.List;
+
+/**
+ * All spans of a completed trace packed into one {@link TraceBlobCodec} payload, replacing
+ * the trace's rows in {@code trace_events}. Written by the trace blob compactor on the
+ * shard that holds the trace.
+ */
+@Entity
+@Table(name = "trace_blobs", indexes = {
+    @Index(name = "idx_trace_blobs_trace_id", columnList = "trace_id", unique = true),
+    @Index(name = "idx_trace_blobs_end", columnList = "end_micros")
+})
+public class TraceBlob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trace_id", nullable = false)
+    private String traceId;
+
+    @Column(name = "start_micros", nullable = false)
+    private long startMicros;
+
+    @Column(name = "end_micros", nullable = false)
+    private long endMicros;
+
+    private int spanCount;
+
+    // Highest span id inside, so an index catch-up can skip blobs of spans it already saw
+    @Column(name = "max_span_id", nullable = false)
+    private long maxSpanId;
+
+    private int rawLength;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+
+    protected TraceBlob() {
+    }
+
+    public TraceBlob(String traceId, List<TraceEvent> spans) {
+        this.traceId = traceId;
+        update(spans);
+    }
+
+    /** Replaces the payload with the given spans, which must all have an id. */
+    public void update(List<TraceEvent> spans) {
+        TraceBlobCodec.Encoded encoded = TraceBlobCodec.encode(spans);
+        this.payload = encoded.payload();
+        this.rawLength = encoded.rawLength();
+        this.spanCount = spans.size();
+        this.startMicros = spans.stream().mapToLong(TraceEvent::getTimestampMicros).min().orElse(0);
+        this.endMicros = spans.stream().mapToLong(TraceEvent::getTimestampMicros).max().orElse(0);
+        this.maxSpanId = spans.stream().mapToLong(TraceEvent::getId).max().orElse(0);
+    }
+
+    public List<TraceEvent> decode() {
+        return TraceBlobCodec.decode(traceId, payload, rawLength);
+    }
+
+    public Long getId() { return id; }
+
+    public String getTraceId() { return traceId; }
+
+    public long getStartMicros() { return startMicros; }
+
+    public long getEndMicros() { return endMicros; }
+
+    public int getSpanCount() { return spanCount; }
+
+    public long getMaxSpanId() { return maxSpanId; }
+
+    public int getStoredLength() { return payload.length; }
+}
@@ -0,0 +1,247 @@
+package com.ecommerce.telemetryservice.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Columnar encoding of all spans of one trace, DEFLATE-compressed.
+ * <p>
+ * Body: {@code [varint spanCount][string table][columns...]}. Each column holds one field
+ * for every span, ordered by timestamp: ids and timestamps as zigzag deltas, durations
+ * and numbers as zigzag varints, enums as ordinal + 1, and strings as index + 1 into a
+ * per-trace string table (0 is null). A trace repeats the same services, operations and
+ * metadata keys across spans, so grouping each field together lets DEFLATE remove most of
+ * what the row layout stores again and again.
+ * <p>
+ * Encoded form: {@code [byte format][deflated body]}; the body length is stored beside it.
+ */
+public final class TraceBlobCodec {
+
+    static final byte FORMAT_COLUMNAR_DEFLATE_V1 = 1;
+
+    private static final List<Function<TraceEvent, String>> STRING_COLUMNS = List.of(
+        TraceEvent::getSpanId,
+        TraceEvent::getParentSpanId,
+        TraceEvent::getServiceName,
+        TraceEvent::getOperation,
+        TraceEvent::getHttpMethod,
+        TraceEvent::getHttpUrl,
+        TraceEvent::getErrorMessage,
+        TraceEvent::getUserId,
+        TraceEvent::getCorrelationId,
+        TraceEvent::getMetadata
+    );
+
+    public record Encoded(byte[] payload, int rawLength) {
+    }
+
+    private TraceBlobCodec() {
+    }
+
+    public static Encoded encode(List<TraceEvent> spans) {
+        List<TraceEvent> ordered = new ArrayList<>(spans);
+        ordered.sort(Comparator.comparingLong(TraceEvent::getTimestampMicros));
+
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int[][] stringColumns = new int[STRING_COLUMNS.size()][ordered.size()];
+        for (int column = 0; column < STRING_COLUMNS.size(); column++) {
+            for (int row = 0; row < ordered.size(); row++) {
+                String value = STRING_COLUMNS.get(column).apply(ordered.get(row));
+                stringColumns[column][row] = value != null ? strings.computeIfAbsent(value, v -> strings.size()) + 1 : 0;
+            }
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(ordered.size() * 64);
+        writeVarLong(body, ordered.size());
+        writeVarLong(body, strings.size());
+        for (String value : strings.keySet()) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(body, utf8.length);
+            body.writeBytes(utf8);
+        }
+        long previousId = 0;
+        for (TraceEvent span : ordered) {
+            writeVarLong(body, zigzag(span.getId() - previousId));
+            previousId = span.getId();
+        }
+        long previousTimestamp = 0;
+        for (TraceEvent span : ordered) {
+            writeVarLong(body, zigzag(span.getTimestampMicros() - previousTimestamp));
+            previousTimestamp = span.getTimestampMicros();
+        }
+        for (TraceEvent span : ordered) {
+            writeVarLong(body, zigzag(span.getDurationMicros()));
+        }
+        for (TraceEvent span : ordered) {
+            body.write(span.getEventType() != null ? span.getEventType().ordinal() + 1 : 0);
+        }
+        for (TraceEvent span : ordered) {
+            body.write(span.getStatus() != null ? span.getStatus().ordinal() + 1 : 0);
+        }
+        for (TraceEvent span : ordered) {
+            writeNullableInt(body, span.getHttpStatusCode());
+        }
+        for (TraceEvent span : ordered) {
+            writeNullableInt(body, span.getUrlTemplateId());
+        }
+        for (int[] column : stringColumns) {
+            for (int index : column) {
+                writeVarLong(body, index);
+            }
+        }
+
+        byte[] raw = body.toByteArray();
+        return new Encoded(deflate(raw), raw.length);
+    }
+
+    /** Decodes the spans of the trace, ordered by timestamp. */
+    public static List<TraceEvent> decode(String traceId, byte[] payload, int rawLength) {
+        if (payload[0] != FORMAT_COLUMNAR_DEFLATE_V1) {
+            throw new IllegalStateException("Unknown trace blob format: " + payload[0]);
+        }
+        ByteBuffer in = ByteBuffer.wrap(inflate(payload, rawLength));
+        int count = (int) readVarLong(in);
+        String[] strings = new String[(int) readVarLong(in)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] utf8 = new byte[(int) readVarLong(in)];
+            in.get(utf8);
+            strings[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        List<TraceEvent> spans = new ArrayList<>(count);
+        for (int row = 0; row < count; row++) {
+            TraceEvent span = new TraceEvent();
+            span.setTraceId(traceId);
+            spans.add(span);
+        }
+        long id = 0;
+        for (TraceEvent span : spans) {
+            id += unzigzag(readVarLong(in));
+            span.setId(id);
+        }
+        long timestamp = 0;
+        for (TraceEvent span : spans) {
+            timestamp += unzigzag(readVarLong(in));
+            span.setTimestampMicros(timestamp);
+        }
+        for (TraceEvent span : spans) {
+            span.setDurationMicros(unzigzag(readVarLong(in)));
+        }
+        for (TraceEvent span : spans) {
+            int eventType = in.get();
+            span.setEventType(eventType > 0 ? TraceEvent.EventType.values()[eventType - 1] : null);
+        }
+        for (TraceEvent span : spans) {
+            int status = in.get();
+            span.setStatus(status > 0 ? TraceEvent.Status.values()[status - 1] : null);
+        }
+        for (TraceEvent span : spans) {
+            span.setHttpStatusCode(readNullableInt(in));
+        }
+        for (TraceEvent span : spans) {
+            span.setUrlTemplateId(readNullableInt(in));
+        }
+        String[][] columns = new String[STRING_COLUMNS.size()][count];
+        for (String[] column : columns) {
+            for (int row = 0; row < count; row++) {
+                int index = (int) readVarLong(in);
+                column[row] = index > 0 ? strings[index - 1] : null;
+            }
+        }
+        for (int row = 0; row < count; row++) {
+            TraceEvent span = spans.get(row);
+            span.setSpanId(columns[0][row]);
+            span.setParentSpanId(columns[1][row]);
+            span.setServiceName(columns[2][row]);
+            span.setOperation(columns[3][row]);
+            span.setHttpMethod(columns[4][row]);
+            span.setHttpUrl(columns[5][row]);
+            span.setErrorMessage(columns[6][row]);
+            span.setUserId(columns[7][row]);
+            span.setCorrelationId(columns[8][row]);
+            span.setMetadata(columns[9][row]);
+        }
+        return spans;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 16);
+            out.write(FORMAT_COLUMNAR_DEFLATE_V1);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] payload, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, 1, payload.length - 1);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                read += inflater.inflate(raw, read, rawLength - read);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt trace blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeNullableInt(ByteArrayOutputStream out, Integer value) {
+        writeVarLong(out, value != null ? zigzag(value) + 1 : 0);
+    }
+
+    private static Integer readNullableInt(ByteBuffer in) {
+        long value = readVarLong(in);
+        return value > 0 ? (int) unzigzag(value - 1) : null;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -1,14 +1,25 @@
 package com.ecommerce.telemetryservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 @Entity
-@Table(name = "trace_events")
+@Table(name = "trace_events", indexes = {
+    @Index(name = "idx_trace_events_trace", columnList = "trace_id, timestamp_micros"),
+    @Index(name = "idx_trace_events_service_op", columnList = "service_name, operation, trace_id"),
+    @Index(name = "idx_trace_events_status", columnList = "status, trace_id"),
+    @Index(name = "idx_trace_events_service_ts", columnList = "service_name, timestamp_micros"),
+    @Index(name = "idx_trace_events_timestamp", columnList = "timestamp_micros")
+})
+@EntityListeners(MetadataListener.class)
 public class TraceEvent {
+    public static final long NO_DURATION = -1L;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -30,26 +41,45 @@ public class TraceEvent {
     @Enumerated(EnumType.STRING)
     private EventType eventType;
     
-    @NotNull
-    private LocalDateTime timestamp;
+    // Epoch microseconds; LocalDateTime is only produced at the API edge
+    @Column(name = "timestamp_micros", nullable = false)
+    private long timestampMicros;
     
-    private Long durationMs;
+    // NO_DURATION when the span reported none
+    @Column(name = "duration_micros", nullable = false)
+    private long durationMicros = NO_DURATION;
     
     @Enumerated(EnumType.STRING)
     private Status status;
     
-    @Column(columnDefinition = "TEXT")
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "metadata_id")
+    private TraceEventMetadata metadataBlob;
+    
+    // Decompressed on first read; entities loaded from the database start out unloaded
+    @Transient
     private String metadata;
     
+    @Transient
+    private boolean metadataLoaded = true;
+    
+    @Transient
+    private IntConsumer metadataDecodeListener;
+    
     private String httpMethod;
     private String httpUrl;
+    
+    // Route template of httpUrl, dictionary-encoded in url_templates
+    @Column(name = "url_template_id")
+    private Integer urlTemplateId;
+    
     private Integer httpStatusCode;
     private String errorMessage;
     private String userId;
     private String correlationId;
 
     public TraceEvent() {
-        this.timestamp = LocalDateTime.now();
+        this.timestampMicros = EpochMicros.now();
         this.status = Status.SUCCESS;
         this.eventType = EventType.SPAN;
     }
@@ -66,6 +96,14 @@ public class TraceEvent {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
+    /** After the insert was rolled back: the ids it handed out were never stored. */
+    public void clearGeneratedIds() {
+        this.id = null;
+        if (metadataBlob != null) {
+            metadataBlob.clearId();
+        }
+    }
+    
     public String getTraceId() { return traceId; }
     public void setTraceId(String traceId) { this.traceId = traceId; }
     
@@ -84,17 +122,49 @@ public class TraceEvent {
     public EventType getEventType() { return eventType; }
     public void setEventType(EventType eventType) { this.eventType = eventType; }
     
-    public LocalDateTime getTimestamp() { return timestamp; }
-    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    @NotNull
+    public LocalDateTime getTimestamp() { return EpochMicros.toLocalDateTime(timestampMicros); }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestampMicros = EpochMicros.of(timestamp); }
+    
+    @JsonIgnore
+    public long getTimestampMicros() { return timestampMicros; }
+    public void setTimestampMicros(long timestampMicros) { this.timestampMicros = timestampMicros; }
+    
+    public Long getDurationMs() { return hasDuration() ? EpochMicros.toMillis(durationMicros) : null; }
+    public void setDurationMs(Long durationMs) { this.durationMicros = durationMs != null ? EpochMicros.fromMillis(durationMs) : NO_DURATION; }
     
-    public Long getDurationMs() { return durationMs; }
-    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+    @JsonIgnore
+    public long getDurationMicros() { return durationMicros; }
+    public void setDurationMicros(long durationMicros) { this.durationMicros = durationMicros; }
+    
+    /** False when no duration was reported; negative durations are treated the same way. */
+    public boolean hasDuration() { return durationMicros >= 0; }
     
     public Status getStatus() { return status; }
     public void setStatus(Status status) { this.status = status; }
     
-    public String getMetadata() { return metadata; }
-    public void setMetadata(String metadata) { this.metadata = metadata; }
+    public String getMetadata() {
+        if (!metadataLoaded) {
+            metadata = metadataBlob != null ? metadataBlob.decode() : null;
+            metadataLoaded = true;
+            if (metadata != null && metadataDecodeListener != null) {
+                metadataDecodeListener.accept(metadataBlob.getRawLength());
+            }
+        }
+        return metadata;
+    }
+    
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+        this.metadataLoaded = true;
+        if (metadataBlob != null) {
+            if (metadata != null) {
+                metadataBlob.update(metadata);
+            } else {
+                metadataBlob = null;
+            }
+        }
+    }
     
     public String getHttpMethod() { return httpMethod; }
     public void setHttpMethod(String httpMethod) { this.httpMethod = httpMethod; }
@@ -102,6 +172,10 @@ public class TraceEvent {
     public String getHttpUrl() { return httpUrl; }
     public void setHttpUrl(String httpUrl) { this.httpUrl = httpUrl; }
     
+    @JsonIgnore
+    public Integer getUrlTemplateId() { return urlTemplateId; }
+    public void setUrlTemplateId(Integer urlTemplateId) { this.urlTemplateId = urlTemplateId; }
+    
     public Integer getHttpStatusCode() { return httpStatusCode; }
     public void setHttpStatusCode(Integer httpStatusCode) { this.httpStatusCode = httpStatusCode; }
     
@@ -114,6 +188,24 @@ public class TraceEvent {
     public String getCorrelationId() { return correlationId; }
     public void setCorrelationId(String correlationId) { this.correlationId = correlationId; }
 
+    @PrePersist
+    void compressMetadata() {
+        if (metadataBlob == null && metadata != null) {
+            metadataBlob = new TraceEventMetadata(metadata);
+        }
+    }
+    
+    @PostLoad
+    void deferMetadata() {
+        metadata = null;
+        metadataLoaded = false;
+    }
+    
+    /** Called with the raw size of the metadata when a loaded span first decompresses it. */
+    void onMetadataDecode(IntConsumer listener) {
+        this.metadataDecodeListener = listener;
+    }
+
     public enum EventType {
         SPAN, LOG, METRIC
     }
@@ -0,0 +1,50 @@
+package com.ecommerce.telemetryservice.model;
+
+import jakarta.persistence.*;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compressed span metadata, kept out of {@code trace_events} so that listing and
+ * aggregation queries never read it. Loaded lazily the first time
+ * {@link TraceEvent#getMetadata()} is called.
+ */
+@Entity
+@Table(name = "trace_event_metadata")
+@EntityListeners(MetadataListener.class)
+public class TraceEventMetadata {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+
+    private int rawLength;
+
+    protected TraceEventMetadata() {
+    }
+
+    public TraceEventMetadata(String metadata) {
+        update(metadata);
+    }
+
+    public void update(String metadata) {
+        byte[] raw = metadata.getBytes(StandardCharsets.UTF_8);
+        this.payload = MetadataCodec.encode(raw);
+        this.rawLength = raw.length;
+    }
+
+    public String decode() {
+        return MetadataCodec.decode(payload, rawLength);
+    }
+
+    public Long getId() { return id; }
+
+    void clearId() { this.id = null; }
+
+    public int getRawLength() { return rawLength; }
+
+    public int getStoredLength() { return payload.length; }
+}
@@ -0,0 +1,60 @@
+package com.ecommerce.telemetryservice.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A (service, operation) that occurs in a trace, with the timestamp of its first span:
+ * the service set of a {@link TraceSummary}, indexed so the trace list can filter on it.
+ */
+@Entity
+@Table(name = "trace_operations", indexes = {
+    @Index(name = "idx_trace_operations_trace", columnList = "trace_id, service_name, operation", unique = true),
+    @Index(name = "idx_trace_operations_service_op", columnList = "service_name, operation, trace_id")
+})
+public class TraceOperation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trace_id", nullable = false)
+    private String traceId;
+
+    @Column(name = "service_name", nullable = false)
+    private String serviceName;
+
+    @Column(nullable = false)
+    private String operation;
+
+    @Column(name = "first_micros", nullable = false)
+    private long firstMicros;
+
+    protected TraceOperation() {
+    }
+
+    public TraceOperation(String traceId, String serviceName, String operation, long firstMicros) {
+        this.traceId = traceId;
+        this.serviceName = serviceName;
+        this.operation = operation;
+        this.firstMicros = firstMicros;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getFirstMicros() {
+        return firstMicros;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.telemetryservice.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One row per trace with what the trace list shows and filters on, kept up to date as
+ * spans are ingested so listing never has to aggregate spans. Lives on the shard of its
+ * trace. The services and operations of the trace are in {@link TraceOperation}.
+ * <p>
+ * Rows are only written by {@code TraceSummaryWriter}, which merges each batch into them
+ * in the database; an instance built here with {@link #add} is such a batch.
+ */
+@Entity
+@Table(name = "trace_summaries", indexes = {
+    @Index(name = "idx_trace_summaries_start", columnList = "start_micros, trace_id"),
+    @Index(name = "idx_trace_summaries_duration", columnList = "duration_micros, trace_id"),
+    @Index(name = "idx_trace_summaries_end", columnList = "end_micros")
+})
+public class TraceSummary {
+    @Id
+    @Column(name = "trace_id")
+    private String traceId;
+
+    // First and last span timestamp
+    @Column(name = "start_micros", nullable = false)
+    private long startMicros = Long.MAX_VALUE;
+
+    @Column(name = "end_micros", nullable = false)
+    private long endMicros = Long.MIN_VALUE;
+
+    // end - start, stored so sorting by it can use an index
+    @Column(name = "duration_micros", nullable = false)
+    private long durationMicros;
+
+    @Column(name = "span_count", nullable = false)
+    private int spanCount;
+
+    @Column(name = "error_count", nullable = false)
+    private int errorCount;
+
+    @Column(name = "timeout_count", nullable = false)
+    private int timeoutCount;
+
+    // Longest single span, -1 while no span reported a duration
+    @Column(name = "max_duration_micros", nullable = false)
+    private long maxDurationMicros = -1;
+
+    // Of the span without a parent; null until it arrives
+    @Column(name = "root_service")
+    private String rootService;
+
+    @Column(name = "root_operation")
+    private String rootOperation;
+
+    protected TraceSummary() {
+    }
+
+    public TraceSummary(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public void add(TraceEvent span) {
+        startMicros = Math.min(startMicros, span.getTimestampMicros());
+        endMicros = Math.max(endMicros, span.getTimestampMicros());
+        durationMicros = endMicros - startMicros;
+        spanCount++;
+        if (span.getStatus() == TraceEvent.Status.ERROR) {
+            errorCount++;
+        } else if (span.getStatus() == TraceEvent.Status.TIMEOUT) {
+            timeoutCount++;
+        }
+        maxDurationMicros = Math.max(maxDurationMicros, span.getDurationMicros());
+        if (span.getParentSpanId() == null) {
+            rootService = span.getServiceName();
+            rootOperation = span.getOperation();
+        }
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public long getStartMicros() {
+        return startMicros;
+    }
+
+    public long getEndMicros() {
+        return endMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public int getSpanCount() {
+        return spanCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public int getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getMaxDurationMicros() {
+        return maxDurationMicros;
+    }
+
+    public String getRootService() {
+        return rootService;
+    }
+
+    public String getRootOperation() {
+        return rootOperation;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.telemetryservice.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Dictionary entry for a route template; spans reference it by id instead of repeating
+ * the template string.
+ */
+@Entity
+@Table(name = "url_templates")
+public class UrlTemplate {
+    public static final int MAX_LENGTH = 512;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+    
+    @Column(nullable = false, unique = true, length = MAX_LENGTH)
+    private String template;
+
+    public UrlTemplate() {
+    }
+
+    public UrlTemplate(String template) {
+        this.template = template;
+    }
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    
+    public String getTemplate() { return template; }
+    public void setTemplate(String template) { this.template = template; }
+}
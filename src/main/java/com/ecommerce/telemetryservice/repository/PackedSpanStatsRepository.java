@@ -0,0 +1,61 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.PackedSpanStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Aggregates over {@link PackedSpanStats} in the row shapes of the matching
+ * {@link TraceEventRepository} queries, so the two can be folded together.
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface PackedSpanStatsRepository extends JpaRepository<PackedSpanStats, Long> {
+
+    @Query("SELECT DISTINCT p.serviceName FROM PackedSpanStats p ORDER BY p.serviceName")
+    List<String> findDistinctServiceNames();
+
+    @Query("SELECT DISTINCT p.operation FROM PackedSpanStats p WHERE p.serviceName = :serviceName ORDER BY p.operation")
+    List<String> findDistinctOperationsByServiceName(@Param("serviceName") String serviceName);
+
+    @Query("SELECT COALESCE(SUM(p.spanCount), 0) FROM PackedSpanStats p")
+    long countSpans();
+
+    @Query("SELECT COALESCE(SUM(p.spanCount), 0) FROM PackedSpanStats p WHERE p.bucketMicros >= :fromMicros")
+    long countSpansFrom(@Param("fromMicros") long fromMicros);
+
+    // See TraceEventRepository.aggregateByOperation; minutes starting in [fromMicros, toMicros)
+    @Query("SELECT p.operation, SUM(p.spanCount), " +
+           "SUM(p.durationSumMicros), " +
+           "SUM(p.durationCount), " +
+           "MIN(CASE WHEN p.durationCount > 0 THEN p.durationMinMicros END), " +
+           "MAX(CASE WHEN p.durationCount > 0 THEN p.durationMaxMicros END), " +
+           "SUM(p.errorCount) " +
+           "FROM PackedSpanStats p WHERE p.serviceName = :serviceName " +
+           "AND p.bucketMicros >= :fromMicros AND p.bucketMicros < :toMicros " +
+           "GROUP BY p.operation")
+    List<Object[]> aggregateByOperation(@Param("serviceName") String serviceName,
+                                        @Param("fromMicros") long fromMicros,
+                                        @Param("toMicros") long toMicros);
+
+    // See TraceEventRepository.aggregateByUrlTemplate
+    @Query("SELECT p.httpMethod, p.urlTemplateId, SUM(p.spanCount), " +
+           "SUM(p.durationSumMicros), " +
+           "SUM(p.durationCount), " +
+           "MAX(CASE WHEN p.durationCount > 0 THEN p.durationMaxMicros END), " +
+           "SUM(p.errorCount) " +
+           "FROM PackedSpanStats p WHERE p.serviceName = :serviceName AND p.urlTemplateId IS NOT NULL " +
+           "GROUP BY p.httpMethod, p.urlTemplateId")
+    List<Object[]> aggregateByUrlTemplate(@Param("serviceName") String serviceName);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PackedSpanStats p WHERE p.tier = :tier AND p.bucketMicros < :cutoffMicros")
+    int deleteByTierAndBucketBefore(@Param("tier") PackedSpanStats.Tier tier, @Param("cutoffMicros") long cutoffMicros);
+}
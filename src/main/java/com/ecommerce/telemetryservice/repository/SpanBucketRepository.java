@@ -0,0 +1,31 @@
+package com.ecommerce.telemetryservice.repository;
+
+import java.util.List;
+
+/**
+ * Span counts and latency per time bucket, aggregated in the database for steps the
+ * rollups cannot answer (finer than a minute or not a whole number of minutes). Within a
+ * bucket spans are grouped by logarithmic duration class, so only a few rows per bucket
+ * come back and buckets from several shards merge into one histogram.
+ */
+public interface SpanBucketRepository {
+
+    /** Duration classes per factor e of duration; a class is about 3% wide. */
+    int DURATION_CLASSES_PER_E = 32;
+
+    /**
+     * @param index bucket number from the window start
+     * @param durationClass {@code floor(ln(duration + 1) * DURATION_CLASSES_PER_E)}; null for spans without a duration
+     */
+    record Bucket(long index, Integer durationClass, long spanCount, long errorCount,
+                  long durationCount, long durationSumMicros, long durationMinMicros, long durationMaxMicros) {
+    }
+
+    /**
+     * Spans of the service in {@code [fromMicros, toMicros)} in buckets of
+     * {@code stepMicros} starting at fromMicros, unordered.
+     *
+     * @param operation null for every operation
+     */
+    List<Bucket> aggregateBuckets(String serviceName, String operation, long fromMicros, long toMicros, long stepMicros);
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.telemetryservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Transactional(readOnly = true)
+public class SpanBucketRepositoryImpl implements SpanBucketRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Bucket> aggregateBuckets(String serviceName, String operation, long fromMicros, long toMicros, long stepMicros) {
+        // Window start and step are inlined as literals, so the grouped expressions read
+        // the same in SELECT and GROUP BY
+        String bucket = "(te.timestampMicros - " + fromMicros + "L) / " + stepMicros + "L";
+        String durationClass = "CASE WHEN te.durationMicros >= 0 THEN FLOOR(LN(te.durationMicros + 1) * "
+            + DURATION_CLASSES_PER_E + ") END";
+        TypedQuery<Object[]> query = entityManager.createQuery(
+            "SELECT " + bucket + ", " + durationClass + ", COUNT(te), " +
+            "SUM(CASE WHEN te.status = com.ecommerce.telemetryservice.model.TraceEvent.Status.ERROR THEN 1 ELSE 0 END), " +
+            "COUNT(CASE WHEN te.durationMicros >= 0 THEN 1 END), " +
+            "SUM(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END), " +
+            "MIN(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END), " +
+            "MAX(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END) " +
+            "FROM TraceEvent te WHERE te.serviceName = :serviceName" +
+            (operation != null ? " AND te.operation = :operation" : "") +
+            " AND te.timestampMicros >= :fromMicros AND te.timestampMicros < :toMicros" +
+            " GROUP BY " + bucket + ", " + durationClass,
+            Object[].class);
+        query.setParameter("serviceName", serviceName);
+        if (operation != null) {
+            query.setParameter("operation", operation);
+        }
+        query.setParameter("fromMicros", fromMicros);
+        query.setParameter("toMicros", toMicros);
+
+        List<Bucket> buckets = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            long durations = ((Number) row[4]).longValue();
+            buckets.add(new Bucket(
+                ((Number) row[0]).longValue(),
+                row[1] != null ? ((Number) row[1]).intValue() : null,
+                ((Number) row[2]).longValue(),
+                row[3] != null ? ((Number) row[3]).longValue() : 0,
+                durations,
+                durations > 0 ? ((Number) row[5]).longValue() : 0,
+                durations > 0 ? ((Number) row[6]).longValue() : 0,
+                durations > 0 ? ((Number) row[7]).longValue() : 0));
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import com.ecommerce.telemetryservice.model.SpanRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface SpanRollupRepository extends JpaRepository<SpanRollup, Long> {
+    
+    @Query("SELECT r FROM SpanRollup r WHERE r.resolution = :resolution " +
+           "AND r.bucketStartMicros >= :startMicros AND r.bucketStartMicros < :endMicros")
+    List<SpanRollup> findInRange(@Param("resolution") RollupResolution resolution,
+                                 @Param("startMicros") long startMicros,
+                                 @Param("endMicros") long endMicros);
+    
+    // Dashboard read: read pool. The compactor's reads are not read-only, as it writes back what it reads
+    @Transactional(readOnly = true)
+    @Query("SELECT r FROM SpanRollup r WHERE r.resolution = :resolution AND r.serviceName = :serviceName " +
+           "AND (:operation IS NULL OR r.operation = :operation) " +
+           "AND r.bucketStartMicros >= :startMicros AND r.bucketStartMicros < :endMicros")
+    List<SpanRollup> findForService(@Param("resolution") RollupResolution resolution,
+                                    @Param("serviceName") String serviceName,
+                                    @Param("operation") String operation,
+                                    @Param("startMicros") long startMicros,
+                                    @Param("endMicros") long endMicros);
+    
+    @Query("SELECT MIN(r.bucketStartMicros) FROM SpanRollup r WHERE r.resolution = :resolution")
+    Long findFirstBucketStart(@Param("resolution") RollupResolution resolution);
+    
+    @Query("SELECT MAX(r.bucketStartMicros) FROM SpanRollup r WHERE r.resolution = :resolution")
+    Long findLastBucketStart(@Param("resolution") RollupResolution resolution);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SpanRollup r WHERE r.resolution = :resolution AND r.bucketStartMicros < :cutoffMicros")
+    int deleteBefore(@Param("resolution") RollupResolution resolution, @Param("cutoffMicros") long cutoffMicros);
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.KeysetCursor;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+
+import java.util.List;
+
+/**
+ * Span listing with optional filters, keyset-paged newest first.
+ */
+public interface SpanSearchRepository {
+
+    /** Span listing filters; the time bounds are epoch micros, from inclusive and to exclusive. */
+    record SpanFilter(String serviceName, String operation, TraceEvent.Status status, Long fromMicros, Long toMicros) {
+    }
+
+    /**
+     * Spans newest first, continuing after the cursor (timestamp, span id) of the last
+     * span of the previous page; from the newest when it is null.
+     */
+    List<TraceEvent> findSpansAfter(SpanFilter filter, KeysetCursor after, int limit);
+}
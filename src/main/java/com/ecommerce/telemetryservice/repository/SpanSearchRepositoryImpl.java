@@ -0,0 +1,65 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.KeysetCursor;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Transactional(readOnly = true)
+public class SpanSearchRepositoryImpl implements SpanSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TraceEvent> findSpansAfter(SpanFilter filter, KeysetCursor after, int limit) {
+        StringBuilder where = new StringBuilder();
+        if (filter.serviceName() != null) {
+            where.append(" AND te.serviceName = :serviceName");
+        }
+        if (filter.operation() != null) {
+            where.append(" AND te.operation = :operation");
+        }
+        if (filter.status() != null) {
+            where.append(" AND te.status = :status");
+        }
+        if (filter.fromMicros() != null) {
+            where.append(" AND te.timestampMicros >= :fromMicros");
+        }
+        if (filter.toMicros() != null) {
+            where.append(" AND te.timestampMicros < :toMicros");
+        }
+        if (after != null) {
+            where.append(" AND (te.timestampMicros < :afterKey OR (te.timestampMicros = :afterKey AND te.id < :afterId))");
+        }
+        TypedQuery<TraceEvent> query = entityManager.createQuery(
+            "SELECT te FROM TraceEvent te LEFT JOIN FETCH te.metadataBlob"
+                + (where.length() == 0 ? "" : " WHERE" + where.substring(" AND".length()))
+                + " ORDER BY te.timestampMicros DESC, te.id DESC",
+            TraceEvent.class);
+        if (filter.serviceName() != null) {
+            query.setParameter("serviceName", filter.serviceName());
+        }
+        if (filter.operation() != null) {
+            query.setParameter("operation", filter.operation());
+        }
+        if (filter.status() != null) {
+            query.setParameter("status", filter.status());
+        }
+        if (filter.fromMicros() != null) {
+            query.setParameter("fromMicros", filter.fromMicros());
+        }
+        if (filter.toMicros() != null) {
+            query.setParameter("toMicros", filter.toMicros());
+        }
+        if (after != null) {
+            query.setParameter("afterKey", after.key());
+            query.setParameter("afterId", Long.parseLong(after.tieBreaker()));
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.TraceBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@Transactional(readOnly = true)
+public interface TraceBlobRepository extends JpaRepository<TraceBlob, Long> {
+    
+    Optional<TraceBlob> findByTraceId(String traceId);
+    
+    List<TraceBlob> findByTraceIdIn(Collection<String> traceIds);
+    
+    @Query("SELECT b FROM TraceBlob b WHERE b.maxSpanId > :afterSpanId AND b.id > :afterId ORDER BY b.id")
+    List<TraceBlob> findWithSpansAfter(@Param("afterSpanId") long afterSpanId, @Param("afterId") long afterId, Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TraceBlob b WHERE b.endMicros < :cutoffMicros")
+    int deleteByEndBefore(@Param("cutoffMicros") long cutoffMicros);
+}
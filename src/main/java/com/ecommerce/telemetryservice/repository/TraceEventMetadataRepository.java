@@ -0,0 +1,21 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.TraceEventMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface TraceEventMetadataRepository extends JpaRepository<TraceEventMetadata, Long> {
+    
+    /**
+     * Removes metadata rows whose span was deleted by a bulk delete, which bypasses the
+     * entity cascade.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TraceEventMetadata m WHERE NOT EXISTS (SELECT 1 FROM TraceEvent te WHERE te.metadataBlob = m)")
+    int deleteOrphans();
+}
@@ -2,6 +2,7 @@ package com.ecommerce.telemetryservice.repository;
 
 import com.ecommerce.telemetryservice.model.TraceEvent;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,15 +10,23 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+// Queries run read-only so they take read-pool connections; saves and deletes stay on the write pool
 @Repository
-public interface TraceEventRepository extends JpaRepository<TraceEvent, Long> {
+@Transactional(readOnly = true)
+public interface TraceEventRepository extends JpaRepository<TraceEvent, Long>, SpanSearchRepository, SpanBucketRepository {
     
-    List<TraceEvent> findByTraceIdOrderByTimestamp(String traceId);
+    // Fetches the metadata with the spans: the trace is read on its shard, which the session does not outlive
+    @Query("SELECT te FROM TraceEvent te LEFT JOIN FETCH te.metadataBlob WHERE te.traceId = :traceId ORDER BY te.timestampMicros")
+    List<TraceEvent> findByTraceIdOrderByTimestamp(@Param("traceId") String traceId);
     
-    List<TraceEvent> findByServiceNameOrderByTimestampDesc(String serviceName);
+    // Text search candidates: only their spans inside the window that carry searchable text; metadata stays unloaded
+    @Query("SELECT te FROM TraceEvent te WHERE te.traceId IN :traceIds AND te.timestampMicros BETWEEN :fromMicros AND :toMicros " +
+           "AND (te.errorMessage IS NOT NULL OR te.httpUrl IS NOT NULL) ORDER BY te.timestampMicros")
+    List<TraceEvent> findTextSpans(@Param("traceIds") Collection<String> traceIds, @Param("fromMicros") long fromMicros,
+                                   @Param("toMicros") long toMicros);
     
     @Query("SELECT DISTINCT te.serviceName FROM TraceEvent te ORDER BY te.serviceName")
     List<String> findDistinctServiceNames();
@@ -28,18 +37,51 @@ public interface TraceEventRepository extends JpaRepository<TraceEvent, Long> {
     @Query("SELECT DISTINCT te.traceId FROM TraceEvent te")
     List<String> findDistinctTraceIds(PageRequest pageRequest);
     
-    @Query("SELECT COUNT(te) FROM TraceEvent te WHERE te.timestamp > :since")
-    long countRecentEvents(@Param("since") LocalDateTime since);
+    // Traces whose newest span is older than the cutoff, i.e. that stopped receiving spans
+    @Query("SELECT te.traceId FROM TraceEvent te GROUP BY te.traceId HAVING MAX(te.timestampMicros) < :cutoffMicros")
+    List<String> findTraceIdsQuietSince(@Param("cutoffMicros") long cutoffMicros, Pageable pageable);
+    
+    @Query("SELECT COUNT(te) FROM TraceEvent te WHERE te.timestampMicros > :sinceMicros")
+    long countRecentEvents(@Param("sinceMicros") long sinceMicros);
+    
+    // Per operation of the service in [fromMicros, toMicros): span count, duration sum, count, min and
+    // max in micros (spans without a duration left out), error count. Rows from several shards add up
+    @Query("SELECT te.operation, COUNT(te), " +
+           "SUM(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END), " +
+           "COUNT(CASE WHEN te.durationMicros >= 0 THEN 1 END), " +
+           "MIN(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END), " +
+           "MAX(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END), " +
+           "SUM(CASE WHEN te.status = com.ecommerce.telemetryservice.model.TraceEvent.Status.ERROR THEN 1 ELSE 0 END) " +
+           "FROM TraceEvent te WHERE te.serviceName = :serviceName " +
+           "AND te.timestampMicros >= :fromMicros AND te.timestampMicros < :toMicros " +
+           "GROUP BY te.operation")
+    List<Object[]> aggregateByOperation(@Param("serviceName") String serviceName,
+                                        @Param("fromMicros") long fromMicros,
+                                        @Param("toMicros") long toMicros);
+    
+    // Durations are returned in micros as sum and count, so rows from several shards can be combined;
+    // spans without one (duration_micros < 0) are left out of both and of MAX
+    @Query("SELECT te.httpMethod, te.urlTemplateId, COUNT(te), " +
+           "SUM(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END), " +
+           "COUNT(CASE WHEN te.durationMicros >= 0 THEN 1 END), " +
+           "MAX(CASE WHEN te.durationMicros >= 0 THEN te.durationMicros END), " +
+           "SUM(CASE WHEN te.status = com.ecommerce.telemetryservice.model.TraceEvent.Status.ERROR THEN 1 ELSE 0 END) " +
+           "FROM TraceEvent te WHERE te.serviceName = :serviceName AND te.urlTemplateId IS NOT NULL " +
+           "GROUP BY te.httpMethod, te.urlTemplateId")
+    List<Object[]> aggregateByUrlTemplate(@Param("serviceName") String serviceName);
+    
+    @Query("SELECT te FROM TraceEvent te LEFT JOIN FETCH te.metadataBlob WHERE te.timestampMicros < :cutoffMicros AND te.id > :afterId ORDER BY te.id")
+    List<TraceEvent> findOlderThan(@Param("cutoffMicros") long cutoffMicros, @Param("afterId") long afterId, Pageable pageable);
     
     @Modifying
     @Transactional
-    @Query("DELETE FROM TraceEvent te WHERE te.timestamp < :cutoffDate")
-    int deleteByTimestampBefore(@Param("cutoffDate") LocalDateTime cutoffDate);
+    @Query("DELETE FROM TraceEvent te WHERE te.timestampMicros < :cutoffMicros")
+    int deleteByTimestampBefore(@Param("cutoffMicros") long cutoffMicros);
     
     List<TraceEvent> findByStatus(TraceEvent.Status status);
     
     List<TraceEvent> findByServiceNameAndOperation(String serviceName, String operation);
     
-    @Query("SELECT te FROM TraceEvent te WHERE te.timestamp BETWEEN :startTime AND :endTime ORDER BY te.timestamp")
-    List<TraceEvent> findByTimestampBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    @Query("SELECT te FROM TraceEvent te WHERE te.timestampMicros BETWEEN :startMicros AND :endMicros ORDER BY te.timestampMicros")
+    List<TraceEvent> findByTimestampBetween(@Param("startMicros") long startMicros, @Param("endMicros") long endMicros);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.TraceOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface TraceOperationRepository extends JpaRepository<TraceOperation, Long> {
+
+    List<TraceOperation> findByTraceIdIn(Collection<String> traceIds);
+
+    // Operations of traces whose summary was deleted by retention
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TraceOperation o WHERE NOT EXISTS (SELECT 1 FROM TraceSummary ts WHERE ts.traceId = o.traceId)")
+    int deleteOrphans();
+}
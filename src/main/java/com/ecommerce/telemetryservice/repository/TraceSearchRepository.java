@@ -0,0 +1,72 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.KeysetCursor;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.model.TraceSummary;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trace listing over {@code trace_summaries}, with the filters applied in the database
+ * before paging. A trace matches when it has a span of the given service, a span of the
+ * given operation (of that service, when both are given) and a span with the given
+ * status. Service and operation are semi-joins on the {@code trace_operations} index;
+ * sorting walks the start or duration index of the summaries.
+ */
+public interface TraceSearchRepository {
+
+    /**
+     * @param traceIds restricts the search to these traces, e.g. tag matches; null for all, empty for none.
+     *                 Large sets are queried in chunks and merged, so they need not fit one IN list
+     */
+    record Filter(String serviceName, String operation, TraceEvent.Status status, Collection<String> traceIds) {
+    }
+
+    /**
+     * Sorts by trace start ({@code timestamp}, {@code startTime}) or {@code duration},
+     * newest first when unsorted. Ties are broken by traceId so pages are stable.
+     */
+    List<TraceSummary> findTracePage(Filter filter, Sort sort, long offset, int limit);
+
+    /**
+     * The traces that follow {@code after} in the sort order; from the start when it is
+     * null. The cursor holds the sort key (start or duration) and traceId of the last trace
+     * of the previous page, see {@link #cursor}.
+     */
+    List<TraceSummary> findTracesAfter(Filter filter, Sort sort, KeysetCursor after, int limit);
+
+    long countTraces(Filter filter);
+
+    /** Cursor of the trace under the sort, for {@link #findTracesAfter}. */
+    static KeysetCursor cursor(TraceSummary trace, Sort sort) {
+        return new KeysetCursor(isDuration(primaryOrder(sort)) ? trace.getDurationMicros() : trace.getStartMicros(), trace.getTraceId());
+    }
+
+    /** The order of {@link #findTracePage}, for merging pages from several shards. */
+    static Comparator<TraceSummary> comparator(Sort sort) {
+        Sort.Order order = primaryOrder(sort);
+        Comparator<TraceSummary> byKey = isDuration(order)
+            ? Comparator.comparingLong(TraceSummary::getDurationMicros)
+            : Comparator.comparingLong(TraceSummary::getStartMicros);
+        Comparator<TraceSummary> comparator = byKey.thenComparing(TraceSummary::getTraceId);
+        return order.isAscending() ? comparator : comparator.reversed();
+    }
+
+    static Sort.Order primaryOrder(Sort sort) {
+        Sort.Order order = sort != null ? sort.stream().findFirst().orElse(null) : null;
+        if (order == null) {
+            return Sort.Order.desc("timestamp");
+        }
+        if (!isDuration(order) && !"timestamp".equals(order.getProperty()) && !"startTime".equals(order.getProperty())) {
+            throw new IllegalArgumentException("Traces can be sorted by timestamp or duration, not " + order.getProperty());
+        }
+        return order;
+    }
+
+    private static boolean isDuration(Sort.Order order) {
+        return "duration".equals(order.getProperty());
+    }
+}
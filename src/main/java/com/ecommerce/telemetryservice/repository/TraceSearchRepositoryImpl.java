@@ -0,0 +1,138 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.KeysetCursor;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.model.TraceSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Transactional(readOnly = true)
+public class TraceSearchRepositoryImpl implements TraceSearchRepository {
+
+    // Tag candidates are bound as an IN list; past this many each chunk is its own statement,
+    // so large tag matches stay under the bind-parameter limits of the database
+    static final int MAX_CANDIDATES_PER_QUERY = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TraceSummary> findTracePage(Filter filter, Sort sort, long offset, int limit) {
+        return findTraces(filter, sort, null, (int) offset, limit);
+    }
+
+    @Override
+    public List<TraceSummary> findTracesAfter(Filter filter, Sort sort, KeysetCursor after, int limit) {
+        return findTraces(filter, sort, after, 0, limit);
+    }
+
+    private List<TraceSummary> findTraces(Filter filter, Sort sort, KeysetCursor after, int offset, int limit) {
+        List<Filter> chunks = candidateChunks(filter);
+        if (chunks.size() == 1) {
+            return findTracesInChunk(chunks.get(0), sort, after, offset, limit);
+        }
+        // Every chunk returns its leading offset + limit traces; the page is cut from the merged list
+        return chunks.stream()
+            .flatMap(chunk -> findTracesInChunk(chunk, sort, after, 0, offset + limit).stream())
+            .sorted(TraceSearchRepository.comparator(sort))
+            .skip(offset)
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    private List<TraceSummary> findTracesInChunk(Filter filter, Sort sort, KeysetCursor after, int offset, int limit) {
+        Sort.Order order = TraceSearchRepository.primaryOrder(sort);
+        String key = "duration".equals(order.getProperty()) ? "ts.durationMicros" : "ts.startMicros";
+        String direction = order.isAscending() ? " ASC" : " DESC";
+        List<String> predicates = predicates(filter);
+        if (after != null) {
+            String beyond = order.isAscending() ? " > " : " < ";
+            predicates.add("(" + key + beyond + ":afterKey OR (" + key + " = :afterKey AND ts.traceId" + beyond + ":afterTraceId))");
+        }
+        TypedQuery<TraceSummary> query = entityManager.createQuery(
+            "SELECT ts FROM TraceSummary ts" + where(predicates) + " ORDER BY " + key + direction + ", ts.traceId" + direction,
+            TraceSummary.class);
+        bind(query, filter);
+        if (after != null) {
+            query.setParameter("afterKey", after.key());
+            query.setParameter("afterTraceId", after.tieBreaker());
+        }
+        return query.setFirstResult(offset).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countTraces(Filter filter) {
+        long count = 0;
+        for (Filter chunk : candidateChunks(filter)) {
+            TypedQuery<Long> query = entityManager.createQuery(
+                "SELECT COUNT(ts) FROM TraceSummary ts" + where(predicates(chunk)), Long.class);
+            bind(query, chunk);
+            count += query.getSingleResult();
+        }
+        return count;
+    }
+
+    // The filter once per chunk of distinct candidates; none for an empty candidate list,
+    // which matches nothing without asking the database
+    private static List<Filter> candidateChunks(Filter filter) {
+        if (filter.traceIds() == null) {
+            return List.of(filter);
+        }
+        List<String> candidates = new ArrayList<>(new LinkedHashSet<>(filter.traceIds()));
+        List<Filter> chunks = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += MAX_CANDIDATES_PER_QUERY) {
+            List<String> chunk = candidates.subList(from, Math.min(candidates.size(), from + MAX_CANDIDATES_PER_QUERY));
+            chunks.add(new Filter(filter.serviceName(), filter.operation(), filter.status(), chunk));
+        }
+        return chunks;
+    }
+
+    // Only the filters that are set become predicates. Service and operation are semi-joins the
+    // database answers from the (service_name, operation, trace_id) index; status reads the counts
+    private static List<String> predicates(Filter filter) {
+        List<String> predicates = new ArrayList<>();
+        if (filter.traceIds() != null) {
+            predicates.add("ts.traceId IN :traceIds");
+        }
+        if (filter.serviceName() != null) {
+            predicates.add("ts.traceId IN (SELECT s.traceId FROM TraceOperation s WHERE s.serviceName = :serviceName)");
+        }
+        if (filter.operation() != null) {
+            predicates.add(filter.serviceName() != null
+                ? "ts.traceId IN (SELECT o.traceId FROM TraceOperation o WHERE o.serviceName = :serviceName AND o.operation = :operation)"
+                : "ts.traceId IN (SELECT o.traceId FROM TraceOperation o WHERE o.operation = :operation)");
+        }
+        if (filter.status() == TraceEvent.Status.ERROR) {
+            predicates.add("ts.errorCount > 0");
+        } else if (filter.status() == TraceEvent.Status.TIMEOUT) {
+            predicates.add("ts.timeoutCount > 0");
+        } else if (filter.status() == TraceEvent.Status.SUCCESS) {
+            predicates.add("ts.spanCount > ts.errorCount + ts.timeoutCount");
+        }
+        return predicates;
+    }
+
+    private static String where(List<String> predicates) {
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+
+    private static void bind(TypedQuery<?> query, Filter filter) {
+        if (filter.traceIds() != null) {
+            query.setParameter("traceIds", filter.traceIds());
+        }
+        if (filter.serviceName() != null) {
+            query.setParameter("serviceName", filter.serviceName());
+        }
+        if (filter.operation() != null) {
+            query.setParameter("operation", filter.operation());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.TraceSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+// Written by TraceSummaryWriter with MERGE statements; this is the read side and retention
+@Repository
+@Transactional(readOnly = true)
+public interface TraceSummaryRepository extends JpaRepository<TraceSummary, String>, TraceSearchRepository {
+
+    List<TraceSummary> findByTraceIdIn(Collection<String> traceIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TraceSummary ts WHERE ts.endMicros < :cutoffMicros")
+    int deleteByEndBefore(@Param("cutoffMicros") long cutoffMicros);
+}
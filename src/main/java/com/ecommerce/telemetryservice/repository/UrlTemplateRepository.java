@@ -0,0 +1,9 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.model.UrlTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UrlTemplateRepository extends JpaRepository<UrlTemplate, Integer> {
+}
@@ -0,0 +1,175 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable log-linear histogram of durations in microseconds, in the style of
+ * HdrHistogram: values below 32 get a bucket each, and every power of two above is split
+ * into 32 equal sub-buckets, so a bucket is never wider than about 3% of its values.
+ * Two histograms merge by adding bucket counts, which is what lets minute rollups be
+ * summed into hours and days without losing percentile accuracy.
+ * <p>
+ * Serialized form: varint count of non-empty buckets, then {@code (index delta, count)}
+ * varint pairs, then min and max. A typical service minute fits in a few hundred bytes.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts = new long[SUB_BUCKETS * 4];
+    private int maxIndex = -1;
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public void record(long micros) {
+        recordCount(Math.max(0, micros), 1);
+    }
+
+    /** Records {@code count} values of the same duration. */
+    public void record(long micros, long count) {
+        if (count > 0) {
+            recordCount(Math.max(0, micros), count);
+        }
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int index = 0; index <= other.maxIndex; index++) {
+            if (other.counts[index] != 0) {
+                add(index, other.counts[index]);
+            }
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Value at the given quantile (0..1], reported as the highest value of its bucket and
+     * clamped to the recorded range; 0 when empty.
+     */
+    public long valueAtQuantile(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int index = 0; index <= maxIndex; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, lowerBound(index + 1) - 1));
+            }
+        }
+        return max;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount > 0 ? min : 0;
+    }
+
+    public long getMax() {
+        return totalCount > 0 ? max : 0;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        int buckets = 0;
+        for (int index = 0; index <= maxIndex; index++) {
+            if (counts[index] != 0) {
+                buckets++;
+            }
+        }
+        writeVarLong(out, buckets);
+        int previous = 0;
+        for (int index = 0; index <= maxIndex; index++) {
+            if (counts[index] != 0) {
+                writeVarLong(out, index - previous);
+                writeVarLong(out, counts[index]);
+                previous = index;
+            }
+        }
+        writeVarLong(out, getMin());
+        writeVarLong(out, getMax());
+        return out.toByteArray();
+    }
+
+    public static LatencyHistogram fromBytes(byte[] bytes) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        if (bytes == null || bytes.length == 0) {
+            return histogram;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        long buckets = readVarLong(in);
+        int index = 0;
+        for (long i = 0; i < buckets; i++) {
+            index += (int) readVarLong(in);
+            histogram.add(index, readVarLong(in));
+        }
+        long min = readVarLong(in);
+        long max = readVarLong(in);
+        if (histogram.totalCount > 0) {
+            histogram.min = min;
+            histogram.max = max;
+        }
+        return histogram;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private void recordCount(long value, long count) {
+        add(indexOf(value), count);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    private void add(int index, long count) {
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index] += count;
+        maxIndex = Math.max(maxIndex, index);
+        totalCount += count;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates spans into minute buckets per (serviceName, operation, status) as they are
+ * ingested. {@link RollupCompactor} drains closed minutes into {@code span_rollups};
+ * until then queries read the open minutes from here.
+ * <p>
+ * Every update of a cell runs inside {@link ConcurrentHashMap#compute}, so a drain that
+ * removes the cell can never race with a span being added to it.
+ */
+@Component
+public class RollupAccumulator {
+
+    public record Key(long bucketStartMicros, String serviceName, String operation, TraceEvent.Status status) {
+    }
+
+    @Value("${telemetry.rollups.enabled:true}")
+    private boolean enabled;
+
+    private final Map<Key, RollupStats> cells = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(TraceEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Key key = new Key(RollupResolution.MINUTE.bucketStart(event.getTimestampMicros()), event.getServiceName(),
+            event.getOperation(), event.getStatus() != null ? event.getStatus() : TraceEvent.Status.SUCCESS);
+        cells.compute(key, (k, stats) -> {
+            RollupStats cell = stats != null ? stats : new RollupStats();
+            cell.record(event);
+            return cell;
+        });
+    }
+
+    public void recordAll(List<TraceEvent> events) {
+        for (TraceEvent event : events) {
+            record(event);
+        }
+    }
+
+    /**
+     * Removes and returns the cells of minutes starting before the cutoff, grouped by
+     * minute in ascending order.
+     */
+    public TreeMap<Long, Map<Key, RollupStats>> drainBefore(long cutoffMicros) {
+        TreeMap<Long, Map<Key, RollupStats>> drained = new TreeMap<>();
+        for (Key key : new ArrayList<>(cells.keySet())) {
+            if (key.bucketStartMicros() < cutoffMicros) {
+                RollupStats stats = cells.remove(key);
+                if (stats != null) {
+                    drained.computeIfAbsent(key.bucketStartMicros(), bucket -> new ConcurrentHashMap<>()).put(key, stats);
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Puts drained cells back, merged with whatever was recorded into the same cells
+     * since, so a minute whose write failed is written by the next flush.
+     */
+    public void restore(Map<Key, RollupStats> drained) {
+        for (Map.Entry<Key, RollupStats> cell : drained.entrySet()) {
+            cells.merge(cell.getKey(), cell.getValue(), (recorded, restored) -> {
+                restored.merge(recorded);
+                return restored;
+            });
+        }
+    }
+
+    /**
+     * Merges the not yet drained cells of the service in {@code [startMicros, endMicros)}
+     * into the target.
+     *
+     * @param operation null for every operation
+     */
+    public void collect(String serviceName, String operation, long startMicros, long endMicros, RollupStats target) {
+        for (Key key : cells.keySet()) {
+            if (key.bucketStartMicros() >= startMicros && key.bucketStartMicros() < endMicros
+                    && key.serviceName().equals(serviceName) && (operation == null || key.operation().equals(operation))) {
+                cells.computeIfPresent(key, (k, stats) -> {
+                    target.merge(stats);
+                    return stats;
+                });
+            }
+        }
+    }
+
+    public int getCellCount() {
+        return cells.size();
+    }
+}
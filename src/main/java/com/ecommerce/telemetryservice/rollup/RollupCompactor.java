@@ -0,0 +1,223 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import com.ecommerce.telemetryservice.model.SpanRollup;
+import com.ecommerce.telemetryservice.repository.SpanRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Background job that maintains {@code span_rollups}:
+ * <ul>
+ *   <li>writes minutes from the {@link RollupAccumulator} once they are older than
+ *       {@code telemetry.rollups.lateness-seconds}, merging late spans into rows already
+ *       written;</li>
+ *   <li>downsamples every closed hour that received minutes into hour rows, and every
+ *       closed day into day rows, by re-aggregating the finer rows (idempotent, so a
+ *       late minute simply makes its hour and day dirty again);</li>
+ *   <li>drops rows past the retention of their resolution.</li>
+ * </ul>
+ */
+@Component
+public class RollupCompactor implements RollupQueryPlanner.Availability {
+
+    private static final long MICROS_PER_DAY = RollupResolution.DAY.getWidthMicros();
+
+    @Autowired
+    private RollupAccumulator accumulator;
+
+    @Autowired
+    private SpanRollupRepository spanRollupRepository;
+
+    @Value("${telemetry.rollups.lateness-seconds:60}")
+    private long latenessSeconds;
+
+    @Value("${telemetry.rollups.retention.minute-days:2}")
+    private int minuteRetentionDays;
+
+    @Value("${telemetry.rollups.retention.hour-days:35}")
+    private int hourRetentionDays;
+
+    @Value("${telemetry.rollups.retention.day-days:730}")
+    private int dayRetentionDays;
+
+    private final NavigableSet<Long> dirtyHours = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Long> dirtyDays = new ConcurrentSkipListSet<>();
+    // Minutes starting before this are in the table rather than the accumulator
+    private volatile long flushedThroughMicros;
+
+    /**
+     * Marks hours and days that may not have been downsampled before the last shutdown.
+     */
+    @PostConstruct
+    public void init() {
+        if (minuteRetentionDays < 1 || hourRetentionDays < minuteRetentionDays || dayRetentionDays < hourRetentionDays) {
+            throw new IllegalArgumentException("Rollup retention must grow with resolution and keep minutes at least a day: "
+                + minuteRetentionDays + "/" + hourRetentionDays + "/" + dayRetentionDays);
+        }
+        Long lastMinute = spanRollupRepository.findLastBucketStart(RollupResolution.MINUTE);
+        if (lastMinute == null) {
+            return;
+        }
+        Long lastHour = spanRollupRepository.findLastBucketStart(RollupResolution.HOUR);
+        long firstHour = lastHour != null ? lastHour
+            : RollupResolution.HOUR.bucketStart(spanRollupRepository.findFirstBucketStart(RollupResolution.MINUTE));
+        for (long hour = firstHour; hour <= lastMinute; hour += RollupResolution.HOUR.getWidthMicros()) {
+            dirtyHours.add(hour);
+        }
+        Long lastDay = spanRollupRepository.findLastBucketStart(RollupResolution.DAY);
+        long firstDay = lastDay != null ? Math.min(lastDay, RollupResolution.DAY.bucketStart(firstHour))
+            : RollupResolution.DAY.bucketStart(firstHour);
+        for (long day = firstDay; day <= lastMinute; day += MICROS_PER_DAY) {
+            dirtyDays.add(day);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.rollups.flush-interval-ms:15000}")
+    public synchronized void compact() {
+        if (!accumulator.isEnabled()) {
+            return;
+        }
+        long now = EpochMicros.now();
+        long cutoff = RollupResolution.MINUTE.bucketStart(now - latenessSeconds * 1_000_000L);
+        flush(cutoff);
+        downsample(cutoff);
+        spanRollupRepository.deleteBefore(RollupResolution.MINUTE, retainedFrom(RollupResolution.MINUTE));
+        spanRollupRepository.deleteBefore(RollupResolution.HOUR, retainedFrom(RollupResolution.HOUR));
+        spanRollupRepository.deleteBefore(RollupResolution.DAY, retainedFrom(RollupResolution.DAY));
+    }
+
+    /** Writes every open minute so nothing accumulated is lost on shutdown. */
+    @PreDestroy
+    public synchronized void flushAll() {
+        if (accumulator.isEnabled()) {
+            flush(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public long currentThrough(RollupResolution resolution) {
+        if (resolution == RollupResolution.MINUTE) {
+            return Long.MAX_VALUE;
+        }
+        long hours = RollupResolution.HOUR.bucketStart(flushedThroughMicros);
+        if (!dirtyHours.isEmpty()) {
+            hours = Math.min(hours, dirtyHours.first());
+        }
+        if (resolution == RollupResolution.HOUR) {
+            return hours;
+        }
+        long days = RollupResolution.DAY.bucketStart(hours);
+        return dirtyDays.isEmpty() ? days : Math.min(days, dirtyDays.first());
+    }
+
+    @Override
+    public long retainedFrom(RollupResolution resolution) {
+        int days = switch (resolution) {
+            case MINUTE -> minuteRetentionDays;
+            case HOUR -> hourRetentionDays;
+            case DAY -> dayRetentionDays;
+        };
+        return RollupResolution.DAY.bucketStart(EpochMicros.now()) - days * MICROS_PER_DAY;
+    }
+
+    private void flush(long cutoffMicros) {
+        TreeMap<Long, Map<RollupAccumulator.Key, RollupStats>> drained = accumulator.drainBefore(cutoffMicros);
+        for (Map.Entry<Long, Map<RollupAccumulator.Key, RollupStats>> minute : drained.entrySet()) {
+            long bucket = minute.getKey();
+            try {
+                writeMinute(bucket, minute.getValue());
+            } catch (RuntimeException e) {
+                // Each minute is saved in one transaction, so this one and the later ones are not in the table
+                drained.tailMap(bucket, true).values().forEach(accumulator::restore);
+                throw e;
+            }
+            dirtyHours.add(RollupResolution.HOUR.bucketStart(bucket));
+        }
+        if (cutoffMicros != Long.MAX_VALUE) {
+            flushedThroughMicros = cutoffMicros;
+        }
+    }
+
+    /** Merges the cells of one minute into its rows, leaving the cells untouched. */
+    private void writeMinute(long bucket, Map<RollupAccumulator.Key, RollupStats> cells) {
+        Map<RollupAccumulator.Key, SpanRollup> existing = byKey(spanRollupRepository.findInRange(RollupResolution.MINUTE, bucket, bucket + 1));
+        List<SpanRollup> rows = new ArrayList<>(cells.size());
+        for (Map.Entry<RollupAccumulator.Key, RollupStats> cell : cells.entrySet()) {
+            RollupAccumulator.Key key = cell.getKey();
+            RollupStats stats = cell.getValue();
+            SpanRollup row = existing.get(key);
+            if (row == null) {
+                row = new SpanRollup(RollupResolution.MINUTE, bucket, key.serviceName(), key.operation(), key.status());
+            } else {
+                RollupStats merged = RollupStats.of(row);
+                merged.merge(stats);
+                stats = merged;
+            }
+            stats.writeTo(row);
+            rows.add(row);
+        }
+        spanRollupRepository.saveAll(rows);
+    }
+
+    private void downsample(long cutoffMicros) {
+        long hourWidth = RollupResolution.HOUR.getWidthMicros();
+        while (!dirtyHours.isEmpty() && dirtyHours.first() + hourWidth <= cutoffMicros) {
+            long hour = dirtyHours.first();
+            aggregate(RollupResolution.MINUTE, RollupResolution.HOUR, hour);
+            dirtyDays.add(RollupResolution.DAY.bucketStart(hour));
+            dirtyHours.remove(hour);
+        }
+        long hoursThrough = dirtyHours.isEmpty() ? cutoffMicros : dirtyHours.first();
+        while (!dirtyDays.isEmpty() && dirtyDays.first() + MICROS_PER_DAY <= hoursThrough) {
+            long day = dirtyDays.first();
+            aggregate(RollupResolution.HOUR, RollupResolution.DAY, day);
+            dirtyDays.remove(day);
+        }
+    }
+
+    /** Replaces the target rows of one bucket with the sum of the finer rows inside it. */
+    private void aggregate(RollupResolution source, RollupResolution target, long bucket) {
+        Map<RollupAccumulator.Key, RollupStats> totals = new HashMap<>();
+        for (SpanRollup row : spanRollupRepository.findInRange(source, bucket, bucket + target.getWidthMicros())) {
+            totals.computeIfAbsent(new RollupAccumulator.Key(bucket, row.getServiceName(), row.getOperation(), row.getStatus()),
+                key -> new RollupStats()).merge(RollupStats.of(row));
+        }
+        Map<RollupAccumulator.Key, SpanRollup> existing = byKey(spanRollupRepository.findInRange(target, bucket, bucket + 1));
+        List<SpanRollup> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<RollupAccumulator.Key, RollupStats> total : totals.entrySet()) {
+            RollupAccumulator.Key key = total.getKey();
+            SpanRollup row = existing.remove(key);
+            if (row == null) {
+                row = new SpanRollup(target, bucket, key.serviceName(), key.operation(), key.status());
+            }
+            total.getValue().writeTo(row);
+            rows.add(row);
+        }
+        spanRollupRepository.saveAll(rows);
+        if (!existing.isEmpty()) {
+            spanRollupRepository.deleteAll(existing.values());
+        }
+    }
+
+    private static Map<RollupAccumulator.Key, SpanRollup> byKey(List<SpanRollup> rows) {
+        Map<RollupAccumulator.Key, SpanRollup> byKey = new HashMap<>();
+        for (SpanRollup row : rows) {
+            byKey.put(new RollupAccumulator.Key(row.getBucketStartMicros(), row.getServiceName(), row.getOperation(), row.getStatus()), row);
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import com.ecommerce.telemetryservice.model.RollupResolution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits a query window into the fewest rollup buckets: whole days from the day
+ * rollups, the remaining whole hours at the edges from the hour rollups, and the rest
+ * from minutes. The window is widened to whole minutes first.
+ * <p>
+ * A resolution is only used where its rows are current (downsampling has caught up) and
+ * still retained. Where the finer rows needed for an edge have expired, the edge is
+ * widened to the enclosing coarser bucket and the plan is marked approximate.
+ */
+public final class RollupQueryPlanner {
+
+    /** What rollup data exists, per resolution. */
+    public interface Availability {
+        /** Buckets ending at or before this time are complete and up to date. */
+        long currentThrough(RollupResolution resolution);
+
+        /** Buckets starting before this time have been removed by retention. */
+        long retainedFrom(RollupResolution resolution);
+    }
+
+    public record Range(RollupResolution resolution, long startMicros, long endMicros) {
+    }
+
+    public record Plan(List<Range> ranges, long startMicros, long endMicros, boolean approximate) {
+    }
+
+    private static final RollupResolution[] COARSEST_FIRST = {
+        RollupResolution.DAY, RollupResolution.HOUR, RollupResolution.MINUTE
+    };
+
+    private RollupQueryPlanner() {
+    }
+
+    public static Plan plan(long fromMicros, long toMicros, Availability availability) {
+        long start = RollupResolution.MINUTE.bucketStart(fromMicros);
+        long end = RollupResolution.MINUTE.ceil(toMicros);
+        List<Range> ranges = new ArrayList<>();
+        List<long[]> uncovered = new ArrayList<>();
+        if (start < end) {
+            uncovered.add(new long[] {start, end});
+        }
+
+        for (RollupResolution resolution : COARSEST_FIRST) {
+            long usableFrom = retainedFrom(resolution, availability);
+            long usableTo = resolution == RollupResolution.MINUTE
+                ? Long.MAX_VALUE : resolution.bucketStart(availability.currentThrough(resolution));
+            List<long[]> remaining = new ArrayList<>();
+            for (long[] gap : uncovered) {
+                long rangeStart = Math.max(resolution.ceil(gap[0]), usableFrom);
+                long rangeEnd = Math.min(resolution.bucketStart(gap[1]), usableTo);
+                if (rangeStart >= rangeEnd) {
+                    remaining.add(gap);
+                    continue;
+                }
+                ranges.add(new Range(resolution, rangeStart, rangeEnd));
+                if (gap[0] < rangeStart) {
+                    remaining.add(new long[] {gap[0], rangeStart});
+                }
+                if (rangeEnd < gap[1]) {
+                    remaining.add(new long[] {rangeEnd, gap[1]});
+                }
+            }
+            uncovered = remaining;
+        }
+
+        // Left over: edges whose finer rows have expired; widen them to a retained bucket
+        boolean approximate = false;
+        for (long[] gap : uncovered) {
+            for (RollupResolution resolution : RollupResolution.values()) {
+                long rangeStart = resolution.bucketStart(gap[0]);
+                if (rangeStart >= retainedFrom(resolution, availability)) {
+                    ranges.add(new Range(resolution, rangeStart, resolution.ceil(gap[1])));
+                    approximate = true;
+                    break;
+                }
+            }
+        }
+
+        ranges.sort(Comparator.comparingLong(Range::startMicros));
+        for (int i = ranges.size() - 1; i > 0; i--) {
+            Range previous = ranges.get(i - 1);
+            Range next = ranges.get(i);
+            if (previous.resolution() == next.resolution() && previous.endMicros() == next.startMicros()) {
+                ranges.set(i - 1, new Range(previous.resolution(), previous.startMicros(), next.endMicros()));
+                ranges.remove(i);
+            }
+        }
+        long planStart = ranges.isEmpty() ? start : Math.min(start, ranges.get(0).startMicros());
+        long planEnd = ranges.isEmpty() ? end : Math.max(end, ranges.get(ranges.size() - 1).endMicros());
+        return new Plan(ranges, planStart, planEnd, approximate);
+    }
+
+    /**
+     * Retention cut-off rounded up to the next coarser bucket, so an edge widened to that
+     * coarser bucket never overlaps the rows used beside it.
+     */
+    private static long retainedFrom(RollupResolution resolution, Availability availability) {
+        long retainedFrom = availability.retainedFrom(resolution);
+        return switch (resolution) {
+            case MINUTE -> RollupResolution.HOUR.ceil(retainedFrom);
+            case HOUR -> RollupResolution.DAY.ceil(retainedFrom);
+            case DAY -> RollupResolution.DAY.ceil(retainedFrom);
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import com.ecommerce.telemetryservice.model.SpanRollup;
+import com.ecommerce.telemetryservice.repository.SpanRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Answers aggregate queries over a time window from {@code span_rollups} and the open
+ * minutes still in the {@link RollupAccumulator}, never from raw spans. The window is
+ * split by {@link RollupQueryPlanner}, so a 30-day query reads about 30 day rows per
+ * (operation, status) plus the hour and minute rows at its edges.
+ */
+@Component
+public class RollupReader {
+
+    public record Result(RollupStats stats, RollupQueryPlanner.Plan plan) {
+    }
+
+    /**
+     * One bucket of a {@link #series}; approximate when expired finer rows made its plan
+     * read a wider coarser bucket, which it then shares with its neighbours.
+     */
+    public record Point(long startMicros, long endMicros, RollupStats stats, boolean approximate) {
+    }
+
+    // A planned range of one point, keyed by its start
+    private record Target(long endMicros, RollupStats stats) {
+    }
+
+    @Autowired
+    private SpanRollupRepository spanRollupRepository;
+
+    @Autowired
+    private RollupAccumulator accumulator;
+
+    @Autowired
+    private RollupCompactor compactor;
+
+    /**
+     * @param operation null for every operation of the service
+     */
+    public Result query(String serviceName, String operation, long fromMicros, long toMicros) {
+        RollupQueryPlanner.Plan plan = RollupQueryPlanner.plan(fromMicros, toMicros, compactor);
+        RollupStats total = new RollupStats();
+        for (RollupQueryPlanner.Range range : plan.ranges()) {
+            for (SpanRollup row : spanRollupRepository.findForService(range.resolution(), serviceName, operation,
+                    range.startMicros(), range.endMicros())) {
+                total.merge(RollupStats.of(row));
+            }
+            if (range.resolution() == RollupResolution.MINUTE) {
+                accumulator.collect(serviceName, operation, range.startMicros(), range.endMicros(), total);
+            }
+        }
+        return new Result(total, plan);
+    }
+
+    /**
+     * Consecutive buckets of {@code stepMicros}, a whole number of minutes, from fromMicros
+     * up to toMicros. Each bucket is planned like {@link #query}, but the rows of all
+     * buckets are read together: one query per run of adjacent ranges of a resolution.
+     */
+    public List<Point> series(String serviceName, String operation, long fromMicros, long toMicros, long stepMicros) {
+        if (stepMicros <= 0 || stepMicros % RollupResolution.MINUTE.getWidthMicros() != 0) {
+            throw new IllegalArgumentException("Rollup series steps are whole minutes, not " + stepMicros + "us");
+        }
+        List<Point> points = new ArrayList<>();
+        Map<RollupResolution, TreeMap<Long, List<Target>>> targets = new EnumMap<>(RollupResolution.class);
+        Map<RollupResolution, Long> widestRange = new EnumMap<>(RollupResolution.class);
+        for (long start = fromMicros; start < toMicros; start += stepMicros) {
+            RollupQueryPlanner.Plan plan = RollupQueryPlanner.plan(start, start + stepMicros, compactor);
+            Point point = new Point(start, start + stepMicros, new RollupStats(), plan.approximate());
+            points.add(point);
+            for (RollupQueryPlanner.Range range : plan.ranges()) {
+                targets.computeIfAbsent(range.resolution(), resolution -> new TreeMap<>())
+                    .computeIfAbsent(range.startMicros(), rangeStart -> new ArrayList<>())
+                    .add(new Target(range.endMicros(), point.stats()));
+                widestRange.merge(range.resolution(), range.endMicros() - range.startMicros(), Math::max);
+                if (range.resolution() == RollupResolution.MINUTE) {
+                    accumulator.collect(serviceName, operation, range.startMicros(), range.endMicros(), point.stats());
+                }
+            }
+        }
+
+        for (Map.Entry<RollupResolution, TreeMap<Long, List<Target>>> resolution : targets.entrySet()) {
+            TreeMap<Long, List<Target>> ranges = resolution.getValue();
+            long widest = widestRange.get(resolution.getKey());
+            long runStart = ranges.firstKey();
+            long runEnd = runStart;
+            for (Map.Entry<Long, List<Target>> range : ranges.entrySet()) {
+                if (range.getKey() > runEnd) {
+                    readRun(resolution.getKey(), serviceName, operation, runStart, runEnd, ranges, widest);
+                    runStart = range.getKey();
+                }
+                for (Target target : range.getValue()) {
+                    runEnd = Math.max(runEnd, target.endMicros());
+                }
+            }
+            readRun(resolution.getKey(), serviceName, operation, runStart, runEnd, ranges, widest);
+        }
+        return points;
+    }
+
+    /** Start of the oldest rollup rows still retained, where an open-ended window begins. */
+    public long retainedFromMicros() {
+        return compactor.retainedFrom(RollupResolution.DAY);
+    }
+
+    // Adds each row of the run to every range containing it; ranges only overlap where
+    // approximate points share a widened bucket, so looking back the widest range suffices
+    private void readRun(RollupResolution resolution, String serviceName, String operation, long startMicros, long endMicros,
+                         TreeMap<Long, List<Target>> ranges, long widestMicros) {
+        for (SpanRollup row : spanRollupRepository.findForService(resolution, serviceName, operation, startMicros, endMicros)) {
+            RollupStats stats = RollupStats.of(row);
+            long bucket = row.getBucketStartMicros();
+            for (Map.Entry<Long, List<Target>> range : ranges.subMap(bucket - widestMicros, false, bucket, true).entrySet()) {
+                for (Target target : range.getValue()) {
+                    if (bucket < target.endMicros()) {
+                        target.stats().merge(stats);
+                    }
+                }
+            }
+        }
+    }
+}
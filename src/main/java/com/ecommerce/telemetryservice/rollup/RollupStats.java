@@ -0,0 +1,132 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import com.ecommerce.telemetryservice.model.SpanRollup;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+
+/**
+ * Mutable span aggregate: counts, duration sum/min/max and a {@link LatencyHistogram}.
+ * Used to accumulate spans at ingest, to downsample rollup rows and to merge the rows a
+ * query touches. Not thread-safe; callers synchronise where needed.
+ */
+public class RollupStats {
+
+    private long spanCount;
+    private long errorCount;
+    private long durationCount;
+    private long durationSumMicros;
+    private long durationMinMicros = Long.MAX_VALUE;
+    private long durationMaxMicros = Long.MIN_VALUE;
+    private final LatencyHistogram histogram;
+
+    public RollupStats() {
+        this(new LatencyHistogram());
+    }
+
+    private RollupStats(LatencyHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    public static RollupStats of(SpanRollup row) {
+        RollupStats stats = new RollupStats(LatencyHistogram.fromBytes(row.getLatencyHistogram()));
+        stats.spanCount = row.getSpanCount();
+        stats.errorCount = row.getErrorCount();
+        stats.durationCount = row.getDurationCount();
+        stats.durationSumMicros = row.getDurationSumMicros();
+        if (row.getDurationCount() > 0) {
+            stats.durationMinMicros = row.getDurationMinMicros();
+            stats.durationMaxMicros = row.getDurationMaxMicros();
+        }
+        return stats;
+    }
+
+    public void record(TraceEvent event) {
+        spanCount++;
+        if (event.getStatus() == TraceEvent.Status.ERROR) {
+            errorCount++;
+        }
+        if (event.hasDuration()) {
+            long micros = event.getDurationMicros();
+            durationCount++;
+            durationSumMicros += micros;
+            durationMinMicros = Math.min(durationMinMicros, micros);
+            durationMaxMicros = Math.max(durationMaxMicros, micros);
+            histogram.record(micros);
+        }
+    }
+
+    /**
+     * Adds spans aggregated by the database into one duration class: the durations are
+     * known by count, sum, min and max, and enter the histogram at their min, their max
+     * and {@code typicalMicros} for the rest.
+     */
+    public void add(long spans, long errors, long durations, long durationSum, long durationMin, long durationMax, long typicalMicros) {
+        spanCount += spans;
+        errorCount += errors;
+        if (durations == 0) {
+            return;
+        }
+        durationCount += durations;
+        durationSumMicros += durationSum;
+        durationMinMicros = Math.min(durationMinMicros, durationMin);
+        durationMaxMicros = Math.max(durationMaxMicros, durationMax);
+        histogram.record(durationMin);
+        if (durations > 1) {
+            histogram.record(durationMax);
+            histogram.record(Math.max(durationMin, Math.min(durationMax, typicalMicros)), durations - 2);
+        }
+    }
+
+    public void merge(RollupStats other) {
+        spanCount += other.spanCount;
+        errorCount += other.errorCount;
+        durationCount += other.durationCount;
+        durationSumMicros += other.durationSumMicros;
+        durationMinMicros = Math.min(durationMinMicros, other.durationMinMicros);
+        durationMaxMicros = Math.max(durationMaxMicros, other.durationMaxMicros);
+        histogram.merge(other.histogram);
+    }
+
+    /** Overwrites the aggregate columns of the row with this aggregate. */
+    public void writeTo(SpanRollup row) {
+        row.setSpanCount(spanCount);
+        row.setErrorCount(errorCount);
+        row.setDurationCount(durationCount);
+        row.setDurationSumMicros(durationSumMicros);
+        row.setDurationMinMicros(getDurationMinMicros());
+        row.setDurationMaxMicros(getDurationMaxMicros());
+        row.setLatencyHistogram(histogram.toBytes());
+    }
+
+    public long getSpanCount() {
+        return spanCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getDurationCount() {
+        return durationCount;
+    }
+
+    public double getAverageDurationMicros() {
+        return durationCount > 0 ? (double) durationSumMicros / durationCount : 0.0;
+    }
+
+    public long getDurationMinMicros() {
+        return durationCount > 0 ? durationMinMicros : 0;
+    }
+
+    public long getDurationMaxMicros() {
+        return durationCount > 0 ? durationMaxMicros : 0;
+    }
+
+    /** Percentage of spans with status ERROR, rounded to two decimals. */
+    public double getErrorRate() {
+        return spanCount > 0 ? Math.round((double) errorCount / spanCount * 10000.0) / 100.0 : 0.0;
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,202 @@
+package com.ecommerce.telemetryservice.service;
+
+import com.ecommerce.telemetryservice.index.SpanIndex;
+import com.ecommerce.telemetryservice.index.TraceDictionary;
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceBlob;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.repository.TraceBlobRepository;
+import com.ecommerce.telemetryservice.repository.TraceEventRepository;
+import com.ecommerce.telemetryservice.shard.ShardRouter;
+import com.ecommerce.telemetryservice.snapshot.SnapshotFormat;
+import com.ecommerce.telemetryservice.snapshot.SnapshotParticipant;
+import com.ecommerce.telemetryservice.storage.SegmentStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps every {@link SpanIndex} in step with the stored spans: feeds them at ingest,
+ * rebuilds them from the database rows, trace blobs and cold segments once the application is ready, and
+ * prunes them when retention cleanup removes traces.
+ * <p>
+ * When the indexes were restored from a snapshot, the rebuild only catches up on rows
+ * and segments added since. Its own snapshot section records how far indexing had got
+ * on each shard, and is written before the indexes so it never claims more than they hold.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class IndexMaintainer implements SnapshotParticipant {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexMaintainer.class);
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int BLOB_CHUNK_SIZE = 500;
+    // A span can be saved just before the snapshot but indexed just after; re-indexing is idempotent
+    private static final long CATCH_UP_OVERLAP = 1_000;
+
+    @Autowired
+    private List<SpanIndex> indexes;
+
+    @Autowired
+    private TraceDictionary traceDictionary;
+
+    @Autowired
+    private TraceEventRepository traceEventRepository;
+
+    @Autowired
+    private TraceBlobRepository traceBlobRepository;
+
+    @Autowired
+    private SegmentStore segmentStore;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Highest span id indexed per shard; ids are only ordered within a shard
+    private AtomicLongArray lastIndexedIds;
+    private volatile boolean rebuilt;
+    private boolean restored;
+    private String restoredLastSegment;
+
+    @PostConstruct
+    public void init() {
+        lastIndexedIds = new AtomicLongArray(shardRouter.getShardCount());
+    }
+
+    public void index(TraceEvent event) {
+        for (SpanIndex index : indexes) {
+            index.index(event);
+        }
+        if (event.getId() != null) {
+            int shard = ShardRouter.shardOfId(event.getId());
+            if (shard < lastIndexedIds.length()) {
+                lastIndexedIds.accumulateAndGet(shard, event.getId(), Math::max);
+            }
+        }
+    }
+
+    public void indexAll(List<TraceEvent> events) {
+        for (TraceEvent event : events) {
+            index(event);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long indexed = 0;
+        long now = EpochMicros.now();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            long afterId = restored ? Math.max(0, lastIndexedIds.get(shard) - CATCH_UP_OVERLAP) : 0;
+            indexed += shardRouter.onShard(shard, () -> indexRows(now, afterId) + indexBlobs(afterId));
+        }
+        if (segmentStore.isEnabled()) {
+            long[] count = {0};
+            segmentStore.forEachAfter(restored ? restoredLastSegment : null, event -> {
+                index(event);
+                count[0]++;
+            });
+            indexed += count[0];
+        }
+        rebuilt = true;
+        if (indexed > 0) {
+            log.info("Indexed {} {} in {}ms", indexed, restored ? "spans stored since the snapshot" : "stored spans",
+                System.currentTimeMillis() - start);
+        }
+    }
+
+    private long indexRows(long beforeMicros, long afterId) {
+        long indexed = 0;
+        PageRequest chunk = PageRequest.of(0, CHUNK_SIZE);
+        List<TraceEvent> events = traceEventRepository.findOlderThan(beforeMicros, afterId, chunk);
+        while (!events.isEmpty()) {
+            indexAll(events);
+            indexed += events.size();
+            events = traceEventRepository.findOlderThan(beforeMicros, events.get(events.size() - 1).getId(), chunk);
+        }
+        return indexed;
+    }
+
+    /** Indexes the spans of trace blobs holding a span id above {@code afterSpanId}. */
+    private long indexBlobs(long afterSpanId) {
+        long indexed = 0;
+        PageRequest chunk = PageRequest.of(0, BLOB_CHUNK_SIZE);
+        List<TraceBlob> blobs = traceBlobRepository.findWithSpansAfter(afterSpanId, 0, chunk);
+        while (!blobs.isEmpty()) {
+            for (TraceBlob blob : blobs) {
+                List<TraceEvent> spans = blob.decode();
+                indexAll(spans);
+                indexed += spans.size();
+            }
+            blobs = traceBlobRepository.findWithSpansAfter(afterSpanId, blobs.get(blobs.size() - 1).getId(), chunk);
+        }
+        return indexed;
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "index-position";
+    }
+
+    @Override
+    public void writeSnapshot(DataOutputStream out, boolean shutdown) throws IOException {
+        if (!rebuilt) {
+            throw new IllegalStateException("indexes are still being rebuilt");
+        }
+        traceDictionary.beginSnapshot();
+        out.writeInt(lastIndexedIds.length());
+        for (int shard = 0; shard < lastIndexedIds.length(); shard++) {
+            out.writeLong(lastIndexedIds.get(shard));
+        }
+        SnapshotFormat.writeString(out, segmentStore.isEnabled() ? segmentStore.getLastSegmentName() : null);
+    }
+
+    @Override
+    public boolean canRestore(ByteBuffer in) {
+        // Traces would be on other shards than the ones the positions were recorded for
+        return in.getInt() == shardRouter.getShardCount();
+    }
+
+    @Override
+    public void restoreSnapshot(ByteBuffer in) {
+        int shards = in.getInt();
+        for (int shard = 0; shard < shards; shard++) {
+            lastIndexedIds.set(shard, in.getLong());
+        }
+        restoredLastSegment = SnapshotFormat.readString(in);
+        restored = true;
+    }
+
+    /**
+     * Retires traces whose newest span is older than the cutoff, drops them from every
+     * index, and renumbers the remaining traces once enough ordinals are retired.
+     *
+     * @return number of traces retired
+     */
+    public synchronized int prune(long cutoffMicros) {
+        int retired = traceDictionary.retireBefore(cutoffMicros);
+        for (SpanIndex index : indexes) {
+            index.prune(cutoffMicros);
+        }
+        traceDictionary.compact(ordinalMap -> {
+            for (SpanIndex index : indexes) {
+                index.renumber(ordinalMap);
+            }
+        });
+        return retired;
+    }
+}
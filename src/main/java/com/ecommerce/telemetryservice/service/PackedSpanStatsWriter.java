@@ -0,0 +1,87 @@
+package com.ecommerce.telemetryservice.service;
+
+import com.ecommerce.telemetryservice.model.PackedSpanStats;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Folds spans whose rows are about to be deleted from {@code trace_events} into
+ * {@code packed_span_stats}, one {@code MERGE} per (minute, service, operation, method,
+ * route template). Runs on the caller's shard, inside the caller's transaction when
+ * there is one, so the stats commit together with the row deletion.
+ */
+@Component
+public class PackedSpanStatsWriter {
+
+    private static final String MERGE_STATS =
+        "MERGE INTO packed_span_stats t USING (SELECT CAST(? AS VARCHAR(8)) AS tier, CAST(? AS BIGINT) AS bucket_micros, " +
+        "CAST(? AS VARCHAR(255)) AS service_name, CAST(? AS VARCHAR(255)) AS operation, CAST(? AS VARCHAR(255)) AS http_method, " +
+        "CAST(? AS INTEGER) AS url_template_id, CAST(? AS BIGINT) AS span_count, CAST(? AS BIGINT) AS error_count, " +
+        "CAST(? AS BIGINT) AS duration_count, CAST(? AS BIGINT) AS duration_sum_micros, " +
+        "CAST(? AS BIGINT) AS duration_min_micros, CAST(? AS BIGINT) AS duration_max_micros) s " +
+        "ON t.tier = s.tier AND t.bucket_micros = s.bucket_micros AND t.service_name = s.service_name " +
+        "AND t.operation = s.operation AND t.http_method IS NOT DISTINCT FROM s.http_method " +
+        "AND t.url_template_id IS NOT DISTINCT FROM s.url_template_id " +
+        "WHEN MATCHED THEN UPDATE SET " +
+        "span_count = t.span_count + s.span_count, " +
+        "error_count = t.error_count + s.error_count, " +
+        "duration_count = t.duration_count + s.duration_count, " +
+        "duration_sum_micros = t.duration_sum_micros + s.duration_sum_micros, " +
+        "duration_min_micros = LEAST(t.duration_min_micros, s.duration_min_micros), " +
+        "duration_max_micros = GREATEST(t.duration_max_micros, s.duration_max_micros) " +
+        "WHEN NOT MATCHED THEN INSERT (tier, bucket_micros, service_name, operation, http_method, url_template_id, " +
+        "span_count, error_count, duration_count, duration_sum_micros, duration_min_micros, duration_max_micros) " +
+        "VALUES (s.tier, s.bucket_micros, s.service_name, s.operation, s.http_method, s.url_template_id, " +
+        "s.span_count, s.error_count, s.duration_count, s.duration_sum_micros, s.duration_min_micros, s.duration_max_micros)";
+
+    private record Key(long bucketMicros, String serviceName, String operation, String httpMethod, Integer urlTemplateId) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void record(PackedSpanStats.Tier tier, List<TraceEvent> spans) {
+        if (spans.isEmpty()) {
+            return;
+        }
+        // Sorted, so runs merging the same keys lock them in the same order. Per key: span count, error count, duration count, sum, min and max
+        Map<Key, long[]> totals = new TreeMap<>(Comparator.comparingLong(Key::bucketMicros)
+            .thenComparing(Key::serviceName).thenComparing(Key::operation)
+            .thenComparing(Key::httpMethod, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Key::urlTemplateId, Comparator.nullsFirst(Comparator.<Integer>naturalOrder())));
+        for (TraceEvent span : spans) {
+            Key key = new Key(PackedSpanStats.bucketOf(span.getTimestampMicros()), span.getServiceName(), span.getOperation(),
+                span.getHttpMethod(), span.getUrlTemplateId());
+            long[] total = totals.computeIfAbsent(key, k -> new long[] {0, 0, 0, 0, Long.MAX_VALUE, -1});
+            total[0]++;
+            if (span.getStatus() == TraceEvent.Status.ERROR) {
+                total[1]++;
+            }
+            if (span.hasDuration()) {
+                total[2]++;
+                total[3] += span.getDurationMicros();
+                total[4] = Math.min(total[4], span.getDurationMicros());
+                total[5] = Math.max(total[5], span.getDurationMicros());
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<Key, long[]> entry : totals.entrySet()) {
+            Key key = entry.getKey();
+            long[] total = entry.getValue();
+            rows.add(new Object[] {
+                tier.name(), key.bucketMicros(), key.serviceName(), key.operation(), key.httpMethod(), key.urlTemplateId(),
+                total[0], total[1], total[2], total[3], total[4], total[5]
+            });
+        }
+        jdbcTemplate.batchUpdate(MERGE_STATS, rows);
+    }
+}
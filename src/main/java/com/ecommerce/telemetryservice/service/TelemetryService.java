@@ -1,32 +1,197 @@
 package com.ecommerce.telemetryservice.service;
 
+import com.ecommerce.telemetryservice.cache.TimelineCache;
 import com.ecommerce.telemetryservice.dto.TraceEventDto;
+import com.ecommerce.telemetryservice.index.AttributeIndex;
+import com.ecommerce.telemetryservice.index.FullTextIndex;
+import com.ecommerce.telemetryservice.index.IndexMetrics;
+import com.ecommerce.telemetryservice.ingest.TraceSummaryWriter;
+import com.ecommerce.telemetryservice.ingest.UrlTemplateDictionary;
+import com.ecommerce.telemetryservice.ingest.UrlTemplater;
+import com.ecommerce.telemetryservice.ingest.WriteBehindBuffer;
+import com.ecommerce.telemetryservice.live.LiveMetrics;
+import com.ecommerce.telemetryservice.live.LiveWindow;
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.KeysetCursor;
+import com.ecommerce.telemetryservice.model.PackedSpanStats;
+import com.ecommerce.telemetryservice.model.TraceBlob;
 import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.model.TraceOperation;
+import com.ecommerce.telemetryservice.model.TraceSummary;
+import com.ecommerce.telemetryservice.repository.PackedSpanStatsRepository;
+import com.ecommerce.telemetryservice.repository.TraceBlobRepository;
+import com.ecommerce.telemetryservice.repository.TraceEventMetadataRepository;
 import com.ecommerce.telemetryservice.repository.TraceEventRepository;
+import com.ecommerce.telemetryservice.repository.SpanBucketRepository;
+import com.ecommerce.telemetryservice.repository.SpanSearchRepository;
+import com.ecommerce.telemetryservice.repository.TraceOperationRepository;
+import com.ecommerce.telemetryservice.repository.TraceSearchRepository;
+import com.ecommerce.telemetryservice.repository.TraceSummaryRepository;
+import com.ecommerce.telemetryservice.rollup.LatencyHistogram;
+import com.ecommerce.telemetryservice.rollup.RollupAccumulator;
+import com.ecommerce.telemetryservice.rollup.RollupReader;
+import com.ecommerce.telemetryservice.rollup.RollupStats;
+import com.ecommerce.telemetryservice.shard.ShardRouter;
+import com.ecommerce.telemetryservice.storage.HotTier;
+import com.ecommerce.telemetryservice.storage.SegmentStore;
+import com.ecommerce.telemetryservice.storage.TierMetrics;
+import com.ecommerce.telemetryservice.view.CursorPage;
+import com.ecommerce.telemetryservice.view.EndpointStats;
+import com.ecommerce.telemetryservice.view.HealthStatus;
+import com.ecommerce.telemetryservice.view.LiveServiceMetrics;
+import com.ecommerce.telemetryservice.view.OperationLatency;
+import com.ecommerce.telemetryservice.view.ServiceMetrics;
+import com.ecommerce.telemetryservice.view.ServiceRollup;
+import com.ecommerce.telemetryservice.view.ServiceTimeSeries;
+import com.ecommerce.telemetryservice.view.TextSearchResult;
+import com.ecommerce.telemetryservice.view.TimelineSpan;
+import com.ecommerce.telemetryservice.view.TraceListItem;
+import com.ecommerce.telemetryservice.view.TraceTimeline;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 public class TelemetryService {
     
+    private static final long MICROS_PER_HOUR = 3_600_000_000L;
+    private static final long MICROS_PER_DAY = 24 * MICROS_PER_HOUR;
+    private static final long MICROS_PER_MINUTE = 60_000_000L;
+    private static final int MAX_TIME_SERIES_POINTS = 2_000;
+    private static final int DEFAULT_TIME_SERIES_POINTS = 300;
+    private static final long[] DEFAULT_STEPS_SECONDS = {10, 30, 60, 300, 900, 3_600, 21_600, 86_400};
+    private static final Pattern STEP_PATTERN = Pattern.compile("(\\d{1,6})([smhd])");
+    private static final int[] LIVE_WINDOW_MINUTES = {1, 5, 15};
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    
     @Autowired
     private TraceEventRepository traceEventRepository;
     
+    @Autowired
+    private TraceEventMetadataRepository traceEventMetadataRepository;
+    
+    @Autowired
+    private TraceBlobRepository traceBlobRepository;
+    
+    @Autowired
+    private TraceSummaryRepository traceSummaryRepository;
+    
+    @Autowired
+    private TraceOperationRepository traceOperationRepository;
+    
+    @Autowired
+    private PackedSpanStatsRepository packedSpanStatsRepository;
+    
+    @Autowired
+    private SegmentStore segmentStore;
+    
+    @Autowired
+    private HotTier hotTier;
+    
+    @Autowired
+    private TierCompactor tierCompactor;
+    
+    @Autowired
+    private TraceBlobCompactor traceBlobCompactor;
+    
+    @Autowired
+    private TierMetrics tierMetrics;
+    
+    @Autowired
+    private IndexMaintainer indexMaintainer;
+    
+    @Autowired
+    private AttributeIndex attributeIndex;
+    
+    @Autowired
+    private FullTextIndex fullTextIndex;
+    
+    @Autowired
+    private IndexMetrics indexMetrics;
+    
+    @Autowired
+    private UrlTemplater urlTemplater;
+    
+    @Autowired
+    private UrlTemplateDictionary urlTemplateDictionary;
+    
+    @Autowired
+    private RollupAccumulator rollupAccumulator;
+    
+    @Autowired
+    private RollupReader rollupReader;
+    
+    @Autowired
+    private LiveMetrics liveMetrics;
+    
+    @Autowired
+    private TimelineCache timelineCache;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+    
+    @Autowired
+    private TraceSummaryWriter traceSummaryWriter;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${telemetry.segments.retention-days:90}")
+    private int segmentRetentionDays;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    @PostConstruct
+    public void init() {
+        writeBehindBuffer.setWriter(this::persist);
+    }
+    
+    /** Writes the spans still buffered; runs before the repositories shut down. */
+    @PreDestroy
+    public void flushWriteBehind() {
+        writeBehindBuffer.flush();
+    }
+    
+    /**
+     * With {@code telemetry.write-behind.enabled} the event is buffered and returned
+     * before it is written, so it has no id yet.
+     */
     public TraceEvent recordEvent(TraceEventDto eventDto) {
         TraceEvent event = convertToEntity(eventDto);
-        TraceEvent savedEvent = traceEventRepository.save(event);
+        TraceEvent savedEvent;
+        if (writeBehindBuffer.isEnabled()) {
+            writeBehindBuffer.add(List.of(event));
+            savedEvent = event;
+        } else {
+            savedEvent = shardRouter.forTrace(event.getTraceId(), () -> transactionTemplate.execute(status -> {
+                TraceEvent saved = traceEventRepository.save(event);
+                traceSummaryWriter.record(List.of(saved));
+                return saved;
+            }));
+            hotTier.add(savedEvent);
+            indexMaintainer.index(savedEvent);
+        }
+        rollupAccumulator.record(savedEvent);
+        liveMetrics.record(savedEvent);
+        timelineCache.recordWrites(List.of(savedEvent));
         
         // Log the trace event for debugging
         System.out.println("📊 Telemetry Event Recorded:");
@@ -37,7 +202,7 @@ public class TelemetryService {
         if (event.getParentSpanId() != null) {
             System.out.println("  Parent Span: " + event.getParentSpanId());
         }
-        System.out.println("  Duration: " + (event.getDurationMs() != null ? event.getDurationMs() + "ms" : "N/A"));
+        System.out.println("  Duration: " + (event.hasDuration() ? event.getDurationMicros() / 1000.0 + "ms" : "N/A"));
         System.out.println("  Status: " + event.getStatus());
         
         return savedEvent;
@@ -48,156 +213,774 @@ public class TelemetryService {
             .map(this::convertToEntity)
             .collect(Collectors.toList());
         
-        List<TraceEvent> savedEvents = traceEventRepository.saveAll(events);
+        List<TraceEvent> savedEvents;
+        if (writeBehindBuffer.isEnabled()) {
+            writeBehindBuffer.add(events);
+            savedEvents = events;
+        } else {
+            savedEvents = persist(events);
+        }
+        rollupAccumulator.recordAll(savedEvents);
+        liveMetrics.recordAll(savedEvents);
+        timelineCache.recordWrites(savedEvents);
         
         System.out.println("📊 Batch Telemetry Events Recorded: " + savedEvents.size() + " events");
         
         return savedEvents;
     }
     
+    /**
+     * Stores the spans not stored yet, shard by shard. Safe to call again with the same
+     * spans after it failed, as the write-behind buffer does: a shard that committed gave
+     * its spans ids and is skipped, one that failed rolled back and cleared them. Spans of
+     * the shards that did commit are still added to the hot tier and the indexes.
+     */
+    private List<TraceEvent> persist(List<TraceEvent> events) {
+        List<TraceEvent> unstored = events.stream().filter(event -> event.getId() == null).toList();
+        List<RuntimeException> failures = Collections.synchronizedList(new ArrayList<>());
+        List<TraceEvent> savedEvents = shardRouter.byTrace(unstored, shardEvents -> {
+            try {
+                return store(shardEvents);
+            } catch (RuntimeException e) {
+                failures.add(e);
+                return List.of();
+            }
+        });
+        hotTier.addAll(savedEvents);
+        indexMaintainer.indexAll(savedEvents);
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return events;
+    }
+    
+    // Spans of one shard and their trace summaries, committed together
+    private List<TraceEvent> store(List<TraceEvent> events) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<TraceEvent> saved = traceEventRepository.saveAll(events);
+                traceSummaryWriter.record(saved);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            events.forEach(TraceEvent::clearGeneratedIds);
+            throw e;
+        }
+    }
+    
     public List<TraceEvent> getTraceById(String traceId) {
-        return traceEventRepository.findByTraceIdOrderByTimestamp(traceId);
+        // The buffer is read first: a span written in between is then found in the database
+        List<TraceEvent> buffered = writeBehindBuffer.findByTraceId(traceId);
+        if (!buffered.isEmpty()) {
+            return merge(findStoredTrace(traceId), buffered);
+        }
+        
+        Optional<List<TraceEvent>> hot = hotTier.findCompleteTrace(traceId);
+        if (hot.isPresent()) {
+            tierMetrics.recordHotHit();
+            return hot.get();
+        }
+        tierMetrics.recordHotMiss();
+        return findStoredTrace(traceId);
+    }
+    
+    private List<TraceEvent> findStoredTrace(String traceId) {
+        List<TraceEvent> events = findPersistedTrace(traceId);
+        if (!segmentStore.isEnabled()) {
+            return events;
+        }
+        
+        List<TraceEvent> archived = segmentStore.findByTraceId(traceId);
+        if (archived.isEmpty()) {
+            return events;
+        }
+        tierMetrics.recordColdHit();
+        
+        // A span can briefly live in both tiers while it is being moved to a segment
+        return merge(events, archived);
+    }
+    
+    /**
+     * Adds the other spans to the persisted ones, skipping those whose id is already
+     * there, ordered by timestamp.
+     */
+    private static List<TraceEvent> merge(List<TraceEvent> persisted, List<TraceEvent> others) {
+        Set<Long> persistedIds = persisted.stream().map(TraceEvent::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+        List<TraceEvent> merged = new ArrayList<>(others.size() + persisted.size());
+        others.stream()
+            .filter(e -> e.getId() == null || !persistedIds.contains(e.getId()))
+            .forEach(merged::add);
+        merged.addAll(persisted);
+        merged.sort(Comparator.comparingLong(TraceEvent::getTimestampMicros));
+        return merged;
     }
     
-    public Map<String, Object> getTraceTimeline(String traceId) {
+    /**
+     * Timelines of traces that stopped receiving spans are served from the
+     * {@link TimelineCache}; active traces are always rebuilt.
+     */
+    public TraceTimeline getTraceTimeline(String traceId) {
+        long loadStarted = EpochMicros.now();
+        TraceTimeline cached = timelineCache.find(traceId);
+        if (cached != null) {
+            return cached;
+        }
         List<TraceEvent> events = getTraceById(traceId);
         
         if (events.isEmpty()) {
-            return Map.of("traceId", traceId, "events", List.of(), "totalDuration", 0);
-        }
-        
-        LocalDateTime startTime = events.get(0).getTimestamp();
-        LocalDateTime endTime = events.get(events.size() - 1).getTimestamp();
-        
-        List<Map<String, Object>> timeline = events.stream()
-            .map(event -> {
-                Map<String, Object> eventMap = new HashMap<>();
-                eventMap.put("spanId", event.getSpanId());
-                eventMap.put("parentSpanId", event.getParentSpanId());
-                eventMap.put("serviceName", event.getServiceName());
-                eventMap.put("operation", event.getOperation());
-                eventMap.put("timestamp", event.getTimestamp());
-                eventMap.put("durationMs", event.getDurationMs());
-                eventMap.put("status", event.getStatus());
-                eventMap.put("httpMethod", event.getHttpMethod());
-                eventMap.put("httpUrl", event.getHttpUrl());
-                eventMap.put("httpStatusCode", event.getHttpStatusCode());
-                eventMap.put("errorMessage", event.getErrorMessage());
-                return eventMap;
-            })
+            return TraceTimeline.empty(traceId);
+        }
+        
+        TimelineSpan[] spans = new TimelineSpan[events.size()];
+        Set<String> services = new HashSet<>();
+        for (int i = 0; i < spans.length; i++) {
+            TraceEvent event = events.get(i);
+            spans[i] = TimelineSpan.of(event, urlTemplateDictionary.templateFor(event.getUrlTemplateId()));
+            services.add(event.getServiceName());
+        }
+        
+        TraceTimeline result = new TraceTimeline(traceId, Collections.unmodifiableList(Arrays.asList(spans)),
+            events.get(0).getTimestampMicros(), events.get(events.size() - 1).getTimestampMicros(), services.size());
+        timelineCache.put(traceId, result, spans.length, loadStarted);
+        return result;
+    }
+    
+    public Page<TraceListItem> getTraces(PageRequest pageRequest, String serviceName, String operation, String status) {
+        return getTraces(pageRequest, serviceName, operation, status, null);
+    }
+    
+    public Page<TraceListItem> getTraces(PageRequest pageRequest, String serviceName, String operation, String status, List<String> tags) {
+        return getTraces(pageRequest, serviceName, operation, status, tags, true);
+    }
+    
+    /**
+     * Filters are applied in the database before paging, so every page is full but the
+     * last. The page sort may be {@code timestamp} (trace start) or {@code duration}.
+     *
+     * @param tags metadata attribute filters in {@code key:value} form; a trace must carry all of them
+     * @param countTotal false skips counting the matches: the total is then only known to
+     *                   exceed the page when there is a next page
+     */
+    public Page<TraceListItem> getTraces(PageRequest pageRequest, String serviceName, String operation, String status,
+                                         List<String> tags, boolean countTotal) {
+        TraceEvent.Status statusFilter = parseStatus(status);
+        // Tag candidates come in index order; the database applies the page sort to them
+        List<String> candidates = tags != null && !tags.isEmpty() ? findTraceIdsByTags(tags) : null;
+        return searchTraces(pageRequest, new TraceSearchRepository.Filter(serviceName, operation, statusFilter, candidates), countTotal);
+    }
+    
+    private Page<TraceListItem> searchTraces(PageRequest pageRequest, TraceSearchRepository.Filter filter, boolean countTotal) {
+        if (matchesNothing(filter)) {
+            return new PageImpl<>(List.of(), pageRequest, 0);
+        }
+        Sort sort = pageRequest.getSort();
+        Comparator<TraceSummary> order = TraceSearchRepository.comparator(sort);
+        // One trace past the page tells whether there is a next one without counting
+        int limit = pageRequest.getPageSize() + 1;
+        List<TraceSummary> found;
+        if (shardRouter.isSharded()) {
+            // Each shard returns its leading offset + limit traces; the page is cut from the merged list
+            int leading = (int) pageRequest.getOffset() + limit;
+            found = shardRouter.onAllShards(() -> traceSummaryRepository.findTracePage(filter, sort, 0, leading)).stream()
+                .flatMap(List::stream)
+                .sorted(order)
+                .skip(pageRequest.getOffset())
+                .limit(limit)
+                .collect(Collectors.toList());
+        } else {
+            found = traceSummaryRepository.findTracePage(filter, sort, pageRequest.getOffset(), limit);
+        }
+        
+        boolean hasNext = found.size() > pageRequest.getPageSize();
+        List<TraceSummary> page = found.subList(0, Math.min(pageRequest.getPageSize(), found.size()));
+        long total = countTotal
+            ? sum(shardRouter.onAllShards(() -> traceSummaryRepository.countTraces(filter)))
+            : pageRequest.getOffset() + page.size() + (hasNext ? 1 : 0);
+        return new PageImpl<>(describeTraces(page), pageRequest, total);
+    }
+    
+    // Tags no indexed trace carries
+    private static boolean matchesNothing(TraceSearchRepository.Filter filter) {
+        return filter.traceIds() != null && filter.traceIds().isEmpty();
+    }
+    
+    /**
+     * Keyset-paged variant of {@link #getTraces}: the page starts after the trace the
+     * cursor points at, so deep pages cost the same as the first and are not shifted by
+     * traces ingested meanwhile.
+     *
+     * @param cursor token from the previous page's {@code nextCursor}; null or empty for the first page
+     */
+    public CursorPage<TraceListItem> getTracesAfter(String cursor, int size, Sort sort, String serviceName, String operation,
+                                                    String status, List<String> tags) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        TraceEvent.Status statusFilter = parseStatus(status);
+        List<String> candidates = tags != null && !tags.isEmpty() ? findTraceIdsByTags(tags) : null;
+        TraceSearchRepository.Filter filter = new TraceSearchRepository.Filter(serviceName, operation, statusFilter, candidates);
+        Comparator<TraceSummary> order = TraceSearchRepository.comparator(sort);
+        
+        List<TraceSummary> found = matchesNothing(filter) ? List.of() : shardRouter.onAllShards(
+                () -> traceSummaryRepository.findTracesAfter(filter, sort, after, size + 1)).stream()
+            .flatMap(List::stream)
+            .sorted(order)
+            .limit(size + 1)
             .collect(Collectors.toList());
+        boolean hasNext = found.size() > size;
+        List<TraceSummary> page = found.subList(0, Math.min(size, found.size()));
+        return new CursorPage<>(describeTraces(page),
+            hasNext ? TraceSearchRepository.cursor(page.get(page.size() - 1), sort).encode() : null, size);
+    }
+    
+    /**
+     * Spans newest first, keyset-paged by (timestamp, span id) like {@link #getTracesAfter}.
+     */
+    public CursorPage<TraceEvent> getSpans(String cursor, int size, String serviceName, String operation, String status,
+                                        LocalDateTime from, LocalDateTime to) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        SpanSearchRepository.SpanFilter filter = new SpanSearchRepository.SpanFilter(serviceName, operation,
+            parseStatus(status),
+            from != null ? EpochMicros.of(from) : null, to != null ? EpochMicros.of(to) : null);
         
-        long totalDurationMs = java.time.Duration.between(startTime, endTime).toMillis();
+        List<TraceEvent> found = shardRouter.onAllShards(() -> traceEventRepository.findSpansAfter(filter, after, size + 1)).stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparingLong(TraceEvent::getTimestampMicros).thenComparing(TraceEvent::getId).reversed())
+            .limit(size + 1)
+            .collect(Collectors.toList());
+        boolean hasNext = found.size() > size;
+        List<TraceEvent> page = found.subList(0, Math.min(size, found.size()));
+        TraceEvent last = hasNext ? page.get(page.size() - 1) : null;
+        return new CursorPage<>(page, last != null ? new KeysetCursor(last.getTimestampMicros(), last.getId().toString()).encode() : null, size);
+    }
+    
+    private List<String> findTraceIdsByTags(List<String> tags) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (String tag : tags) {
+            int separator = tag.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Tag filter must be in key:value form: " + tag);
+            }
+            attributes.put(tag.substring(0, separator), tag.substring(separator + 1));
+        }
         
-        return Map.of(
-            "traceId", traceId,
-            "events", timeline,
-            "totalDuration", totalDurationMs,
-            "startTime", startTime,
-            "endTime", endTime,
-            "serviceCount", events.stream().map(TraceEvent::getServiceName).distinct().count()
-        );
+        long lookupStart = System.nanoTime();
+        List<String> candidates = attributeIndex.findTraceIds(attributes);
+        indexMetrics.recordLookup(attributeIndex.getName(), System.nanoTime() - lookupStart);
+        return candidates;
     }
     
-    public Page<Map<String, Object>> getTraces(PageRequest pageRequest, String serviceName, String operation, String status) {
-        List<String> distinctTraceIds = traceEventRepository.findDistinctTraceIds(pageRequest);
+    /**
+     * Finds spans in the window whose error message or URL contains the query text
+     * (case-insensitive), newest traces first, stopping after {@code limit} traces.
+     *
+     * @param field {@code errorMessage}, {@code httpUrl}, or null for both
+     */
+    public TextSearchResult searchText(String query, String field, LocalDateTime from, LocalDateTime to, int limit) {
+        long windowEnd = to != null ? EpochMicros.of(to) : EpochMicros.now();
+        long windowStart = from != null ? EpochMicros.of(from) : windowEnd - 24 * MICROS_PER_HOUR;
+        Set<FullTextIndex.Field> fields;
+        if (field == null) {
+            fields = EnumSet.allOf(FullTextIndex.Field.class);
+        } else if ("errorMessage".equals(field)) {
+            fields = EnumSet.of(FullTextIndex.Field.ERROR_MESSAGE);
+        } else if ("httpUrl".equals(field)) {
+            fields = EnumSet.of(FullTextIndex.Field.HTTP_URL);
+        } else {
+            throw new IllegalArgumentException("Unsupported search field: " + field);
+        }
+        
+        long lookupStart = System.nanoTime();
+        List<String> candidates = fullTextIndex.findTraceIds(query, fields, windowStart, windowEnd);
+        indexMetrics.recordLookup(fullTextIndex.getName(), System.nanoTime() - lookupStart);
         
-        List<Map<String, Object>> traces = distinctTraceIds.stream()
-            .map(traceId -> {
-                List<TraceEvent> events = traceEventRepository.findByTraceIdOrderByTimestamp(traceId);
-                
-                if (serviceName != null && events.stream().noneMatch(e -> serviceName.equals(e.getServiceName()))) {
-                    return null;
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<TextSearchResult.Match> matches = new ArrayList<>();
+        int traceCount = 0;
+        boolean truncated = false;
+        // Candidates are verified a batch at a time, with one windowed query per shard for the batch's spans
+        int batchSize = Math.max(limit, 1);
+        for (int start = 0; start < candidates.size() && !truncated; start += batchSize) {
+            if (traceCount == limit) {
+                truncated = true;
+                break;
+            }
+            List<String> batch = candidates.subList(start, Math.min(candidates.size(), start + batchSize));
+            Map<String, List<TraceEvent>> spansByTrace = findTextSpans(batch, windowStart, windowEnd);
+            for (String traceId : batch) {
+                if (traceCount == limit) {
+                    truncated = true;
+                    break;
                 }
-                if (operation != null && events.stream().noneMatch(e -> operation.equals(e.getOperation()))) {
-                    return null;
+                List<TextSearchResult.Match> traceMatches = matchText(spansByTrace.getOrDefault(traceId, List.of()),
+                    fields, needle, windowStart, windowEnd);
+                if (traceMatches.isEmpty() && segmentStore.isEnabled()) {
+                    traceMatches = matchText(segmentStore.findByTraceId(traceId), fields, needle, windowStart, windowEnd);
                 }
-                if (status != null && events.stream().noneMatch(e -> status.equals(e.getStatus().toString()))) {
-                    return null;
+                if (!traceMatches.isEmpty()) {
+                    matches.addAll(traceMatches);
+                    traceCount++;
                 }
-                
-                TraceEvent firstEvent = events.get(0);
-                TraceEvent lastEvent = events.get(events.size() - 1);
-                
-                long totalDuration = java.time.Duration.between(firstEvent.getTimestamp(), lastEvent.getTimestamp()).toMillis();
-                
-                Map<String, Object> traceSummary = new HashMap<>();
-                traceSummary.put("traceId", traceId);
-                traceSummary.put("startTime", firstEvent.getTimestamp());
-                traceSummary.put("duration", totalDuration);
-                traceSummary.put("services", events.stream().map(TraceEvent::getServiceName).distinct().collect(Collectors.toList()));
-                traceSummary.put("operations", events.stream().map(TraceEvent::getOperation).distinct().collect(Collectors.toList()));
-                traceSummary.put("spanCount", events.size());
-                traceSummary.put("status", events.stream().anyMatch(e -> e.getStatus() == TraceEvent.Status.ERROR) ? "ERROR" : "SUCCESS");
-                
-                return traceSummary;
-            })
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+            }
+        }
+        
+        return new TextSearchResult(query, windowStart, windowEnd, traceCount, matches, truncated);
+    }
+    
+    /**
+     * Spans of the traces that may hold searchable text in the window: their rows in the
+     * window, their blobs overlapping it and their spans still in the write-behind buffer.
+     * Traces archived to segments are only looked up when these yield no match.
+     */
+    private Map<String, List<TraceEvent>> findTextSpans(List<String> traceIds, long fromMicros, long toMicros) {
+        Map<String, List<TraceEvent>> spans = shardRouter.byTraceId(traceIds,
+                ids -> traceEventRepository.findTextSpans(ids, fromMicros, toMicros)).stream()
+            .collect(Collectors.groupingBy(TraceEvent::getTraceId));
+        for (TraceBlob blob : shardRouter.byTraceId(traceIds, ids -> traceBlobRepository.findByTraceIdIn(ids))) {
+            if (blob.getEndMicros() >= fromMicros && blob.getStartMicros() <= toMicros) {
+                spans.merge(blob.getTraceId(), blob.decode(), TelemetryService::merge);
+            }
+        }
+        if (writeBehindBuffer.isEnabled()) {
+            for (String traceId : traceIds) {
+                List<TraceEvent> buffered = writeBehindBuffer.findByTraceId(traceId);
+                if (!buffered.isEmpty()) {
+                    spans.merge(traceId, buffered, TelemetryService::merge);
+                }
+            }
+        }
+        return spans;
+    }
+    
+    /** One match per span in the window whose text in one of the fields contains the needle. */
+    private static List<TextSearchResult.Match> matchText(List<TraceEvent> spans, Set<FullTextIndex.Field> fields, String needle,
+                                                          long fromMicros, long toMicros) {
+        List<TextSearchResult.Match> matches = new ArrayList<>();
+        for (TraceEvent event : spans) {
+            if (event.getTimestampMicros() < fromMicros || event.getTimestampMicros() > toMicros) {
+                continue;
+            }
+            for (FullTextIndex.Field field : fields) {
+                String text = field.text(event);
+                if (text != null && text.toLowerCase(Locale.ROOT).contains(needle)) {
+                    matches.add(TextSearchResult.Match.of(event));
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Rows are read before the blob: the compactor writes the blob before deleting the
+     * rows, so a trace being packed is found in at least one of them.
+     */
+    private List<TraceEvent> findPersistedTrace(String traceId) {
+        return shardRouter.forTrace(traceId, () -> {
+            List<TraceEvent> rows = traceEventRepository.findByTraceIdOrderByTimestamp(traceId);
+            Optional<TraceBlob> blob = traceBlobRepository.findByTraceId(traceId);
+            return blob.isPresent() ? merge(rows, blob.get().decode()) : rows;
+        });
+    }
+    
+    /**
+     * The list view of a page of traces: their summary rows plus one lookup of their
+     * operations, so no span is read however large the traces are.
+     */
+    private List<TraceListItem> describeTraces(List<TraceSummary> page) {
+        if (page.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> traceIds = page.stream().map(TraceSummary::getTraceId).collect(Collectors.toList());
+        Map<String, List<TraceOperation>> operationsByTrace = shardRouter.byTraceId(traceIds, ids -> traceOperationRepository.findByTraceIdIn(ids)).stream()
+            .sorted(Comparator.comparingLong(TraceOperation::getFirstMicros))
+            .collect(Collectors.groupingBy(TraceOperation::getTraceId));
         
-        return new PageImpl<>(traces, pageRequest, traces.size());
+        List<TraceListItem> traces = new ArrayList<>(page.size());
+        for (TraceSummary summary : page) {
+            List<TraceOperation> operations = operationsByTrace.getOrDefault(summary.getTraceId(), List.of());
+            // Listed in the order they first appear in the trace
+            traces.add(new TraceListItem(
+                summary.getTraceId(),
+                summary.getStartMicros(),
+                summary.getDurationMicros(),
+                operations.stream().map(TraceOperation::getServiceName).distinct().toList(),
+                operations.stream().map(TraceOperation::getOperation).distinct().toList(),
+                summary.getRootOperation(),
+                summary.getSpanCount(),
+                summary.hasErrors()));
+        }
+        return traces;
     }
     
+    /**
+     * Service-level queries read both the rows and {@code packed_span_stats}, which holds
+     * the spans packed into trace blobs or moved to cold segments.
+     */
     public List<String> getServices() {
-        return traceEventRepository.findDistinctServiceNames();
+        return mergeSorted(shardRouter.onAllShards(() -> mergeSorted(List.of(
+            traceEventRepository.findDistinctServiceNames(), packedSpanStatsRepository.findDistinctServiceNames()))));
     }
     
     public List<String> getServiceOperations(String serviceName) {
-        return traceEventRepository.findDistinctOperationsByServiceName(serviceName);
+        return mergeSorted(shardRouter.onAllShards(() -> mergeSorted(List.of(
+            traceEventRepository.findDistinctOperationsByServiceName(serviceName),
+            packedSpanStatsRepository.findDistinctOperationsByServiceName(serviceName)))));
+    }
+    
+    private static List<String> mergeSorted(List<List<String>> perShard) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        return new ArrayList<>(perShard.stream().flatMap(List::stream).collect(Collectors.toCollection(TreeSet::new)));
     }
     
-    public Map<String, Object> getServiceMetrics(String serviceName) {
-        List<TraceEvent> events = traceEventRepository.findByServiceNameOrderByTimestampDesc(serviceName);
+    public ServiceMetrics getServiceMetrics(String serviceName) {
+        return getServiceMetrics(serviceName, null, null);
+    }
+    
+    /**
+     * Aggregated in the database, one row per operation and shard, so memory does not
+     * grow with the number of spans in the window.
+     *
+     * @param from window start, inclusive; null for no lower bound
+     * @param to   window end, exclusive; null for no upper bound
+     */
+    public ServiceMetrics getServiceMetrics(String serviceName, LocalDateTime from, LocalDateTime to) {
+        long fromMicros = from != null ? EpochMicros.of(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? EpochMicros.of(to) : Long.MAX_VALUE;
+        if (fromMicros >= toMicros) {
+            throw new IllegalArgumentException("Window start must be before its end");
+        }
         
-        if (events.isEmpty()) {
-            return Map.of("serviceName", serviceName, "requestCount", 0);
+        // Per operation: span count, duration sum, duration count, min and max duration, error count
+        Map<String, long[]> totals = new TreeMap<>();
+        for (List<Object[]> rows : shardRouter.onAllShards(() -> concat(
+                traceEventRepository.aggregateByOperation(serviceName, fromMicros, toMicros),
+                packedSpanStatsRepository.aggregateByOperation(serviceName, fromMicros, toMicros)))) {
+            for (Object[] row : rows) {
+                long[] total = totals.computeIfAbsent((String) row[0], operation -> new long[] {0, 0, 0, Long.MAX_VALUE, -1, 0});
+                total[0] += ((Number) row[1]).longValue();
+                total[1] += row[2] != null ? ((Number) row[2]).longValue() : 0;
+                total[2] += ((Number) row[3]).longValue();
+                total[3] = Math.min(total[3], row[4] != null ? ((Number) row[4]).longValue() : Long.MAX_VALUE);
+                total[4] = Math.max(total[4], row[5] != null ? ((Number) row[5]).longValue() : -1);
+                total[5] += row[6] != null ? ((Number) row[6]).longValue() : 0;
+            }
         }
         
-        long requestCount = events.size();
-        double avgDuration = events.stream()
-            .filter(e -> e.getDurationMs() != null)
-            .mapToLong(TraceEvent::getDurationMs)
-            .average()
-            .orElse(0.0);
+        long requestCount = 0;
+        long durationSum = 0;
+        long durationCount = 0;
+        long minDuration = Long.MAX_VALUE;
+        long maxDuration = -1;
+        long errorCount = 0;
+        Map<String, Long> operationCounts = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> operation : totals.entrySet()) {
+            long[] total = operation.getValue();
+            requestCount += total[0];
+            durationSum += total[1];
+            durationCount += total[2];
+            minDuration = Math.min(minDuration, total[3]);
+            maxDuration = Math.max(maxDuration, total[4]);
+            errorCount += total[5];
+            operationCounts.put(operation.getKey(), total[0]);
+        }
+        if (requestCount == 0) {
+            return ServiceMetrics.empty(serviceName);
+        }
         
-        long errorCount = events.stream()
-            .filter(e -> e.getStatus() == TraceEvent.Status.ERROR)
-            .count();
+        ServiceMetrics metrics = new ServiceMetrics(serviceName, requestCount, errorCount, durationCount, durationSum,
+            minDuration, maxDuration, operationCounts, from, to, null);
         
-        double errorRate = requestCount > 0 ? (double) errorCount / requestCount * 100 : 0.0;
+        // Percentiles from the rollup histograms, which merge across buckets unlike averages
+        if (rollupAccumulator.isEnabled()) {
+            long latencyFrom = from != null ? fromMicros : rollupReader.retainedFromMicros();
+            long latencyTo = to != null ? toMicros : EpochMicros.now();
+            if (latencyFrom < latencyTo) {
+                LatencyHistogram histogram = rollupReader.query(serviceName, null, latencyFrom, latencyTo).stats().getHistogram();
+                if (histogram.getTotalCount() > 0) {
+                    metrics = metrics.withPercentiles(percentiles(histogram));
+                }
+            }
+        }
+        return metrics;
+    }
+    
+    /**
+     * Request count, latency and errors per endpoint (HTTP method plus route template),
+     * busiest first. Grouping by the dictionary-encoded template keeps the result to a
+     * handful of rows no matter how many distinct raw URLs were seen.
+     */
+    public List<EndpointStats> getServiceEndpoints(String serviceName) {
+        // Per (method, template): request count, duration sum, duration count, max duration, error count
+        Map<List<Object>, long[]> totals = new LinkedHashMap<>();
+        for (List<Object[]> rows : shardRouter.onAllShards(() -> concat(
+                traceEventRepository.aggregateByUrlTemplate(serviceName), packedSpanStatsRepository.aggregateByUrlTemplate(serviceName)))) {
+            for (Object[] row : rows) {
+                long[] total = totals.computeIfAbsent(Arrays.asList(row[0], row[1]), key -> new long[] {0, 0, 0, -1, 0});
+                total[0] += ((Number) row[2]).longValue();
+                total[1] += row[3] != null ? ((Number) row[3]).longValue() : 0;
+                total[2] += ((Number) row[4]).longValue();
+                total[3] = Math.max(total[3], row[5] != null ? ((Number) row[5]).longValue() : -1);
+                total[4] += row[6] != null ? ((Number) row[6]).longValue() : 0;
+            }
+        }
+        return totals.entrySet().stream()
+            .map(entry -> {
+                long[] total = entry.getValue();
+                return new EndpointStats((String) entry.getKey().get(0),
+                    urlTemplateDictionary.templateFor((Integer) entry.getKey().get(1)),
+                    total[0], total[4], total[2], total[1], total[3]);
+            })
+            .sorted(Comparator.comparingLong(EndpointStats::requestCount).reversed())
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Request count, errors and latency of the service over a window, answered from the
+     * minute/hour/day rollups so the cost depends on the window's shape, not on how many
+     * spans it holds. Defaults to the last 24 hours.
+     *
+     * @param operation null for every operation of the service
+     */
+    public ServiceRollup getServiceRollup(String serviceName, String operation, LocalDateTime from, LocalDateTime to) {
+        RollupReader.Result result = queryRollups(serviceName, operation, from, to);
+        RollupStats stats = result.stats();
+        List<ServiceRollup.PlanRange> plan = result.plan().ranges().stream()
+            .map(range -> new ServiceRollup.PlanRange(range.resolution(), range.startMicros(), range.endMicros()))
+            .collect(Collectors.toList());
+        return new ServiceRollup(serviceName, operation, result.plan().startMicros(), result.plan().endMicros(),
+            result.plan().approximate(), stats.getSpanCount(), stats.getErrorCount(), stats.getErrorRate(),
+            Math.round(stats.getAverageDurationMicros() / 1000.0), EpochMicros.toMillis(stats.getDurationMinMicros()),
+            EpochMicros.toMillis(stats.getDurationMaxMicros()), percentiles(stats.getHistogram()), plan);
+    }
+    
+    /**
+     * Latency percentiles, count and maximum of one operation over a window, merged from
+     * the histograms of the rollups that cover it. Defaults to the last 24 hours.
+     */
+    public OperationLatency getOperationLatency(String serviceName, String operation, LocalDateTime from, LocalDateTime to) {
+        RollupReader.Result result = queryRollups(serviceName, operation, from, to);
+        RollupStats stats = result.stats();
+        boolean timed = stats.getDurationCount() > 0;
+        return new OperationLatency(serviceName, operation, result.plan().startMicros(), result.plan().endMicros(),
+            result.plan().approximate(), stats.getDurationCount(),
+            timed ? percentiles(stats.getHistogram()) : null,
+            timed ? EpochMicros.toMillis(stats.getDurationMaxMicros()) : null);
+    }
+    
+    private RollupReader.Result queryRollups(String serviceName, String operation, LocalDateTime from, LocalDateTime to) {
+        long windowEnd = to != null ? EpochMicros.of(to) : EpochMicros.now();
+        long windowStart = from != null ? EpochMicros.of(from) : windowEnd - MICROS_PER_DAY;
+        if (windowStart >= windowEnd) {
+            throw new IllegalArgumentException("Window start must be before its end");
+        }
+        return rollupReader.query(serviceName, operation, windowStart, windowEnd);
+    }
+    
+    /**
+     * Request count, errors and latency percentiles per bucket of {@code step} (10s to 1d,
+     * e.g. {@code 30s}, {@code 5m}, {@code 1h}) over the window, which defaults to the last
+     * 24 hours and is aligned to the step. Whole-minute steps are answered from the
+     * rollups; finer steps are bucketed in the database. Raw spans are never loaded.
+     *
+     * @param step null picks the finest step giving at most {@value #DEFAULT_TIME_SERIES_POINTS} points
+     */
+    public ServiceTimeSeries getServiceTimeSeries(String serviceName, String operation, LocalDateTime from,
+                                                  LocalDateTime to, String step) {
+        long windowEnd = to != null ? EpochMicros.of(to) : EpochMicros.now();
+        long windowStart = from != null ? EpochMicros.of(from) : windowEnd - MICROS_PER_DAY;
+        if (windowStart >= windowEnd) {
+            throw new IllegalArgumentException("Window start must be before its end");
+        }
+        long stepMicros = step != null ? parseStepMicros(step) : defaultStepMicros(windowEnd - windowStart);
+        long seriesStart = Math.floorDiv(windowStart, stepMicros) * stepMicros;
+        long seriesEnd = -Math.floorDiv(-windowEnd, stepMicros) * stepMicros;
+        if ((seriesEnd - seriesStart) / stepMicros > MAX_TIME_SERIES_POINTS) {
+            throw new IllegalArgumentException("At most " + MAX_TIME_SERIES_POINTS + " points per series; use a larger step");
+        }
         
-        Map<String, Long> operationCounts = events.stream()
-            .collect(Collectors.groupingBy(TraceEvent::getOperation, Collectors.counting()));
+        boolean fromRollups = rollupAccumulator.isEnabled() && stepMicros % MICROS_PER_MINUTE == 0;
+        List<RollupReader.Point> points;
+        boolean approximate = false;
+        if (fromRollups) {
+            points = rollupReader.series(serviceName, operation, seriesStart, seriesEnd, stepMicros);
+        } else {
+            // Spans are bucketed from their rows, so the window must end before blobs or segments took any
+            long rowsSince = Math.max(tierCompactor.getColdCutoffMicros(), traceBlobCompactor.getPackCutoffMicros());
+            if (seriesStart < rowsSince) {
+                throw new IllegalArgumentException("Sub-minute steps only cover spans since "
+                    + EpochMicros.toLocalDateTime(rowsSince) + ", before they are compacted; use a whole-minute step");
+            }
+            points = new ArrayList<>();
+            for (long start = seriesStart; start < seriesEnd; start += stepMicros) {
+                points.add(new RollupReader.Point(start, start + stepMicros, new RollupStats(), false));
+            }
+            for (List<SpanBucketRepository.Bucket> buckets : shardRouter.onAllShards(() ->
+                    traceEventRepository.aggregateBuckets(serviceName, operation, seriesStart, seriesEnd, stepMicros))) {
+                for (SpanBucketRepository.Bucket bucket : buckets) {
+                    long typicalMicros = bucket.durationClass() != null
+                        ? Math.round(Math.exp((bucket.durationClass() + 0.5) / SpanBucketRepository.DURATION_CLASSES_PER_E)) - 1 : 0;
+                    points.get((int) bucket.index()).stats().add(bucket.spanCount(), bucket.errorCount(), bucket.durationCount(),
+                        bucket.durationSumMicros(), bucket.durationMinMicros(), bucket.durationMaxMicros(), typicalMicros);
+                }
+            }
+            // Accepted spans not yet written are not in any bucket
+            approximate = writeBehindBuffer.getPendingCount() > 0;
+        }
         
-        return Map.of(
-            "serviceName", serviceName,
-            "requestCount", requestCount,
-            "averageDurationMs", Math.round(avgDuration),
-            "errorCount", errorCount,
-            "errorRate", Math.round(errorRate * 100.0) / 100.0,
-            "operationCounts", operationCounts
-        );
+        List<ServiceTimeSeries.Point> series = new ArrayList<>(points.size());
+        for (RollupReader.Point point : points) {
+            RollupStats stats = point.stats();
+            boolean timed = stats.getDurationCount() > 0;
+            series.add(new ServiceTimeSeries.Point(point.startMicros(), stats.getSpanCount(), stats.getErrorCount(),
+                Math.round(stats.getErrorRate() * 100.0) / 100.0,
+                timed ? percentiles(stats.getHistogram()) : null,
+                timed ? EpochMicros.toMillis(stats.getDurationMaxMicros()) : null));
+            approximate |= point.approximate();
+        }
+        return new ServiceTimeSeries(serviceName, operation, seriesStart, seriesEnd, stepMicros,
+            fromRollups ? "rollups" : "spans", approximate, series);
+    }
+    
+    /** Status filters are matched case-insensitively; a blank filter is no filter. */
+    private static TraceEvent.Status parseStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        for (TraceEvent.Status candidate : TraceEvent.Status.values()) {
+            if (candidate.name().equalsIgnoreCase(status.trim())) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Status must be one of " + Arrays.toString(TraceEvent.Status.values()) + ", not " + status);
+    }
+    
+    private static long parseStepMicros(String step) {
+        Matcher matcher = STEP_PATTERN.matcher(step.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Step must look like 10s, 5m, 1h or 1d, not " + step);
+        }
+        long seconds = Long.parseLong(matcher.group(1)) * switch (matcher.group(2)) {
+            case "s" -> 1L;
+            case "m" -> 60L;
+            case "h" -> 3_600L;
+            default -> 86_400L;
+        };
+        if (seconds < 10 || seconds > 86_400) {
+            throw new IllegalArgumentException("Step must be between 10s and 1d, not " + step);
+        }
+        return seconds * 1_000_000L;
+    }
+    
+    private static long defaultStepMicros(long windowMicros) {
+        for (long seconds : DEFAULT_STEPS_SECONDS) {
+            if (windowMicros / (seconds * 1_000_000L) <= DEFAULT_TIME_SERIES_POINTS) {
+                return seconds * 1_000_000L;
+            }
+        }
+        return DEFAULT_STEPS_SECONDS[DEFAULT_STEPS_SECONDS.length - 1] * 1_000_000L;
+    }
+    
+    /**
+     * Request rate, error rate and latency of the last 1, 5 and 15 minutes, per operation
+     * and in total, from the in-memory per-second rings.
+     */
+    public LiveServiceMetrics getLiveMetrics(String serviceName) {
+        List<LiveServiceMetrics.Window> windows = new ArrayList<>(LIVE_WINDOW_MINUTES.length);
+        for (int minutes : LIVE_WINDOW_MINUTES) {
+            Map<String, LiveWindow> operations = liveMetrics.window(serviceName, minutes * 60);
+            LiveWindow total = new LiveWindow(minutes * 60);
+            Map<String, LiveServiceMetrics.Stats> operationStats = new LinkedHashMap<>();
+            for (Map.Entry<String, LiveWindow> operation : operations.entrySet()) {
+                total.merge(operation.getValue());
+                operationStats.put(operation.getKey(), describeLiveWindow(operation.getValue()));
+            }
+            windows.add(new LiveServiceMetrics.Window(minutes, describeLiveWindow(total), operationStats));
+        }
+        return new LiveServiceMetrics(serviceName, liveMetrics.isEnabled(), LocalDateTime.now(), windows);
+    }
+    
+    private static LiveServiceMetrics.Stats describeLiveWindow(LiveWindow window) {
+        return new LiveServiceMetrics.Stats(window.getRequestCount(),
+            Math.round(window.getRequestsPerSecond() * 100.0) / 100.0,
+            window.getErrorCount(),
+            Math.round(window.getErrorRate() * 100.0) / 100.0,
+            Math.round(window.getAverageDurationMicros() / 1000.0),
+            window.getMaxDurationMicros() >= 0 ? EpochMicros.toMillis(window.getMaxDurationMicros()) : null);
+    }
+    
+    private static ServiceMetrics.LatencyPercentiles percentiles(LatencyHistogram histogram) {
+        return new ServiceMetrics.LatencyPercentiles(
+            percentileMs(histogram, 0), percentileMs(histogram, 1), percentileMs(histogram, 2), percentileMs(histogram, 3));
     }
     
-    public Map<String, Object> getHealthStatus() {
-        long totalEvents = traceEventRepository.count();
-        long recentEvents = traceEventRepository.countRecentEvents(LocalDateTime.now().minusHours(1));
-        List<String> services = getServices();
+    private static long percentileMs(LatencyHistogram histogram, int percentile) {
+        return EpochMicros.toMillis(histogram.valueAtQuantile(PERCENTILES[percentile]));
+    }
+    
+    public HealthStatus getHealthStatus() {
+        long totalEvents = sum(shardRouter.onAllShards(() -> traceEventRepository.count() + packedSpanStatsRepository.countSpans()));
+        long since = EpochMicros.now() - MICROS_PER_HOUR;
+        long recentEvents;
+        if (hotTier.coversSince(since)) {
+            tierMetrics.recordHotHit();
+            recentEvents = hotTier.countSince(since);
+        } else {
+            tierMetrics.recordHotMiss();
+            recentEvents = sum(shardRouter.onAllShards(() -> traceEventRepository.countRecentEvents(since)
+                + packedSpanStatsRepository.countSpansFrom(PackedSpanStats.bucketOf(since))));
+        }
         
-        return Map.of(
-            "status", "healthy",
-            "totalEvents", totalEvents,
-            "recentEvents", recentEvents,
-            "trackedServices", services.size(),
-            "services", services,
-            "timestamp", LocalDateTime.now()
-        );
+        return HealthStatus.healthy(totalEvents, recentEvents, getServices());
+    }
+    
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        List<T> both = new ArrayList<>(first.size() + second.size());
+        both.addAll(first);
+        both.addAll(second);
+        return both;
+    }
+    
+    private static long sum(List<? extends Number> perShard) {
+        return perShard.stream().mapToLong(Number::longValue).sum();
     }
     
-    @Transactional
+    /**
+     * Deletes in one statement per shard rather than one transaction: a transaction holds
+     * a single connection, so it could not reach the other shards.
+     */
     public Map<String, Object> cleanupOldTraces(int olderThanDays) {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(olderThanDays);
-        int deletedCount = traceEventRepository.deleteByTimestampBefore(cutoffDate);
+        long now = EpochMicros.now();
+        long cutoffMicros = now - olderThanDays * MICROS_PER_DAY;
+        long segmentCutoffMicros = now - segmentRetentionDays * MICROS_PER_DAY;
+        LocalDateTime cutoffDate = EpochMicros.toLocalDateTime(cutoffMicros);
+        
+        hotTier.removeOlderThan(cutoffMicros);
+        hotTier.forgetEvictionsBefore(segmentStore.isEnabled() ? segmentCutoffMicros : cutoffMicros);
+        // Archived spans stay searchable until their segment expires
+        indexMaintainer.prune(segmentStore.isEnabled() ? segmentCutoffMicros : cutoffMicros);
+        
+        if (segmentStore.isEnabled()) {
+            long archivedCount = tierCompactor.moveToCold(cutoffMicros);
+            int droppedSegments = segmentStore.dropSegmentsBefore(segmentCutoffMicros);
+            shardRouter.onAllShards(() -> packedSpanStatsRepository.deleteByTierAndBucketBefore(PackedSpanStats.Tier.SEGMENT, segmentCutoffMicros));
+            // The move already deleted the rows it archived; this catches spans that arrived meanwhile.
+            // Summaries, and the blobs they may point at, stay while the archived spans are readable.
+            int deletedCount = deleteOlderThan(cutoffMicros, segmentCutoffMicros);
+            
+            return Map.of(
+                "deletedEvents", archivedCount + deletedCount,
+                "archivedEvents", archivedCount,
+                "droppedSegments", droppedSegments,
+                "cutoffDate", cutoffDate,
+                "message", "Cleaned up traces older than " + olderThanDays + " days"
+            );
+        }
+        
+        int deletedCount = deleteOlderThan(cutoffMicros, cutoffMicros);
         
         return Map.of(
             "deletedEvents", deletedCount,
@@ -206,6 +989,24 @@ public class TelemetryService {
         );
     }
     
+    /**
+     * Deletes span rows older than {@code cutoffMicros}, and trace summaries, operations and
+     * blobs of traces that ended before {@code traceCutoffMicros}.
+     */
+    private int deleteOlderThan(long cutoffMicros, long traceCutoffMicros) {
+        int deletedCount = (int) sum(shardRouter.onAllShards(() -> {
+            int deleted = traceEventRepository.deleteByTimestampBefore(cutoffMicros);
+            traceEventMetadataRepository.deleteOrphans();
+            traceBlobRepository.deleteByEndBefore(traceCutoffMicros);
+            packedSpanStatsRepository.deleteByTierAndBucketBefore(PackedSpanStats.Tier.BLOB, traceCutoffMicros);
+            traceSummaryRepository.deleteByEndBefore(traceCutoffMicros);
+            traceOperationRepository.deleteOrphans();
+            return deleted;
+        }));
+        timelineCache.clear();
+        return deletedCount;
+    }
+    
     private TraceEvent convertToEntity(TraceEventDto dto) {
         TraceEvent event = new TraceEvent();
         event.setTraceId(dto.getTraceId());
@@ -214,12 +1015,21 @@ public class TelemetryService {
         event.setServiceName(dto.getServiceName());
         event.setOperation(dto.getOperation());
         event.setEventType(dto.getEventType() != null ? dto.getEventType() : TraceEvent.EventType.SPAN);
-        event.setTimestamp(dto.getTimestamp() != null ? dto.getTimestamp() : LocalDateTime.now());
-        event.setDurationMs(dto.getDurationMs());
+        if (dto.getTimestampMicros() != null) {
+            event.setTimestampMicros(dto.getTimestampMicros());
+        } else {
+            event.setTimestampMicros(dto.getTimestamp() != null ? EpochMicros.of(dto.getTimestamp()) : EpochMicros.now());
+        }
+        if (dto.getDurationMicros() != null) {
+            event.setDurationMicros(dto.getDurationMicros());
+        } else {
+            event.setDurationMs(dto.getDurationMs());
+        }
         event.setStatus(dto.getStatus() != null ? dto.getStatus() : TraceEvent.Status.SUCCESS);
         event.setMetadata(dto.getMetadata());
         event.setHttpMethod(dto.getHttpMethod());
         event.setHttpUrl(dto.getHttpUrl());
+        event.setUrlTemplateId(urlTemplateDictionary.idFor(urlTemplater.template(dto.getHttpUrl())));
         event.setHttpStatusCode(dto.getHttpStatusCode());
         event.setErrorMessage(dto.getErrorMessage());
         event.setUserId(dto.getUserId());
@@ -0,0 +1,118 @@
+package com.ecommerce.telemetryservice.service;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.PackedSpanStats;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.repository.TraceEventMetadataRepository;
+import com.ecommerce.telemetryservice.repository.TraceEventRepository;
+import com.ecommerce.telemetryservice.shard.ShardRouter;
+import com.ecommerce.telemetryservice.storage.HotTier;
+import com.ecommerce.telemetryservice.storage.SegmentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Background job that keeps the storage tiers in shape: evicts aged-out traces from the
+ * in-memory hot tier and, when the cold tier is enabled, moves database rows older than
+ * {@code telemetry.tiering.cold.after-minutes} into compressed segments.
+ */
+@Component
+public class TierCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(TierCompactor.class);
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    @Autowired
+    private HotTier hotTier;
+
+    @Autowired
+    private SegmentStore segmentStore;
+
+    @Autowired
+    private TraceEventRepository traceEventRepository;
+
+    @Autowired
+    private TraceEventMetadataRepository traceEventMetadataRepository;
+
+    @Autowired
+    private PackedSpanStatsWriter packedSpanStatsWriter;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${telemetry.tiering.cold.enabled:false}")
+    private boolean coldEnabled;
+
+    @Value("${telemetry.tiering.cold.after-minutes:120}")
+    private long coldAfterMinutes;
+
+    /**
+     * Rows that started before this may already be in cold segments; {@code Long.MIN_VALUE}
+     * while nothing is moved by age.
+     */
+    public long getColdCutoffMicros() {
+        return coldEnabled && segmentStore.isEnabled() ? EpochMicros.now() - coldAfterMinutes * 60_000_000L : Long.MIN_VALUE;
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.tiering.compaction-interval-ms:30000}")
+    public void compact() {
+        hotTier.evictExpired();
+        if (coldEnabled && segmentStore.isEnabled()) {
+            long moved = moveToCold(EpochMicros.now() - coldAfterMinutes * 60_000_000L);
+            if (moved > 0) {
+                log.info("Moved {} spans to cold segments", moved);
+            }
+        }
+    }
+
+    /**
+     * Copies rows older than the cutoff into segments chunk by chunk, deleting each chunk
+     * from the database only after its segment is durably written. A crash in between
+     * leaves a span in both places, which readers de-duplicate by id. The deletion and the
+     * chunk's {@code packed_span_stats} commit together. Shards are moved one after the
+     * other, as segments are written one at a time anyway.
+     *
+     * @return number of spans moved
+     */
+    public long moveToCold(long cutoffMicros) {
+        long moved = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            moved += shardRouter.onShard(shard, () -> moveShardToCold(cutoffMicros));
+        }
+        return moved;
+    }
+
+    private long moveShardToCold(long cutoffMicros) {
+        long moved = 0;
+        long lastId = 0;
+        PageRequest chunk = PageRequest.of(0, CHUNK_SIZE);
+        List<TraceEvent> events = traceEventRepository.findOlderThan(cutoffMicros, lastId, chunk);
+        while (!events.isEmpty()) {
+            moved += segmentStore.append(events);
+            List<TraceEvent> chunkEvents = events;
+            transactionTemplate.executeWithoutResult(status -> {
+                traceEventRepository.deleteAllByIdInBatch(chunkEvents.stream().map(TraceEvent::getId).collect(Collectors.toList()));
+                packedSpanStatsWriter.record(PackedSpanStats.Tier.SEGMENT, chunkEvents);
+            });
+            lastId = events.get(events.size() - 1).getId();
+            events = traceEventRepository.findOlderThan(cutoffMicros, lastId, chunk);
+        }
+        if (moved > 0) {
+            traceEventMetadataRepository.deleteOrphans();
+        }
+        return moved;
+    }
+}
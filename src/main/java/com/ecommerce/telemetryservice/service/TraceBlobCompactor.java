@@ -0,0 +1,127 @@
+package com.ecommerce.telemetryservice.service;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.PackedSpanStats;
+import com.ecommerce.telemetryservice.model.TraceBlob;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.repository.TraceBlobRepository;
+import com.ecommerce.telemetryservice.repository.TraceEventMetadataRepository;
+import com.ecommerce.telemetryservice.repository.TraceEventRepository;
+import com.ecommerce.telemetryservice.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Background job that packs completed traces into {@code trace_blobs}: once a trace has
+ * received no span for {@code telemetry.trace-blobs.after-minutes}, its rows are encoded
+ * into one compressed columnar blob and deleted, in the same transaction. A span that
+ * arrives later is stored as a row again and merged into the blob on the next run.
+ * The packed rows are folded into {@code packed_span_stats} in that transaction too, so
+ * service-level queries keep counting them.
+ */
+@Component
+public class TraceBlobCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(TraceBlobCompactor.class);
+
+    @Autowired
+    private TraceEventRepository traceEventRepository;
+
+    @Autowired
+    private TraceEventMetadataRepository traceEventMetadataRepository;
+
+    @Autowired
+    private TraceBlobRepository traceBlobRepository;
+
+    @Autowired
+    private PackedSpanStatsWriter packedSpanStatsWriter;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${telemetry.trace-blobs.enabled:false}")
+    private boolean enabled;
+
+    @Value("${telemetry.trace-blobs.after-minutes:10}")
+    private long afterMinutes;
+
+    @Value("${telemetry.trace-blobs.batch-traces:500}")
+    private int batchTraces;
+
+    /**
+     * Rows that started before this may already be packed into blobs; {@code Long.MIN_VALUE}
+     * while packing is off.
+     */
+    public long getPackCutoffMicros() {
+        return enabled ? EpochMicros.now() - afterMinutes * 60_000_000L : Long.MIN_VALUE;
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.trace-blobs.compaction-interval-ms:60000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        long cutoffMicros = EpochMicros.now() - afterMinutes * 60_000_000L;
+        long packed = 0;
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            packed += shardRouter.onShard(shard, () -> packShard(cutoffMicros));
+        }
+        if (packed > 0) {
+            log.info("Packed {} spans of completed traces into trace blobs", packed);
+        }
+    }
+
+    /** @return number of spans packed */
+    long packShard(long cutoffMicros) {
+        long packed = 0;
+        PageRequest batch = PageRequest.of(0, batchTraces);
+        List<String> traceIds = traceEventRepository.findTraceIdsQuietSince(cutoffMicros, batch);
+        while (!traceIds.isEmpty()) {
+            for (String traceId : traceIds) {
+                packed += transactionTemplate.execute(status -> pack(traceId));
+            }
+            traceEventMetadataRepository.deleteOrphans();
+            if (traceIds.size() < batchTraces) {
+                break;
+            }
+            traceIds = traceEventRepository.findTraceIdsQuietSince(cutoffMicros, batch);
+        }
+        return packed;
+    }
+
+    private long pack(String traceId) {
+        List<TraceEvent> rows = traceEventRepository.findByTraceIdOrderByTimestamp(traceId);
+        if (rows.isEmpty()) {
+            return 0L;
+        }
+        TraceBlob blob = traceBlobRepository.findByTraceId(traceId).orElse(null);
+        if (blob == null) {
+            blob = new TraceBlob(traceId, rows);
+        } else {
+            // Late spans: merge them into the existing blob
+            Set<Long> rowIds = rows.stream().map(TraceEvent::getId).collect(Collectors.toSet());
+            List<TraceEvent> spans = new ArrayList<>(rows);
+            blob.decode().stream().filter(span -> !rowIds.contains(span.getId())).forEach(spans::add);
+            blob.update(spans);
+        }
+        traceBlobRepository.save(blob);
+        traceEventRepository.deleteAllByIdInBatch(rows.stream().map(TraceEvent::getId).collect(Collectors.toList()));
+        // Only the rows: spans already in the blob were counted when they were packed
+        packedSpanStatsWriter.record(PackedSpanStats.Tier.BLOB, rows);
+        return (long) rows.size();
+    }
+}
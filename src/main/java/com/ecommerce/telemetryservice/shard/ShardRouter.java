@@ -0,0 +1,187 @@
+package com.ecommerce.telemetryservice.shard;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decides which database shard holds a trace and runs repository calls there.
+ * <p>
+ * Every span of a trace goes to the shard picked by a stable hash of its traceId, so
+ * reading a trace touches one database. Queries across traces run on every shard in
+ * parallel and the caller merges the per-shard results.
+ * <p>
+ * Span ids stay unique across shards: shard {@code n} numbers its spans from
+ * {@code n << SHARD_ID_SHIFT}, so the shard of a span can also be told from its id.
+ * <p>
+ * Without {@code telemetry.shards.urls} there is a single shard and everything runs
+ * inline on the calling thread. A fan-out started from inside another one also runs
+ * inline, shard after shard: the pool has one thread per shard, all of them busy with the
+ * outer fan-out, so waiting on it again would never return.
+ */
+@Component
+public class ShardRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    public static final int SHARD_ID_SHIFT = 48;
+
+    @Autowired(required = false)
+    private ShardRoutingDataSource routingDataSource;
+
+    private int shardCount = 1;
+    private ExecutorService fanOutExecutor;
+    private final Set<Thread> fanOutThreads = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        if (routingDataSource == null || routingDataSource.getShardCount() == 1) {
+            return;
+        }
+        shardCount = routingDataSource.getShardCount();
+        fanOutExecutor = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out");
+            thread.setDaemon(true);
+            fanOutThreads.add(thread);
+            return thread;
+        });
+        log.info("Span storage sharded across {} databases", shardCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardOf(String traceId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        // Spread the hash bits first; similar traceIds are common (prefixes, counters)
+        int hash = traceId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+    }
+
+    public static int shardOfId(long spanId) {
+        return (int) (spanId >>> SHARD_ID_SHIFT);
+    }
+
+    public <T> T forTrace(String traceId, Supplier<T> work) {
+        return onShard(shardOf(traceId), work);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (shardCount == 1) {
+            return work.get();
+        }
+        Integer previous = ShardRoutingDataSource.currentShard();
+        ShardRoutingDataSource.setCurrentShard(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardRoutingDataSource.setCurrentShard(previous);
+        }
+    }
+
+    /**
+     * Runs the work once per shard, in parallel, and returns the results in shard order.
+     */
+    public <T> List<T> onAllShards(Supplier<T> work) {
+        if (shardCount == 1) {
+            return Collections.singletonList(work.get());
+        }
+        List<Supplier<T>> tasks = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            tasks.add(() -> onShard(target, work));
+        }
+        return runAll(tasks);
+    }
+
+    /**
+     * Splits the spans by the shard of their trace and runs the work on each group, in
+     * parallel. Returns the concatenated results, grouped by shard.
+     */
+    public <T> List<T> byTrace(List<TraceEvent> events, Function<List<TraceEvent>, List<T>> work) {
+        return byShard(events, TraceEvent::getTraceId, work);
+    }
+
+    /**
+     * Like {@link #byTrace}, for traceIds: each shard is only asked about its own traces,
+     * and shards holding none of them are skipped.
+     */
+    public <T> List<T> byTraceId(List<String> traceIds, Function<List<String>, List<T>> work) {
+        return byShard(traceIds, Function.identity(), work);
+    }
+
+    private <E, T> List<T> byShard(List<E> items, Function<E, String> traceIdOf, Function<List<E>, List<T>> work) {
+        if (shardCount == 1) {
+            return work.apply(items);
+        }
+        List<List<E>> groups = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            groups.add(new ArrayList<>());
+        }
+        for (E item : items) {
+            groups.get(shardOf(traceIdOf.apply(item))).add(item);
+        }
+        List<Supplier<List<T>>> tasks = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            List<E> group = groups.get(shard);
+            if (!group.isEmpty()) {
+                tasks.add(() -> onShard(target, () -> work.apply(group)));
+            }
+        }
+        List<T> results = new ArrayList<>(items.size());
+        runAll(tasks).forEach(results::addAll);
+        return results;
+    }
+
+    private <T> List<T> runAll(List<Supplier<T>> tasks) {
+        if (fanOutThreads.contains(Thread.currentThread())) {
+            return tasks.stream().map(Supplier::get).toList();
+        }
+        List<CompletableFuture<T>> futures = tasks.stream()
+            .map(task -> CompletableFuture.supplyAsync(task, fanOutExecutor))
+            .toList();
+        return futures.stream().map(ShardRouter::join).toList();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
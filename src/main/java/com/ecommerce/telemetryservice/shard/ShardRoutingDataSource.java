@@ -0,0 +1,93 @@
+package com.ecommerce.telemetryservice.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard the current thread is working on, as set by
+ * {@link ShardRouter}, from that shard's read pool inside a
+ * {@code @Transactional(readOnly = true)} transaction and from its write pool otherwise.
+ * Outside a shard scope it falls back to shard 0, the {@code spring.datasource}
+ * database, which also holds the tables that are not sharded.
+ * <p>
+ * Only correct behind a {@code LazyConnectionDataSourceProxy}: the transaction manager
+ * opens the connection before it marks the transaction read-only, so the real connection
+ * must not be taken until the first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    record Route(int shard, boolean readOnly) {
+    }
+
+    private final List<DataSource> writePools;
+    private final List<DataSource> readPools;
+
+    public ShardRoutingDataSource(List<DataSource> writePools, List<DataSource> readPools) {
+        if (writePools.size() != readPools.size()) {
+            throw new IllegalArgumentException("Every shard needs a write and a read pool: "
+                + writePools.size() + " write, " + readPools.size() + " read");
+        }
+        this.writePools = List.copyOf(writePools);
+        this.readPools = List.copyOf(readPools);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < writePools.size(); shard++) {
+            targets.put(new Route(shard, false), writePools.get(shard));
+            targets.put(new Route(shard, true), readPools.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(writePools.get(0));
+        afterPropertiesSet();
+    }
+
+    public int getShardCount() {
+        return writePools.size();
+    }
+
+    /** The write pool of the shard, i.e. its primary database. */
+    public DataSource getShard(int shard) {
+        return writePools.get(shard);
+    }
+
+    public DataSource getReadPool(int shard) {
+        return readPools.get(shard);
+    }
+
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    static void setCurrentShard(Integer shard) {
+        if (shard == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shard);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT_SHARD.get();
+        return new Route(shard != null ? shard : 0, TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource pool : writePools) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        for (DataSource pool : readPools) {
+            if (pool instanceof AutoCloseable closeable && !writePools.contains(pool)) {
+                closeable.close();
+            }
+        }
+    }
+}
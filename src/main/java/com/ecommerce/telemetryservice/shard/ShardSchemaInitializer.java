@@ -0,0 +1,81 @@
+package com.ecommerce.telemetryservice.shard;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import java.util.Map;
+
+/**
+ * Applies {@code spring.jpa.hibernate.ddl-auto} to the extra shards, which the
+ * application's entity manager never sees: it only builds the schema of shard 0. Uses a
+ * throwaway entity manager factory per shard with the same Hibernate settings.
+ * <p>
+ * Whatever {@code ddl-auto} is, the span id sequence of shard {@code n} is then restarted
+ * at {@code n << SHARD_ID_SHIFT} unless the shard already holds spans in that range, so
+ * ids stay unique across shards (H2 syntax). A shard holding spans below its range was
+ * filled without the restart; startup fails rather than hand out ids of another shard.
+ */
+public class ShardSchemaInitializer implements InitializingBean {
+
+    private final ShardRoutingDataSource routingDataSource;
+    private final EntityManagerFactoryBuilder entityManagerFactoryBuilder;
+    private final JpaProperties jpaProperties;
+    private final HibernateProperties hibernateProperties;
+
+    public ShardSchemaInitializer(ShardRoutingDataSource routingDataSource, EntityManagerFactoryBuilder entityManagerFactoryBuilder,
+                                  JpaProperties jpaProperties, HibernateProperties hibernateProperties) {
+        this.routingDataSource = routingDataSource;
+        this.entityManagerFactoryBuilder = entityManagerFactoryBuilder;
+        this.jpaProperties = jpaProperties;
+        this.hibernateProperties = hibernateProperties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String ddlAuto = hibernateProperties.getDdlAuto();
+        if (ddlAuto != null && !"none".equals(ddlAuto)) {
+            applySchema(ddlAuto);
+        }
+        for (int shard = 1; shard < routingDataSource.getShardCount(); shard++) {
+            moveIdsIntoRange(shard);
+        }
+    }
+
+    private void applySchema(String ddlAuto) {
+        // create-drop would drop the schema as soon as the throwaway factory closes
+        String shardDdlAuto = "create-drop".equals(ddlAuto) ? "create" : ddlAuto;
+        Map<String, Object> settings = hibernateProperties.determineHibernateProperties(
+            jpaProperties.getProperties(), new HibernateSettings().ddlAuto(() -> shardDdlAuto));
+
+        for (int shard = 1; shard < routingDataSource.getShardCount(); shard++) {
+            LocalContainerEntityManagerFactoryBean factory = entityManagerFactoryBuilder
+                .dataSource(routingDataSource.getShard(shard))
+                .packages(TraceEvent.class)
+                .properties(settings)
+                .persistenceUnit("shard-" + shard)
+                .build();
+            factory.afterPropertiesSet();
+            factory.destroy();
+        }
+    }
+
+    private void moveIdsIntoRange(int shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(routingDataSource.getShard(shard));
+        long firstId = ((long) shard << ShardRouter.SHARD_ID_SHIFT) + 1;
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM trace_events", Long.class);
+        if (maxId != null && maxId >= firstId) {
+            return;
+        }
+        if (maxId != null) {
+            throw new IllegalStateException("Shard " + shard + " holds span ids up to " + maxId
+                + ", below its range starting at " + firstId + "; its spans would be read from shard " + ShardRouter.shardOfId(maxId));
+        }
+        jdbcTemplate.execute("ALTER TABLE trace_events ALTER COLUMN id RESTART WITH " + firstId);
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.telemetryservice.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoding helpers shared by snapshot sections. Strings are a length-prefixed UTF-8 run,
+ * with a length of -1 for null; sorted int arrays are delta-encoded varints.
+ */
+public final class SnapshotFormat {
+
+    private SnapshotFormat() {
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeSortedInts(DataOutputStream out, int[] ascending) throws IOException {
+        out.writeInt(ascending.length);
+        int previous = -1;
+        for (int value : ascending) {
+            int delta = value - previous;
+            while ((delta & ~0x7F) != 0) {
+                out.writeByte((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out.writeByte(delta);
+            previous = value;
+        }
+    }
+
+    public static int[] readSortedInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        int previous = -1;
+        for (int i = 0; i < values.length; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += delta;
+            values[i] = previous;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,184 @@
+package com.ecommerce.telemetryservice.snapshot;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves every {@link SnapshotParticipant} to one binary file and restores them while the
+ * application context starts, before it reports ready.
+ * <p>
+ * File layout: {@code [int MAGIC][int VERSION][long createdAtMicros][byte shutdown]
+ * [int sectionCount]([name][int length][bytes])...[int MAGIC]}. Snapshots are written
+ * every {@code telemetry.snapshot.interval-ms} and once more on a clean shutdown; the file
+ * is replaced atomically. Restore memory-maps the file and hands each participant a
+ * read-only view of its section. A shutdown snapshot is deleted once restored, because
+ * after the first new span it no longer describes a clean state.
+ * <p>
+ * Only useful with a persistent database: the restored state describes rows that are
+ * expected to still be there.
+ */
+@Component
+public class SnapshotManager {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotManager.class);
+
+    static final int MAGIC = 0x54534e50; // "TSNP"
+    static final int VERSION = 2;
+
+    @Value("${telemetry.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${telemetry.snapshot.path:data/snapshot.bin}")
+    private String path;
+
+    @Autowired
+    private List<SnapshotParticipant> participants;
+
+    @PostConstruct
+    public void restore() {
+        Path file = Paths.get(path);
+        if (!enabled || !Files.exists(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean shutdown;
+        long createdAtMicros;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < Integer.BYTES * 2 || buffer.getInt() != MAGIC
+                || buffer.getInt(buffer.capacity() - Integer.BYTES) != MAGIC) {
+                log.warn("Ignoring corrupt snapshot {}", file);
+                return;
+            }
+            if (buffer.getInt() != VERSION) {
+                log.warn("Ignoring snapshot with unsupported version {}", file);
+                return;
+            }
+            createdAtMicros = buffer.getLong();
+            shutdown = buffer.get() != 0;
+            Map<String, ByteBuffer> sections = new HashMap<>();
+            int sectionCount = buffer.getInt();
+            for (int i = 0; i < sectionCount; i++) {
+                String name = SnapshotFormat.readString(buffer);
+                int length = buffer.getInt();
+                sections.put(name, buffer.slice(buffer.position(), length));
+                buffer.position(buffer.position() + length);
+            }
+
+            for (SnapshotParticipant participant : participants) {
+                ByteBuffer section = sections.get(participant.getSnapshotName());
+                if (section != null && !participant.canRestore(section.duplicate())) {
+                    log.warn("Ignoring snapshot: {} no longer matches the configuration", participant.getSnapshotName());
+                    return;
+                }
+            }
+            for (SnapshotParticipant participant : participants) {
+                ByteBuffer section = sections.get(participant.getSnapshotName());
+                if (section != null) {
+                    participant.restoreSnapshot(section.duplicate());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read snapshot " + file, e);
+        }
+        if (shutdown) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete restored snapshot " + file, e);
+            }
+        }
+        log.info("Restored {} snapshot from {} in {}ms", shutdown ? "shutdown" : "periodic",
+            EpochMicros.toLocalDateTime(createdAtMicros), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.snapshot.interval-ms:300000}",
+               initialDelayString = "${telemetry.snapshot.interval-ms:300000}")
+    public void snapshot() {
+        if (enabled) {
+            write(false);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        if (enabled) {
+            write(true);
+        }
+    }
+
+    /**
+     * Writes a snapshot of every participant.
+     *
+     * @return false when a participant was not ready and the round was skipped
+     */
+    public synchronized boolean write(boolean shutdown) {
+        long start = System.nanoTime();
+        Path file = Paths.get(path);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(EpochMicros.now());
+            out.writeBoolean(shutdown);
+            out.writeInt(participants.size());
+            for (SnapshotParticipant participant : participants) {
+                ByteArrayOutputStream section = new ByteArrayOutputStream();
+                try {
+                    participant.writeSnapshot(new DataOutputStream(section), shutdown);
+                } catch (IllegalStateException e) {
+                    log.info("Skipping snapshot: {}", e.getMessage());
+                    return false;
+                }
+                SnapshotFormat.writeString(out, participant.getSnapshotName());
+                out.writeInt(section.size());
+                section.writeTo(out);
+            }
+            out.writeInt(MAGIC);
+            out.flush();
+
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Wrote {} snapshot ({}KB) in {}ms", shutdown ? "shutdown" : "periodic", bytes.size() / 1024,
+                (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + file, e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.telemetryservice.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An in-memory structure that {@link SnapshotManager} saves to the snapshot file and loads
+ * back at boot, so it does not have to be rebuilt from the database after a restart.
+ * Each participant owns one named section of the file and its own encoding.
+ */
+public interface SnapshotParticipant {
+
+    /** Section name; stable across releases so older snapshots keep loading. */
+    String getSnapshotName();
+
+    /**
+     * Writes the current state. Throwing {@link IllegalStateException} skips the whole
+     * snapshot round, e.g. while the state is still being built.
+     *
+     * @param shutdown true for the final snapshot of a clean shutdown, after which no
+     *                 further spans are accepted until the next boot
+     */
+    void writeSnapshot(DataOutputStream out, boolean shutdown) throws IOException;
+
+    /**
+     * Checks that a section written earlier still matches the current configuration.
+     * If any participant declines, no section is restored.
+     */
+    default boolean canRestore(ByteBuffer in) {
+        return true;
+    }
+
+    /** Replaces the current state with the section contents. */
+    void restoreSnapshot(ByteBuffer in);
+}
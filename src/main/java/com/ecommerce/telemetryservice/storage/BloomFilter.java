@@ -0,0 +1,109 @@
+package com.ecommerce.telemetryservice.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-size Bloom filter over string keys, used by segment footers to rule out
+ * segments that cannot contain a given traceId.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int numHashes;
+    private final long numBits;
+
+    private BloomFilter(long[] bits, int numHashes) {
+        this.bits = bits;
+        this.numHashes = numHashes;
+        this.numBits = (long) bits.length * Long.SIZE;
+    }
+
+    /**
+     * Sizes a filter for the expected number of keys and target false-positive rate.
+     */
+    public static BloomFilter create(int expectedKeys, double falsePositiveRate) {
+        int n = Math.max(1, expectedKeys);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-6), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + Long.SIZE - 1) / Long.SIZE);
+        int k = (int) Math.max(1, Math.round((double) words * Long.SIZE / n * Math.log(2)));
+        return new BloomFilter(new long[words], Math.min(k, 16));
+    }
+
+    public void put(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long combined = (h1 + (long) i * h2) & Long.MAX_VALUE;
+            long index = combined % numBits;
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long combined = (h1 + (long) i * h2) & Long.MAX_VALUE;
+            long index = combined % numBits;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Adds every key of a filter created with the same sizing. */
+    public void putAll(BloomFilter other) {
+        if (other.bits.length != bits.length || other.numHashes != numHashes) {
+            throw new IllegalArgumentException("Bloom filters of different sizes cannot be merged");
+        }
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+    }
+
+    public int serializedSize() {
+        return Integer.BYTES * 2 + bits.length * Long.BYTES;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(numHashes);
+        buffer.putInt(bits.length);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+    }
+
+    public static BloomFilter readFrom(ByteBuffer buffer) {
+        int numHashes = buffer.getInt();
+        int words = buffer.getInt();
+        long[] bits = new long[words];
+        for (int i = 0; i < words; i++) {
+            bits[i] = buffer.getLong();
+        }
+        return new BloomFilter(bits, numHashes);
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes followed by the MurmurHash3 finalizer, which is
+     * cheap and spreads well enough for double hashing.
+     */
+    static long hash64(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,493 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.snapshot.SnapshotParticipant;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory hot tier holding every span ingested in the last
+ * {@code telemetry.hot-tier.window-minutes}, grouped by trace.
+ * <p>
+ * The hot tier only answers a read when it can prove the answer is complete:
+ * <ul>
+ *   <li>a trace is served only if its first span arrived after startup (plus a grace
+ *       period for traces that straddle a restart), by the server clock rather than the
+ *       span's own timestamp, and none of its spans were evicted earlier. Evicted traceIds
+ *       go into one Bloom filter per window; a filter is kept until retention has dropped
+ *       every span it marks from the database and segments, and the oldest filters are
+ *       merged rather than forgotten once there are
+ *       {@code telemetry.hot-tier.max-evicted-generations} of them;</li>
+ *   <li>a recent-event count is served only if the window starts after the hot tier's
+ *       coverage start, i.e. no span in the window can have been evicted.</li>
+ * </ul>
+ * Everything else falls through to the database and cold segments.
+ * <p>
+ * With {@code telemetry.hot-tier.off-heap.enabled} the spans live in a {@link SpanArena}
+ * instead of on the heap, bounded by {@code telemetry.hot-tier.off-heap.max-bytes}
+ * rather than {@code max-spans}; the arena evicts its oldest spans when full.
+ * <p>
+ * Only a clean-shutdown snapshot carries the hot tier: it is the one point where the
+ * tier is known to hold every recent span, so restoring it keeps the guarantees above.
+ */
+@Component
+public class HotTier implements SnapshotParticipant {
+
+    private static final int EVICTED_FILTER_KEYS = 100_000;
+    // Section format with one evicted filter per window; sections of other formats are skipped
+    private static final byte SNAPSHOT_FORMAT = 2;
+
+    @Value("${telemetry.hot-tier.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telemetry.hot-tier.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${telemetry.hot-tier.max-spans:200000}")
+    private int maxSpans;
+
+    @Value("${telemetry.hot-tier.completeness-grace-seconds:60}")
+    private long completenessGraceSeconds;
+
+    @Value("${telemetry.hot-tier.max-evicted-generations:168}")
+    private int maxEvictedGenerations;
+
+    @Value("${telemetry.hot-tier.off-heap.enabled:false}")
+    private boolean offHeap;
+
+    @Value("${telemetry.hot-tier.off-heap.max-bytes:268435456}")
+    private long offHeapMaxBytes;
+
+    private final Map<String, TraceEntry> traces = new ConcurrentHashMap<>();
+    private final AtomicLong spanCount = new AtomicLong();
+
+    private volatile long startupMicros;
+    private final AtomicLong coverageStartMicros = new AtomicLong();
+    // Newest generation first; only the first one is written to
+    private final List<EvictedTraces> evictedTraces = new CopyOnWriteArrayList<>();
+    private long evictedRotatedAtMicros;
+    private SpanArena arena;
+
+    @PostConstruct
+    public void init() {
+        startupMicros = EpochMicros.now();
+        coverageStartMicros.set(startupMicros);
+        evictedTraces.clear();
+        evictedTraces.add(new EvictedTraces(BloomFilter.create(EVICTED_FILTER_KEYS, 0.01), Long.MIN_VALUE));
+        evictedRotatedAtMicros = startupMicros;
+        arena = enabled && offHeap ? new SpanArena(offHeapMaxBytes, this::onArenaEviction) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(TraceEvent event) {
+        long ts = event.getTimestampMicros();
+        if (!enabled || event.getTraceId() == null || ts == EpochMicros.NONE) {
+            return;
+        }
+        long arrivalMicros = EpochMicros.now();
+        if (arena != null) {
+            arena.append(event, isCompleteCandidate(event.getTraceId(), arrivalMicros));
+            return;
+        }
+        traces.compute(event.getTraceId(), (traceId, entry) -> {
+            if (entry == null) {
+                entry = new TraceEntry(isCompleteCandidate(traceId, arrivalMicros));
+            }
+            entry.add(event, ts);
+            return entry;
+        });
+        if (spanCount.incrementAndGet() > maxSpans) {
+            evictExpired();
+        }
+    }
+
+    public void addAll(List<TraceEvent> events) {
+        for (TraceEvent event : events) {
+            add(event);
+        }
+    }
+
+    /**
+     * Returns the spans of the trace ordered by timestamp, or empty when the hot tier
+     * cannot guarantee it holds every span of that trace.
+     */
+    public Optional<List<TraceEvent>> findCompleteTrace(String traceId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        if (arena != null) {
+            return arena.findCompleteTrace(traceId).map(spans -> {
+                spans.sort(Comparator.comparingLong(TraceEvent::getTimestampMicros));
+                return spans;
+            });
+        }
+        TraceEntry entry = traces.get(traceId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return entry.snapshotIfComplete();
+    }
+
+    /**
+     * True when every span with a timestamp after {@code sinceMicros} is guaranteed to be
+     * held in memory.
+     */
+    public boolean coversSince(long sinceMicros) {
+        return enabled && sinceMicros >= coverageStartMicros.get();
+    }
+
+    public long countSince(long sinceMicros) {
+        if (arena != null) {
+            return arena.countSince(sinceMicros);
+        }
+        long count = 0;
+        for (TraceEntry entry : traces.values()) {
+            count += entry.countAfter(sinceMicros);
+        }
+        return count;
+    }
+
+    /**
+     * Evicts whole traces whose newest span fell out of the window and, if the tier is
+     * still over its span budget, the least recently active traces beyond that.
+     *
+     * @return number of spans evicted
+     */
+    public synchronized long evictExpired() {
+        if (!enabled) {
+            return 0;
+        }
+        long now = EpochMicros.now();
+        long windowMicros = windowMinutes * 60_000_000L;
+        if (now - evictedRotatedAtMicros >= windowMicros) {
+            rotateEvicted();
+            evictedRotatedAtMicros = now;
+        }
+
+        long horizon = now - windowMicros;
+        if (arena != null) {
+            long evicted = arena.evictBefore(horizon);
+            coverageStartMicros.accumulateAndGet(horizon, Math::max);
+            return evicted;
+        }
+        long evicted = evictBefore(horizon);
+
+        if (spanCount.get() > maxSpans) {
+            long[] lastActivity = traces.values().stream().mapToLong(TraceEntry::maxTimestamp).toArray();
+            Arrays.sort(lastActivity);
+            long target = spanCount.get() - (long) (maxSpans * 0.9);
+            long averageSpans = Math.max(1, spanCount.get() / Math.max(1, lastActivity.length));
+            int index = (int) Math.min(lastActivity.length - 1, target / averageSpans);
+            if (index >= 0) {
+                horizon = Math.max(horizon, lastActivity[index] + 1);
+                evicted += evictBefore(horizon);
+            }
+        }
+        coverageStartMicros.accumulateAndGet(horizon, Math::max);
+        return evicted;
+    }
+
+    /**
+     * Forgets evicted traces whose spans are all older than the cutoff, i.e. no longer
+     * readable from the database or segments either, so serving the rest of such a trace
+     * from memory loses nothing a database read would have returned.
+     */
+    public synchronized void forgetEvictionsBefore(long cutoffMicros) {
+        for (int i = evictedTraces.size() - 1; i > 0; i--) {
+            if (evictedTraces.get(i).newestSpanMicros() < cutoffMicros) {
+                evictedTraces.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Drops spans older than the cutoff, mirroring retention cleanup in the database.
+     */
+    public void removeOlderThan(long cutoffMicros) {
+        if (!enabled) {
+            return;
+        }
+        if (arena != null) {
+            arena.evictBefore(cutoffMicros);
+            return;
+        }
+        for (Iterator<Map.Entry<String, TraceEntry>> it = traces.entrySet().iterator(); it.hasNext(); ) {
+            TraceEntry entry = it.next().getValue();
+            int removed = entry.removeBefore(cutoffMicros);
+            spanCount.addAndGet(-removed);
+            if (entry.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    public int getTraceCount() {
+        return arena != null ? arena.getTraceCount() : traces.size();
+    }
+
+    public long getSpanCount() {
+        return arena != null ? arena.getSpanCount() : spanCount.get();
+    }
+
+    /** Direct memory held by the off-heap arena, or 0 when spans are kept on the heap. */
+    public long getOffHeapUsedBytes() {
+        return arena != null ? arena.getUsedBytes() : 0;
+    }
+
+    @Override
+    public String getSnapshotName() {
+        return "hot-tier";
+    }
+
+    @Override
+    public synchronized void writeSnapshot(DataOutputStream out, boolean shutdown) throws IOException {
+        out.writeByte(enabled && shutdown ? SNAPSHOT_FORMAT : 0);
+        if (!enabled || !shutdown) {
+            return;
+        }
+        out.writeLong(startupMicros);
+        out.writeLong(coverageStartMicros.get());
+        out.writeLong(evictedRotatedAtMicros);
+        out.writeInt(evictedTraces.size());
+        for (EvictedTraces generation : evictedTraces) {
+            out.writeLong(generation.newestSpanMicros());
+            writeFilter(out, generation.traceIds);
+        }
+        if (arena != null) {
+            try {
+                arena.forEach((event, complete) -> {
+                    try {
+                        writeSpan(out, event, complete);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            for (TraceEntry entry : traces.values()) {
+                boolean complete = entry.isComplete();
+                for (TraceEvent span : entry.spans()) {
+                    writeSpan(out, span, complete);
+                }
+            }
+        }
+        out.writeBoolean(false);
+    }
+
+    @Override
+    public synchronized void restoreSnapshot(ByteBuffer in) {
+        if (in.get() != SNAPSHOT_FORMAT || !enabled) {
+            return;
+        }
+        startupMicros = in.getLong();
+        coverageStartMicros.set(in.getLong());
+        evictedRotatedAtMicros = in.getLong();
+        evictedTraces.clear();
+        for (int generations = in.getInt(); generations > 0; generations--) {
+            long newestSpanMicros = in.getLong();
+            evictedTraces.add(new EvictedTraces(BloomFilter.readFrom(in), newestSpanMicros));
+        }
+        while (in.get() != 0) {
+            boolean complete = in.get() != 0;
+            int urlTemplateId = in.getInt();
+            int length = in.getInt();
+            TraceEvent event = SpanCodec.decode(in, in.position());
+            in.position(in.position() + length);
+            event.setUrlTemplateId(urlTemplateId != Integer.MIN_VALUE ? urlTemplateId : null);
+            if (arena != null) {
+                arena.append(event, complete);
+            } else {
+                traces.computeIfAbsent(event.getTraceId(), traceId -> new TraceEntry(complete))
+                    .add(event, event.getTimestampMicros());
+                spanCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static void writeSpan(DataOutputStream out, TraceEvent event, boolean complete) throws IOException {
+        byte[] record = SpanCodec.encode(event);
+        out.writeBoolean(true);
+        out.writeBoolean(complete);
+        out.writeInt(event.getUrlTemplateId() != null ? event.getUrlTemplateId() : Integer.MIN_VALUE);
+        out.writeInt(record.length);
+        out.write(record);
+    }
+
+    private static void writeFilter(DataOutputStream out, BloomFilter filter) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(filter.serializedSize());
+        filter.writeTo(buffer);
+        out.write(buffer.array());
+    }
+
+    /**
+     * A span pushed out of the arena may be newer than the window horizon, so coverage
+     * has to move past it and its trace must not be served as complete again. Called
+     * with the arena lock held, so it must not take the hot tier's lock.
+     */
+    private void onArenaEviction(String traceId, long timestampMicros) {
+        evictedTraces.get(0).put(traceId, timestampMicros);
+        coverageStartMicros.accumulateAndGet(timestampMicros + 1, Math::max);
+    }
+
+    private long evictBefore(long horizon) {
+        long evicted = 0;
+        for (Iterator<Map.Entry<String, TraceEntry>> it = traces.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, TraceEntry> e = it.next();
+            if (e.getValue().maxTimestamp() < horizon) {
+                evictedTraces.get(0).put(e.getKey(), e.getValue().maxTimestamp());
+                it.remove();
+                int size = e.getValue().size();
+                spanCount.addAndGet(-size);
+                evicted += size;
+            }
+        }
+        return evicted;
+    }
+
+    private boolean isCompleteCandidate(String traceId, long arrivalMicros) {
+        if (arrivalMicros < startupMicros + completenessGraceSeconds * 1_000_000L) {
+            return false;
+        }
+        for (EvictedTraces generation : evictedTraces) {
+            if (generation.traceIds.mightContain(traceId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts a new generation and, past the limit, merges the two oldest. The newest two
+     * are never merged, so a put racing the rotation still lands in a kept filter.
+     */
+    private void rotateEvicted() {
+        evictedTraces.add(0, new EvictedTraces(BloomFilter.create(EVICTED_FILTER_KEYS, 0.01), Long.MIN_VALUE));
+        if (evictedTraces.size() > Math.max(3, maxEvictedGenerations)) {
+            EvictedTraces newer = evictedTraces.remove(evictedTraces.size() - 2);
+            evictedTraces.get(evictedTraces.size() - 1).putAll(newer);
+        }
+    }
+
+    /** TraceIds evicted during one window and the newest timestamp among their spans. */
+    private static final class EvictedTraces {
+        private final BloomFilter traceIds;
+        private final AtomicLong newestSpanMicros;
+
+        EvictedTraces(BloomFilter traceIds, long newestSpanMicros) {
+            this.traceIds = traceIds;
+            this.newestSpanMicros = new AtomicLong(newestSpanMicros);
+        }
+
+        void put(String traceId, long spanMicros) {
+            traceIds.put(traceId);
+            newestSpanMicros.accumulateAndGet(spanMicros, Math::max);
+        }
+
+        void putAll(EvictedTraces other) {
+            traceIds.putAll(other.traceIds);
+            newestSpanMicros.accumulateAndGet(other.newestSpanMicros(), Math::max);
+        }
+
+        long newestSpanMicros() {
+            return newestSpanMicros.get();
+        }
+    }
+
+    private static final class TraceEntry {
+        private final boolean complete;
+        private final List<TraceEvent> spans = new ArrayList<>(4);
+        private long[] timestamps = new long[4];
+        private long maxTimestamp = Long.MIN_VALUE;
+
+        TraceEntry(boolean complete) {
+            this.complete = complete;
+        }
+
+        synchronized void add(TraceEvent event, long ts) {
+            if (spans.size() == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, timestamps.length * 2);
+            }
+            timestamps[spans.size()] = ts;
+            spans.add(event);
+            maxTimestamp = Math.max(maxTimestamp, ts);
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        synchronized List<TraceEvent> spans() {
+            return new ArrayList<>(spans);
+        }
+
+        synchronized long maxTimestamp() {
+            return maxTimestamp;
+        }
+
+        synchronized int size() {
+            return spans.size();
+        }
+
+        synchronized boolean isEmpty() {
+            return spans.isEmpty();
+        }
+
+        synchronized long countAfter(long sinceMicros) {
+            if (maxTimestamp <= sinceMicros) {
+                return 0;
+            }
+            long count = 0;
+            for (int i = 0; i < spans.size(); i++) {
+                if (timestamps[i] > sinceMicros) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        synchronized int removeBefore(long cutoffMicros) {
+            int kept = 0;
+            for (int i = 0; i < spans.size(); i++) {
+                if (timestamps[i] >= cutoffMicros) {
+                    spans.set(kept, spans.get(i));
+                    timestamps[kept] = timestamps[i];
+                    kept++;
+                }
+            }
+            int removed = spans.size() - kept;
+            spans.subList(kept, spans.size()).clear();
+            return removed;
+        }
+
+        synchronized Optional<List<TraceEvent>> snapshotIfComplete() {
+            if (!complete) {
+                return Optional.empty();
+            }
+            List<TraceEvent> copy = new ArrayList<>(spans);
+            copy.sort(Comparator.comparingLong(TraceEvent::getTimestampMicros));
+            return Optional.of(copy);
+        }
+    }
+}
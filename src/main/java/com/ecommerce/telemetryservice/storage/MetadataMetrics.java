@@ -0,0 +1,101 @@
+package com.ecommerce.telemetryservice.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes metadata compression statistics through actuator:
+ * {@code telemetry.metadata.bytes{kind=raw|stored}}, the resulting
+ * {@code telemetry.metadata.compression.ratio}, and on the read side how many loaded
+ * spans never needed their metadata decompressed ({@code telemetry.metadata.read.skip.ratio}).
+ * Fed by {@link com.ecommerce.telemetryservice.model.MetadataListener} as spans are
+ * written, loaded and read.
+ */
+@Component
+public class MetadataMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final LongAdder rawBytesWritten = new LongAdder();
+    private final LongAdder storedBytesWritten = new LongAdder();
+    private final LongAdder decodedPayloads = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder entityLoads = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        FunctionCounter.builder("telemetry.metadata.bytes", rawBytesWritten, LongAdder::sum)
+            .tag("kind", "raw")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        FunctionCounter.builder("telemetry.metadata.bytes", storedBytesWritten, LongAdder::sum)
+            .tag("kind", "stored")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        FunctionCounter.builder("telemetry.metadata.decodes", decodedPayloads, LongAdder::sum)
+            .description("Metadata payloads decompressed on read")
+            .register(meterRegistry);
+        Gauge.builder("telemetry.metadata.compression.ratio", this, MetadataMetrics::getCompressionRatio)
+            .description("Raw metadata bytes per stored byte")
+            .register(meterRegistry);
+        Gauge.builder("telemetry.metadata.read.skip.ratio", this, MetadataMetrics::getReadSkipRatio)
+            .description("Share of spans loaded from the database whose metadata was never decompressed")
+            .register(meterRegistry);
+    }
+
+    public void recordWrite(int rawBytes, int storedBytes) {
+        rawBytesWritten.add(rawBytes);
+        storedBytesWritten.add(storedBytes);
+    }
+
+    public void recordDecode(int rawBytes) {
+        decodedPayloads.increment();
+        decodedBytes.add(rawBytes);
+    }
+
+    public void recordEntityLoad() {
+        entityLoads.increment();
+    }
+
+    public long getRawBytesWritten() {
+        return rawBytesWritten.sum();
+    }
+
+    public long getStoredBytesWritten() {
+        return storedBytesWritten.sum();
+    }
+
+    public long getDecodedPayloads() {
+        return decodedPayloads.sum();
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    /** Spans loaded from the database; loads minus decoded payloads never touched metadata. */
+    public long getEntityLoads() {
+        return entityLoads.sum();
+    }
+
+    /** Raw-to-stored size ratio of everything written so far, e.g. 3.0 for a 3x reduction. */
+    public double getCompressionRatio() {
+        long stored = storedBytesWritten.sum();
+        return stored > 0 ? (double) rawBytesWritten.sum() / stored : 1.0;
+    }
+
+    public double getReadSkipRatio() {
+        long loads = entityLoads.sum();
+        if (loads == 0) {
+            return 0.0;
+        }
+        return Math.max(0.0, 1.0 - (double) decodedPayloads.sum() / loads);
+    }
+}
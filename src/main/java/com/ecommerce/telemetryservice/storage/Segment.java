@@ -0,0 +1,332 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable, memory-mapped span segment.
+ * <p>
+ * File layout: {@code [int MAGIC][int VERSION][int FLAGS][blocks...][footer][long footerOffset][int MAGIC]}.
+ * Each block holds whole span records and carries its own time bounds in the footer.
+ * Uncompressed blocks are scanned directly in the {@link MappedByteBuffer}; compressed
+ * (cold) blocks are inflated one at a time. Only spans that pass the traceId filter are
+ * decoded into {@link TraceEvent} objects.
+ * <p>
+ * Trace-clustered segments hold their spans sorted by (traceId, timestamp, spanId) and
+ * only cut blocks at trace boundaries, so every trace lives in exactly one block and a
+ * trace lookup is a single contiguous read of that block.
+ */
+public class Segment {
+
+    static final int MAGIC = 0x54534547; // "TSEG"
+    // 3: span durations in microseconds
+    // 4: per-block traceId bounds; older segments are no longer read
+    static final int VERSION = 4;
+    static final int FLAG_COMPRESSED = 1;
+    static final int FLAG_TRACE_CLUSTERED = 2;
+    static final int HEADER_SIZE = Integer.BYTES * 3;
+    static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final Comparator<TraceEvent> TRACE_ORDER = Comparator
+        .comparing(TraceEvent::getTraceId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparingLong(TraceEvent::getTimestampMicros)
+        .thenComparing(TraceEvent::getSpanId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final SegmentFooter footer;
+    private final boolean compressed;
+    private final boolean traceClustered;
+
+    private Segment(Path path, MappedByteBuffer buffer, SegmentFooter footer, boolean compressed, boolean traceClustered) {
+        this.path = path;
+        this.buffer = buffer;
+        this.footer = footer;
+        this.compressed = compressed;
+        this.traceClustered = traceClustered;
+    }
+
+    public static Segment write(Path path, List<TraceEvent> events, boolean compress) throws IOException {
+        return write(path, events, compress, false);
+    }
+
+    /**
+     * Writes the given spans as a new segment. The file is written under a temporary
+     * name and moved into place, so a crash never leaves a half-written segment behind.
+     *
+     * @param clusterByTrace sort spans by trace and keep each trace within one block
+     */
+    public static Segment write(Path path, List<TraceEvent> events, boolean compress, boolean clusterByTrace) throws IOException {
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("Cannot write an empty segment");
+        }
+        if (clusterByTrace) {
+            events = new ArrayList<>(events);
+            events.sort(TRACE_ORDER);
+        }
+        int flags = (compress ? FLAG_COMPRESSED : 0) | (clusterByTrace ? FLAG_TRACE_CLUSTERED : 0);
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        Set<String> services = new TreeSet<>();
+        Set<String> traceIds = new TreeSet<>();
+        List<SegmentFooter.Block> blocks = new ArrayList<>();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(flags).flip();
+            long position = writeFully(channel, header);
+
+            Deflater deflater = compress ? new Deflater() : null;
+            try {
+                BlockWriter block = new BlockWriter();
+                for (int i = 0; i < events.size(); i++) {
+                    TraceEvent event = events.get(i);
+                    long ts = event.getTimestampMicros();
+                    block.add(SpanCodec.encode(event), ts, event.getTraceId());
+                    min = Math.min(min, ts);
+                    max = Math.max(max, ts);
+                    if (event.getServiceName() != null) {
+                        services.add(event.getServiceName());
+                    }
+                    if (event.getTraceId() != null) {
+                        traceIds.add(event.getTraceId());
+                    }
+                    boolean traceContinues = clusterByTrace && i + 1 < events.size()
+                        && Objects.equals(event.getTraceId(), events.get(i + 1).getTraceId());
+                    if (block.size() >= BLOCK_SIZE && !traceContinues) {
+                        position = block.flush(channel, position, deflater, blocks);
+                    }
+                }
+                if (block.size() > 0) {
+                    position = block.flush(channel, position, deflater, blocks);
+                }
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+
+            BloomFilter filter = BloomFilter.create(traceIds.size(), BLOOM_FALSE_POSITIVE_RATE);
+            traceIds.forEach(filter::put);
+            SegmentFooter footer = new SegmentFooter(min, max, events.size(), services, filter, blocks);
+
+            long fileSize = position + footer.serializedSize() + TRAILER_SIZE;
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Segment too large: " + fileSize + " bytes");
+            }
+            ByteBuffer tail = ByteBuffer.allocate(footer.serializedSize() + TRAILER_SIZE);
+            footer.writeTo(tail);
+            tail.putLong(position).putInt(MAGIC).flip();
+            writeFully(channel, tail);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    public static Segment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a span segment: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt((int) size - Integer.BYTES) != MAGIC) {
+                throw new IOException("Bad segment magic: " + path);
+            }
+            int version = buffer.getInt(Integer.BYTES);
+            if (version != VERSION) {
+                throw new IOException("Unsupported segment version " + version + ": " + path);
+            }
+            int flags = buffer.getInt(Integer.BYTES * 2);
+            int footerOffset = (int) buffer.getLong((int) size - TRAILER_SIZE);
+            ByteBuffer footerView = buffer.duplicate();
+            footerView.position(footerOffset);
+            SegmentFooter footer = SegmentFooter.readFrom(footerView);
+            return new Segment(path, buffer, footer, (flags & FLAG_COMPRESSED) != 0, (flags & FLAG_TRACE_CLUSTERED) != 0);
+        }
+    }
+
+    public Path getPath() { return path; }
+
+    public SegmentFooter getFooter() { return footer; }
+
+    public boolean isCompressed() { return compressed; }
+
+    public boolean isTraceClustered() { return traceClustered; }
+
+    public long sizeBytes() { return buffer.capacity(); }
+
+    /**
+     * Returns all spans of the trace in this segment, or an empty list without touching
+     * the records when the Bloom filter rules the segment out. Only blocks whose traceId
+     * bounds cover the trace are read; in a trace-clustered segment that is a single
+     * block, scanned only up to the end of the trace's run of records.
+     */
+    public List<TraceEvent> findByTraceId(String traceId) {
+        List<TraceEvent> result = new ArrayList<>();
+        if (!footer.mightContainTrace(traceId)) {
+            return result;
+        }
+        byte[] wanted = traceId.getBytes(StandardCharsets.UTF_8);
+        for (SegmentFooter.Block block : footer.getBlocks()) {
+            if (traceClustered && block.startsAfter(traceId)) {
+                break;
+            }
+            if (!block.mightContainTrace(traceId)) {
+                continue;
+            }
+            ByteBuffer records = blockRecords(block);
+            int offset = 0;
+            while (offset < block.getRawLength()) {
+                if (SpanCodec.traceIdEquals(records, offset, wanted)) {
+                    result.add(SpanCodec.decode(records, offset));
+                } else if (traceClustered && !result.isEmpty()) {
+                    return result;
+                }
+                offset += SpanCodec.recordLength(records, offset);
+            }
+            if (traceClustered && !result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public void forEach(Consumer<TraceEvent> consumer) {
+        for (SegmentFooter.Block block : footer.getBlocks()) {
+            ByteBuffer records = blockRecords(block);
+            int offset = 0;
+            while (offset < block.getRawLength()) {
+                consumer.accept(SpanCodec.decode(records, offset));
+                offset += SpanCodec.recordLength(records, offset);
+            }
+        }
+    }
+
+    /**
+     * Raw blocks are returned as a zero-copy slice of the mapping; compressed blocks
+     * are inflated into a heap buffer.
+     */
+    private ByteBuffer blockRecords(SegmentFooter.Block block) {
+        int offset = (int) block.getOffset();
+        if (!compressed) {
+            return buffer.slice(offset, block.getRawLength());
+        }
+        byte[] stored = new byte[block.getStoredLength()];
+        buffer.get(offset, stored);
+        byte[] raw = new byte[block.getRawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                int count = inflater.inflate(raw, inflated, raw.length - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Truncated or garbled input would otherwise spin here forever
+                    throw new IllegalStateException("Corrupt block in segment " + path + ": stream ends after " + inflated + " bytes");
+                }
+                inflated += count;
+            }
+            if (inflated < raw.length) {
+                throw new IllegalStateException("Corrupt block in segment " + path + ": " + inflated + " of " + raw.length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block in segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    /**
+     * Accumulates records for the block being written, tracking its time and traceId bounds.
+     */
+    private static final class BlockWriter {
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream(BLOCK_SIZE + 1024);
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+        private String minTraceId;
+        private String maxTraceId;
+
+        void add(byte[] record, long ts, String traceId) {
+            records.writeBytes(record);
+            minTimestamp = Math.min(minTimestamp, ts);
+            maxTimestamp = Math.max(maxTimestamp, ts);
+            if (traceId != null) {
+                if (minTraceId == null || traceId.compareTo(minTraceId) < 0) {
+                    minTraceId = traceId;
+                }
+                if (maxTraceId == null || traceId.compareTo(maxTraceId) > 0) {
+                    maxTraceId = traceId;
+                }
+            }
+        }
+
+        int size() {
+            return records.size();
+        }
+
+        long flush(FileChannel channel, long position, Deflater deflater,
+                   List<SegmentFooter.Block> blocks) throws IOException {
+            byte[] raw = records.toByteArray();
+            byte[] stored = raw;
+            int storedLength = raw.length;
+            if (deflater != null) {
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                stored = new byte[raw.length + raw.length / 1000 + 64];
+                storedLength = 0;
+                while (!deflater.finished()) {
+                    if (storedLength == stored.length) {
+                        stored = Arrays.copyOf(stored, stored.length * 2);
+                    }
+                    storedLength += deflater.deflate(stored, storedLength, stored.length - storedLength);
+                }
+            }
+            blocks.add(new SegmentFooter.Block(position, storedLength, raw.length, minTimestamp, maxTimestamp,
+                minTraceId, maxTraceId));
+            records.reset();
+            minTimestamp = Long.MAX_VALUE;
+            maxTimestamp = Long.MIN_VALUE;
+            minTraceId = null;
+            maxTraceId = null;
+            return position + writeFully(channel, ByteBuffer.wrap(stored, 0, storedLength));
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+}
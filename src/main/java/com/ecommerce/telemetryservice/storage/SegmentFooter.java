@@ -0,0 +1,193 @@
+package com.ecommerce.telemetryservice.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Summary written at the end of every segment: time bounds, span count, the set of
+ * services that appear in it, a Bloom filter over its traceIds and the index of the
+ * record blocks. Readers consult the footer to decide whether, and which parts of,
+ * the segment body need to be scanned at all.
+ */
+public class SegmentFooter {
+
+    private final long minTimestampMicros;
+    private final long maxTimestampMicros;
+    private final int spanCount;
+    private final Set<String> serviceNames;
+    private final BloomFilter traceIdFilter;
+    private final List<Block> blocks;
+
+    public SegmentFooter(long minTimestampMicros, long maxTimestampMicros, int spanCount,
+                         Set<String> serviceNames, BloomFilter traceIdFilter, List<Block> blocks) {
+        this.minTimestampMicros = minTimestampMicros;
+        this.maxTimestampMicros = maxTimestampMicros;
+        this.spanCount = spanCount;
+        this.serviceNames = Collections.unmodifiableSet(new TreeSet<>(serviceNames));
+        this.traceIdFilter = traceIdFilter;
+        this.blocks = List.copyOf(blocks);
+    }
+
+    public long getMinTimestampMicros() { return minTimestampMicros; }
+
+    public long getMaxTimestampMicros() { return maxTimestampMicros; }
+
+    public int getSpanCount() { return spanCount; }
+
+    public Set<String> getServiceNames() { return serviceNames; }
+
+    public List<Block> getBlocks() { return blocks; }
+
+    public boolean mightContainTrace(String traceId) {
+        return traceIdFilter.mightContain(traceId);
+    }
+
+    public int serializedSize() {
+        int size = Long.BYTES * 2 + Integer.BYTES * 2;
+        for (String service : serviceNames) {
+            size += Integer.BYTES + service.getBytes(StandardCharsets.UTF_8).length;
+        }
+        size += traceIdFilter.serializedSize() + Integer.BYTES;
+        for (Block block : blocks) {
+            size += block.serializedSize();
+        }
+        return size;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(minTimestampMicros);
+        buffer.putLong(maxTimestampMicros);
+        buffer.putInt(spanCount);
+        buffer.putInt(serviceNames.size());
+        for (String service : serviceNames) {
+            byte[] bytes = service.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+        traceIdFilter.writeTo(buffer);
+        buffer.putInt(blocks.size());
+        for (Block block : blocks) {
+            block.writeTo(buffer);
+        }
+    }
+
+    /**
+     * Reads a footer written by {@link #writeTo}.
+     */
+    public static SegmentFooter readFrom(ByteBuffer buffer) {
+        long min = buffer.getLong();
+        long max = buffer.getLong();
+        int spanCount = buffer.getInt();
+        int serviceCount = buffer.getInt();
+        Set<String> services = new TreeSet<>();
+        for (int i = 0; i < serviceCount; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            services.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        BloomFilter filter = BloomFilter.readFrom(buffer);
+
+        int blockCount = buffer.getInt();
+        List<Block> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            blocks.add(Block.readFrom(buffer));
+        }
+        return new SegmentFooter(min, max, spanCount, services, filter, blocks);
+    }
+
+    /**
+     * A run of whole span records, stored raw or deflated. The traceId bounds are the
+     * lexicographically smallest and largest traceIds in the block, or null when unknown.
+     */
+    public static final class Block {
+
+        private static final int FIXED_SIZE = Long.BYTES * 3 + Integer.BYTES * 2;
+
+        private final long offset;
+        private final int storedLength;
+        private final int rawLength;
+        private final long minTimestampMicros;
+        private final long maxTimestampMicros;
+        private final String minTraceId;
+        private final String maxTraceId;
+
+        public Block(long offset, int storedLength, int rawLength, long minTimestampMicros, long maxTimestampMicros,
+                     String minTraceId, String maxTraceId) {
+            this.offset = offset;
+            this.storedLength = storedLength;
+            this.rawLength = rawLength;
+            this.minTimestampMicros = minTimestampMicros;
+            this.maxTimestampMicros = maxTimestampMicros;
+            this.minTraceId = minTraceId;
+            this.maxTraceId = maxTraceId;
+        }
+
+        public long getOffset() { return offset; }
+
+        public int getStoredLength() { return storedLength; }
+
+        public int getRawLength() { return rawLength; }
+
+
+        public boolean mightContainTrace(String traceId) {
+            return minTraceId == null || (minTraceId.compareTo(traceId) <= 0 && maxTraceId.compareTo(traceId) >= 0);
+        }
+
+        /** True when every traceId in the block sorts after the given one. */
+        public boolean startsAfter(String traceId) {
+            return minTraceId != null && minTraceId.compareTo(traceId) > 0;
+        }
+
+        int serializedSize() {
+            return FIXED_SIZE + stringSize(minTraceId) + stringSize(maxTraceId);
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.putLong(offset);
+            buffer.putInt(storedLength);
+            buffer.putInt(rawLength);
+            buffer.putLong(minTimestampMicros);
+            buffer.putLong(maxTimestampMicros);
+            putString(buffer, minTraceId);
+            putString(buffer, maxTraceId);
+        }
+
+        static Block readFrom(ByteBuffer buffer) {
+            long offset = buffer.getLong();
+            int storedLength = buffer.getInt();
+            int rawLength = buffer.getInt();
+            long min = buffer.getLong();
+            long max = buffer.getLong();
+            return new Block(offset, storedLength, rawLength, min, max, getString(buffer), getString(buffer));
+        }
+
+        private static int stringSize(String value) {
+            return Integer.BYTES + (value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0);
+        }
+
+        private static void putString(ByteBuffer buffer, String value) {
+            if (value == null) {
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private static String getString(ByteBuffer buffer) {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Append-only on-disk span store made of immutable {@link Segment} files. This is
+ * the cold tier: segments are block-compressed unless {@code telemetry.segments.compress}
+ * is turned off.
+ * <p>
+ * Spans are only ever added as whole new segments; trace lookups consult each segment's
+ * footer first and skip segments whose Bloom filter rules the trace out. Time-window
+ * queries never scan segments: the counts and latencies of archived spans are kept in
+ * {@code packed_span_stats} and the rollups. The footer's time bounds serve retention.
+ * <p>
+ * With {@code telemetry.segments.layout=trace} new segments are clustered by traceId:
+ * spans are sorted by trace, and neither segments nor blocks are cut in the middle of
+ * a trace, so fetching an archived trace reads one contiguous block.
+ */
+@Component
+public class SegmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentStore.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    @Value("${telemetry.segments.enabled:false}")
+    private boolean enabled;
+
+    @Value("${telemetry.segments.directory:data/segments}")
+    private String directory;
+
+    @Value("${telemetry.segments.max-spans-per-segment:100000}")
+    private int maxSpansPerSegment;
+
+    @Value("${telemetry.segments.compress:true}")
+    private boolean compress;
+
+    @Value("${telemetry.segments.layout:time}")
+    private String layout = "time";
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private Path segmentDirectory;
+    private long nextSequence;
+    private boolean clusterByTrace;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if ("trace".equals(layout)) {
+            clusterByTrace = true;
+        } else if (!"time".equals(layout)) {
+            throw new IllegalArgumentException("Unsupported segment layout: " + layout);
+        }
+        try {
+            segmentDirectory = Paths.get(directory);
+            Files.createDirectories(segmentDirectory);
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(segmentDirectory, "*" + SEGMENT_SUFFIX)) {
+                stream.forEach(files::add);
+            }
+            files.sort(Comparator.comparing(Path::getFileName));
+            for (Path file : files) {
+                segments.add(Segment.open(file));
+                nextSequence = Math.max(nextSequence, sequenceOf(file) + 1);
+            }
+            log.info("Span segment store opened: {} segments in {}", segments.size(), segmentDirectory.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open span segment store at " + directory, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes the spans as one or more new segments, each holding at most
+     * {@code telemetry.segments.max-spans-per-segment} spans. In the trace layout a
+     * segment is extended past that limit rather than splitting a trace.
+     */
+    public synchronized int append(List<TraceEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return 0;
+        }
+        if (clusterByTrace) {
+            events = new ArrayList<>(events);
+            events.sort(Comparator.comparing(TraceEvent::getTraceId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        }
+        try {
+            int start = 0;
+            while (start < events.size()) {
+                int end = Math.min(events.size(), start + maxSpansPerSegment);
+                while (clusterByTrace && end < events.size()
+                        && Objects.equals(events.get(end - 1).getTraceId(), events.get(end).getTraceId())) {
+                    end++;
+                }
+                Path path = segmentDirectory.resolve(String.format("segment-%020d%s", nextSequence++, SEGMENT_SUFFIX));
+                segments.add(Segment.write(path, events.subList(start, end), compress, clusterByTrace));
+                start = end;
+            }
+            return events.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write span segment", e);
+        }
+    }
+
+    public List<TraceEvent> findByTraceId(String traceId) {
+        List<TraceEvent> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            result.addAll(segment.findByTraceId(traceId));
+        }
+        result.sort(Comparator.comparingLong(TraceEvent::getTimestampMicros));
+        return result;
+    }
+
+    /**
+     * Streams every archived span, segment by segment, without materialising them all.
+     */
+    public void forEach(Consumer<TraceEvent> consumer) {
+        for (Segment segment : segments) {
+            segment.forEach(consumer);
+        }
+    }
+
+    /**
+     * Streams the spans of segments written after the named one; every segment when the
+     * name is null. Segment names sort in write order.
+     */
+    public void forEachAfter(String segmentName, Consumer<TraceEvent> consumer) {
+        for (Segment segment : segments) {
+            if (segmentName == null || segment.getPath().getFileName().toString().compareTo(segmentName) > 0) {
+                segment.forEach(consumer);
+            }
+        }
+    }
+
+    /** File name of the newest segment, or null when there is none. */
+    public String getLastSegmentName() {
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1).getPath().getFileName().toString();
+    }
+
+    /**
+     * Deletes every segment whose newest span is older than the cutoff. Segments are
+     * immutable, so retention works at whole-segment granularity.
+     */
+    public synchronized int dropSegmentsBefore(long cutoffMicros) {
+        int dropped = 0;
+        for (Segment segment : segments) {
+            if (segment.getFooter().getMaxTimestampMicros() < cutoffMicros) {
+                segments.remove(segment);
+                try {
+                    Files.deleteIfExists(segment.getPath());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to delete span segment " + segment.getPath(), e);
+                }
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getSpanCount() {
+        return segments.stream().mapToLong(s -> s.getFooter().getSpanCount()).sum();
+    }
+
+    public long getSizeBytes() {
+        return segments.stream().mapToLong(Segment::sizeBytes).sum();
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        String digits = name.replaceAll("\\D", "");
+        return digits.isEmpty() ? 0 : Long.parseLong(digits);
+    }
+}
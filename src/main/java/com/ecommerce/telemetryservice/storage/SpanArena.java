@@ -0,0 +1,336 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Off-heap ring buffer of recent spans with an open-addressing traceId index, so a
+ * large recent-span window costs no per-span heap objects.
+ * <p>
+ * Data region: records appended at a monotonically increasing logical position
+ * (physical offset = logical mod capacity), each laid out as
+ * {@code [long prevInTrace][byte flags][int urlTemplateId][SpanCodec record]}.
+ * The spans of a trace form a backwards chain through {@code prevInTrace}. When the
+ * ring is full the oldest records are overwritten; a chain that reaches an overwritten
+ * position belongs to a trace that is no longer complete.
+ * <p>
+ * Index region: {@code [long traceIdHash][long newestRecord + 1]} slots with linear
+ * probing. A slot is empty when its position is 0 and deleted when it is -1; collisions
+ * are resolved by comparing the traceId stored in the record itself.
+ * <p>
+ * Both regions are direct buffers sized once from the memory budget. All access is
+ * serialised on the arena.
+ */
+public class SpanArena {
+
+    /** Notified for every span overwritten or evicted from the ring. */
+    public interface EvictionListener {
+        void evicted(String traceId, long timestampMicros);
+    }
+
+    public interface SpanVisitor {
+        /**
+         * @param completeIfNew the flag the span was appended with, if it started its trace;
+         *                      false for every later span
+         */
+        void visit(TraceEvent event, boolean completeIfNew);
+    }
+
+    private static final int SLOT_SIZE = Long.BYTES * 2;
+    private static final int HEADER_SIZE = Long.BYTES + 1 + Integer.BYTES;
+    private static final long NO_PREVIOUS = -1L;
+    private static final long PADDING = Long.MIN_VALUE;
+    private static final long DELETED = -1L;
+    private static final byte FLAG_COMPLETE = 1;
+    private static final int NO_TEMPLATE = Integer.MIN_VALUE;
+    private static final double MAX_LOAD = 0.75;
+
+    private final ByteBuffer data;
+    private final ByteBuffer index;
+    private final int capacity;
+    private final int slotMask;
+    private final EvictionListener listener;
+
+    private long head;
+    private long tail;
+    private int usedSlots;
+    private int traceCount;
+    private long spanCount;
+
+    /**
+     * @param budgetBytes total direct memory for data and index; one eighth goes to the index
+     */
+    public SpanArena(long budgetBytes, EvictionListener listener) {
+        if (budgetBytes < 64 * 1024 || budgetBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Span arena budget must be between 64KB and 2GB: " + budgetBytes);
+        }
+        int slots = Integer.highestOneBit((int) (budgetBytes / 8 / SLOT_SIZE));
+        this.index = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        this.capacity = (int) (budgetBytes - (long) slots * SLOT_SIZE);
+        this.data = ByteBuffer.allocateDirect(capacity);
+        this.slotMask = slots - 1;
+        this.listener = listener;
+    }
+
+    /**
+     * Appends the span, evicting the oldest spans if the ring is full.
+     *
+     * @param completeIfNew whether a trace first seen with this span may be served as complete
+     */
+    public synchronized void append(TraceEvent event, boolean completeIfNew) {
+        String traceId = event.getTraceId();
+        byte[] record = SpanCodec.encode(event);
+        int length = HEADER_SIZE + record.length;
+        if (length > capacity / 4) {
+            // Too large to keep; make sure the trace is never served without it
+            dropTrace(traceId);
+            listener.evicted(traceId, event.getTimestampMicros());
+            return;
+        }
+
+        int physical = physical(head);
+        long position = capacity - physical >= length ? head : head + (capacity - physical);
+        reserve(position + length);
+        if (position != head && capacity - physical >= Long.BYTES) {
+            data.putLong(physical, PADDING);
+        }
+
+        long hash = BloomFilter.hash64(traceId);
+        int slot = findSlot(hash, traceId);
+        long previous = slot >= 0 ? index.getLong(slot * SLOT_SIZE + Long.BYTES) - 1 : NO_PREVIOUS;
+        if (slot < 0) {
+            if (usedSlots + 1 > (slotMask + 1) * MAX_LOAD) {
+                rebuildIndex();
+            }
+            slot = insertSlot(hash);
+            traceCount++;
+        }
+
+        int offset = physical(position);
+        data.putLong(offset, previous);
+        data.put(offset + Long.BYTES, previous == NO_PREVIOUS && completeIfNew ? FLAG_COMPLETE : 0);
+        data.putInt(offset + Long.BYTES + 1, event.getUrlTemplateId() != null ? event.getUrlTemplateId() : NO_TEMPLATE);
+        data.put(offset + HEADER_SIZE, record);
+        index.putLong(slot * SLOT_SIZE, hash);
+        index.putLong(slot * SLOT_SIZE + Long.BYTES, position + 1);
+        head = position + length;
+        spanCount++;
+    }
+
+    /**
+     * Returns the spans of the trace, newest first, or empty when the trace is unknown,
+     * was not complete when first seen, or lost its oldest spans to eviction.
+     */
+    public synchronized Optional<List<TraceEvent>> findCompleteTrace(String traceId) {
+        int slot = findSlot(BloomFilter.hash64(traceId), traceId);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        List<TraceEvent> spans = new ArrayList<>();
+        long position = index.getLong(slot * SLOT_SIZE + Long.BYTES) - 1;
+        while (true) {
+            int offset = physical(position);
+            spans.add(decode(offset));
+            long previous = data.getLong(offset);
+            if (previous == NO_PREVIOUS) {
+                return (data.get(offset + Long.BYTES) & FLAG_COMPLETE) != 0 ? Optional.of(spans) : Optional.empty();
+            }
+            if (previous < tail) {
+                return Optional.empty();
+            }
+            position = previous;
+        }
+    }
+
+    /** Counts spans with a timestamp after {@code sinceMicros}, reading timestamps in place. */
+    public synchronized long countSince(long sinceMicros) {
+        long count = 0;
+        long position = tail;
+        while (position < head) {
+            int offset = physical(position);
+            if (isPadding(offset)) {
+                position += capacity - offset;
+                continue;
+            }
+            if (SpanCodec.timestampMicros(data, offset + HEADER_SIZE) > sinceMicros) {
+                count++;
+            }
+            position += recordLength(offset);
+        }
+        return count;
+    }
+
+    /**
+     * Evicts spans from the oldest end of the ring until one at or after the cutoff is
+     * reached. Spans are ordered by ingest, so an older straggler behind that span stays.
+     *
+     * @return number of spans evicted
+     */
+    public synchronized long evictBefore(long cutoffMicros) {
+        long evicted = 0;
+        while (tail < head) {
+            int offset = physical(tail);
+            if (!isPadding(offset) && SpanCodec.timestampMicros(data, offset + HEADER_SIZE) >= cutoffMicros) {
+                break;
+            }
+            if (evictOldest()) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /** Visits every live span, oldest first. */
+    public synchronized void forEach(SpanVisitor visitor) {
+        long position = tail;
+        while (position < head) {
+            int offset = physical(position);
+            if (isPadding(offset)) {
+                position += capacity - offset;
+                continue;
+            }
+            visitor.visit(decode(offset), data.getLong(offset) == NO_PREVIOUS && (data.get(offset + Long.BYTES) & FLAG_COMPLETE) != 0);
+            position += recordLength(offset);
+        }
+    }
+
+    public synchronized long getSpanCount() {
+        return spanCount;
+    }
+
+    public synchronized int getTraceCount() {
+        return traceCount;
+    }
+
+    public synchronized long getUsedBytes() {
+        return head - tail;
+    }
+
+    public long getCapacityBytes() {
+        return capacity + (long) index.capacity();
+    }
+
+    private void reserve(long end) {
+        while (end - tail > capacity) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Advances the tail past one record or padding run.
+     *
+     * @return true if a span was evicted
+     */
+    private boolean evictOldest() {
+        int offset = physical(tail);
+        if (isPadding(offset)) {
+            tail += capacity - offset;
+            return false;
+        }
+        int length = recordLength(offset);
+        String traceId = SpanCodec.traceId(data, offset + HEADER_SIZE);
+        long ts = SpanCodec.timestampMicros(data, offset + HEADER_SIZE);
+        int slot = findSlot(BloomFilter.hash64(traceId), traceId);
+        if (slot >= 0 && index.getLong(slot * SLOT_SIZE + Long.BYTES) - 1 == tail) {
+            // Newest span of its trace, so the whole trace is gone
+            index.putLong(slot * SLOT_SIZE + Long.BYTES, DELETED);
+            traceCount--;
+        }
+        tail += length;
+        spanCount--;
+        listener.evicted(traceId, ts);
+        return true;
+    }
+
+    private void dropTrace(String traceId) {
+        int slot = findSlot(BloomFilter.hash64(traceId), traceId);
+        if (slot >= 0) {
+            index.putLong(slot * SLOT_SIZE + Long.BYTES, DELETED);
+            traceCount--;
+        }
+    }
+
+    /** Returns the live slot holding the trace, or -1. */
+    private int findSlot(long hash, String traceId) {
+        byte[] wanted = null;
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long position = index.getLong(slot * SLOT_SIZE + Long.BYTES);
+            if (position == 0) {
+                return -1;
+            }
+            if (position == DELETED || index.getLong(slot * SLOT_SIZE) != hash) {
+                continue;
+            }
+            if (wanted == null) {
+                wanted = traceId.getBytes(StandardCharsets.UTF_8);
+            }
+            if (SpanCodec.traceIdEquals(data, physical(position - 1) + HEADER_SIZE, wanted)) {
+                return slot;
+            }
+        }
+    }
+
+    private int insertSlot(long hash) {
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long position = index.getLong(slot * SLOT_SIZE + Long.BYTES);
+            if (position == 0) {
+                usedSlots++;
+                return slot;
+            }
+            if (position == DELETED) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Clears deleted slots by re-inserting the newest record of every live trace. If live
+     * traces alone would keep the table above half its load limit, the oldest spans are
+     * evicted first so rebuilds stay rare.
+     */
+    private void rebuildIndex() {
+        while (traceCount + 1 > (slotMask + 1) * MAX_LOAD / 2 && tail < head) {
+            evictOldest();
+        }
+        List<long[]> live = new ArrayList<>(traceCount);
+        for (int slot = 0; slot <= slotMask; slot++) {
+            long position = index.getLong(slot * SLOT_SIZE + Long.BYTES);
+            if (position != 0 && position != DELETED) {
+                live.add(new long[] {index.getLong(slot * SLOT_SIZE), position});
+            }
+        }
+        for (int i = 0; i < index.capacity(); i += Long.BYTES) {
+            index.putLong(i, 0L);
+        }
+        usedSlots = 0;
+        for (long[] entry : live) {
+            int slot = insertSlot(entry[0]);
+            index.putLong(slot * SLOT_SIZE, entry[0]);
+            index.putLong(slot * SLOT_SIZE + Long.BYTES, entry[1]);
+        }
+    }
+
+    private TraceEvent decode(int offset) {
+        TraceEvent event = SpanCodec.decode(data, offset + HEADER_SIZE);
+        int urlTemplateId = data.getInt(offset + Long.BYTES + 1);
+        event.setUrlTemplateId(urlTemplateId != NO_TEMPLATE ? urlTemplateId : null);
+        return event;
+    }
+
+    private boolean isPadding(int offset) {
+        return capacity - offset < HEADER_SIZE || data.getLong(offset) == PADDING;
+    }
+
+    private int recordLength(int offset) {
+        return HEADER_SIZE + SpanCodec.recordLength(data, offset + HEADER_SIZE);
+    }
+
+    private int physical(long position) {
+        return (int) (position % capacity);
+    }
+}
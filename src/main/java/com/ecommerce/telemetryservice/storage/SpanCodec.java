@@ -0,0 +1,157 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of a single span inside a segment.
+ * <p>
+ * Layout: {@code [int bodyLength][traceId][long timestampMicros][remaining fields]}.
+ * The traceId and timestamp lead the record so scans can filter on them straight
+ * out of the mapped buffer without decoding the rest of the span. Durations are stored
+ * in microseconds; records written before segment version 3 hold milliseconds.
+ */
+public final class SpanCodec {
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private SpanCodec() {
+    }
+
+    public static byte[] encode(TraceEvent event) {
+        byte[][] strings = {
+            utf8(event.getTraceId()),
+            utf8(event.getSpanId()),
+            utf8(event.getParentSpanId()),
+            utf8(event.getServiceName()),
+            utf8(event.getOperation()),
+            utf8(event.getMetadata()),
+            utf8(event.getHttpMethod()),
+            utf8(event.getHttpUrl()),
+            utf8(event.getErrorMessage()),
+            utf8(event.getUserId()),
+            utf8(event.getCorrelationId())
+        };
+        int bodyLength = Long.BYTES * 3 + Integer.BYTES + 2;
+        for (byte[] s : strings) {
+            bodyLength += Integer.BYTES + (s != null ? s.length : 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bodyLength);
+        buffer.putInt(bodyLength);
+        putString(buffer, strings[0]);
+        buffer.putLong(event.getTimestampMicros());
+        buffer.putLong(event.getId() != null ? event.getId() : NULL_LONG);
+        putString(buffer, strings[1]);
+        putString(buffer, strings[2]);
+        putString(buffer, strings[3]);
+        putString(buffer, strings[4]);
+        buffer.put(event.getEventType() != null ? (byte) event.getEventType().ordinal() : -1);
+        buffer.putLong(event.hasDuration() ? event.getDurationMicros() : NULL_LONG);
+        buffer.put(event.getStatus() != null ? (byte) event.getStatus().ordinal() : -1);
+        putString(buffer, strings[5]);
+        putString(buffer, strings[6]);
+        putString(buffer, strings[7]);
+        buffer.putInt(event.getHttpStatusCode() != null ? event.getHttpStatusCode() : NULL_INT);
+        putString(buffer, strings[8]);
+        putString(buffer, strings[9]);
+        putString(buffer, strings[10]);
+        return buffer.array();
+    }
+
+    /**
+     * Decodes the record starting at {@code offset}. The buffer position is left untouched.
+     */
+    public static TraceEvent decode(ByteBuffer buffer, int offset) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset + Integer.BYTES);
+
+        TraceEvent event = new TraceEvent();
+        event.setTraceId(getString(in));
+        event.setTimestampMicros(in.getLong());
+        long id = in.getLong();
+        event.setId(id != NULL_LONG ? id : null);
+        event.setSpanId(getString(in));
+        event.setParentSpanId(getString(in));
+        event.setServiceName(getString(in));
+        event.setOperation(getString(in));
+        byte eventType = in.get();
+        event.setEventType(eventType >= 0 ? TraceEvent.EventType.values()[eventType] : null);
+        long duration = in.getLong();
+        event.setDurationMicros(duration != NULL_LONG ? duration : TraceEvent.NO_DURATION);
+        byte status = in.get();
+        event.setStatus(status >= 0 ? TraceEvent.Status.values()[status] : null);
+        event.setMetadata(getString(in));
+        event.setHttpMethod(getString(in));
+        event.setHttpUrl(getString(in));
+        int httpStatusCode = in.getInt();
+        event.setHttpStatusCode(httpStatusCode != NULL_INT ? httpStatusCode : null);
+        event.setErrorMessage(getString(in));
+        event.setUserId(getString(in));
+        event.setCorrelationId(getString(in));
+        return event;
+    }
+
+    /** Total record size, including the length prefix, of the record at {@code offset}. */
+    public static int recordLength(ByteBuffer buffer, int offset) {
+        return Integer.BYTES + buffer.getInt(offset);
+    }
+
+    /** Compares the record's traceId in place against the UTF-8 bytes of the wanted id. */
+    public static boolean traceIdEquals(ByteBuffer buffer, int offset, byte[] traceId) {
+        int length = buffer.getInt(offset + Integer.BYTES);
+        if (length != traceId.length) {
+            return false;
+        }
+        int start = offset + Integer.BYTES * 2;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != traceId[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Reads the record's traceId without decoding the rest of the span. */
+    public static String traceId(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset + Integer.BYTES);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + Integer.BYTES * 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+        /** Reads the record's timestamp in place. */
+    public static long timestampMicros(ByteBuffer buffer, int offset) {
+        int traceIdLength = Math.max(0, buffer.getInt(offset + Integer.BYTES));
+        return buffer.getLong(offset + Integer.BYTES * 2 + traceIdLength);
+    }
+
+    static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.telemetryservice.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts which storage tier answered each read. Exposed through actuator as
+ * {@code telemetry.tier.reads{tier,result}} plus a {@code telemetry.tier.hot.hit.ratio} gauge
+ * and, for the off-heap hot tier, {@code telemetry.tier.hot.offheap.bytes}.
+ */
+@Component
+public class TierMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HotTier hotTier;
+
+    private Counter hotHits;
+    private Counter hotMisses;
+    private Counter coldHits;
+
+    @PostConstruct
+    public void init() {
+        hotHits = meterRegistry.counter("telemetry.tier.reads", "tier", "hot", "result", "hit");
+        hotMisses = meterRegistry.counter("telemetry.tier.reads", "tier", "hot", "result", "miss");
+        coldHits = meterRegistry.counter("telemetry.tier.reads", "tier", "cold", "result", "hit");
+        Gauge.builder("telemetry.tier.hot.hit.ratio", this, TierMetrics::getHotHitRatio)
+            .description("Share of trace and count reads answered by the in-memory hot tier")
+            .register(meterRegistry);
+        Gauge.builder("telemetry.tier.hot.offheap.bytes", hotTier, HotTier::getOffHeapUsedBytes)
+            .description("Direct memory used by spans in the off-heap hot tier")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    public void recordHotHit() {
+        hotHits.increment();
+    }
+
+    public void recordHotMiss() {
+        hotMisses.increment();
+    }
+
+    public void recordColdHit() {
+        coldHits.increment();
+    }
+
+    public double getHotHitRatio() {
+        double hits = hotHits.count();
+        double total = hits + hotMisses.count();
+        return total > 0 ? hits / total : 0.0;
+    }
+}
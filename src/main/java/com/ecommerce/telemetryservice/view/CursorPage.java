@@ -0,0 +1,41 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One keyset-paged page of a listing.
+ *
+ * @param nextCursor opaque token to pass for the next page; null on the last page
+ * @param size       the requested page size
+ */
+@JsonSerialize(using = CursorPage.Serializer.class)
+public record CursorPage<T>(List<T> content, String nextCursor, int size) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static final class Serializer extends StdSerializer<CursorPage> {
+
+        public Serializer() {
+            super(CursorPage.class);
+        }
+
+        @Override
+        public void serialize(CursorPage page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(page, 4);
+            provider.defaultSerializeField("content", page.content(), gen);
+            gen.writeStringField("nextCursor", page.nextCursor());
+            gen.writeBooleanField("hasNext", page.hasNext());
+            gen.writeNumberField("size", page.size());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Request count, latency and errors of one endpoint: an HTTP method plus a route template.
+ *
+ * @param durationCount     requests that reported a duration
+ * @param maxDurationMicros -1 when no request reported a duration
+ */
+@JsonSerialize(using = EndpointStats.Serializer.class)
+public record EndpointStats(String httpMethod, String route, long requestCount, long errorCount, long durationCount,
+                            long durationSumMicros, long maxDurationMicros) {
+
+    public long averageDurationMs() {
+        return durationCount > 0 ? Math.round(durationSumMicros / (double) durationCount / 1000.0) : 0L;
+    }
+
+    public Long maxDurationMs() {
+        return maxDurationMicros >= 0 ? EpochMicros.toMillis(maxDurationMicros) : null;
+    }
+
+    /** Percent of requests, rounded to two decimals. */
+    public double errorRate() {
+        return requestCount > 0 ? Math.round((double) errorCount / requestCount * 10000.0) / 100.0 : 0.0;
+    }
+
+    public static final class Serializer extends StdSerializer<EndpointStats> {
+
+        public Serializer() {
+            super(EndpointStats.class);
+        }
+
+        @Override
+        public void serialize(EndpointStats endpoint, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(endpoint, 7);
+            gen.writeStringField("httpMethod", endpoint.httpMethod());
+            gen.writeStringField("route", endpoint.route());
+            gen.writeNumberField("requestCount", endpoint.requestCount());
+            gen.writeNumberField("averageDurationMs", endpoint.averageDurationMs());
+            if (endpoint.maxDurationMs() != null) {
+                gen.writeNumberField("maxDurationMs", endpoint.maxDurationMs());
+            } else {
+                gen.writeNullField("maxDurationMs");
+            }
+            gen.writeNumberField("errorCount", endpoint.errorCount());
+            gen.writeNumberField("errorRate", endpoint.errorRate());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Span counts and tracked services as reported by the health endpoint.
+ *
+ * @param recentEvents spans of the last hour
+ */
+@JsonSerialize(using = HealthStatus.Serializer.class)
+public record HealthStatus(String status, long totalEvents, long recentEvents, List<String> services, LocalDateTime timestamp) {
+
+    public static HealthStatus healthy(long totalEvents, long recentEvents, List<String> services) {
+        return new HealthStatus("healthy", totalEvents, recentEvents, services, LocalDateTime.now());
+    }
+
+    public int trackedServices() {
+        return services.size();
+    }
+
+    public static final class Serializer extends StdSerializer<HealthStatus> {
+
+        public Serializer() {
+            super(HealthStatus.class);
+        }
+
+        @Override
+        public void serialize(HealthStatus health, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(health, 6);
+            gen.writeStringField("status", health.status());
+            gen.writeNumberField("totalEvents", health.totalEvents());
+            gen.writeNumberField("recentEvents", health.recentEvents());
+            gen.writeNumberField("trackedServices", health.trackedServices());
+            ViewFields.writeStrings(gen, "services", health.services());
+            provider.defaultSerializeField("timestamp", health.timestamp(), gen);
+            gen.writeEndObject();
+        }
+    }
+}
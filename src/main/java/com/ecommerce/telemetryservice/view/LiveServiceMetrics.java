@@ -0,0 +1,77 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request rate, error rate and latency of a service over the last few minutes, shortest
+ * window first, each in total and per operation.
+ *
+ * @param enabled false when live metrics are switched off and every window is empty
+ */
+@JsonSerialize(using = LiveServiceMetrics.Serializer.class)
+public record LiveServiceMetrics(String serviceName, boolean enabled, LocalDateTime asOf, List<Window> windows) {
+
+    public record Window(int minutes, Stats total, Map<String, Stats> operations) {
+    }
+
+    /**
+     * @param errorRate     percent of requests, rounded to two decimals
+     * @param maxDurationMs null when no request reported a duration
+     */
+    public record Stats(long requestCount, double requestsPerSecond, long errorCount, double errorRate,
+                        long averageDurationMs, Long maxDurationMs) {
+    }
+
+    public static final class Serializer extends StdSerializer<LiveServiceMetrics> {
+
+        public Serializer() {
+            super(LiveServiceMetrics.class);
+        }
+
+        @Override
+        public void serialize(LiveServiceMetrics live, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(live, 4);
+            gen.writeStringField("serviceName", live.serviceName());
+            gen.writeBooleanField("enabled", live.enabled());
+            provider.defaultSerializeField("asOf", live.asOf(), gen);
+            gen.writeObjectFieldStart("windows");
+            for (Window window : live.windows()) {
+                gen.writeFieldName(window.minutes() + "m");
+                gen.writeStartObject(window, 7);
+                writeStats(gen, window.total());
+                gen.writeObjectFieldStart("operations");
+                for (Map.Entry<String, Stats> operation : window.operations().entrySet()) {
+                    gen.writeFieldName(operation.getKey());
+                    gen.writeStartObject(operation.getValue(), 6);
+                    writeStats(gen, operation.getValue());
+                    gen.writeEndObject();
+                }
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+
+        private static void writeStats(JsonGenerator gen, Stats stats) throws IOException {
+            gen.writeNumberField("requestCount", stats.requestCount());
+            gen.writeNumberField("requestsPerSecond", stats.requestsPerSecond());
+            gen.writeNumberField("errorCount", stats.errorCount());
+            gen.writeNumberField("errorRate", stats.errorRate());
+            gen.writeNumberField("averageDurationMs", stats.averageDurationMs());
+            if (stats.maxDurationMs() != null) {
+                gen.writeNumberField("maxDurationMs", stats.maxDurationMs());
+            } else {
+                gen.writeNullField("maxDurationMs");
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Latency percentiles of one operation over a window, merged from rollup histograms.
+ *
+ * @param durationCount requests of the window that reported a duration
+ * @param approximate   part of the window was read at a coarser resolution than its edges
+ * @param percentiles   null when no request reported a duration
+ * @param maxDurationMs null when no request reported a duration
+ */
+@JsonSerialize(using = OperationLatency.Serializer.class)
+public record OperationLatency(String serviceName, String operation, long fromMicros, long toMicros, boolean approximate,
+                               long durationCount, ServiceMetrics.LatencyPercentiles percentiles, Long maxDurationMs) {
+
+    public static final class Serializer extends StdSerializer<OperationLatency> {
+
+        public Serializer() {
+            super(OperationLatency.class);
+        }
+
+        @Override
+        public void serialize(OperationLatency latency, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(latency, 11);
+            gen.writeStringField("serviceName", latency.serviceName());
+            gen.writeStringField("operation", latency.operation());
+            ViewFields.writeTime(gen, provider, "from", latency.fromMicros());
+            ViewFields.writeTime(gen, provider, "to", latency.toMicros());
+            gen.writeBooleanField("approximate", latency.approximate());
+            gen.writeNumberField("count", latency.durationCount());
+            ServiceMetrics.LatencyPercentiles percentiles = latency.percentiles();
+            if (percentiles != null) {
+                gen.writeNumberField("p50DurationMs", percentiles.p50());
+                gen.writeNumberField("p90DurationMs", percentiles.p90());
+                gen.writeNumberField("p99DurationMs", percentiles.p99());
+                gen.writeNumberField("p999DurationMs", percentiles.p999());
+                gen.writeNumberField("maxDurationMs", latency.maxDurationMs());
+            }
+            gen.writeEndObject();
+        }
+    }
+}
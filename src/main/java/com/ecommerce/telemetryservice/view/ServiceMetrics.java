@@ -0,0 +1,110 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Request count, latency and errors of a service, optionally over a window. A service
+ * without spans is written as just {@code serviceName} and a zero {@code requestCount};
+ * the window bounds and percentiles are written only when present.
+ *
+ * @param durationCount spans that reported a duration; min and max are meaningless without
+ * @param percentiles   null when no rollup histogram covered the window
+ */
+@JsonSerialize(using = ServiceMetrics.Serializer.class)
+public record ServiceMetrics(String serviceName, long requestCount, long errorCount, long durationCount,
+                             long durationSumMicros, long minDurationMicros, long maxDurationMicros,
+                             Map<String, Long> operationCounts, LocalDateTime from, LocalDateTime to,
+                             LatencyPercentiles percentiles) {
+
+    /** Latency percentiles in milliseconds. */
+    public record LatencyPercentiles(long p50, long p90, long p99, long p999) {
+    }
+
+    public static ServiceMetrics empty(String serviceName) {
+        return new ServiceMetrics(serviceName, 0, 0, 0, 0, 0, 0, Map.of(), null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return requestCount == 0;
+    }
+
+    public long averageDurationMs() {
+        return durationCount > 0 ? Math.round(durationSumMicros / (double) durationCount / 1000.0) : 0L;
+    }
+
+    public Long minDurationMs() {
+        return durationCount > 0 ? EpochMicros.toMillis(minDurationMicros) : null;
+    }
+
+    public Long maxDurationMs() {
+        return durationCount > 0 ? EpochMicros.toMillis(maxDurationMicros) : null;
+    }
+
+    /** Percent of requests, rounded to two decimals. */
+    public double errorRate() {
+        return requestCount > 0 ? Math.round((double) errorCount / requestCount * 100 * 100.0) / 100.0 : 0.0;
+    }
+
+    public ServiceMetrics withPercentiles(LatencyPercentiles latency) {
+        return new ServiceMetrics(serviceName, requestCount, errorCount, durationCount, durationSumMicros,
+            minDurationMicros, maxDurationMicros, operationCounts, from, to, latency);
+    }
+
+    public static final class Serializer extends StdSerializer<ServiceMetrics> {
+
+        public Serializer() {
+            super(ServiceMetrics.class);
+        }
+
+        @Override
+        public void serialize(ServiceMetrics metrics, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (metrics.isEmpty()) {
+                gen.writeStartObject(metrics, 2);
+                gen.writeStringField("serviceName", metrics.serviceName());
+                gen.writeNumberField("requestCount", 0);
+                gen.writeEndObject();
+                return;
+            }
+            gen.writeStartObject(metrics, 14);
+            gen.writeStringField("serviceName", metrics.serviceName());
+            gen.writeNumberField("requestCount", metrics.requestCount());
+            gen.writeNumberField("averageDurationMs", metrics.averageDurationMs());
+            if (metrics.durationCount() > 0) {
+                gen.writeNumberField("minDurationMs", EpochMicros.toMillis(metrics.minDurationMicros()));
+                gen.writeNumberField("maxDurationMs", EpochMicros.toMillis(metrics.maxDurationMicros()));
+            } else {
+                gen.writeNullField("minDurationMs");
+                gen.writeNullField("maxDurationMs");
+            }
+            gen.writeNumberField("errorCount", metrics.errorCount());
+            gen.writeNumberField("errorRate", metrics.errorRate());
+            gen.writeObjectFieldStart("operationCounts");
+            for (Map.Entry<String, Long> operation : metrics.operationCounts().entrySet()) {
+                gen.writeNumberField(operation.getKey(), operation.getValue());
+            }
+            gen.writeEndObject();
+            if (metrics.from() != null) {
+                provider.defaultSerializeField("from", metrics.from(), gen);
+            }
+            if (metrics.to() != null) {
+                provider.defaultSerializeField("to", metrics.to(), gen);
+            }
+            LatencyPercentiles latency = metrics.percentiles();
+            if (latency != null) {
+                gen.writeNumberField("p50DurationMs", latency.p50());
+                gen.writeNumberField("p90DurationMs", latency.p90());
+                gen.writeNumberField("p99DurationMs", latency.p99());
+                gen.writeNumberField("p999DurationMs", latency.p999());
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Request count, errors and latency of a service over a window, with the rollup ranges
+ * that answered it.
+ *
+ * @param fromMicros  window start, aligned to the coarsest resolution used
+ * @param approximate part of the window was read at a coarser resolution than its edges
+ * @param errorRate   percent of requests
+ */
+@JsonSerialize(using = ServiceRollup.Serializer.class)
+public record ServiceRollup(String serviceName, String operation, long fromMicros, long toMicros, boolean approximate,
+                            long requestCount, long errorCount, double errorRate, long averageDurationMs,
+                            long minDurationMs, long maxDurationMs, ServiceMetrics.LatencyPercentiles percentiles,
+                            List<PlanRange> plan) {
+
+    /** A part of the window read from one resolution. */
+    public record PlanRange(RollupResolution resolution, long fromMicros, long toMicros) {
+    }
+
+    public static final class Serializer extends StdSerializer<ServiceRollup> {
+
+        public Serializer() {
+            super(ServiceRollup.class);
+        }
+
+        @Override
+        public void serialize(ServiceRollup rollup, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(rollup, 16);
+            gen.writeStringField("serviceName", rollup.serviceName());
+            gen.writeStringField("operation", rollup.operation());
+            ViewFields.writeTime(gen, provider, "from", rollup.fromMicros());
+            ViewFields.writeTime(gen, provider, "to", rollup.toMicros());
+            gen.writeBooleanField("approximate", rollup.approximate());
+            gen.writeNumberField("requestCount", rollup.requestCount());
+            gen.writeNumberField("errorCount", rollup.errorCount());
+            gen.writeNumberField("errorRate", rollup.errorRate());
+            gen.writeNumberField("averageDurationMs", rollup.averageDurationMs());
+            gen.writeNumberField("minDurationMs", rollup.minDurationMs());
+            gen.writeNumberField("maxDurationMs", rollup.maxDurationMs());
+            ServiceMetrics.LatencyPercentiles latency = rollup.percentiles();
+            gen.writeNumberField("p50DurationMs", latency.p50());
+            gen.writeNumberField("p90DurationMs", latency.p90());
+            gen.writeNumberField("p99DurationMs", latency.p99());
+            gen.writeNumberField("p999DurationMs", latency.p999());
+            gen.writeArrayFieldStart("plan");
+            for (PlanRange range : rollup.plan()) {
+                gen.writeStartObject(range, 3);
+                gen.writeStringField("resolution", range.resolution().name());
+                ViewFields.writeTime(gen, provider, "from", range.fromMicros());
+                ViewFields.writeTime(gen, provider, "to", range.toMicros());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+}
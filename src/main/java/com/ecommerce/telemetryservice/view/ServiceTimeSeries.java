@@ -0,0 +1,77 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Request count, errors and latency of a service per time bucket.
+ *
+ * @param source      {@code rollups} for whole-minute steps, {@code spans} for finer ones
+ * @param approximate some points read a coarser rollup than their step, or spans still
+ *                    waiting in the write-behind buffer are missing from the buckets
+ */
+@JsonSerialize(using = ServiceTimeSeries.Serializer.class)
+public record ServiceTimeSeries(String serviceName, String operation, long fromMicros, long toMicros, long stepMicros,
+                                String source, boolean approximate, List<Point> points) {
+
+    /**
+     * @param percentiles   null when no span of the bucket reported a duration
+     * @param maxDurationMs null when no span of the bucket reported a duration
+     */
+    public record Point(long startMicros, long requestCount, long errorCount, double errorRate,
+                        ServiceMetrics.LatencyPercentiles percentiles, Long maxDurationMs) {
+    }
+
+    public long stepSeconds() {
+        return stepMicros / 1_000_000L;
+    }
+
+    public static final class Serializer extends StdSerializer<ServiceTimeSeries> {
+
+        public Serializer() {
+            super(ServiceTimeSeries.class);
+        }
+
+        @Override
+        public void serialize(ServiceTimeSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(series, 8);
+            gen.writeStringField("serviceName", series.serviceName());
+            gen.writeStringField("operation", series.operation());
+            ViewFields.writeTime(gen, provider, "from", series.fromMicros());
+            ViewFields.writeTime(gen, provider, "to", series.toMicros());
+            gen.writeNumberField("stepSeconds", series.stepSeconds());
+            gen.writeStringField("source", series.source());
+            gen.writeBooleanField("approximate", series.approximate());
+            gen.writeArrayFieldStart("points");
+            for (Point point : series.points()) {
+                writePoint(gen, provider, point);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+
+        private static void writePoint(JsonGenerator gen, SerializerProvider provider, Point point) throws IOException {
+            gen.writeStartObject(point, 9);
+            ViewFields.writeTime(gen, provider, "timestamp", point.startMicros());
+            gen.writeNumberField("requestCount", point.requestCount());
+            gen.writeNumberField("errorCount", point.errorCount());
+            gen.writeNumberField("errorRate", point.errorRate());
+            ServiceMetrics.LatencyPercentiles latency = point.percentiles();
+            if (latency != null) {
+                gen.writeNumberField("p50DurationMs", latency.p50());
+                gen.writeNumberField("p90DurationMs", latency.p90());
+                gen.writeNumberField("p99DurationMs", latency.p99());
+                gen.writeNumberField("p999DurationMs", latency.p999());
+            }
+            if (point.maxDurationMs() != null) {
+                gen.writeNumberField("maxDurationMs", point.maxDurationMs());
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Spans whose error message or URL contain the searched text, newest traces first.
+ *
+ * @param traceCount traces with at least one match
+ * @param truncated  more traces matched than the limit allowed
+ */
+@JsonSerialize(using = TextSearchResult.Serializer.class)
+public record TextSearchResult(String query, long fromMicros, long toMicros, int traceCount, List<Match> matches,
+                               boolean truncated) {
+
+    public record Match(String traceId, String spanId, String serviceName, String operation, long timestampMicros,
+                        TraceEvent.Status status, String errorMessage, String httpUrl) {
+
+        public static Match of(TraceEvent span) {
+            return new Match(span.getTraceId(), span.getSpanId(), span.getServiceName(), span.getOperation(),
+                span.getTimestampMicros(), span.getStatus(), span.getErrorMessage(), span.getHttpUrl());
+        }
+    }
+
+    public static final class Serializer extends StdSerializer<TextSearchResult> {
+
+        public Serializer() {
+            super(TextSearchResult.class);
+        }
+
+        @Override
+        public void serialize(TextSearchResult result, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(result, 6);
+            gen.writeStringField("query", result.query());
+            ViewFields.writeTime(gen, provider, "from", result.fromMicros());
+            ViewFields.writeTime(gen, provider, "to", result.toMicros());
+            gen.writeNumberField("traceCount", result.traceCount());
+            gen.writeArrayFieldStart("matches");
+            for (Match match : result.matches()) {
+                writeMatch(gen, provider, match);
+            }
+            gen.writeEndArray();
+            gen.writeBooleanField("truncated", result.truncated());
+            gen.writeEndObject();
+        }
+
+        private static void writeMatch(JsonGenerator gen, SerializerProvider provider, Match match) throws IOException {
+            gen.writeStartObject(match, 8);
+            gen.writeStringField("traceId", match.traceId());
+            gen.writeStringField("spanId", match.spanId());
+            gen.writeStringField("serviceName", match.serviceName());
+            gen.writeStringField("operation", match.operation());
+            ViewFields.writeTime(gen, provider, "timestamp", match.timestampMicros());
+            gen.writeStringField("status", match.status() != null ? match.status().name() : null);
+            gen.writeStringField("errorMessage", match.errorMessage());
+            gen.writeStringField("httpUrl", match.httpUrl());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * One span of a {@link TraceTimeline}. Absent values are written as JSON nulls, so every
+ * span has the same fields.
+ *
+ * @param durationMicros {@link TraceEvent#NO_DURATION} when the span reported none
+ */
+@JsonSerialize(using = TimelineSpan.Serializer.class)
+public record TimelineSpan(String spanId, String parentSpanId, String serviceName, String operation, long timestampMicros,
+                           long durationMicros, TraceEvent.Status status, String httpMethod, String httpUrl,
+                           String httpRoute, Integer httpStatusCode, String errorMessage) {
+
+    public static TimelineSpan of(TraceEvent span, String httpRoute) {
+        return new TimelineSpan(span.getSpanId(), span.getParentSpanId(), span.getServiceName(), span.getOperation(),
+            span.getTimestampMicros(), span.hasDuration() ? span.getDurationMicros() : TraceEvent.NO_DURATION, span.getStatus(),
+            span.getHttpMethod(), span.getHttpUrl(), httpRoute, span.getHttpStatusCode(), span.getErrorMessage());
+    }
+
+    public LocalDateTime timestamp() {
+        return EpochMicros.toLocalDateTime(timestampMicros);
+    }
+
+    public boolean hasDuration() {
+        return durationMicros >= 0;
+    }
+
+    public static final class Serializer extends StdSerializer<TimelineSpan> {
+
+        public Serializer() {
+            super(TimelineSpan.class);
+        }
+
+        @Override
+        public void serialize(TimelineSpan span, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(span, 13);
+            gen.writeStringField("spanId", span.spanId());
+            gen.writeStringField("parentSpanId", span.parentSpanId());
+            gen.writeStringField("serviceName", span.serviceName());
+            gen.writeStringField("operation", span.operation());
+            ViewFields.writeTime(gen, provider, "timestamp", span.timestampMicros());
+            if (span.hasDuration()) {
+                gen.writeNumberField("durationMs", EpochMicros.toMillis(span.durationMicros()));
+                gen.writeNumberField("durationMicros", span.durationMicros());
+            } else {
+                gen.writeNullField("durationMs");
+                gen.writeNullField("durationMicros");
+            }
+            gen.writeStringField("status", span.status() != null ? span.status().name() : null);
+            gen.writeStringField("httpMethod", span.httpMethod());
+            gen.writeStringField("httpUrl", span.httpUrl());
+            gen.writeStringField("httpRoute", span.httpRoute());
+            ViewFields.writeNumberOrNull(gen, "httpStatusCode", span.httpStatusCode());
+            gen.writeStringField("errorMessage", span.errorMessage());
+            gen.writeEndObject();
+        }
+    }
+}
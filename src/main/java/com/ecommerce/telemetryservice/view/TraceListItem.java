@@ -0,0 +1,55 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A trace as listed by the trace search: its summary row plus the services and
+ * operations it touched, in the order they first appear in the trace.
+ */
+@JsonSerialize(using = TraceListItem.Serializer.class)
+public record TraceListItem(String traceId, long startMicros, long durationMicros, List<String> services,
+                           List<String> operations, String rootOperation, int spanCount, boolean error) {
+
+    public LocalDateTime startTime() {
+        return EpochMicros.toLocalDateTime(startMicros);
+    }
+
+    /** In milliseconds. */
+    public long duration() {
+        return EpochMicros.toMillis(durationMicros);
+    }
+
+    public String status() {
+        return error ? "ERROR" : "SUCCESS";
+    }
+
+    public static final class Serializer extends StdSerializer<TraceListItem> {
+
+        public Serializer() {
+            super(TraceListItem.class);
+        }
+
+        @Override
+        public void serialize(TraceListItem trace, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(trace, 9);
+            gen.writeStringField("traceId", trace.traceId());
+            ViewFields.writeTime(gen, provider, "startTime", trace.startMicros());
+            gen.writeNumberField("duration", trace.duration());
+            gen.writeNumberField("durationMicros", trace.durationMicros());
+            ViewFields.writeStrings(gen, "services", trace.services());
+            ViewFields.writeStrings(gen, "operations", trace.operations());
+            gen.writeStringField("rootOperation", trace.rootOperation());
+            gen.writeNumberField("spanCount", trace.spanCount());
+            gen.writeStringField("status", trace.status());
+            gen.writeEndObject();
+        }
+    }
+}
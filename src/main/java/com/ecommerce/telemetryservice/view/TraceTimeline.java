@@ -0,0 +1,75 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The spans of a trace in timestamp order with its start, end and duration. A trace
+ * without spans is written as just {@code traceId}, {@code events} and a zero
+ * {@code totalDuration}.
+ */
+@JsonSerialize(using = TraceTimeline.Serializer.class)
+public record TraceTimeline(String traceId, List<TimelineSpan> events, long startMicros, long endMicros, int serviceCount) {
+
+    public static TraceTimeline empty(String traceId) {
+        return new TraceTimeline(traceId, List.of(), 0, 0, 0);
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    public long totalDurationMicros() {
+        return endMicros - startMicros;
+    }
+
+    /** In milliseconds. */
+    public long totalDuration() {
+        return EpochMicros.toMillis(totalDurationMicros());
+    }
+
+    public LocalDateTime startTime() {
+        return isEmpty() ? null : EpochMicros.toLocalDateTime(startMicros);
+    }
+
+    public LocalDateTime endTime() {
+        return isEmpty() ? null : EpochMicros.toLocalDateTime(endMicros);
+    }
+
+    public static final class Serializer extends StdSerializer<TraceTimeline> {
+
+        private static final TimelineSpan.Serializer SPAN_SERIALIZER = new TimelineSpan.Serializer();
+
+        public Serializer() {
+            super(TraceTimeline.class);
+        }
+
+        @Override
+        public void serialize(TraceTimeline timeline, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(timeline, timeline.isEmpty() ? 3 : 7);
+            gen.writeStringField("traceId", timeline.traceId());
+            gen.writeFieldName("events");
+            List<TimelineSpan> events = timeline.events();
+            gen.writeStartArray(events, events.size());
+            for (int i = 0; i < events.size(); i++) {
+                SPAN_SERIALIZER.serialize(events.get(i), gen, provider);
+            }
+            gen.writeEndArray();
+            gen.writeNumberField("totalDuration", timeline.totalDuration());
+            if (!timeline.isEmpty()) {
+                gen.writeNumberField("totalDurationMicros", timeline.totalDurationMicros());
+                ViewFields.writeTime(gen, provider, "startTime", timeline.startMicros());
+                ViewFields.writeTime(gen, provider, "endTime", timeline.endMicros());
+                gen.writeNumberField("serviceCount", timeline.serviceCount());
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Field writers shared by the view serializers. Date-times go through the provider so
+ * they follow the application's configured {@code LocalDateTime} format.
+ */
+final class ViewFields {
+
+    private ViewFields() {
+    }
+
+    static void writeTime(JsonGenerator gen, SerializerProvider provider, String name, long micros) throws IOException {
+        provider.defaultSerializeField(name, EpochMicros.toLocalDateTime(micros), gen);
+    }
+
+    static void writeStrings(JsonGenerator gen, String name, List<String> values) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeStartArray(values, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            gen.writeString(values.get(i));
+        }
+        gen.writeEndArray();
+    }
+
+    static void writeNumberOrNull(JsonGenerator gen, String name, Integer value) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value);
+        } else {
+            gen.writeNullField(name);
+        }
+    }
+}
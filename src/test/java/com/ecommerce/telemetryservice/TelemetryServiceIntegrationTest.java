@@ -2,8 +2,12 @@ package com.ecommerce.telemetryservice;
 
 import com.ecommerce.telemetryservice.dto.TraceEventDto;
 import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.model.TraceSummary;
 import com.ecommerce.telemetryservice.repository.TraceEventRepository;
+import com.ecommerce.telemetryservice.repository.TraceOperationRepository;
+import com.ecommerce.telemetryservice.repository.TraceSummaryRepository;
 import com.ecommerce.telemetryservice.service.TelemetryService;
+import com.ecommerce.telemetryservice.view.TraceListItem;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,9 +24,15 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -39,6 +49,12 @@ public class TelemetryServiceIntegrationTest {
     @Autowired
     private TraceEventRepository traceEventRepository;
 
+    @Autowired
+    private TraceSummaryRepository traceSummaryRepository;
+
+    @Autowired
+    private TraceOperationRepository traceOperationRepository;
+
     @Autowired
     private TelemetryService telemetryService;
 
@@ -134,6 +150,42 @@ public class TelemetryServiceIntegrationTest {
         assertThat(eventsInDb).hasSize(2);
     }
 
+    @Test
+    void recordEventsBatch_WithConcurrentBatchesStartingOneTrace_ShouldSummarizeEverySpan() throws Exception {
+        // Given: services posting the first spans of the same traces at the same time
+        int traces = 10;
+        int batchesPerTrace = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(batchesPerTrace);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<TraceEvent>>> batches = new ArrayList<>();
+        for (int trace = 0; trace < traces; trace++) {
+            for (int batch = 0; batch < batchesPerTrace; batch++) {
+                List<TraceEventDto> spans = List.of(
+                    span("concurrent-" + trace, "span-" + batch + "-0", "service-" + batch),
+                    span("concurrent-" + trace, "span-" + batch + "-1", "service-" + batch));
+                batches.add(executor.submit(() -> {
+                    start.await();
+                    return telemetryService.recordEventsBatch(spans);
+                }));
+            }
+        }
+
+        // When
+        start.countDown();
+        for (Future<List<TraceEvent>> batch : batches) {
+            batch.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        for (int trace = 0; trace < traces; trace++) {
+            String traceId = "concurrent-" + trace;
+            assertThat(traceSummaryRepository.findById(traceId)).get()
+                .extracting(TraceSummary::getSpanCount).isEqualTo(2 * batchesPerTrace);
+            assertThat(traceOperationRepository.findByTraceIdIn(List.of(traceId))).hasSize(batchesPerTrace);
+        }
+    }
+
     @Test
     void getTraceById_ShouldReturnEventsForTrace() {
         // Given
@@ -187,7 +239,7 @@ public class TelemetryServiceIntegrationTest {
 
         // When - Call service directly to test pagination logic
         PageRequest pageRequest = PageRequest.of(0, 10);
-        Page<Map<String, Object>> result = telemetryService.getTraces(pageRequest, null, null, null);
+        Page<TraceListItem> result = telemetryService.getTraces(pageRequest, null, null, null);
 
         // Then
         assertThat(result).isNotNull();
@@ -383,4 +435,16 @@ public class TelemetryServiceIntegrationTest {
         event.setEventType(TraceEvent.EventType.SPAN);
         return traceEventRepository.save(event);
     }
-}
\ No newline at end of file
+
+    private static TraceEventDto span(String traceId, String spanId, String serviceName) {
+        TraceEventDto dto = new TraceEventDto();
+        dto.setTraceId(traceId);
+        dto.setSpanId(spanId);
+        dto.setServiceName(serviceName);
+        dto.setOperation("handle");
+        dto.setTimestamp(LocalDateTime.now());
+        dto.setDurationMs(5L);
+        dto.setStatus(TraceEvent.Status.SUCCESS);
+        return dto;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ecommerce.telemetryservice.cache;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.view.TraceTimeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimelineCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private TimelineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TimelineCacheMetrics metrics = new TimelineCacheMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", meterRegistry);
+        metrics.init();
+        cache = new TimelineCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSpans", 10L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "quietSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "metrics", metrics);
+        cache.init();
+    }
+
+    @Test
+    void find_AfterPut_ShouldServeTheTimelineUntilNewSpansArrive() {
+        // Given
+        TraceTimeline timeline = timeline("trace-1");
+        long loaded = EpochMicros.now();
+        cache.put("trace-1", timeline, 3, loaded);
+
+        // When
+        TraceTimeline hit = cache.find("trace-1");
+        cache.recordWrites(List.of(span("trace-1")));
+        TraceTimeline afterWrite = cache.find("trace-1");
+
+        // Then
+        assertThat(hit).isSameAs(timeline);
+        assertThat(afterWrite).isNull();
+        assertThat(requests("hit")).isEqualTo(1.0);
+        assertThat(requests("bypass")).isEqualTo(1.0);
+    }
+
+    @Test
+    void put_ForActiveTrace_ShouldNotCacheIt() {
+        // Given
+        cache.recordWrites(List.of(span("trace-1")));
+
+        // When
+        cache.put("trace-1", timeline("trace-1"), 3, EpochMicros.now());
+
+        // Then
+        assertThat(cache.getEntryCount()).isZero();
+    }
+
+    @Test
+    void put_WhenSpansArriveDuringTheLoad_ShouldNotCacheTheOlderTimeline() {
+        // Given: spans were written after the load had started
+        long loaded = EpochMicros.now() - 1_000L;
+        lastWrites().put("trace-1", loaded + 500L);
+
+        // When
+        cache.put("trace-1", timeline("trace-1"), 3, loaded);
+
+        // Then
+        assertThat(cache.getEntryCount()).isZero();
+    }
+
+    @Test
+    void put_BeyondMaxSpans_ShouldEvictTheLeastRecentlyReadTraces() {
+        // Given
+        long loaded = EpochMicros.now();
+        cache.put("trace-1", timeline("trace-1"), 4, loaded);
+        cache.put("trace-2", timeline("trace-2"), 4, loaded);
+        cache.find("trace-1");
+
+        // When
+        cache.put("trace-3", timeline("trace-3"), 4, loaded);
+
+        // Then
+        assertThat(cache.find("trace-1")).isNotNull();
+        assertThat(cache.find("trace-2")).isNull();
+        assertThat(cache.getSpanCount()).isEqualTo(8);
+        assertThat(meterRegistry.counter("telemetry.timeline.cache.evictions", "cause", "size").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("telemetry.timeline.cache.spans").gauge().value()).isEqualTo(8.0);
+    }
+
+    @Test
+    void find_AfterTtl_ShouldMissAndDropTheEntry() {
+        // Given
+        cache.put("trace-1", timeline("trace-1"), 3, EpochMicros.now());
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+
+        // When
+        TraceTimeline expired = cache.find("trace-1");
+
+        // Then
+        assertThat(expired).isNull();
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(meterRegistry.counter("telemetry.timeline.cache.evictions", "cause", "expired").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void prune_ShouldForgetQuietWritesAndTheEntriesTheyInvalidate() {
+        // Given
+        long loaded = EpochMicros.now() - 120_000_000L;
+        ReflectionTestUtils.setField(cache, "quietSeconds", 600L);
+        cache.put("trace-1", timeline("trace-1"), 3, loaded);
+        ReflectionTestUtils.setField(cache, "quietSeconds", 60L);
+        lastWrites().put("trace-1", loaded + 1_000L);
+
+        // When
+        cache.prune();
+
+        // Then
+        assertThat(lastWrites()).isEmpty();
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(meterRegistry.counter("telemetry.timeline.cache.evictions", "cause", "invalidated").count()).isEqualTo(1.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> lastWrites() {
+        return (Map<String, Long>) ReflectionTestUtils.getField(cache, "lastWrites");
+    }
+
+    private double requests(String result) {
+        return meterRegistry.counter("telemetry.timeline.cache.requests", "result", result).count();
+    }
+
+    private static TraceTimeline timeline(String traceId) {
+        return TraceTimeline.empty(traceId);
+    }
+
+    private static TraceEvent span(String traceId) {
+        return new TraceEvent(traceId, "span-1", "order-service", "create_order");
+    }
+}
@@ -1,8 +1,21 @@
 package com.ecommerce.telemetryservice.controller;
 
 import com.ecommerce.telemetryservice.dto.TraceEventDto;
+import com.ecommerce.telemetryservice.ingest.WriteBehindFullException;
+import com.ecommerce.telemetryservice.model.EpochMicros;
 import com.ecommerce.telemetryservice.model.TraceEvent;
 import com.ecommerce.telemetryservice.service.TelemetryService;
+import com.ecommerce.telemetryservice.view.CursorPage;
+import com.ecommerce.telemetryservice.view.EndpointStats;
+import com.ecommerce.telemetryservice.view.HealthStatus;
+import com.ecommerce.telemetryservice.view.LiveServiceMetrics;
+import com.ecommerce.telemetryservice.view.OperationLatency;
+import com.ecommerce.telemetryservice.view.ServiceMetrics;
+import com.ecommerce.telemetryservice.view.ServiceTimeSeries;
+import com.ecommerce.telemetryservice.view.TextSearchResult;
+import com.ecommerce.telemetryservice.view.TimelineSpan;
+import com.ecommerce.telemetryservice.view.TraceListItem;
+import com.ecommerce.telemetryservice.view.TraceTimeline;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +25,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -135,11 +149,9 @@ public class TelemetryControllerTest {
     @Test
     void getTraceTimeline_ShouldReturnTimeline() throws Exception {
         // Given
-        Map<String, Object> timeline = new HashMap<>();
-        timeline.put("traceId", "trace-123");
-        timeline.put("events", Arrays.asList(testTraceEvent));
-        timeline.put("totalDuration", 1000L);
-        timeline.put("serviceCount", 1L);
+        long start = testTraceEvent.getTimestampMicros();
+        TraceTimeline timeline = new TraceTimeline("trace-123", List.of(TimelineSpan.of(testTraceEvent, "/orders/{id}")),
+            start, start + 1_000_000L, 1);
 
         when(telemetryService.getTraceTimeline("trace-123")).thenReturn(timeline);
 
@@ -147,7 +159,10 @@ public class TelemetryControllerTest {
         mockMvc.perform(get("/api/telemetry/traces/trace-123/timeline"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.traceId").value("trace-123"))
+                .andExpect(jsonPath("$.events[0].spanId").value(testTraceEvent.getSpanId()))
+                .andExpect(jsonPath("$.events[0].httpRoute").value("/orders/{id}"))
                 .andExpect(jsonPath("$.totalDuration").value(1000))
+                .andExpect(jsonPath("$.totalDurationMicros").value(1_000_000))
                 .andExpect(jsonPath("$.serviceCount").value(1));
 
         verify(telemetryService).getTraceTimeline("trace-123");
@@ -156,15 +171,10 @@ public class TelemetryControllerTest {
     @Test
     void getTraces_ShouldReturnPaginatedTraces() throws Exception {
         // Given
-        Map<String, Object> traceSummary = new HashMap<>();
-        traceSummary.put("traceId", "trace-123");
-        traceSummary.put("spanCount", 5);
-        traceSummary.put("status", "SUCCESS");
+        List<TraceListItem> traces = List.of(traceListItem("trace-123", 5));
+        Page<TraceListItem> tracePage = new PageImpl<>(traces, PageRequest.of(0, 20), 1);
 
-        List<Map<String, Object>> traces = Arrays.asList(traceSummary);
-        Page<Map<String, Object>> tracePage = new PageImpl<>(traces, PageRequest.of(0, 20), 1);
-
-        when(telemetryService.getTraces(any(PageRequest.class), isNull(), isNull(), isNull()))
+        when(telemetryService.getTraces(any(PageRequest.class), isNull(), isNull(), isNull(), isNull(), eq(true)))
                 .thenReturn(tracePage);
 
         // When & Then
@@ -175,23 +185,20 @@ public class TelemetryControllerTest {
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content.length()").value(1))
                 .andExpect(jsonPath("$.content[0].traceId").value("trace-123"))
+                .andExpect(jsonPath("$.content[0].spanCount").value(5))
+                .andExpect(jsonPath("$.content[0].status").value("SUCCESS"))
                 .andExpect(jsonPath("$.totalElements").value(1));
 
-        verify(telemetryService).getTraces(any(PageRequest.class), isNull(), isNull(), isNull());
+        verify(telemetryService).getTraces(any(PageRequest.class), isNull(), isNull(), isNull(), isNull(), eq(true));
     }
 
     @Test
     void getTraces_WithFilters_ShouldReturnFilteredTraces() throws Exception {
         // Given
-        Map<String, Object> traceSummary = new HashMap<>();
-        traceSummary.put("traceId", "trace-123");
-        traceSummary.put("spanCount", 3);
-        traceSummary.put("status", "SUCCESS");
-
-        List<Map<String, Object>> traces = Arrays.asList(traceSummary);
-        Page<Map<String, Object>> tracePage = new PageImpl<>(traces, PageRequest.of(0, 20), 1);
+        List<TraceListItem> traces = List.of(traceListItem("trace-123", 3));
+        Page<TraceListItem> tracePage = new PageImpl<>(traces, PageRequest.of(0, 20), 1);
 
-        when(telemetryService.getTraces(any(PageRequest.class), eq("test-service"), eq("test_operation"), eq("SUCCESS")))
+        when(telemetryService.getTraces(any(PageRequest.class), eq("test-service"), eq("test_operation"), eq("SUCCESS"), isNull(), eq(true)))
                 .thenReturn(tracePage);
 
         // When & Then
@@ -205,7 +212,117 @@ public class TelemetryControllerTest {
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content.length()").value(1));
 
-        verify(telemetryService).getTraces(any(PageRequest.class), eq("test-service"), eq("test_operation"), eq("SUCCESS"));
+        verify(telemetryService).getTraces(any(PageRequest.class), eq("test-service"), eq("test_operation"), eq("SUCCESS"), isNull(), eq(true));
+    }
+
+    @Test
+    void getTraces_WithTags_ShouldPassTagFiltersToService() throws Exception {
+        // Given
+        Page<TraceListItem> tracePage = new PageImpl<>(List.of(traceListItem("trace-123", 1)), PageRequest.of(0, 20), 1);
+
+        when(telemetryService.getTraces(any(PageRequest.class), isNull(), isNull(), isNull(),
+                eq(List.of("paymentProvider:stripe", "region:eu-west-1")), eq(true)))
+                .thenReturn(tracePage);
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/traces")
+                .param("tag", "paymentProvider:stripe")
+                .param("tag", "region:eu-west-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].traceId").value("trace-123"));
+    }
+
+    @Test
+    void getTraces_WithSortAndWithoutCount_ShouldPassThemToService() throws Exception {
+        // Given
+        Page<TraceListItem> tracePage = new PageImpl<>(List.of(), PageRequest.of(2, 10), 20);
+        when(telemetryService.getTraces(any(PageRequest.class), isNull(), isNull(), isNull(), isNull(), eq(false)))
+                .thenReturn(tracePage);
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/traces")
+                .param("page", "2")
+                .param("size", "10")
+                .param("sortBy", "duration")
+                .param("direction", "asc")
+                .param("count", "false"))
+                .andExpect(status().isOk());
+
+        verify(telemetryService).getTraces(eq(PageRequest.of(2, 10, Sort.by(Sort.Direction.ASC, "duration"))),
+                isNull(), isNull(), isNull(), isNull(), eq(false));
+    }
+
+    @Test
+    void scrollTraces_ShouldUseKeysetPaging() throws Exception {
+        // Given
+        TraceListItem trace = new TraceListItem("trace-123", EpochMicros.now(), 100_000L, List.of("test-service"),
+            List.of("test_operation"), "test_operation", 1, false);
+        when(telemetryService.getTracesAfter(isNull(), eq(20), any(Sort.class), isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(new CursorPage<>(List.of(trace), "AQAAAAAAAAPodHJhY2UtMTIz", 20));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/traces/scroll"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].traceId").value("trace-123"))
+                .andExpect(jsonPath("$.nextCursor").value("AQAAAAAAAAPodHJhY2UtMTIz"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        verify(telemetryService, never()).getTraces(any(), any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void getSpans_ShouldPassCursorAndFiltersToService() throws Exception {
+        // Given
+        when(telemetryService.getSpans("AQAAAAAAAAPoMQ", 50, "payment-service", null, "ERROR", null, null))
+                .thenReturn(new CursorPage<>(List.of(), null, 50));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/spans")
+                .param("cursor", "AQAAAAAAAAPoMQ")
+                .param("size", "50")
+                .param("serviceName", "payment-service")
+                .param("status", "ERROR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void searchText_ShouldPassQueryAndWindowToService() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 15, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 15, 11, 0);
+        TextSearchResult searchResult = new TextSearchResult("card declined", EpochMicros.of(from), EpochMicros.of(to), 1,
+            List.of(TextSearchResult.Match.of(testTraceEvent)), false);
+        when(telemetryService.searchText("card declined", "errorMessage", from, to, 50)).thenReturn(searchResult);
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/search")
+                .param("q", "card declined")
+                .param("field", "errorMessage")
+                .param("from", "2024-01-15T10:00:00")
+                .param("to", "2024-01-15T11:00:00")
+                .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.traceCount").value(1))
+                .andExpect(jsonPath("$.matches[0].traceId").value("trace-123"))
+                .andExpect(jsonPath("$.matches[0].spanId").value("span-456"))
+                .andExpect(jsonPath("$.from").value("2024-01-15T10:00:00"));
+    }
+
+    @Test
+    void getServiceEndpoints_ShouldReturnPerRouteMetrics() throws Exception {
+        // Given
+        EndpointStats endpoint = new EndpointStats("GET", "/api/orders/{id}", 10L, 1L, 0L, 0L, -1L);
+        when(telemetryService.getServiceEndpoints("order-service")).thenReturn(List.of(endpoint));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/services/order-service/endpoints"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].route").value("/api/orders/{id}"))
+                .andExpect(jsonPath("$[0].requestCount").value(10))
+                .andExpect(jsonPath("$[0].errorRate").value(10.0))
+                .andExpect(jsonPath("$[0].maxDurationMs").isEmpty());
     }
 
     @Test
@@ -246,13 +363,11 @@ public class TelemetryControllerTest {
     @Test
     void getServiceMetrics_ShouldReturnMetricsForService() throws Exception {
         // Given
-        Map<String, Object> metrics = new HashMap<>();
-        metrics.put("serviceName", "test-service");
-        metrics.put("requestCount", 100L);
-        metrics.put("averageDurationMs", 150L);
-        metrics.put("errorRate", 2.5);
+        ServiceMetrics metrics = new ServiceMetrics("test-service", 100, 0, 100, 15_000_000L, 1_000L, 900_000L,
+            Map.of("operation-1", 100L), null, null, null);
+        metrics = metrics.withPercentiles(new ServiceMetrics.LatencyPercentiles(120, 300, 800, 900));
 
-        when(telemetryService.getServiceMetrics("test-service")).thenReturn(metrics);
+        when(telemetryService.getServiceMetrics("test-service", null, null)).thenReturn(metrics);
 
         // When & Then
         mockMvc.perform(get("/api/telemetry/services/test-service/metrics"))
@@ -260,19 +375,100 @@ public class TelemetryControllerTest {
                 .andExpect(jsonPath("$.serviceName").value("test-service"))
                 .andExpect(jsonPath("$.requestCount").value(100))
                 .andExpect(jsonPath("$.averageDurationMs").value(150))
-                .andExpect(jsonPath("$.errorRate").value(2.5));
+                .andExpect(jsonPath("$.maxDurationMs").value(900))
+                .andExpect(jsonPath("$.errorRate").value(0.0))
+                .andExpect(jsonPath("$.operationCounts['operation-1']").value(100))
+                .andExpect(jsonPath("$.p99DurationMs").value(800))
+                .andExpect(jsonPath("$.from").doesNotExist());
+
+        verify(telemetryService).getServiceMetrics("test-service", null, null);
+    }
+
+    @Test
+    void getServiceMetrics_WithWindow_ShouldPassItToTheService() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 2, 0, 0);
+        when(telemetryService.getServiceMetrics("test-service", from, to)).thenReturn(
+            new ServiceMetrics("test-service", 3, 0, 0, 0, 0, 0, Map.of("operation-1", 3L), from, to, null));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/services/test-service/metrics")
+                .param("from", "2024-01-01T00:00:00")
+                .param("to", "2024-01-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requestCount").value(3))
+                .andExpect(jsonPath("$.from").value("2024-01-01T00:00:00"));
+
+        verify(telemetryService).getServiceMetrics("test-service", from, to);
+    }
+
+    @Test
+    void getServiceTimeSeries_ShouldPassWindowAndStepToTheService() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 2, 0, 0);
+        ServiceTimeSeries timeSeries = new ServiceTimeSeries("test-service", null, EpochMicros.of(from), EpochMicros.of(to),
+            3_600_000_000L, "rollups", false, List.of(new ServiceTimeSeries.Point(EpochMicros.of(from), 7, 0, 0.0, null, null)));
+        when(telemetryService.getServiceTimeSeries("test-service", null, from, to, "1h")).thenReturn(timeSeries);
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/services/test-service/timeseries")
+                .param("from", "2024-01-01T00:00:00")
+                .param("to", "2024-01-02T00:00:00")
+                .param("step", "1h"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stepSeconds").value(3600))
+                .andExpect(jsonPath("$.points[0].requestCount").value(7))
+                .andExpect(jsonPath("$.points[0].timestamp").value("2024-01-01T00:00:00"))
+                .andExpect(jsonPath("$.points[0].p50DurationMs").doesNotExist());
+
+        verify(telemetryService).getServiceTimeSeries("test-service", null, from, to, "1h");
+    }
+
+    @Test
+    void getLiveMetrics_ShouldReturnWindowsOfTheService() throws Exception {
+        // Given
+        LiveServiceMetrics.Stats lastMinute = new LiveServiceMetrics.Stats(12L, 0.2, 0L, 0.0, 15L, 40L);
+        LiveServiceMetrics live = new LiveServiceMetrics("test-service", true, LocalDateTime.now(),
+            List.of(new LiveServiceMetrics.Window(1, lastMinute, Map.of("create_order", lastMinute))));
+        when(telemetryService.getLiveMetrics("test-service")).thenReturn(live);
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/services/test-service/live"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.serviceName").value("test-service"))
+                .andExpect(jsonPath("$.windows.1m.requestCount").value(12))
+                .andExpect(jsonPath("$.windows.1m.requestsPerSecond").value(0.2))
+                .andExpect(jsonPath("$.windows.1m.operations.create_order.maxDurationMs").value(40));
+
+        verify(telemetryService).getLiveMetrics("test-service");
+    }
+
+    @Test
+    void getOperationLatency_ShouldReturnPercentilesOfTheOperation() throws Exception {
+        // Given
+        OperationLatency latency = new OperationLatency("test-service", "create_order", EpochMicros.now() - 60_000_000L,
+            EpochMicros.now(), false, 10L, new ServiceMetrics.LatencyPercentiles(20L, 60L, 400L, 900L), 950L);
+        when(telemetryService.getOperationLatency("test-service", "create_order", null, null)).thenReturn(latency);
 
-        verify(telemetryService).getServiceMetrics("test-service");
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/services/test-service/operations/create_order/latency"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.operation").value("create_order"))
+                .andExpect(jsonPath("$.p50DurationMs").value(20))
+                .andExpect(jsonPath("$.p999DurationMs").value(900))
+                .andExpect(jsonPath("$.count").value(10))
+                .andExpect(jsonPath("$.maxDurationMs").value(950))
+                .andExpect(jsonPath("$.plan").doesNotExist());
+
+        verify(telemetryService).getOperationLatency("test-service", "create_order", null, null);
     }
 
     @Test
     void getHealthStatus_ShouldReturnSystemHealth() throws Exception {
         // Given
-        Map<String, Object> health = new HashMap<>();
-        health.put("status", "healthy");
-        health.put("totalEvents", 1000L);
-        health.put("recentEvents", 50L);
-        health.put("trackedServices", 5);
+        HealthStatus health = HealthStatus.healthy(1000L, 50L, List.of("service-1", "service-2", "service-3", "service-4", "service-5"));
 
         when(telemetryService.getHealthStatus()).thenReturn(health);
 
@@ -323,6 +519,21 @@ public class TelemetryControllerTest {
         verify(telemetryService).cleanupOldTraces(7);
     }
 
+    @Test
+    void recordEventsBatch_WhenWriteBehindBufferIsFull_ShouldAskTheClientToRetry() throws Exception {
+        // Given
+        when(telemetryService.recordEventsBatch(anyList())).thenThrow(new WriteBehindFullException(50_000));
+
+        // When & Then
+        mockMvc.perform(post("/api/telemetry/events/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(testTraceEventDto))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.message").value("Write-behind buffer is full: 50000 spans waiting"));
+    }
+
     @Test
     void recordEvent_WithMalformedJson_ShouldReturnBadRequest() throws Exception {
         // When & Then
@@ -334,6 +545,115 @@ public class TelemetryControllerTest {
         verify(telemetryService, never()).recordEvent(any(TraceEventDto.class));
     }
 
+    @Test
+    void getTraces_WithMalformedTagOrUnknownStatus_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(telemetryService.getTraces(any(PageRequest.class), isNull(), isNull(), isNull(), eq(List.of("stripe")), eq(true)))
+                .thenThrow(new IllegalArgumentException("Tag filter must be in key:value form: stripe"));
+        when(telemetryService.getTraces(any(PageRequest.class), isNull(), isNull(), eq("200"), isNull(), eq(true)))
+                .thenThrow(new IllegalArgumentException("Status must be one of [SUCCESS, ERROR, TIMEOUT], not 200"));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/traces").param("tag", "stripe"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.message").value("Tag filter must be in key:value form: stripe"));
+        mockMvc.perform(get("/api/telemetry/traces").param("status", "200"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTraces_WithUnsupportedSortPropertyOrDirection_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(telemetryService.getTraces(eq(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "serviceName"))),
+                isNull(), isNull(), isNull(), isNull(), eq(true)))
+                .thenThrow(new IllegalArgumentException("Traces can be sorted by timestamp or duration, not serviceName"));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/traces").param("sortBy", "serviceName"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/telemetry/traces").param("direction", "sideways"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTracesAndSpans_WithMalformedCursor_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(telemetryService.getTracesAfter(eq("not-a-cursor"), eq(20), any(Sort.class), isNull(), isNull(), isNull(), isNull()))
+                .thenThrow(new IllegalArgumentException("Malformed cursor: not-a-cursor"));
+        when(telemetryService.getSpans("not-a-cursor", 50, null, null, null, null, null))
+                .thenThrow(new IllegalArgumentException("Malformed cursor: not-a-cursor"));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/traces/scroll").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Malformed cursor: not-a-cursor"));
+        mockMvc.perform(get("/api/telemetry/spans").param("cursor", "not-a-cursor").param("size", "50"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchText_WithUnsupportedField_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(telemetryService.searchText("declined", "operation", null, null, 100))
+                .thenThrow(new IllegalArgumentException("Unsupported search field: operation"));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/search")
+                .param("q", "declined")
+                .param("field", "operation"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported search field: operation"));
+    }
+
+    @Test
+    void windowedEndpoints_WithInvertedWindow_ShouldReturnBadRequest() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 2, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 1, 0, 0);
+        IllegalArgumentException inverted = new IllegalArgumentException("Window start must be before its end");
+        when(telemetryService.getServiceMetrics("test-service", from, to)).thenThrow(inverted);
+        when(telemetryService.getServiceRollup("test-service", null, from, to)).thenThrow(inverted);
+        when(telemetryService.getServiceTimeSeries("test-service", null, from, to, null)).thenThrow(inverted);
+
+        // When & Then
+        for (String path : List.of("metrics", "rollup", "timeseries")) {
+            mockMvc.perform(get("/api/telemetry/services/test-service/" + path)
+                    .param("from", "2024-01-02T00:00:00")
+                    .param("to", "2024-01-01T00:00:00"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Window start must be before its end"));
+        }
+    }
+
+    @Test
+    void getServiceTimeSeries_WithBadStepOrTooManyPoints_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(telemetryService.getServiceTimeSeries("test-service", null, null, null, "5 minutes"))
+                .thenThrow(new IllegalArgumentException("Step must look like 10s, 5m, 1h or 1d, not 5 minutes"));
+        when(telemetryService.getServiceTimeSeries("test-service", null, null, null, "10s"))
+                .thenThrow(new IllegalArgumentException("At most 2000 points per series; use a larger step"));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/services/test-service/timeseries").param("step", "5 minutes"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/telemetry/services/test-service/timeseries").param("step", "10s"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At most 2000 points per series; use a larger step"));
+    }
+
+    @Test
+    void getLiveMetrics_WithUnsupportedWindow_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(telemetryService.getLiveMetrics("test-service"))
+                .thenThrow(new IllegalArgumentException("Live windows are 1 to 900 seconds, not 3600"));
+
+        // When & Then
+        mockMvc.perform(get("/api/telemetry/services/test-service/live"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Bad Request"));
+    }
+
     @Test
     void recordEvent_WithServiceException_ShouldReturnInternalServerError() throws Exception {
         // Given
@@ -365,4 +685,9 @@ public class TelemetryControllerTest {
 
         verify(telemetryService).getTraceById("non-existent");
     }
-}
\ No newline at end of file
+
+    private static TraceListItem traceListItem(String traceId, int spanCount) {
+        return new TraceListItem(traceId, EpochMicros.now(), 2_000L, List.of("test-service"), List.of("test_operation"),
+            "test_operation", spanCount, false);
+    }
+}
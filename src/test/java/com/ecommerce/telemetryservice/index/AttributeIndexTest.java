@@ -0,0 +1,163 @@
+package com.ecommerce.telemetryservice.index;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AttributeIndexTest {
+
+    private TraceDictionary traceDictionary;
+    private AttributeIndex attributeIndex;
+
+    @BeforeEach
+    void setUp() {
+        traceDictionary = new TraceDictionary();
+        attributeIndex = new AttributeIndex();
+        ReflectionTestUtils.setField(attributeIndex, "traceDictionary", traceDictionary);
+        ReflectionTestUtils.setField(attributeIndex, "enabled", true);
+        ReflectionTestUtils.setField(attributeIndex, "maxAttributesPerSpan", 32);
+        ReflectionTestUtils.setField(attributeIndex, "maxValueLength", 128);
+    }
+
+    @Test
+    void findTraceIds_ShouldReturnTracesCarryingEveryTagNewestFirst() {
+        // Given
+        attributeIndex.index(createEvent("trace-1", "{\"paymentProvider\":\"stripe\",\"region\":\"eu-west-1\"}"));
+        attributeIndex.index(createEvent("trace-2", "{\"paymentProvider\":\"paypal\",\"region\":\"eu-west-1\"}"));
+        attributeIndex.index(createEvent("trace-3", "{\"paymentProvider\":\"stripe\",\"region\":\"eu-west-1\"}"));
+        attributeIndex.index(createEvent("trace-4", "{\"paymentProvider\":\"stripe\",\"region\":\"us-east-1\"}"));
+
+        // When
+        List<String> result = attributeIndex.findTraceIds(Map.of("paymentProvider", "stripe", "region", "eu-west-1"));
+
+        // Then
+        assertThat(result).containsExactly("trace-3", "trace-1");
+    }
+
+    @Test
+    void findTraceIds_ShouldMatchTraceWhenTagsComeFromDifferentSpans() {
+        // Given
+        attributeIndex.index(createEvent("trace-1", "{\"orderId\":\"order_42\"}"));
+        attributeIndex.index(createEvent("trace-2", "{\"orderId\":\"order_43\"}"));
+        attributeIndex.index(createEvent("trace-1", "{\"paymentProvider\":\"stripe\"}"));
+
+        // When
+        List<String> result = attributeIndex.findTraceIds(Map.of("orderId", "order_42", "paymentProvider", "stripe"));
+
+        // Then
+        assertThat(result).containsExactly("trace-1");
+    }
+
+    @Test
+    void index_ShouldFlattenNestedObjectsAndArrays() {
+        // Given
+        attributeIndex.index(createEvent("trace-1",
+            "{\"shipping\":{\"region\":\"eu-west-1\",\"express\":true},\"skus\":[\"sku-1\",\"sku-2\"],\"items\":[{\"qty\":1}],\"amount\":12.5,\"coupon\":null}"));
+
+        // Then
+        assertThat(attributeIndex.findTraceIds(Map.of("shipping.region", "eu-west-1"))).containsExactly("trace-1");
+        assertThat(attributeIndex.findTraceIds(Map.of("shipping.express", "true"))).containsExactly("trace-1");
+        assertThat(attributeIndex.findTraceIds(Map.of("skus", "sku-2"))).containsExactly("trace-1");
+        assertThat(attributeIndex.findTraceIds(Map.of("amount", "12.5"))).containsExactly("trace-1");
+        assertThat(attributeIndex.getTermCount()).isEqualTo(5);
+    }
+
+    @Test
+    void index_WithNonJsonMetadata_ShouldIgnoreSpan() {
+        // When
+        attributeIndex.index(createEvent("trace-1", "Order created successfully"));
+        attributeIndex.index(createEvent("trace-2", "{\"broken\":"));
+        attributeIndex.index(createEvent("trace-3", null));
+
+        // Then
+        assertThat(attributeIndex.getTermCount()).isZero();
+        assertThat(traceDictionary.getTraceCount()).isZero();
+    }
+
+    @Test
+    void index_ShouldKeepPostingsSortedWhenOlderTraceReceivesLateSpan() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            attributeIndex.index(createEvent("trace-" + i, "{\"region\":\"eu-west-1\"}"));
+        }
+
+        // When
+        attributeIndex.index(createEvent("trace-5", "{\"region\":\"eu-west-1\",\"late\":\"yes\"}"));
+
+        // Then
+        List<String> result = attributeIndex.findTraceIds(Map.of("region", "eu-west-1"));
+        assertThat(result).hasSize(100);
+        assertThat(result.get(0)).isEqualTo("trace-99");
+        assertThat(attributeIndex.findTraceIds(Map.of("region", "eu-west-1", "late", "yes"))).containsExactly("trace-5");
+    }
+
+    @Test
+    void findTraceIds_WithUnknownTag_ShouldReturnEmptyList() {
+        // Given
+        attributeIndex.index(createEvent("trace-1", "{\"region\":\"eu-west-1\"}"));
+
+        // Then
+        assertThat(attributeIndex.findTraceIds(Map.of("region", "ap-south-1"))).isEmpty();
+    }
+
+    @Test
+    void prune_ShouldDropRetiredTraces() {
+        // Given
+        TraceEvent old = createEvent("trace-old", "{\"region\":\"eu-west-1\"}");
+        old.setTimestamp(LocalDateTime.now().minusDays(10));
+        attributeIndex.index(old);
+        attributeIndex.index(createEvent("trace-new", "{\"region\":\"eu-west-1\",\"tier\":\"gold\"}"));
+        attributeIndex.index(createEvent("trace-other", "{\"tier\":\"silver\"}"));
+        long sizeBefore = attributeIndex.getSizeBytes();
+
+        // When
+        traceDictionary.retireBefore(EpochMicros.of(LocalDateTime.now().minusDays(7)));
+        attributeIndex.prune(EpochMicros.of(LocalDateTime.now().minusDays(7)));
+
+        // Then
+        assertThat(attributeIndex.findTraceIds(Map.of("region", "eu-west-1"))).containsExactly("trace-new");
+        assertThat(attributeIndex.getTermCount()).isEqualTo(3);
+        assertThat(attributeIndex.getSizeBytes()).isLessThanOrEqualTo(sizeBefore);
+    }
+
+    @Test
+    void compact_AfterMostTracesRetire_ShouldRenumberPostingsAndKeepNewestFirstOrder() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            TraceEvent old = createEvent("trace-old-" + i, "{\"region\":\"eu-west-1\"}");
+            old.setTimestamp(LocalDateTime.now().minusDays(10));
+            attributeIndex.index(old);
+        }
+        attributeIndex.index(createEvent("trace-new-1", "{\"region\":\"eu-west-1\"}"));
+        attributeIndex.index(createEvent("trace-new-2", "{\"region\":\"eu-west-1\",\"tier\":\"gold\"}"));
+        traceDictionary.retireBefore(EpochMicros.of(LocalDateTime.now().minusDays(7)));
+        attributeIndex.prune(EpochMicros.of(LocalDateTime.now().minusDays(7)));
+
+        // When
+        boolean compacted = traceDictionary.compact(attributeIndex::renumber);
+        attributeIndex.index(createEvent("trace-new-3", "{\"region\":\"eu-west-1\"}"));
+
+        // Then
+        assertThat(compacted).isTrue();
+        assertThat(traceDictionary.traceId(0)).isEqualTo("trace-new-1");
+        assertThat(traceDictionary.traceId(2)).isEqualTo("trace-new-3");
+        assertThat(attributeIndex.findTraceIds(Map.of("region", "eu-west-1")))
+            .containsExactly("trace-new-3", "trace-new-2", "trace-new-1");
+        assertThat(attributeIndex.findTraceIds(Map.of("tier", "gold"))).containsExactly("trace-new-2");
+        assertThat(traceDictionary.compact(attributeIndex::renumber)).isFalse();
+    }
+
+    private TraceEvent createEvent(String traceId, String metadata) {
+        TraceEvent event = new TraceEvent(traceId, "span-" + traceId, "payment-service", "charge");
+        event.setMetadata(metadata);
+        return event;
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.telemetryservice.index;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FullTextIndexTest {
+
+    private static final Set<FullTextIndex.Field> ALL_FIELDS = EnumSet.allOf(FullTextIndex.Field.class);
+
+    private TraceDictionary traceDictionary;
+    private FullTextIndex fullTextIndex;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        traceDictionary = new TraceDictionary();
+        fullTextIndex = new FullTextIndex();
+        ReflectionTestUtils.setField(fullTextIndex, "traceDictionary", traceDictionary);
+        ReflectionTestUtils.setField(fullTextIndex, "enabled", true);
+        ReflectionTestUtils.setField(fullTextIndex, "bucketMinutes", 60L);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void findTraceIds_ShouldMatchAllWordsCaseInsensitively() {
+        // Given
+        fullTextIndex.index(createEvent("trace-1", "Payment failed: Card declined by issuer", "/api/payments/charge", now.minusMinutes(5)));
+        fullTextIndex.index(createEvent("trace-2", "Card expired", "/api/payments/charge", now.minusMinutes(4)));
+
+        // When
+        List<String> result = fullTextIndex.findTraceIds("card DECLINED", ALL_FIELDS, EpochMicros.of(now.minusHours(1)), EpochMicros.of(now));
+
+        // Then
+        assertThat(result).containsExactly("trace-1");
+    }
+
+    @Test
+    void findTraceIds_ShouldMatchLastWordAsPrefix() {
+        // Given
+        fullTextIndex.index(createEvent("trace-1", "Card declined by issuer", null, now));
+
+        // Then
+        assertThat(fullTextIndex.findTraceIds("card declin", ALL_FIELDS, EpochMicros.of(now.minusHours(1)), EpochMicros.of(now))).containsExactly("trace-1");
+        assertThat(fullTextIndex.findTraceIds("card declinx", ALL_FIELDS, EpochMicros.of(now.minusHours(1)), EpochMicros.of(now))).isEmpty();
+    }
+
+    @Test
+    void findTraceIds_ShouldRestrictToRequestedField() {
+        // Given
+        fullTextIndex.index(createEvent("trace-1", "Timeout calling orders", "/api/payments", now));
+        fullTextIndex.index(createEvent("trace-2", null, "/api/orders/42?expand=items", now));
+
+        // Then
+        assertThat(fullTextIndex.findTraceIds("orders", EnumSet.of(FullTextIndex.Field.HTTP_URL), EpochMicros.of(now.minusHours(1)), EpochMicros.of(now)))
+            .containsExactly("trace-2");
+        assertThat(fullTextIndex.findTraceIds("orders", ALL_FIELDS, EpochMicros.of(now.minusHours(1)), EpochMicros.of(now)))
+            .containsExactly("trace-2", "trace-1");
+        assertThat(fullTextIndex.findTraceIds("/api/orders/42", ALL_FIELDS, EpochMicros.of(now.minusHours(1)), EpochMicros.of(now)))
+            .containsExactly("trace-2");
+    }
+
+    @Test
+    void findTraceIds_ShouldOnlySearchBucketsInsideWindow() {
+        // Given
+        fullTextIndex.index(createEvent("trace-old", "card declined", null, now.minusDays(2)));
+        fullTextIndex.index(createEvent("trace-new", "card declined", null, now));
+
+        // Then
+        assertThat(fullTextIndex.findTraceIds("card declined", ALL_FIELDS, EpochMicros.of(now.minusHours(1)), EpochMicros.of(now))).containsExactly("trace-new");
+        assertThat(fullTextIndex.findTraceIds("card declined", ALL_FIELDS, EpochMicros.of(now.minusDays(3)), EpochMicros.of(now))).containsExactly("trace-new", "trace-old");
+    }
+
+    @Test
+    void prune_ShouldDropBucketsOlderThanCutoff() {
+        // Given
+        fullTextIndex.index(createEvent("trace-old", "card declined", null, now.minusDays(10)));
+        fullTextIndex.index(createEvent("trace-new", "card declined", null, now));
+
+        // When
+        traceDictionary.retireBefore(EpochMicros.of(now.minusDays(7)));
+        fullTextIndex.prune(EpochMicros.of(now.minusDays(7)));
+
+        // Then
+        assertThat(fullTextIndex.getBucketCount()).isEqualTo(1);
+        assertThat(fullTextIndex.findTraceIds("card declined", ALL_FIELDS, EpochMicros.of(now.minusDays(30)), EpochMicros.of(now))).containsExactly("trace-new");
+    }
+
+    @Test
+    void tokenize_ShouldSplitOnNonAlphanumericsAndLowerCase() {
+        assertThat(FullTextIndex.tokenize("/api/Orders/42?expand=items&expand=items"))
+            .containsExactly("api", "orders", "42", "expand", "items");
+        assertThat(FullTextIndex.tokenize(null)).isEmpty();
+        assertThat(FullTextIndex.tokenize("  --  ")).isEmpty();
+    }
+
+    @Test
+    void index_WithoutSearchableText_ShouldNotTrackTrace() {
+        // When
+        fullTextIndex.index(createEvent("trace-1", null, null, now));
+
+        // Then
+        assertThat(fullTextIndex.getTermCount()).isZero();
+        assertThat(traceDictionary.getTraceCount()).isZero();
+    }
+
+    private TraceEvent createEvent(String traceId, String errorMessage, String httpUrl, LocalDateTime timestamp) {
+        TraceEvent event = new TraceEvent(traceId, "span-" + traceId, "payment-service", "charge");
+        event.setErrorMessage(errorMessage);
+        event.setHttpUrl(httpUrl);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.telemetryservice.ingest;
+
+import com.ecommerce.telemetryservice.model.UrlTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UrlTemplaterTest {
+
+    private UrlTemplater urlTemplater;
+
+    @BeforeEach
+    void setUp() {
+        urlTemplater = new UrlTemplater();
+        ReflectionTestUtils.setField(urlTemplater, "rules", new String[] {"/api/products/{sku}"});
+        ReflectionTestUtils.setField(urlTemplater, "maxLiteralChildren", 5);
+        ReflectionTestUtils.setField(urlTemplater, "maxNodes", 1000);
+        urlTemplater.init();
+    }
+
+    @Test
+    void template_ShouldReplaceNumericAndUuidSegments() {
+        assertThat(urlTemplater.template("/orders/83412/items/9")).isEqualTo("/orders/{id}/items/{id}");
+        assertThat(urlTemplater.template("/api/orders/8e2b7c1a-0d6f-4b5e-9a31-2c8f4d7e6b90")).isEqualTo("/api/orders/{id}");
+    }
+
+    @Test
+    void template_ShouldReplacePrefixedIdentifiersAndHexTokens() {
+        assertThat(urlTemplater.template("/api/payments/pay_88231/refund")).isEqualTo("/api/payments/{id}/refund");
+        assertThat(urlTemplater.template("/tokens/9f86d081884c7d65")).isEqualTo("/tokens/{id}");
+        assertThat(urlTemplater.template("/api/v1/health")).isEqualTo("/api/v1/health");
+    }
+
+    @Test
+    void template_ShouldStripSchemeHostQueryAndFragment() {
+        assertThat(urlTemplater.template("http://example.com/api/orders/42?expand=items#top")).isEqualTo("/api/orders/{id}");
+        assertThat(urlTemplater.template("https://example.com")).isEqualTo("/");
+        assertThat(urlTemplater.template(null)).isNull();
+    }
+
+    @Test
+    void template_ShouldApplyConfiguredRules() {
+        assertThat(urlTemplater.template("/api/products/blue-widget")).isEqualTo("/api/products/{sku}");
+        assertThat(urlTemplater.template("/api/products/SKU-1")).isEqualTo("/api/products/{sku}");
+    }
+
+    @Test
+    void template_ShouldCollapseNodeAfterTooManyDistinctLiterals() {
+        // Given
+        for (char c = 'a'; c < 'a' + 5; c++) {
+            urlTemplater.template("/blog/post-title-" + c);
+        }
+
+        // When
+        String template = urlTemplater.template("/blog/post-title-z");
+
+        // Then
+        assertThat(template).isEqualTo("/blog/{id}");
+        assertThat(urlTemplater.template("/blog/post-title-a")).isEqualTo("/blog/post-title-a");
+    }
+
+    @Test
+    void template_WithManyDistinctIds_ShouldKeepTrieBounded() {
+        // Given
+        int nodesBefore = urlTemplater.getNodeCount();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            urlTemplater.template("/api/orders/" + i + "/items/" + (i % 7));
+        }
+
+        // Then
+        assertThat(urlTemplater.getNodeCount() - nodesBefore).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void template_WithKilobyteSegment_ShouldReplaceItWithId() {
+        // Given
+        String path = "/files/" + "report-final-".repeat(80) + "/download";
+
+        // When
+        String template = urlTemplater.template(path);
+
+        // Then
+        assertThat(path.length()).isGreaterThan(1024);
+        assertThat(template).isEqualTo("/files/{id}/download");
+    }
+
+    @Test
+    void template_WithKilobyteOfShortSegments_ShouldFitTheDictionaryColumn() {
+        // Given
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            path.append('/').append("section-").append((char) ('a' + i)).append("-of-a-very-deeply-nested-static-page");
+        }
+
+        // When
+        String template = urlTemplater.template(path.toString());
+
+        // Then
+        assertThat(path.length()).isGreaterThan(1024);
+        assertThat(template).hasSizeLessThanOrEqualTo(UrlTemplate.MAX_LENGTH)
+            .startsWith("/section-a-of-a-very-deeply-nested-static-page/")
+            .endsWith("/*");
+    }
+}
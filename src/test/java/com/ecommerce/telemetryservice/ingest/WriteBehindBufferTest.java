@@ -0,0 +1,159 @@
+package com.ecommerce.telemetryservice.ingest;
+
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WriteBehindBufferTest {
+
+    private WriteBehindBuffer buffer;
+    private List<List<TraceEvent>> written;
+    private boolean failWrites;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new WriteBehindBuffer();
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "maxSpans", 5);
+        ReflectionTestUtils.setField(buffer, "maxAgeMs", 60_000L);
+        ReflectionTestUtils.setField(buffer, "flushBatchSize", 2);
+        written = new ArrayList<>();
+        buffer.setWriter(events -> {
+            if (failWrites) {
+                throw new IllegalStateException("database unavailable");
+            }
+            written.add(List.copyOf(events));
+        });
+    }
+
+    @Test
+    void findByTraceId_ShouldReturnBufferedSpansUntilTheyAreWritten() {
+        // Given
+        buffer.add(List.of(span("trace-1", "span-1"), span("trace-2", "span-2"), span("trace-1", "span-3")));
+
+        // When
+        List<TraceEvent> before = buffer.findByTraceId("trace-1");
+        buffer.flush();
+        List<TraceEvent> after = buffer.findByTraceId("trace-1");
+
+        // Then
+        assertThat(before).extracting(TraceEvent::getSpanId).containsExactly("span-1", "span-3");
+        assertThat(after).isEmpty();
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0)).hasSize(3);
+        assertThat(buffer.getPendingCount()).isZero();
+    }
+
+    @Test
+    void flush_ShouldWriteInBatchesOfTheConfiguredSize() {
+        // Given
+        buffer.add(List.of(span("trace-1", "span-1")));
+        buffer.add(List.of(span("trace-1", "span-2")));
+        buffer.add(List.of(span("trace-1", "span-3")));
+
+        // When
+        buffer.flush();
+
+        // Then
+        assertThat(written).extracting(List::size).containsExactly(2, 1);
+    }
+
+    @Test
+    void add_WhenFull_ShouldFlushOnTheIngestingThread() {
+        // Given
+        buffer.add(List.of(span("trace-1", "span-1"), span("trace-1", "span-2"), span("trace-1", "span-3")));
+
+        // When
+        buffer.add(List.of(span("trace-2", "span-4"), span("trace-2", "span-5"), span("trace-2", "span-6")));
+
+        // Then
+        assertThat(written).isNotEmpty();
+        assertThat(buffer.getPendingCount()).isEqualTo(3);
+        assertThat(buffer.findByTraceId("trace-1")).isEmpty();
+        assertThat(buffer.findByTraceId("trace-2")).hasSize(3);
+    }
+
+    @Test
+    void add_WhenFullAndWritesFail_ShouldRejectAndKeepBufferedSpans() {
+        // Given
+        buffer.add(List.of(span("trace-1", "span-1"), span("trace-1", "span-2"), span("trace-1", "span-3")));
+        failWrites = true;
+
+        // When / Then
+        assertThatThrownBy(() -> buffer.add(List.of(span("trace-2", "span-4"), span("trace-2", "span-5"), span("trace-2", "span-6"))))
+            .isInstanceOf(WriteBehindFullException.class);
+        assertThat(buffer.findByTraceId("trace-1")).hasSize(3);
+        assertThat(buffer.findByTraceId("trace-2")).isEmpty();
+
+        failWrites = false;
+        buffer.flush();
+        assertThat(buffer.findByTraceId("trace-1")).isEmpty();
+    }
+
+    @Test
+    void add_FromConcurrentThreads_ShouldNeverHoldMoreThanMaxSpans() throws Exception {
+        // Given: writes fail, so nothing leaves the buffer and every add past the limit must be rejected
+        failWrites = true;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> adds = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 40; i++) {
+            TraceEvent span = span("trace-" + i, "span-" + i);
+            adds.add(executor.submit(() -> {
+                start.await();
+                try {
+                    buffer.add(List.of(span));
+                    accepted.incrementAndGet();
+                } catch (WriteBehindFullException e) {
+                    // buffer full
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> add : adds) {
+            add.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(accepted.get()).isEqualTo(5);
+        assertThat(buffer.getPendingCount()).isEqualTo(5);
+    }
+
+    @Test
+    void flushExpired_ShouldOnlyWriteSpansOlderThanMaxAge() {
+        // Given
+        buffer.add(List.of(span("trace-1", "span-1")));
+
+        // When
+        buffer.flushExpired();
+        ReflectionTestUtils.setField(buffer, "maxAgeMs", 0L);
+        int pendingBeforeExpiry = buffer.getPendingCount();
+        buffer.flushExpired();
+
+        // Then
+        assertThat(pendingBeforeExpiry).isEqualTo(1);
+        assertThat(buffer.getPendingCount()).isZero();
+    }
+
+    private static TraceEvent span(String traceId, String spanId) {
+        return new TraceEvent(traceId, spanId, "order-service", "create_order");
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.telemetryservice.live;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LiveMetricsTest {
+
+    private LiveMetrics liveMetrics;
+
+    @BeforeEach
+    void setUp() {
+        liveMetrics = new LiveMetrics();
+        ReflectionTestUtils.setField(liveMetrics, "enabled", true);
+    }
+
+    @Test
+    void window_ShouldSumOnlyTheSecondsInsideIt() {
+        // Given
+        long now = EpochMicros.now();
+        liveMetrics.recordAll(List.of(
+            span("create_order", TraceEvent.Status.SUCCESS, now, 10_000),
+            span("create_order", TraceEvent.Status.ERROR, now - 1_000_000L, 30_000),
+            span("create_order", TraceEvent.Status.SUCCESS, now - 120_000_000L, 500_000),
+            span("cancel_order", TraceEvent.Status.SUCCESS, now - 600_000_000L, 20_000),
+            span("cancel_order", TraceEvent.Status.SUCCESS, now - 3_600_000_000L, 20_000)));
+
+        // When
+        Map<String, LiveWindow> lastMinute = liveMetrics.window("order-service", 60);
+        Map<String, LiveWindow> lastQuarter = liveMetrics.window("order-service", 900);
+
+        // Then
+        assertThat(lastMinute).containsOnlyKeys("create_order");
+        LiveWindow orders = lastMinute.get("create_order");
+        assertThat(orders.getRequestCount()).isEqualTo(2);
+        assertThat(orders.getErrorRate()).isEqualTo(50.0);
+        assertThat(orders.getAverageDurationMicros()).isEqualTo(20_000.0);
+        assertThat(orders.getMaxDurationMicros()).isEqualTo(30_000);
+        assertThat(lastQuarter.get("create_order").getRequestCount()).isEqualTo(3);
+        assertThat(lastQuarter.get("create_order").getMaxDurationMicros()).isEqualTo(500_000);
+        // The span an hour old is older than the ring and not counted
+        assertThat(lastQuarter.get("cancel_order").getRequestCount()).isEqualTo(1);
+        assertThat(liveMetrics.window("payment-service", 60)).isEmpty();
+        assertThatThrownBy(() -> liveMetrics.window("order-service", 3600)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void record_FromManyThreads_ShouldCountEverySpan() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        long now = EpochMicros.now();
+        List<Future<?>> writers = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    liveMetrics.record(span("create_order", i % 10 == 0 ? TraceEvent.Status.ERROR : TraceEvent.Status.SUCCESS,
+                        now - (i % 30) * 1_000_000L, 1_000));
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Then
+        LiveWindow window = liveMetrics.window("order-service", 300).get("create_order");
+        assertThat(window.getRequestCount()).isEqualTo(80_000);
+        assertThat(window.getErrorCount()).isEqualTo(8_000);
+        assertThat(window.getAverageDurationMicros()).isEqualTo(1_000.0);
+    }
+
+    @Test
+    void prune_ShouldDropRingsWithoutRecentSpans() {
+        // Given
+        liveMetrics.record(span("create_order", TraceEvent.Status.SUCCESS, EpochMicros.now(), 1_000));
+
+        // When
+        liveMetrics.prune();
+
+        // Then
+        assertThat(liveMetrics.getRingCount()).isEqualTo(1);
+    }
+
+    private static TraceEvent span(String operation, TraceEvent.Status status, long timestampMicros, long durationMicros) {
+        TraceEvent span = new TraceEvent("trace-1", "span-1", "order-service", operation);
+        span.setStatus(status);
+        span.setTimestampMicros(timestampMicros);
+        span.setDurationMicros(durationMicros);
+        return span;
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.telemetryservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KeysetCursorTest {
+
+    @Test
+    void encode_ShouldRoundTripAsUrlSafeToken() {
+        // Given
+        KeysetCursor cursor = new KeysetCursor(1_705_312_800_123_456L, "trace/ä+1");
+
+        // When
+        String token = cursor.encode();
+
+        // Then
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_WithNullOrEmptyToken_ShouldStartFromTheFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("")).isNull();
+    }
+
+    @Test
+    void decode_WithMalformedToken_ShouldFail() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("AQI")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("CQAAAAAAAAAAdA")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecommerce.telemetryservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MetadataCodecTest {
+
+    @Test
+    void encode_WithTypicalPayload_ShouldCompressUsingSharedDictionary() {
+        // Given
+        String metadata = "{\"paymentId\":\"pay_88231\",\"orderId\":\"order_551902\",\"paymentProvider\":\"stripe\","
+            + "\"paymentMethod\":\"CREDIT_CARD\",\"amount\":249.50,\"region\":\"eu-west-1\"}";
+
+        // When
+        byte[] encoded = MetadataCodec.encode(metadata);
+
+        // Then
+        assertThat(encoded[0]).isEqualTo(MetadataCodec.FORMAT_DEFLATE_DICT_V1);
+        assertThat(encoded.length).isLessThan(metadata.length() / 2);
+        assertThat(MetadataCodec.decode(encoded, rawLength(metadata))).isEqualTo(metadata);
+    }
+
+    @Test
+    void encode_WithShortPayload_ShouldStoreRaw() {
+        // Given
+        String metadata = "{\"k\":1}";
+
+        // When
+        byte[] encoded = MetadataCodec.encode(metadata);
+
+        // Then
+        assertThat(encoded[0]).isEqualTo(MetadataCodec.FORMAT_RAW);
+        assertThat(encoded).hasSize(metadata.length() + 1);
+        assertThat(MetadataCodec.decode(encoded, rawLength(metadata))).isEqualTo(metadata);
+    }
+
+    @Test
+    void encode_WithNonAsciiPayload_ShouldRoundTrip() {
+        // Given
+        String metadata = "{\"customerName\":\"Zoë Müller\",\"city\":\"Kraków\",\"note\":\"配送 — 急ぎ\",\"currency\":\"EUR\"}";
+
+        // When
+        byte[] encoded = MetadataCodec.encode(metadata);
+
+        // Then
+        assertThat(MetadataCodec.decode(encoded, rawLength(metadata))).isEqualTo(metadata);
+    }
+
+    @Test
+    void encode_OnSampleCorpus_ShouldCompressWellBeyondPlainDeflate() {
+        // Given: payloads shaped like those of the order, payment, product, user and notification services
+        List<String> corpus = sampleCorpus();
+        long rawBytes = 0;
+        long storedBytes = 0;
+        long plainDeflateBytes = 0;
+
+        // When
+        for (String metadata : corpus) {
+            byte[] raw = metadata.getBytes(StandardCharsets.UTF_8);
+            byte[] encoded = MetadataCodec.encode(metadata);
+            assertThat(MetadataCodec.decode(encoded, raw.length)).isEqualTo(metadata);
+            rawBytes += raw.length;
+            storedBytes += encoded.length;
+            plainDeflateBytes += Math.min(plainDeflate(raw), raw.length) + 1;
+        }
+
+        // Then: about 2.8x with the dictionary against 1.2x without on this corpus
+        assertThat((double) rawBytes / storedBytes).isGreaterThan(2.5);
+        assertThat(storedBytes).isLessThan(plainDeflateBytes / 2);
+    }
+
+    @Test
+    void decode_WithUnknownFormat_ShouldFail() {
+        assertThatThrownBy(() -> MetadataCodec.decode(new byte[] {9, 1, 2}, 2))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    private int rawLength(String metadata) {
+        return metadata.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static List<String> sampleCorpus() {
+        String[] providers = {"stripe", "paypal"};
+        String[] regions = {"us-east-1", "eu-west-1"};
+        String[] currencies = {"USD", "EUR"};
+        String[] categories = {"electronics", "books", "garden"};
+        List<String> corpus = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String orderId = "order_" + (550000 + i * 7);
+            String userId = "user_" + (i * 13 % 997);
+            corpus.add("{\"orderId\":\"" + orderId + "\",\"userId\":\"" + userId + "\",\"totalAmount\":" + (19 + i % 300)
+                + "." + String.format("%02d", i % 100) + ",\"currency\":\"" + currencies[i % 2] + "\",\"status\":\"PENDING\"}");
+            corpus.add("{\"paymentId\":\"pay_" + (88000 + i) + "\",\"orderId\":\"" + orderId + "\",\"paymentProvider\":\""
+                + providers[i % 2] + "\",\"paymentMethod\":\"CREDIT_CARD\",\"amount\":" + (19 + i % 300) + ".50,\"region\":\""
+                + regions[i % 2] + "\",\"transactionId\":\"txn_" + Integer.toHexString(0x5f3a00 + i * 31) + "\"}");
+            corpus.add("{\"productId\":\"prod_" + (1000 + i) + "\",\"sku\":\"SKU-" + (40000 + i * 3) + "\",\"category\":\""
+                + categories[i % 3] + "\",\"inventory\":{\"stock\":" + (i * 17 % 250) + "},\"price\":" + (5 + i % 90) + ".99}");
+            corpus.add("{\"userId\":\"" + userId + "\",\"username\":\"customer" + i + "\",\"email\":\"customer" + i
+                + "@example.com\",\"role\":\"CUSTOMER\",\"region\":\"" + regions[i / 2 % 2] + "\"}");
+            corpus.add("{\"notificationType\":\"EMAIL\",\"template\":\"order_confirmation\",\"userId\":\"" + userId
+                + "\",\"orderId\":\"" + orderId + "\",\"channel\":\"SMS\",\"status\":\"SUCCESS\"}");
+        }
+        return corpus;
+    }
+
+    private static int plainDeflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[raw.length * 2 + 64];
+            return deflater.deflate(out);
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.telemetryservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TraceBlobCodecTest {
+
+    @Test
+    void encode_ShouldRoundTripEveryField() {
+        // Given
+        TraceEvent root = span(100L, "span-1", null, 1_700_000_000_000_000L);
+        root.setHttpMethod("POST");
+        root.setHttpUrl("/api/orders/551902");
+        root.setUrlTemplateId(7);
+        root.setHttpStatusCode(201);
+        root.setUserId("user_2");
+        root.setCorrelationId("corr-9");
+        root.setMetadata("{\"orderId\":\"order_551902\",\"note\":\"Zoë\"}");
+        TraceEvent child = span(97L, "span-2", "span-1", 1_700_000_000_000_500L);
+        child.setStatus(TraceEvent.Status.ERROR);
+        child.setErrorMessage("Card declined");
+        child.setDurationMicros(TraceEvent.NO_DURATION);
+        child.setEventType(null);
+
+        // When
+        TraceBlobCodec.Encoded encoded = TraceBlobCodec.encode(List.of(child, root));
+        List<TraceEvent> decoded = TraceBlobCodec.decode("trace-1", encoded.payload(), encoded.rawLength());
+
+        // Then
+        assertThat(encoded.payload()[0]).isEqualTo(TraceBlobCodec.FORMAT_COLUMNAR_DEFLATE_V1);
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(0)).usingRecursiveComparison().ignoringFields("metadataBlob").isEqualTo(root);
+        assertThat(decoded.get(1)).usingRecursiveComparison().ignoringFields("metadataBlob").isEqualTo(child);
+    }
+
+    @Test
+    void encode_WithTypicalTrace_ShouldBeMuchSmallerThanItsFields() {
+        // Given
+        List<TraceEvent> spans = new ArrayList<>();
+        int rawFieldBytes = 0;
+        for (int i = 0; i < 50; i++) {
+            TraceEvent span = span(1_000L + i, "span-" + i, i == 0 ? null : "span-0", 1_700_000_000_000_000L + i * 1_250L);
+            span.setHttpMethod("GET");
+            span.setHttpUrl("/api/products/" + (4_000 + i));
+            span.setMetadata("{\"region\":\"eu-west-1\",\"cache\":\"miss\",\"attempt\":" + (i % 3) + "}");
+            spans.add(span);
+            rawFieldBytes += 8 + 8 + 8 + span.getSpanId().length() + span.getServiceName().length()
+                + span.getOperation().length() + span.getHttpUrl().length() + span.getMetadata().length();
+        }
+
+        // When
+        TraceBlobCodec.Encoded encoded = TraceBlobCodec.encode(spans);
+
+        // Then
+        assertThat(encoded.payload().length).isLessThan(rawFieldBytes / 5);
+        assertThat(TraceBlobCodec.decode("trace-1", encoded.payload(), encoded.rawLength()))
+            .extracting(TraceEvent::getHttpUrl)
+            .containsExactlyElementsOf(spans.stream().map(TraceEvent::getHttpUrl).toList());
+    }
+
+    @Test
+    void decode_WithUnknownFormat_ShouldFail() {
+        assertThatThrownBy(() -> TraceBlobCodec.decode("trace-1", new byte[] {9, 1, 2}, 2))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    private TraceEvent span(long id, String spanId, String parentSpanId, long timestampMicros) {
+        TraceEvent span = new TraceEvent("trace-1", spanId, "order-service", "create_order");
+        span.setId(id);
+        span.setParentSpanId(parentSpanId);
+        span.setTimestampMicros(timestampMicros);
+        span.setDurationMicros(12_345L);
+        span.setStatus(TraceEvent.Status.SUCCESS);
+        span.setEventType(TraceEvent.EventType.SPAN);
+        return span;
+    }
+}
@@ -8,6 +8,9 @@ import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -162,6 +165,34 @@ public class TraceEventTest {
         assertThat(traceEvent.getCorrelationId()).isEqualTo("corr-456");
     }
 
+    @Test
+    void timestampAndDuration_ShouldBeHeldAsEpochMicros() {
+        // Given
+        LocalDateTime timestamp = LocalDateTime.of(2024, 3, 1, 12, 0, 0, 123_456_000);
+
+        // When
+        traceEvent.setTimestamp(timestamp);
+        traceEvent.setDurationMicros(1_500L);
+
+        // Then
+        assertThat(traceEvent.getTimestampMicros()).isEqualTo(EpochMicros.of(timestamp));
+        assertThat(traceEvent.getTimestamp()).isEqualTo(timestamp);
+        assertThat(traceEvent.getDurationMicros()).isEqualTo(1_500L);
+        assertThat(traceEvent.getDurationMs()).isEqualTo(1L);
+        assertThat(traceEvent.hasDuration()).isTrue();
+    }
+
+    @Test
+    void durationMs_WhenNotReported_ShouldBeNull() {
+        // When
+        traceEvent.setDurationMs(null);
+
+        // Then
+        assertThat(traceEvent.getDurationMs()).isNull();
+        assertThat(traceEvent.getDurationMicros()).isEqualTo(TraceEvent.NO_DURATION);
+        assertThat(traceEvent.hasDuration()).isFalse();
+    }
+
     @Test
     void eventTypeEnum_ShouldHaveCorrectValues() {
         // Then
@@ -242,7 +273,7 @@ public class TraceEventTest {
     @Test
     void traceEventConstructor_ShouldSetTimestampToCurrentTime() {
         // Given
-        LocalDateTime before = LocalDateTime.now();
+        LocalDateTime before = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
         // When
         TraceEvent event = new TraceEvent();
@@ -288,4 +319,37 @@ public class TraceEventTest {
         // Then
         assertThat(violations).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void metadata_AfterPersistAndLoad_ShouldDecompressOnlyWhenRead() {
+        // Given
+        String metadata = "{\"orderId\":\"order_42\",\"paymentProvider\":\"paypal\",\"region\":\"us-east-1\",\"currency\":\"EUR\"}";
+        traceEvent.setMetadata(metadata);
+        traceEvent.compressMetadata();
+        List<Integer> decodedSizes = new ArrayList<>();
+
+        // When
+        traceEvent.deferMetadata();
+        traceEvent.onMetadataDecode(decodedSizes::add);
+
+        // Then
+        assertThat(decodedSizes).isEmpty();
+        assertThat(traceEvent.getMetadata()).isEqualTo(metadata);
+        assertThat(traceEvent.getMetadata()).isEqualTo(metadata);
+        assertThat(decodedSizes).containsExactly(metadata.length());
+    }
+
+    @Test
+    void setMetadata_OnLoadedEvent_ShouldReplaceStoredPayload() {
+        // Given
+        traceEvent.setMetadata("{\"orderId\":\"order_1\"}");
+        traceEvent.compressMetadata();
+
+        // When
+        traceEvent.setMetadata("{\"orderId\":\"order_2\"}");
+        traceEvent.deferMetadata();
+
+        // Then
+        assertThat(traceEvent.getMetadata()).isEqualTo("{\"orderId\":\"order_2\"}");
+    }
+}
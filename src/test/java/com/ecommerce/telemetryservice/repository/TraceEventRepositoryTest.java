@@ -1,5 +1,7 @@
 package com.ecommerce.telemetryservice.repository;
 
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.KeysetCursor;
 import com.ecommerce.telemetryservice.model.TraceEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -24,6 +27,9 @@ public class TraceEventRepositoryTest {
     @Autowired
     private TraceEventRepository traceEventRepository;
 
+    @Autowired
+    private TraceEventMetadataRepository traceEventMetadataRepository;
+
     private TraceEvent testTraceEvent;
 
     @BeforeEach
@@ -82,37 +88,6 @@ public class TraceEventRepositoryTest {
         assertThat(result).isEmpty();
     }
 
-    @Test
-    void findByServiceNameOrderByTimestampDesc_ShouldReturnEventsDescending() {
-        // Given
-        LocalDateTime now = LocalDateTime.now();
-        
-        TraceEvent event1 = new TraceEvent();
-        event1.setTraceId("trace-1");
-        event1.setSpanId("span-1");
-        event1.setServiceName("test-service");
-        event1.setOperation("operation-1");
-        event1.setTimestamp(now.minusMinutes(2));
-
-        TraceEvent event2 = new TraceEvent();
-        event2.setTraceId("trace-2");
-        event2.setSpanId("span-2");
-        event2.setServiceName("test-service");
-        event2.setOperation("operation-2");
-        event2.setTimestamp(now.minusMinutes(1));
-
-        entityManager.persistAndFlush(event1);
-        entityManager.persistAndFlush(event2);
-
-        // When
-        List<TraceEvent> result = traceEventRepository.findByServiceNameOrderByTimestampDesc("test-service");
-
-        // Then
-        assertThat(result).hasSize(2);
-        assertThat(result.get(0).getTraceId()).isEqualTo("trace-2");
-        assertThat(result.get(1).getTraceId()).isEqualTo("trace-1");
-    }
-
     @Test
     void findDistinctServiceNames_ShouldReturnUniqueServiceNames() {
         // Given
@@ -242,7 +217,7 @@ public class TraceEventRepositoryTest {
         entityManager.persistAndFlush(event2);
 
         // When
-        long result = traceEventRepository.countRecentEvents(now.minusHours(1));
+        long result = traceEventRepository.countRecentEvents(EpochMicros.of(now.minusHours(1)));
 
         // Then
         assertThat(result).isEqualTo(1);
@@ -272,7 +247,7 @@ public class TraceEventRepositoryTest {
 
         // When - Call the repository method but expect it to work
         try {
-            long deletedCount = traceEventRepository.deleteByTimestampBefore(cutoff);
+            long deletedCount = traceEventRepository.deleteByTimestampBefore(EpochMicros.of(cutoff));
             
             // Then
             assertThat(deletedCount).isGreaterThanOrEqualTo(0);
@@ -368,7 +343,7 @@ public class TraceEventRepositoryTest {
         entityManager.persistAndFlush(afterRange);
 
         // When
-        List<TraceEvent> result = traceEventRepository.findByTimestampBetween(start, end);
+        List<TraceEvent> result = traceEventRepository.findByTimestampBetween(EpochMicros.of(start), EpochMicros.of(end));
 
         // Then
         assertThat(result).hasSize(1);
@@ -428,4 +403,164 @@ public class TraceEventRepositoryTest {
         TraceEvent found = entityManager.find(TraceEvent.class, eventId);
         assertThat(found).isNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    void saveTraceEvent_WithMetadata_ShouldStoreCompressedAndDecodeOnRead() {
+        // Given
+        String metadata = "{\"orderId\":\"order_1001\",\"paymentProvider\":\"stripe\",\"currency\":\"USD\",\"region\":\"eu-west-1\",\"amount\":129.99}";
+        testTraceEvent.setMetadata(metadata);
+        Long eventId = entityManager.persistAndFlush(testTraceEvent).getId();
+        entityManager.clear();
+
+        // When
+        TraceEvent found = traceEventRepository.findById(eventId).orElseThrow();
+
+        // Then
+        assertThat(traceEventMetadataRepository.count()).isEqualTo(1);
+        assertThat(traceEventMetadataRepository.findAll().get(0).getStoredLength()).isLessThan(metadata.length());
+        assertThat(found.getMetadata()).isEqualTo(metadata);
+    }
+
+    @Test
+    void deleteOrphans_ShouldRemoveMetadataOfBulkDeletedEvents() {
+        // Given
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(1);
+        testTraceEvent.setTimestamp(cutoff.minusHours(1));
+        testTraceEvent.setMetadata("{\"orderId\":\"order_1\"}");
+        TraceEvent kept = new TraceEvent("trace-kept", "span-kept", "test-service", "test_operation");
+        kept.setMetadata("{\"orderId\":\"order_2\"}");
+        entityManager.persist(testTraceEvent);
+        entityManager.persistAndFlush(kept);
+        traceEventRepository.deleteByTimestampBefore(EpochMicros.of(cutoff));
+
+        // When
+        int removed = traceEventMetadataRepository.deleteOrphans();
+        entityManager.clear();
+
+        // Then
+        assertThat(removed).isEqualTo(1);
+        assertThat(traceEventMetadataRepository.count()).isEqualTo(1);
+        assertThat(traceEventRepository.findById(kept.getId()).orElseThrow().getMetadata()).isEqualTo("{\"orderId\":\"order_2\"}");
+    }
+
+    @Test
+    void aggregateByUrlTemplate_ShouldGroupByMethodAndTemplate() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            TraceEvent event = new TraceEvent("trace-" + i, "span-" + i, "order-service", "get_order");
+            event.setHttpMethod("GET");
+            event.setHttpUrl("/api/orders/" + i);
+            event.setUrlTemplateId(1);
+            event.setDurationMs(100L * (i + 1));
+            event.setStatus(i == 0 ? TraceEvent.Status.ERROR : TraceEvent.Status.SUCCESS);
+            entityManager.persist(event);
+        }
+        TraceEvent withoutDuration = new TraceEvent("trace-3", "span-3", "order-service", "get_order");
+        withoutDuration.setHttpMethod("GET");
+        withoutDuration.setUrlTemplateId(1);
+        entityManager.persist(withoutDuration);
+        TraceEvent other = new TraceEvent("trace-x", "span-x", "payment-service", "charge");
+        other.setUrlTemplateId(1);
+        entityManager.persistAndFlush(other);
+
+        // When
+        List<Object[]> result = traceEventRepository.aggregateByUrlTemplate("order-service");
+
+        // Then
+        assertThat(result).hasSize(1);
+        Object[] row = result.get(0);
+        assertThat(row[0]).isEqualTo("GET");
+        assertThat(row[1]).isEqualTo(1);
+        assertThat(((Number) row[2]).longValue()).isEqualTo(4);
+        // Durations come back in micros and skip the span that reported none
+        assertThat(((Number) row[3]).longValue()).isEqualTo(600_000);
+        assertThat(((Number) row[4]).longValue()).isEqualTo(3);
+        assertThat(((Number) row[5]).longValue()).isEqualTo(300_000);
+        assertThat(((Number) row[6]).longValue()).isEqualTo(1);
+    }
+
+    @Test
+    void aggregateByOperation_ShouldGroupSpansOfTheServiceInsideTheWindow() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        persistSpan("trace-1", "order-service", "create_order", TraceEvent.Status.SUCCESS, base);
+        persistSpan("trace-2", "order-service", "create_order", TraceEvent.Status.ERROR, base + 100);
+        persistSpan("trace-3", "order-service", "reserve", TraceEvent.Status.SUCCESS, base + 200);
+        persistSpan("trace-4", "order-service", "create_order", TraceEvent.Status.SUCCESS, base + 1_000);
+        persistSpan("trace-5", "payment-service", "charge", TraceEvent.Status.SUCCESS, base + 100);
+        entityManager.flush();
+
+        // When
+        List<Object[]> rows = traceEventRepository.aggregateByOperation("order-service", base, base + 1_000);
+
+        // Then
+        assertThat(rows).hasSize(2);
+        Object[] createOrder = rows.stream().filter(row -> "create_order".equals(row[0])).findFirst().orElseThrow();
+        assertThat(((Number) createOrder[1]).longValue()).isEqualTo(2);
+        // persistSpan reports no duration, so the duration columns stay empty
+        assertThat(((Number) createOrder[3]).longValue()).isZero();
+        assertThat(createOrder[5]).isNull();
+        assertThat(((Number) createOrder[6]).longValue()).isEqualTo(1);
+    }
+
+    @Test
+    void aggregateBuckets_ShouldGroupSpansByBucketAndDurationClass() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        persistSpan("trace-1", "order-service", "create_order", TraceEvent.Status.SUCCESS, base);
+        long[][] timedSpans = {{base + 1_000_000L, 20_000}, {base + 2_000_000L, 20_100}, {base + 12_000_000L, 900_000}};
+        for (long[] timed : timedSpans) {
+            TraceEvent span = new TraceEvent("trace-2", "span-" + timed[0], "order-service", "create_order");
+            span.setStatus(timed[1] > 100_000 ? TraceEvent.Status.ERROR : TraceEvent.Status.SUCCESS);
+            span.setTimestampMicros(timed[0]);
+            span.setDurationMicros(timed[1]);
+            entityManager.persist(span);
+        }
+        persistSpan("trace-3", "order-service", "create_order", TraceEvent.Status.SUCCESS, base + 20_000_000L);
+        entityManager.flush();
+
+        // When
+        List<SpanBucketRepository.Bucket> buckets = traceEventRepository.aggregateBuckets("order-service", null, base, base + 20_000_000L, 10_000_000L);
+
+        // Then
+        assertThat(buckets).extracting(SpanBucketRepository.Bucket::index, SpanBucketRepository.Bucket::spanCount,
+                SpanBucketRepository.Bucket::durationCount, SpanBucketRepository.Bucket::errorCount)
+            .containsExactlyInAnyOrder(tuple(0L, 1L, 0L, 0L), tuple(0L, 2L, 2L, 0L), tuple(1L, 1L, 1L, 1L));
+        SpanBucketRepository.Bucket fast = buckets.stream().filter(bucket -> bucket.durationCount() == 2).findFirst().orElseThrow();
+        assertThat(fast.durationSumMicros()).isEqualTo(40_100);
+        assertThat(fast.durationMinMicros()).isEqualTo(20_000);
+        assertThat(fast.durationMaxMicros()).isEqualTo(20_100);
+        assertThat(traceEventRepository.aggregateBuckets("order-service", "reserve", base, base + 20_000_000L, 10_000_000L)).isEmpty();
+    }
+
+    @Test
+    void findSpansAfter_ShouldPageNewestFirstByTimestampAndId() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        persistSpan("trace-1", "order-service", "create_order", TraceEvent.Status.SUCCESS, base);
+        persistSpan("trace-1", "order-service", "reserve", TraceEvent.Status.SUCCESS, base + 100);
+        persistSpan("trace-2", "order-service", "create_order", TraceEvent.Status.SUCCESS, base + 100);
+        persistSpan("trace-2", "payment-service", "charge", TraceEvent.Status.SUCCESS, base + 200);
+        entityManager.flush();
+        SpanSearchRepository.SpanFilter filter = new SpanSearchRepository.SpanFilter("order-service", null, null, base, null);
+
+        // When
+        List<TraceEvent> first = traceEventRepository.findSpansAfter(filter, null, 2);
+        TraceEvent last = first.get(first.size() - 1);
+        List<TraceEvent> second = traceEventRepository.findSpansAfter(filter,
+            new KeysetCursor(last.getTimestampMicros(), last.getId().toString()), 2);
+
+        // Then
+        assertThat(first).extracting(TraceEvent::getOperation).containsExactly("create_order", "reserve");
+        assertThat(first).extracting(TraceEvent::getTraceId).containsExactly("trace-2", "trace-1");
+        assertThat(second).extracting(TraceEvent::getOperation).containsExactly("create_order");
+        assertThat(second.get(0).getTraceId()).isEqualTo("trace-1");
+    }
+
+    private void persistSpan(String traceId, String serviceName, String operation, TraceEvent.Status status, long timestampMicros) {
+        TraceEvent span = new TraceEvent(traceId, "span-" + operation, serviceName, operation);
+        span.setStatus(status);
+        span.setTimestampMicros(timestampMicros);
+        entityManager.persist(span);
+    }
+}
@@ -0,0 +1,181 @@
+package com.ecommerce.telemetryservice.repository;
+
+import com.ecommerce.telemetryservice.ingest.TraceSummaryWriter;
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.KeysetCursor;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.model.TraceOperation;
+import com.ecommerce.telemetryservice.model.TraceSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@Import(TraceSummaryWriter.class)
+@ActiveProfiles("test")
+public class TraceSummaryRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TraceSummaryWriter traceSummaryWriter;
+
+    @Autowired
+    private TraceSummaryRepository traceSummaryRepository;
+
+    @Autowired
+    private TraceOperationRepository traceOperationRepository;
+
+    @Test
+    void record_WithSpansOfOneTraceInSeveralBatches_ShouldMergeThemIntoOneSummary() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        TraceEvent root = span("trace-1", "order-service", "create_order", TraceEvent.Status.SUCCESS, base + 100);
+        root.setParentSpanId(null);
+        root.setDurationMicros(900);
+
+        // When
+        traceSummaryWriter.record(List.of(
+            span("trace-1", "payment-service", "charge", TraceEvent.Status.ERROR, base + 300),
+            span("trace-1", "payment-service", "charge", TraceEvent.Status.SUCCESS, base + 400)));
+        traceSummaryWriter.record(List.of(root,
+            span("trace-1", "inventory-service", "reserve", TraceEvent.Status.TIMEOUT, base + 200)));
+        entityManager.clear();
+
+        // Then
+        TraceSummary summary = traceSummaryRepository.findById("trace-1").orElseThrow();
+        assertThat(summary.getStartMicros()).isEqualTo(base + 100);
+        assertThat(summary.getEndMicros()).isEqualTo(base + 400);
+        assertThat(summary.getDurationMicros()).isEqualTo(300);
+        assertThat(summary.getSpanCount()).isEqualTo(4);
+        assertThat(summary.getErrorCount()).isEqualTo(1);
+        assertThat(summary.getTimeoutCount()).isEqualTo(1);
+        assertThat(summary.getMaxDurationMicros()).isEqualTo(900);
+        assertThat(summary.getRootOperation()).isEqualTo("create_order");
+        assertThat(traceOperationRepository.findByTraceIdIn(List.of("trace-1")))
+            .extracting(TraceOperation::getOperation, TraceOperation::getFirstMicros)
+            .containsExactlyInAnyOrder(
+                tuple("create_order", base + 100),
+                tuple("reserve", base + 200),
+                tuple("charge", base + 300));
+    }
+
+    @Test
+    void findTracePage_WithFilters_ShouldMatchTracesHavingSpansForEachFilterBeforePaging() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        traceSummaryWriter.record(List.of(
+            span("trace-a", "order-service", "create_order", TraceEvent.Status.SUCCESS, base),
+            span("trace-a", "payment-service", "charge", TraceEvent.Status.ERROR, base + 10),
+            span("trace-b", "order-service", "create_order", TraceEvent.Status.SUCCESS, base + 20),
+            span("trace-c", "payment-service", "charge", TraceEvent.Status.ERROR, base + 30),
+            span("trace-d", "payment-service", "refund", TraceEvent.Status.ERROR, base + 40)));
+        TraceSearchRepository.Filter filter = new TraceSearchRepository.Filter("payment-service", "charge", TraceEvent.Status.ERROR, null);
+
+        // When
+        List<TraceSummary> page = traceSummaryRepository.findTracePage(filter, Sort.by("timestamp").descending(), 0, 1);
+        long total = traceSummaryRepository.countTraces(filter);
+
+        // Then
+        assertThat(page).extracting(TraceSummary::getTraceId).containsExactly("trace-c");
+        assertThat(total).isEqualTo(2);
+        assertThat(traceSummaryRepository.findTracePage(filter, Sort.by("timestamp").descending(), 1, 1))
+            .extracting(TraceSummary::getTraceId).containsExactly("trace-a");
+        assertThat(traceSummaryRepository.countTraces(new TraceSearchRepository.Filter(null, null, TraceEvent.Status.SUCCESS, null)))
+            .isEqualTo(2);
+    }
+
+    @Test
+    void findTracePage_WithMoreCandidatesThanOneQueryBinds_ShouldPageAndCountAcrossChunks() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        List<TraceEvent> spans = new ArrayList<>();
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            candidates.add("missing-" + i);
+            if (i % 500 == 0) {
+                spans.add(span("trace-" + i, "order-service", "create_order", TraceEvent.Status.SUCCESS, base + i));
+                candidates.add("trace-" + i);
+            }
+        }
+        traceSummaryWriter.record(spans);
+        TraceSearchRepository.Filter filter = new TraceSearchRepository.Filter(null, null, null, candidates);
+        Sort newestFirst = Sort.by("timestamp").descending();
+
+        // When
+        List<TraceSummary> page = traceSummaryRepository.findTracePage(filter, newestFirst, 1, 3);
+        long total = traceSummaryRepository.countTraces(filter);
+
+        // Then
+        assertThat(page).extracting(TraceSummary::getTraceId).containsExactly("trace-1500", "trace-1000", "trace-500");
+        assertThat(total).isEqualTo(5);
+        assertThat(traceSummaryRepository.findTracePage(new TraceSearchRepository.Filter(null, null, null, List.of()), newestFirst, 0, 3))
+            .isEmpty();
+        assertThat(traceSummaryRepository.countTraces(new TraceSearchRepository.Filter(null, null, null, List.of()))).isZero();
+    }
+
+    @Test
+    void findTracesAfter_ShouldWalkEveryTraceOnceWithStableCursors() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        List<TraceEvent> spans = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Two traces per start time, so ties are broken by traceId
+            spans.add(span("trace-" + i, "order-service", "create_order", TraceEvent.Status.SUCCESS, base + (i / 2) * 1_000));
+            spans.add(span("trace-" + i, "order-service", "reserve", TraceEvent.Status.SUCCESS, base + (i / 2) * 1_000 + 500));
+        }
+        traceSummaryWriter.record(spans);
+        TraceSearchRepository.Filter all = new TraceSearchRepository.Filter(null, null, null, null);
+        Sort newestFirst = Sort.by("timestamp").descending();
+
+        // When
+        List<String> walked = new ArrayList<>();
+        KeysetCursor cursor = null;
+        List<TraceSummary> page = traceSummaryRepository.findTracesAfter(all, newestFirst, cursor, 3);
+        while (!page.isEmpty()) {
+            page.forEach(summary -> walked.add(summary.getTraceId()));
+            cursor = KeysetCursor.decode(TraceSearchRepository.cursor(page.get(page.size() - 1), newestFirst).encode());
+            page = traceSummaryRepository.findTracesAfter(all, newestFirst, cursor, 3);
+        }
+
+        // Then
+        assertThat(walked).containsExactly("trace-6", "trace-5", "trace-4", "trace-3", "trace-2", "trace-1", "trace-0");
+    }
+
+    @Test
+    void deleteByEndBefore_ShouldDropExpiredSummariesAndTheirOperations() {
+        // Given
+        long base = EpochMicros.now() - 60_000_000L;
+        traceSummaryWriter.record(List.of(
+            span("old-trace", "order-service", "create_order", TraceEvent.Status.SUCCESS, base),
+            span("new-trace", "order-service", "create_order", TraceEvent.Status.SUCCESS, base + 1_000)));
+
+        // When
+        int deleted = traceSummaryRepository.deleteByEndBefore(base + 500);
+        traceOperationRepository.deleteOrphans();
+
+        // Then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(traceSummaryRepository.findAll()).extracting(TraceSummary::getTraceId).containsExactly("new-trace");
+        assertThat(traceOperationRepository.findAll()).extracting(TraceOperation::getTraceId).containsExactly("new-trace");
+    }
+
+    private static TraceEvent span(String traceId, String serviceName, String operation, TraceEvent.Status status, long timestampMicros) {
+        TraceEvent span = new TraceEvent(traceId, "span-" + operation, serviceName, operation);
+        span.setParentSpanId("root");
+        span.setStatus(status);
+        span.setTimestampMicros(timestampMicros);
+        return span;
+    }
+}
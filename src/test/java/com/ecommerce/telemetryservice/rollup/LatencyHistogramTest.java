@@ -0,0 +1,70 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void valueAtQuantile_ShouldStayWithinBucketPrecision() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros);
+        }
+
+        // Then
+        assertThat((double) histogram.valueAtQuantile(0.5)).isCloseTo(50_000, within(50_000 * 0.04));
+        assertThat((double) histogram.valueAtQuantile(0.99)).isCloseTo(99_000, within(99_000 * 0.04));
+        assertThat(histogram.valueAtQuantile(1.0)).isEqualTo(100_000);
+        assertThat(histogram.getMin()).isEqualTo(1);
+    }
+
+    @Test
+    void merge_ShouldMatchHistogramOfAllValues() {
+        // Given
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        LatencyHistogram all = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            fast.record(2_000);
+            all.record(2_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(800_000);
+            all.record(800_000);
+        }
+
+        // When
+        fast.merge(slow);
+
+        // Then
+        assertThat(fast.getTotalCount()).isEqualTo(1000);
+        assertThat(fast.valueAtQuantile(0.99)).isEqualTo(all.valueAtQuantile(0.99));
+        assertThat(fast.valueAtQuantile(0.999)).isEqualTo(800_000);
+        assertThat(fast.getMax()).isEqualTo(800_000);
+    }
+
+    @Test
+    void toBytes_ShouldRoundTripCompactly() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            histogram.record(1_000 + (i % 500) * 10);
+        }
+
+        // When
+        byte[] bytes = histogram.toBytes();
+        LatencyHistogram restored = LatencyHistogram.fromBytes(bytes);
+
+        // Then
+        assertThat(bytes.length).isLessThan(400);
+        assertThat(restored.getTotalCount()).isEqualTo(10_000);
+        assertThat(restored.valueAtQuantile(0.9)).isEqualTo(histogram.valueAtQuantile(0.9));
+        assertThat(restored.getMin()).isEqualTo(1_000);
+        assertThat(restored.getMax()).isEqualTo(5_990);
+        assertThat(LatencyHistogram.fromBytes(new LatencyHistogram().toBytes()).getTotalCount()).isZero();
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import com.ecommerce.telemetryservice.model.SpanRollup;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.repository.SpanRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RollupCompactorTest {
+
+    private static final long MINUTE = RollupResolution.MINUTE.getWidthMicros();
+    private static final long FIRST_MINUTE = 28_000_000 * MINUTE;
+
+    @Mock
+    private SpanRollupRepository spanRollupRepository;
+
+    private RollupAccumulator accumulator;
+    private RollupCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        accumulator = new RollupAccumulator();
+        ReflectionTestUtils.setField(accumulator, "enabled", true);
+        compactor = new RollupCompactor();
+        ReflectionTestUtils.setField(compactor, "accumulator", accumulator);
+        ReflectionTestUtils.setField(compactor, "spanRollupRepository", spanRollupRepository);
+    }
+
+    @Test
+    void flushAll_WhenTheWriteFails_ShouldKeepTheMinutesForTheNextFlush() {
+        // Given
+        accumulator.record(span(FIRST_MINUTE + 1_000));
+        accumulator.record(span(FIRST_MINUTE + MINUTE + 1_000));
+        List<SpanRollup> saved = new ArrayList<>();
+        when(spanRollupRepository.saveAll(anyIterable()))
+            .thenThrow(new DataAccessResourceFailureException("database unavailable"))
+            .thenAnswer(invocation -> {
+                Iterable<SpanRollup> rows = invocation.getArgument(0);
+                rows.forEach(saved::add);
+                return saved;
+            });
+
+        // When
+        assertThatThrownBy(() -> compactor.flushAll()).isInstanceOf(DataAccessResourceFailureException.class);
+        RollupStats pending = new RollupStats();
+        accumulator.collect("order-service", null, FIRST_MINUTE, FIRST_MINUTE + 2 * MINUTE, pending);
+        // A span recorded into a restored minute before the retry
+        accumulator.record(span(FIRST_MINUTE + 2_000));
+        compactor.flushAll();
+
+        // Then
+        assertThat(pending.getSpanCount()).isEqualTo(2);
+        assertThat(saved)
+            .extracting(SpanRollup::getBucketStartMicros, SpanRollup::getSpanCount)
+            .containsExactly(tuple(FIRST_MINUTE, 2L), tuple(FIRST_MINUTE + MINUTE, 1L));
+        assertThat(accumulator.getCellCount()).isZero();
+    }
+
+    private static TraceEvent span(long timestampMicros) {
+        TraceEvent span = new TraceEvent("trace-" + timestampMicros, "span-1", "order-service", "create_order");
+        span.setTimestampMicros(timestampMicros);
+        span.setStatus(TraceEvent.Status.SUCCESS);
+        return span;
+    }
+}
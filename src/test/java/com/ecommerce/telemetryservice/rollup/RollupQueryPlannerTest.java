@@ -0,0 +1,83 @@
+package com.ecommerce.telemetryservice.rollup;
+
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RollupQueryPlannerTest {
+
+    private static final long MINUTE = RollupResolution.MINUTE.getWidthMicros();
+    private static final long HOUR = RollupResolution.HOUR.getWidthMicros();
+    private static final long DAY = RollupResolution.DAY.getWidthMicros();
+    private static final long NOW = 20_000 * DAY + 15 * HOUR + 42 * MINUTE;
+
+    @Test
+    void plan_ShouldUseDaysInTheMiddleAndFinerBucketsAtTheEdges() {
+        // Given
+        long from = NOW - 30 * DAY;
+
+        // When
+        RollupQueryPlanner.Plan plan = RollupQueryPlanner.plan(from, NOW, availability(NOW, 2, 35, 730));
+
+        // Then
+        List<RollupQueryPlanner.Range> ranges = plan.ranges();
+        assertThat(ranges).extracting(RollupQueryPlanner.Range::resolution).containsExactly(
+            RollupResolution.HOUR, RollupResolution.DAY, RollupResolution.HOUR, RollupResolution.MINUTE);
+        assertThat(ranges.get(1).endMicros() - ranges.get(1).startMicros()).isEqualTo(29 * DAY);
+        assertThat(ranges.get(3).startMicros()).isEqualTo(RollupResolution.HOUR.bucketStart(NOW));
+        assertThat(plan.approximate()).isTrue();
+        assertThat(plan.startMicros()).isEqualTo(RollupResolution.HOUR.bucketStart(from));
+        assertThat(plan.endMicros()).isEqualTo(NOW);
+    }
+
+    @Test
+    void plan_WithinMinuteRetention_ShouldCoverWindowExactly() {
+        // Given
+        long from = NOW - 5 * HOUR - 7 * MINUTE;
+
+        // When
+        RollupQueryPlanner.Plan plan = RollupQueryPlanner.plan(from, NOW, availability(NOW, 2, 35, 730));
+
+        // Then
+        assertThat(plan.approximate()).isFalse();
+        assertThat(plan.ranges()).extracting(RollupQueryPlanner.Range::resolution).containsExactly(
+            RollupResolution.MINUTE, RollupResolution.HOUR, RollupResolution.MINUTE);
+        assertThat(plan.ranges()).allSatisfy(range -> assertThat(range.startMicros()).isLessThan(range.endMicros()));
+        assertThat(plan.ranges().get(0).startMicros()).isEqualTo(from);
+        assertThat(plan.ranges().get(2).endMicros()).isEqualTo(NOW);
+    }
+
+    @Test
+    void plan_WithHoursNotYetDownsampled_ShouldFallBackToMinutes() {
+        // Given
+        long from = NOW - 4 * HOUR;
+        RollupQueryPlanner.Availability lagging = availability(RollupResolution.HOUR.bucketStart(NOW) - 2 * HOUR, 2, 35, 730);
+
+        // When
+        RollupQueryPlanner.Plan plan = RollupQueryPlanner.plan(from, NOW, lagging);
+
+        // Then
+        assertThat(plan.ranges()).extracting(RollupQueryPlanner.Range::resolution).containsExactly(
+            RollupResolution.MINUTE, RollupResolution.HOUR, RollupResolution.MINUTE);
+        assertThat(plan.ranges().get(2).startMicros()).isEqualTo(RollupResolution.HOUR.bucketStart(NOW) - 2 * HOUR);
+    }
+
+    private RollupQueryPlanner.Availability availability(long currentThrough, int minuteDays, int hourDays, int dayDays) {
+        long today = RollupResolution.DAY.bucketStart(NOW);
+        return new RollupQueryPlanner.Availability() {
+            @Override
+            public long currentThrough(RollupResolution resolution) {
+                return resolution == RollupResolution.MINUTE ? Long.MAX_VALUE : resolution.bucketStart(currentThrough);
+            }
+
+            @Override
+            public long retainedFrom(RollupResolution resolution) {
+                int days = resolution == RollupResolution.MINUTE ? minuteDays : resolution == RollupResolution.HOUR ? hourDays : dayDays;
+                return today - days * DAY;
+            }
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecommerce.telemetryservice.service;
+
+import com.ecommerce.telemetryservice.dto.TraceEventDto;
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:packed-spans-test",
+    "telemetry.trace-blobs.enabled=true",
+    "telemetry.trace-blobs.compaction-interval-ms=3600000",
+    "telemetry.segments.enabled=true",
+    "telemetry.tiering.compaction-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+public class PackedSpansIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private TraceBlobCompactor traceBlobCompactor;
+
+    @Autowired
+    private TierCompactor tierCompactor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String baseUrl;
+
+    @DynamicPropertySource
+    static void segmentDirectory(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("packed-spans-segments");
+        registry.add("telemetry.segments.directory", directory::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api/telemetry";
+        for (String table : List.of("trace_events", "trace_event_metadata", "trace_blobs", "packed_span_stats",
+                                    "trace_summaries", "trace_operations")) {
+            jdbcTemplate.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void packedTraces_ShouldStayInServiceListsMetricsAndCounts() {
+        // Given: two traces that stopped receiving spans half an hour ago, packed into blobs
+        LocalDateTime start = LocalDateTime.now().minusMinutes(30);
+        telemetryService.recordEventsBatch(List.of(
+            span("packed-1", "span-1", "checkout-service", "place_order", start, 10L, TraceEvent.Status.SUCCESS),
+            span("packed-1", "span-2", "checkout-service", "reserve_stock", start.plusSeconds(1), 30L, TraceEvent.Status.ERROR),
+            span("packed-2", "span-3", "checkout-service", "place_order", start.plusSeconds(2), 20L, TraceEvent.Status.SUCCESS)));
+
+        // When
+        traceBlobCompactor.compact();
+
+        // Then
+        assertThat(count("trace_events")).isZero();
+        assertThat(count("trace_blobs")).isEqualTo(2);
+        assertThat(getList("/services")).containsExactly("checkout-service");
+        assertThat(getList("/services/checkout-service/operations")).containsExactly("place_order", "reserve_stock");
+        Map<String, Object> metrics = getMap("/services/checkout-service/metrics");
+        assertThat(metrics.get("requestCount")).isEqualTo(3);
+        assertThat(metrics.get("errorCount")).isEqualTo(1);
+        assertThat(metrics.get("minDurationMs")).isEqualTo(10);
+        assertThat(metrics.get("maxDurationMs")).isEqualTo(30);
+        assertThat(metrics.get("operationCounts")).isEqualTo(Map.of("place_order", 2, "reserve_stock", 1));
+        assertThat(getMap("/health").get("totalEvents")).isEqualTo(3);
+    }
+
+    @Test
+    void spansMovedToColdSegments_ShouldStayInMetricsAndEndpoints() {
+        // Given
+        LocalDateTime start = LocalDateTime.now().minusHours(3);
+        TraceEventDto first = span("cold-1", "span-1", "catalog-service", "get_product", start, 40L, TraceEvent.Status.SUCCESS);
+        TraceEventDto second = span("cold-2", "span-2", "catalog-service", "get_product", start.plusSeconds(5), 60L, TraceEvent.Status.SUCCESS);
+        first.setHttpMethod("GET");
+        first.setHttpUrl("/api/products/17");
+        second.setHttpMethod("GET");
+        second.setHttpUrl("/api/products/42");
+        telemetryService.recordEventsBatch(List.of(first, second));
+
+        // When
+        long moved = tierCompactor.moveToCold(EpochMicros.now() - 3_600_000_000L);
+
+        // Then
+        assertThat(moved).isEqualTo(2);
+        assertThat(count("trace_events")).isZero();
+        assertThat(getList("/services")).containsExactly("catalog-service");
+        assertThat(getMap("/services/catalog-service/metrics").get("averageDurationMs")).isEqualTo(50);
+        List<Map<String, Object>> endpoints = restTemplate.exchange(baseUrl + "/services/catalog-service/endpoints",
+            HttpMethod.GET, null, new ParameterizedTypeReference<List<Map<String, Object>>>() {}).getBody();
+        assertThat(endpoints).hasSize(1);
+        assertThat(endpoints.get(0).get("route")).isEqualTo("/api/products/{id}");
+        assertThat(endpoints.get(0).get("requestCount")).isEqualTo(2);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private List<String> getList(String path) {
+        return restTemplate.exchange(baseUrl + path, HttpMethod.GET, null, new ParameterizedTypeReference<List<String>>() {}).getBody();
+    }
+
+    private Map<String, Object> getMap(String path) {
+        return restTemplate.exchange(baseUrl + path, HttpMethod.GET, null, new ParameterizedTypeReference<Map<String, Object>>() {}).getBody();
+    }
+
+    private static TraceEventDto span(String traceId, String spanId, String serviceName, String operation,
+                                      LocalDateTime timestamp, long durationMs, TraceEvent.Status status) {
+        TraceEventDto dto = new TraceEventDto();
+        dto.setTraceId(traceId);
+        dto.setSpanId(spanId);
+        dto.setServiceName(serviceName);
+        dto.setOperation(operation);
+        dto.setTimestamp(timestamp);
+        dto.setDurationMs(durationMs);
+        dto.setStatus(status);
+        return dto;
+    }
+}
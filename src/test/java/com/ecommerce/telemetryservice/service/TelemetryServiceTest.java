@@ -1,22 +1,71 @@
 package com.ecommerce.telemetryservice.service;
 
+import com.ecommerce.telemetryservice.cache.TimelineCache;
 import com.ecommerce.telemetryservice.dto.TraceEventDto;
+import com.ecommerce.telemetryservice.index.AttributeIndex;
+import com.ecommerce.telemetryservice.index.FullTextIndex;
+import com.ecommerce.telemetryservice.index.IndexMetrics;
+import com.ecommerce.telemetryservice.ingest.TraceSummaryWriter;
+import com.ecommerce.telemetryservice.ingest.UrlTemplateDictionary;
+import com.ecommerce.telemetryservice.ingest.UrlTemplater;
+import com.ecommerce.telemetryservice.ingest.WriteBehindBuffer;
+import com.ecommerce.telemetryservice.live.LiveMetrics;
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.KeysetCursor;
+import com.ecommerce.telemetryservice.model.RollupResolution;
+import com.ecommerce.telemetryservice.model.TraceBlob;
 import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.model.TraceOperation;
+import com.ecommerce.telemetryservice.model.TraceSummary;
+import com.ecommerce.telemetryservice.repository.PackedSpanStatsRepository;
+import com.ecommerce.telemetryservice.repository.SpanBucketRepository;
+import com.ecommerce.telemetryservice.repository.TraceBlobRepository;
+import com.ecommerce.telemetryservice.repository.TraceEventMetadataRepository;
 import com.ecommerce.telemetryservice.repository.TraceEventRepository;
+import com.ecommerce.telemetryservice.repository.TraceOperationRepository;
+import com.ecommerce.telemetryservice.repository.TraceSearchRepository;
+import com.ecommerce.telemetryservice.repository.TraceSummaryRepository;
+import com.ecommerce.telemetryservice.rollup.RollupAccumulator;
+import com.ecommerce.telemetryservice.rollup.RollupQueryPlanner;
+import com.ecommerce.telemetryservice.rollup.RollupReader;
+import com.ecommerce.telemetryservice.rollup.RollupStats;
+import com.ecommerce.telemetryservice.shard.ShardRouter;
+import com.ecommerce.telemetryservice.storage.HotTier;
+import com.ecommerce.telemetryservice.storage.SegmentStore;
+import com.ecommerce.telemetryservice.storage.TierMetrics;
+import com.ecommerce.telemetryservice.view.CursorPage;
+import com.ecommerce.telemetryservice.view.EndpointStats;
+import com.ecommerce.telemetryservice.view.HealthStatus;
+import com.ecommerce.telemetryservice.view.OperationLatency;
+import com.ecommerce.telemetryservice.view.ServiceMetrics;
+import com.ecommerce.telemetryservice.view.ServiceTimeSeries;
+import com.ecommerce.telemetryservice.view.TextSearchResult;
+import com.ecommerce.telemetryservice.view.TimelineSpan;
+import com.ecommerce.telemetryservice.view.TraceListItem;
+import com.ecommerce.telemetryservice.view.TraceTimeline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -26,6 +75,79 @@ public class TelemetryServiceTest {
     @Mock
     private TraceEventRepository traceEventRepository;
 
+    @Mock
+    private TraceEventMetadataRepository traceEventMetadataRepository;
+
+    @Mock
+    private TraceBlobRepository traceBlobRepository;
+
+    @Mock
+    private TraceSummaryRepository traceSummaryRepository;
+
+    @Mock
+    private TraceOperationRepository traceOperationRepository;
+
+    @Mock
+    private PackedSpanStatsRepository packedSpanStatsRepository;
+    
+    @Mock
+    private SegmentStore segmentStore;
+
+    @Mock
+    private HotTier hotTier;
+
+    @Mock
+    private TierCompactor tierCompactor;
+
+    @Mock
+    private TraceBlobCompactor traceBlobCompactor;
+
+    @Mock
+    private TierMetrics tierMetrics;
+
+    @Mock
+    private IndexMaintainer indexMaintainer;
+
+    @Mock
+    private AttributeIndex attributeIndex;
+
+    @Mock
+    private FullTextIndex fullTextIndex;
+
+    @Mock
+    private IndexMetrics indexMetrics;
+
+    @Mock
+    private UrlTemplater urlTemplater;
+
+    @Mock
+    private UrlTemplateDictionary urlTemplateDictionary;
+
+    @Mock
+    private RollupAccumulator rollupAccumulator;
+
+    @Mock
+    private LiveMetrics liveMetrics;
+
+    @Mock
+    private TimelineCache timelineCache;
+
+    @Mock
+    private RollupReader rollupReader;
+
+    @Mock
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Mock
+    private TraceSummaryWriter traceSummaryWriter;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    // Unsharded: runs every repository call inline
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
     @InjectMocks
     private TelemetryService telemetryService;
 
@@ -34,6 +156,10 @@ public class TelemetryServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Runs the callback inline, as if in a transaction
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         testTraceEvent = new TraceEvent();
         testTraceEvent.setId(1L);
         testTraceEvent.setTraceId("trace-123");
@@ -71,6 +197,9 @@ public class TelemetryServiceTest {
         assertThat(result.getServiceName()).isEqualTo("test-service");
         assertThat(result.getOperation()).isEqualTo("test_operation");
         verify(traceEventRepository).save(any(TraceEvent.class));
+        verify(traceSummaryWriter).record(List.of(testTraceEvent));
+        verify(hotTier).add(testTraceEvent);
+        verify(indexMaintainer).index(testTraceEvent);
     }
 
     @Test
@@ -84,10 +213,27 @@ public class TelemetryServiceTest {
 
         // Then
         assertThat(result).isNotNull();
-        verify(traceEventRepository).save(argThat(event -> 
+        verify(traceEventRepository).save(argThat(event ->
             event.getTimestamp() != null));
     }
 
+    @Test
+    void recordEvent_WithMicrosecondFields_ShouldPreferThemOverMillisecondFields() {
+        // Given
+        testTraceEventDto.setTimestampMicros(1_700_000_000_123_456L);
+        testTraceEventDto.setDurationMs(1L);
+        testTraceEventDto.setDurationMicros(1_250L);
+        when(traceEventRepository.save(any(TraceEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        TraceEvent result = telemetryService.recordEvent(testTraceEventDto);
+
+        // Then
+        assertThat(result.getTimestampMicros()).isEqualTo(1_700_000_000_123_456L);
+        assertThat(result.getDurationMicros()).isEqualTo(1_250L);
+        assertThat(result.getDurationMs()).isEqualTo(1L);
+    }
+
     @Test
     void recordEvent_WithNullEventType_ShouldSetDefaultEventType() {
         // Given
@@ -147,6 +293,43 @@ public class TelemetryServiceTest {
         assertThat(result.get(0).getTraceId()).isEqualTo("trace-123");
         assertThat(result.get(1).getTraceId()).isEqualTo("trace-124");
         verify(traceEventRepository).saveAll(anyList());
+        verify(traceSummaryWriter).record(savedEvents);
+    }
+
+    @Test
+    void writeBehindRetry_ShouldOnlyStoreAndSummarizeSpansNotStoredBefore() {
+        // Given: a flushed batch whose first span was committed by an earlier, partly failed attempt
+        Consumer<List<TraceEvent>> writer = captureWriteBehindWriter();
+        TraceEvent stored = new TraceEvent("trace-123", "span-1", "test-service", "test_operation");
+        stored.setId(5L);
+        TraceEvent unstored = new TraceEvent("trace-124", "span-2", "test-service", "test_operation");
+        when(traceEventRepository.saveAll(List.of(unstored))).thenReturn(List.of(unstored));
+
+        // When
+        writer.accept(List.of(stored, unstored));
+
+        // Then
+        verify(traceEventRepository).saveAll(List.of(unstored));
+        verify(traceSummaryWriter).record(List.of(unstored));
+        verify(hotTier).addAll(List.of(unstored));
+        verify(indexMaintainer).indexAll(List.of(unstored));
+    }
+
+    @Test
+    void writeBehindRetry_WhenTheShardTransactionFails_ShouldClearIdsSoTheSpansAreStoredAgain() {
+        // Given: the insert hands out an id, then the transaction rolls back
+        Consumer<List<TraceEvent>> writer = captureWriteBehindWriter();
+        TraceEvent span = new TraceEvent("trace-123", "span-1", "test-service", "test_operation");
+        when(traceEventRepository.saveAll(List.of(span))).thenAnswer(invocation -> {
+            span.setId(7L);
+            throw new IllegalStateException("connection lost");
+        });
+
+        // When / Then
+        assertThatThrownBy(() -> writer.accept(List.of(span))).hasMessage("connection lost");
+        assertThat(span.getId()).isNull();
+        verifyNoInteractions(traceSummaryWriter);
+        verify(hotTier).addAll(List.of());
     }
 
     @Test
@@ -164,11 +347,101 @@ public class TelemetryServiceTest {
         verify(traceEventRepository).findByTraceIdOrderByTimestamp("trace-123");
     }
 
+    @Test
+    void getTraceById_WithSegmentStoreEnabled_ShouldMergeArchivedSpans() {
+        // Given
+        TraceEvent archived = new TraceEvent("trace-123", "span-archived", "test-service", "archived_operation");
+        archived.setTimestamp(testTraceEvent.getTimestamp().minusDays(10));
+        when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-123")).thenReturn(List.of(testTraceEvent));
+        when(segmentStore.isEnabled()).thenReturn(true);
+        when(segmentStore.findByTraceId("trace-123")).thenReturn(List.of(archived));
+
+        // When
+        List<TraceEvent> result = telemetryService.getTraceById("trace-123");
+
+        // Then
+        assertThat(result).extracting(TraceEvent::getSpanId).containsExactly("span-archived", "span-456");
+        verify(segmentStore).findByTraceId("trace-123");
+    }
+
+    @Test
+    void getTraceById_WithPackedTrace_ShouldMergeBlobSpansWithRows() {
+        // Given
+        TraceEvent packed = new TraceEvent("trace-123", "span-packed", "test-service", "packed_operation");
+        packed.setId(2L);
+        packed.setTimestamp(testTraceEvent.getTimestamp().minusSeconds(1));
+        TraceEvent alsoInRows = new TraceEvent("trace-123", "span-456", "test-service", "test_operation");
+        alsoInRows.setId(testTraceEvent.getId());
+        alsoInRows.setTimestamp(testTraceEvent.getTimestamp());
+        when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-123")).thenReturn(List.of(testTraceEvent));
+        when(traceBlobRepository.findByTraceId("trace-123"))
+            .thenReturn(Optional.of(new TraceBlob("trace-123", List.of(packed, alsoInRows))));
+
+        // When
+        List<TraceEvent> result = telemetryService.getTraceById("trace-123");
+
+        // Then
+        assertThat(result).extracting(TraceEvent::getSpanId).containsExactly("span-packed", "span-456");
+        assertThat(result.get(1)).isSameAs(testTraceEvent);
+    }
+
+    @Test
+    void getTraceById_WithCompleteTraceInHotTier_ShouldNotQueryDatabase() {
+        // Given
+        when(hotTier.findCompleteTrace("trace-123")).thenReturn(Optional.of(List.of(testTraceEvent)));
+
+        // When
+        List<TraceEvent> result = telemetryService.getTraceById("trace-123");
+
+        // Then
+        assertThat(result).containsExactly(testTraceEvent);
+        verify(tierMetrics).recordHotHit();
+        verifyNoInteractions(traceEventRepository);
+    }
+
+    @Test
+    void recordEvent_WithWriteBehindEnabled_ShouldBufferInsteadOfSaving() {
+        // Given
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+
+        // When
+        TraceEvent result = telemetryService.recordEvent(testTraceEventDto);
+
+        // Then
+        assertThat(result.getId()).isNull();
+        assertThat(result.getSpanId()).isEqualTo("span-456");
+        verify(writeBehindBuffer).add(List.of(result));
+        verify(rollupAccumulator).record(result);
+        verify(liveMetrics).record(result);
+        verify(timelineCache).recordWrites(List.of(result));
+        verifyNoInteractions(traceEventRepository, traceSummaryWriter, hotTier);
+    }
+
+    @Test
+    void getTraceById_WithBufferedSpans_ShouldMergeThemWithPersistedSpans() {
+        // Given
+        TraceEvent buffered = new TraceEvent("trace-123", "span-buffered", "test-service", "late_operation");
+        buffered.setTimestamp(testTraceEvent.getTimestamp().plusSeconds(1));
+        TraceEvent alreadyWritten = new TraceEvent("trace-123", "span-456", "test-service", "test_operation");
+        alreadyWritten.setId(testTraceEvent.getId());
+        alreadyWritten.setTimestamp(testTraceEvent.getTimestamp());
+        when(writeBehindBuffer.findByTraceId("trace-123")).thenReturn(List.of(buffered, alreadyWritten));
+        when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-123")).thenReturn(List.of(testTraceEvent));
+
+        // When
+        List<TraceEvent> result = telemetryService.getTraceById("trace-123");
+
+        // Then
+        assertThat(result).containsExactly(testTraceEvent, buffered);
+        verify(hotTier, never()).findCompleteTrace(anyString());
+    }
+
     @Test
     void getTraceTimeline_WithEvents_ShouldReturnTimeline() {
         // Given
-        LocalDateTime startTime = LocalDateTime.now().minusMinutes(5);
-        LocalDateTime endTime = LocalDateTime.now();
+        // Spans are stored with microsecond precision
+        LocalDateTime startTime = LocalDateTime.now().minusMinutes(5).truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime endTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         
         testTraceEvent.setTimestamp(startTime);
         TraceEvent event2 = new TraceEvent();
@@ -182,17 +455,33 @@ public class TelemetryServiceTest {
         when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-123")).thenReturn(events);
 
         // When
-        Map<String, Object> result = telemetryService.getTraceTimeline("trace-123");
+        TraceTimeline result = telemetryService.getTraceTimeline("trace-123");
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result.get("traceId")).isEqualTo("trace-123");
-        assertThat(result.get("events")).isInstanceOf(List.class);
-        assertThat(result.get("totalDuration")).isInstanceOf(Long.class);
-        assertThat(result.get("startTime")).isEqualTo(startTime);
-        assertThat(result.get("endTime")).isEqualTo(endTime);
-        assertThat(result.get("serviceCount")).isEqualTo(1L);
+        assertThat(result.traceId()).isEqualTo("trace-123");
+        assertThat(result.events()).extracting(TimelineSpan::spanId).containsExactly("span-456", "span-457");
+        assertThat(result.totalDurationMicros()).isEqualTo(ChronoUnit.MICROS.between(startTime, endTime));
+        assertThat(result.startTime()).isEqualTo(startTime);
+        assertThat(result.endTime()).isEqualTo(endTime);
+        assertThat(result.serviceCount()).isEqualTo(1);
         verify(traceEventRepository).findByTraceIdOrderByTimestamp("trace-123");
+        verify(timelineCache).put(eq("trace-123"), eq(result), eq(2), anyLong());
+    }
+
+    @Test
+    void getTraceTimeline_WhenCached_ShouldNotReadTheTrace() {
+        // Given
+        TraceTimeline cached = TraceTimeline.empty("trace-123");
+        when(timelineCache.find("trace-123")).thenReturn(cached);
+
+        // When
+        TraceTimeline result = telemetryService.getTraceTimeline("trace-123");
+
+        // Then
+        assertThat(result).isSameAs(cached);
+        verifyNoInteractions(traceEventRepository, hotTier);
+        verify(timelineCache, never()).put(anyString(), any(), anyInt(), anyLong());
     }
 
     @Test
@@ -201,73 +490,282 @@ public class TelemetryServiceTest {
         when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-123")).thenReturn(Collections.emptyList());
 
         // When
-        Map<String, Object> result = telemetryService.getTraceTimeline("trace-123");
+        TraceTimeline result = telemetryService.getTraceTimeline("trace-123");
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result.get("traceId")).isEqualTo("trace-123");
-        assertThat(result.get("events")).isEqualTo(Collections.emptyList());
-        assertThat(result.get("totalDuration")).isEqualTo(0);
+        assertThat(result.traceId()).isEqualTo("trace-123");
+        assertThat(result.events()).isEmpty();
+        assertThat(result.totalDuration()).isZero();
         verify(traceEventRepository).findByTraceIdOrderByTimestamp("trace-123");
     }
 
     @Test
     void getTraces_ShouldReturnPaginatedTraces() {
         // Given
-        List<String> traceIds = Arrays.asList("trace-123", "trace-124");
-        when(traceEventRepository.findDistinctTraceIds(any(PageRequest.class))).thenReturn(traceIds);
-        
-        when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-123"))
-            .thenReturn(Arrays.asList(testTraceEvent));
-        
-        TraceEvent event2 = new TraceEvent();
-        event2.setTraceId("trace-124");
-        event2.setSpanId("span-457");
-        event2.setServiceName("test-service-2");
-        event2.setOperation("test_operation_2");
-        event2.setTimestamp(LocalDateTime.now());
-        
-        when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-124"))
-            .thenReturn(Arrays.asList(event2));
-
-        PageRequest pageRequest = PageRequest.of(0, 20);
+        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by("timestamp").descending());
+        when(traceSummaryRepository.findTracePage(noFilter(), eq(pageRequest.getSort()), eq(0L), eq(21)))
+            .thenReturn(summaries("trace-123", "trace-124"));
+        when(traceSummaryRepository.countTraces(noFilter())).thenReturn(2L);
 
         // When
-        Page<Map<String, Object>> result = telemetryService.getTraces(pageRequest, null, null, null);
+        Page<TraceListItem> result = telemetryService.getTraces(pageRequest, null, null, null);
 
         // Then
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(2);
-        assertThat(result.getContent().get(0).get("traceId")).isEqualTo("trace-123");
-        assertThat(result.getContent().get(1).get("traceId")).isEqualTo("trace-124");
-        verify(traceEventRepository).findDistinctTraceIds(pageRequest);
+        assertThat(result.getContent().get(0).traceId()).isEqualTo("trace-123");
+        assertThat(result.getContent().get(1).traceId()).isEqualTo("trace-124");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        verify(traceEventRepository, never()).findByTraceIdOrderByTimestamp(anyString());
     }
 
     @Test
-    void getTraces_WithServiceNameFilter_ShouldFilterByService() {
+    void getTraces_ShouldDescribeTracesFromTheirSummaryRowsWithoutLoadingSpans() {
         // Given
-        List<String> traceIds = Arrays.asList("trace-123", "trace-124");
-        when(traceEventRepository.findDistinctTraceIds(any(PageRequest.class))).thenReturn(traceIds);
-        
-        when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-123"))
-            .thenReturn(Arrays.asList(testTraceEvent));
-        
-        TraceEvent event2 = new TraceEvent();
-        event2.setTraceId("trace-124");
-        event2.setServiceName("other-service");
-        when(traceEventRepository.findByTraceIdOrderByTimestamp("trace-124"))
-            .thenReturn(Arrays.asList(event2));
+        TraceSummary summary = new TraceSummary("trace-123");
+        summary.add(span("order-service", "create_order", TraceEvent.Status.SUCCESS, 1_000L));
+        summary.add(span("payment-service", "charge", TraceEvent.Status.ERROR, 3_000L));
+        summary.add(span("order-service", "create_order", TraceEvent.Status.SUCCESS, 9_000L));
+        when(traceSummaryRepository.findTracePage(any(), any(), anyLong(), anyInt())).thenReturn(List.of(summary));
+        when(traceOperationRepository.findByTraceIdIn(List.of("trace-123"))).thenReturn(List.of(
+            new TraceOperation("trace-123", "payment-service", "charge", 3_000L),
+            new TraceOperation("trace-123", "order-service", "create_order", 1_000L)
+        ));
+
+        // When
+        TraceListItem trace = telemetryService.getTraces(PageRequest.of(0, 20), null, null, null).getContent().get(0);
+
+        // Then
+        assertThat(trace.spanCount()).isEqualTo(3);
+        assertThat(trace.durationMicros()).isEqualTo(8_000L);
+        assertThat(trace.services()).isEqualTo(List.of("order-service", "payment-service"));
+        assertThat(trace.operations()).isEqualTo(List.of("create_order", "charge"));
+        assertThat(trace.rootOperation()).isEqualTo("create_order");
+        assertThat(trace.status()).isEqualTo("ERROR");
+        verifyNoInteractions(traceEventRepository, traceBlobRepository);
+    }
+
+    @Test
+    void getTraces_WithTags_ShouldSortAndPageTheIndexCandidatesInTheDatabase() {
+        // Given
+        when(attributeIndex.findTraceIds(Map.of("paymentProvider", "stripe"))).thenReturn(List.of("trace-1", "trace-2"));
+        PageRequest pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "duration"));
+        when(traceSummaryRepository.findTracePage(argThat(filter -> List.of("trace-1", "trace-2").equals(filter.traceIds())),
+                eq(pageRequest.getSort()), eq(0L), eq(21)))
+            .thenReturn(List.of(summary("trace-2", 1_000L, 9_000L), summary("trace-1", 1_000L, 2_000L)));
+        when(traceSummaryRepository.countTraces(any())).thenReturn(2L);
+
+        // When
+        Page<TraceListItem> result = telemetryService.getTraces(pageRequest, null, null, null, List.of("paymentProvider:stripe"));
 
+        // Then
+        assertThat(result.getContent()).extracting(TraceListItem::traceId).containsExactly("trace-2", "trace-1");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        verify(indexMetrics).recordLookup(any(), anyLong());
+    }
+
+    @Test
+    void getTraces_WithTagsNoTraceCarries_ShouldReturnEmptyPageWithoutQuerying() {
+        // Given
+        when(attributeIndex.findTraceIds(Map.of("paymentProvider", "stripe"))).thenReturn(List.of());
+
+        // When
+        Page<TraceListItem> result = telemetryService.getTraces(PageRequest.of(0, 20), null, null, null, List.of("paymentProvider:stripe"));
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isZero();
+        verifyNoInteractions(traceSummaryRepository);
+    }
+
+    @Test
+    void getTraces_WithMalformedTag_ShouldRejectFilter() {
+        assertThatThrownBy(() -> telemetryService.getTraces(PageRequest.of(0, 20), null, null, null, List.of("stripe")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void searchText_ShouldReturnOnlySpansContainingQueryInsideWindow() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        TraceEvent declined = new TraceEvent("trace-1", "span-1", "payment-service", "charge");
+        declined.setErrorMessage("Payment failed: Card declined by issuer");
+        declined.setTimestamp(now.minusMinutes(5));
+        TraceEvent wordsApart = new TraceEvent("trace-2", "span-2", "payment-service", "charge");
+        wordsApart.setErrorMessage("Card was declined");
+        wordsApart.setTimestamp(now.minusMinutes(1));
+        when(fullTextIndex.findTraceIds(eq("card declined"), eq(EnumSet.of(FullTextIndex.Field.ERROR_MESSAGE)), anyLong(), anyLong()))
+            .thenReturn(List.of("trace-2", "trace-1"));
+        when(traceEventRepository.findTextSpans(eq(List.of("trace-2", "trace-1")), anyLong(), anyLong()))
+            .thenReturn(List.of(declined, wordsApart));
+
+        // When
+        TextSearchResult result = telemetryService.searchText("card declined", "errorMessage", now.minusHours(1), now, 100);
+
+        // Then
+        assertThat(result.traceCount()).isEqualTo(1);
+        assertThat(result.truncated()).isFalse();
+        assertThat(result.matches()).extracting(TextSearchResult.Match::spanId).containsExactly("span-1");
+        verify(indexMetrics).recordLookup(any(), anyLong());
+        verify(traceEventRepository, never()).findByTraceIdOrderByTimestamp(anyString());
+    }
+
+    @Test
+    void searchText_WithPackedCandidates_ShouldMatchBlobSpansAndStopAtTheLimit() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        TraceEvent packed = new TraceEvent("trace-3", "span-3", "order-service", "get_order");
+        packed.setId(3L);
+        packed.setHttpUrl("/api/orders/42/invoice");
+        packed.setTimestamp(now.minusMinutes(30));
+        when(fullTextIndex.findTraceIds(eq("invoice"), eq(EnumSet.of(FullTextIndex.Field.HTTP_URL)), anyLong(), anyLong()))
+            .thenReturn(List.of("trace-3", "trace-4"));
+        when(traceBlobRepository.findByTraceIdIn(List.of("trace-3"))).thenReturn(List.of(new TraceBlob("trace-3", List.of(packed))));
+
+        // When
+        TextSearchResult result = telemetryService.searchText("invoice", "httpUrl", now.minusHours(1), now, 1);
+
+        // Then
+        assertThat(result.traceCount()).isEqualTo(1);
+        assertThat(result.truncated()).isTrue();
+        verify(traceEventRepository).findTextSpans(eq(List.of("trace-3")), anyLong(), anyLong());
+        verify(traceEventRepository, never()).findTextSpans(eq(List.of("trace-4")), anyLong(), anyLong());
+    }
+
+    @Test
+    void searchText_WithUnknownField_ShouldRejectSearch() {
+        assertThatThrownBy(() -> telemetryService.searchText("timeout", "operation", null, null, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void recordEvent_ShouldStoreDictionaryEncodedUrlTemplate() {
+        // Given
+        testTraceEventDto.setHttpUrl("/api/orders/83412/items/9");
+        when(urlTemplater.template("/api/orders/83412/items/9")).thenReturn("/api/orders/{id}/items/{id}");
+        when(urlTemplateDictionary.idFor("/api/orders/{id}/items/{id}")).thenReturn(7);
+        when(traceEventRepository.save(any(TraceEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        TraceEvent result = telemetryService.recordEvent(testTraceEventDto);
+
+        // Then
+        assertThat(result.getUrlTemplateId()).isEqualTo(7);
+        assertThat(result.getHttpUrl()).isEqualTo("/api/orders/83412/items/9");
+    }
+
+    @Test
+    void getServiceEndpoints_ShouldResolveTemplatesAndSortByTraffic() {
+        // Given
+        when(traceEventRepository.aggregateByUrlTemplate("order-service")).thenReturn(List.of(
+            new Object[] {"GET", 1, 10L, 204_000L, 10L, 50_000L, 0L},
+            new Object[] {"POST", 2, 40L, 4_824_000L, 40L, 900_000L, 4L}));
+        when(urlTemplateDictionary.templateFor(1)).thenReturn("/api/orders/{id}");
+        when(urlTemplateDictionary.templateFor(2)).thenReturn("/api/orders");
+
+        // When
+        List<EndpointStats> result = telemetryService.getServiceEndpoints("order-service");
+
+        // Then
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).route()).isEqualTo("/api/orders");
+        assertThat(result.get(0).httpMethod()).isEqualTo("POST");
+        assertThat(result.get(0).requestCount()).isEqualTo(40L);
+        assertThat(result.get(0).averageDurationMs()).isEqualTo(121L);
+        assertThat(result.get(0).maxDurationMs()).isEqualTo(900L);
+        assertThat(result.get(0).errorRate()).isEqualTo(10.0);
+        assertThat(result.get(1).route()).isEqualTo("/api/orders/{id}");
+    }
+
+    @Test
+    void getTraces_WithFilters_ShouldPushThemIntoTheSearchBeforePaging() {
+        // Given
+        PageRequest pageRequest = PageRequest.of(1, 2);
+        TraceSearchRepository.Filter filter = new TraceSearchRepository.Filter("test-service", "test_operation", TraceEvent.Status.ERROR, null);
+        when(traceSummaryRepository.findTracePage(filter, pageRequest.getSort(), 2L, 3))
+            .thenReturn(summaries("trace-3", "trace-4", "trace-5"));
+        when(traceSummaryRepository.countTraces(filter)).thenReturn(7L);
+
+        // When
+        Page<TraceListItem> result = telemetryService.getTraces(pageRequest, "test-service", "test_operation", "ERROR");
+
+        // Then
+        assertThat(result.getContent()).extracting(TraceListItem::traceId).containsExactly("trace-3", "trace-4");
+        assertThat(result.getTotalElements()).isEqualTo(7);
+        assertThat(result.getTotalPages()).isEqualTo(4);
+    }
+
+    @Test
+    void getTraces_WithoutCount_ShouldOnlyTellWhetherThereIsANextPage() {
+        // Given
+        PageRequest pageRequest = PageRequest.of(3, 2);
+        when(traceSummaryRepository.findTracePage(any(), any(), eq(6L), eq(3))).thenReturn(summaries("trace-7", "trace-8", "trace-9"));
+
+        // When
+        Page<TraceListItem> result = telemetryService.getTraces(pageRequest, null, null, null, null, false);
+
+        // Then
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getTotalElements()).isEqualTo(9);
+        verify(traceSummaryRepository, never()).countTraces(any());
+    }
+
+    @Test
+    void getTracesAfter_ShouldContinueFromTheCursorOfTheLastTrace() {
+        // Given
+        Sort sort = Sort.by("timestamp").descending();
+        KeysetCursor after = new KeysetCursor(5_000L, "trace-5");
+        when(traceSummaryRepository.findTracesAfter(any(), eq(sort), eq(after), eq(3)))
+            .thenReturn(List.of(summary("trace-4", 4_000L, 4_500L), summary("trace-3", 3_000L, 3_100L), summary("trace-2", 2_000L, 2_100L)));
+
+        // When
+        CursorPage<TraceListItem> result = telemetryService.getTracesAfter(after.encode(), 2, sort, null, null, null, null);
+
+        // Then
+        assertThat(result.content()).extracting(TraceListItem::traceId).containsExactly("trace-4", "trace-3");
+        assertThat(result.hasNext()).isTrue();
+        assertThat(KeysetCursor.decode(result.nextCursor())).isEqualTo(new KeysetCursor(3_000L, "trace-3"));
+        verify(traceSummaryRepository, never()).countTraces(any());
+    }
+
+    @Test
+    void getSpans_OnLastPage_ShouldReturnNoNextCursor() {
+        // Given
+        when(traceEventRepository.findSpansAfter(any(), isNull(), eq(51))).thenReturn(List.of(testTraceEvent));
+
+        // When
+        CursorPage<TraceEvent> result = telemetryService.getSpans(null, 50, "test-service", null, null, null, null);
+
+        // Then
+        assertThat(result.content()).containsExactly(testTraceEvent);
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.nextCursor()).isNull();
+    }
+
+    @Test
+    void getTraces_WithUnknownStatusOrSort_ShouldRejectRequest() {
+        assertThatThrownBy(() -> telemetryService.getTraces(PageRequest.of(0, 20), null, null, "BROKEN"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> telemetryService.getTraces(PageRequest.of(0, 20), null, null, "200"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> telemetryService.getTraces(PageRequest.of(0, 20, Sort.by("serviceName")), null, null, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getTraces_WithLowerCaseStatus_ShouldFilterByThatStatus() {
+        // Given
         PageRequest pageRequest = PageRequest.of(0, 20);
+        when(traceSummaryRepository.findTracePage(argThat(filter -> filter.status() == TraceEvent.Status.ERROR), any(), eq(0L), eq(21)))
+            .thenReturn(summaries("trace-1"));
 
         // When
-        Page<Map<String, Object>> result = telemetryService.getTraces(pageRequest, "test-service", null, null);
+        Page<TraceListItem> result = telemetryService.getTraces(pageRequest, null, null, "error", null, false);
 
         // Then
-        assertThat(result).isNotNull();
-        assertThat(result.getContent()).hasSize(1);
-        assertThat(result.getContent().get(0).get("traceId")).isEqualTo("trace-123");
-        verify(traceEventRepository).findDistinctTraceIds(pageRequest);
+        assertThat(result.getContent()).extracting(TraceListItem::traceId).containsExactly("trace-1");
     }
 
     @Test
@@ -285,6 +783,19 @@ public class TelemetryServiceTest {
         verify(traceEventRepository).findDistinctServiceNames();
     }
 
+    @Test
+    void getServices_WithPackedSpans_ShouldIncludeServicesThatHaveNoRowsLeft() {
+        // Given
+        when(traceEventRepository.findDistinctServiceNames()).thenReturn(List.of("service-1", "service-3"));
+        when(packedSpanStatsRepository.findDistinctServiceNames()).thenReturn(List.of("service-1", "service-2"));
+
+        // When
+        List<String> result = telemetryService.getServices();
+
+        // Then
+        assertThat(result).containsExactly("service-1", "service-2", "service-3");
+    }
+
     @Test
     void getServiceOperations_ShouldReturnOperationsForService() {
         // Given
@@ -303,77 +814,290 @@ public class TelemetryServiceTest {
     @Test
     void getServiceMetrics_WithEvents_ShouldReturnMetrics() {
         // Given
-        TraceEvent event1 = new TraceEvent();
-        event1.setServiceName("test-service");
-        event1.setOperation("operation-1");
-        event1.setDurationMs(100L);
-        event1.setStatus(TraceEvent.Status.SUCCESS);
+        when(traceEventRepository.aggregateByOperation("test-service", Long.MIN_VALUE, Long.MAX_VALUE)).thenReturn(List.of(
+            new Object[] {"operation-1", 1L, 100_000L, 1L, 100_000L, 100_000L, 0L},
+            new Object[] {"operation-2", 1L, 200_000L, 1L, 200_000L, 200_000L, 1L}
+        ));
 
-        TraceEvent event2 = new TraceEvent();
-        event2.setServiceName("test-service");
-        event2.setOperation("operation-2");
-        event2.setDurationMs(200L);
-        event2.setStatus(TraceEvent.Status.ERROR);
+        // When
+        ServiceMetrics result = telemetryService.getServiceMetrics("test-service");
 
-        List<TraceEvent> events = Arrays.asList(event1, event2);
-        when(traceEventRepository.findByServiceNameOrderByTimestampDesc("test-service")).thenReturn(events);
+        // Then
+        assertThat(result).isNotNull();
+        assertThat(result.serviceName()).isEqualTo("test-service");
+        assertThat(result.requestCount()).isEqualTo(2L);
+        assertThat(result.averageDurationMs()).isEqualTo(150L);
+        assertThat(result.minDurationMs()).isEqualTo(100L);
+        assertThat(result.maxDurationMs()).isEqualTo(200L);
+        assertThat(result.errorCount()).isEqualTo(1L);
+        assertThat(result.errorRate()).isEqualTo(50.0);
+        assertThat(result.operationCounts()).isEqualTo(Map.of("operation-1", 1L, "operation-2", 1L));
+        assertThat(result.percentiles()).isNull();
+    }
+
+    @Test
+    void getServiceMetrics_WithPackedSpans_ShouldAddTheirStatsToTheRows() {
+        // Given
+        when(traceEventRepository.aggregateByOperation("test-service", Long.MIN_VALUE, Long.MAX_VALUE)).thenReturn(List.of(
+            new Object[] {"operation-1", 1L, 100_000L, 1L, 100_000L, 100_000L, 0L}
+        ));
+        when(packedSpanStatsRepository.aggregateByOperation("test-service", Long.MIN_VALUE, Long.MAX_VALUE)).thenReturn(List.of(
+            new Object[] {"operation-1", 2L, 60_000L, 2L, 20_000L, 40_000L, 1L},
+            new Object[] {"operation-2", 1L, 0L, 0L, null, null, 0L}
+        ));
 
         // When
-        Map<String, Object> result = telemetryService.getServiceMetrics("test-service");
+        ServiceMetrics result = telemetryService.getServiceMetrics("test-service");
 
         // Then
-        assertThat(result).isNotNull();
-        assertThat(result.get("serviceName")).isEqualTo("test-service");
-        assertThat(result.get("requestCount")).isEqualTo(2L);
-        assertThat(result.get("averageDurationMs")).isEqualTo(150L);
-        assertThat(result.get("errorCount")).isEqualTo(1L);
-        assertThat(result.get("errorRate")).isEqualTo(50.0);
-        assertThat(result.get("operationCounts")).isInstanceOf(Map.class);
-        verify(traceEventRepository).findByServiceNameOrderByTimestampDesc("test-service");
+        assertThat(result.requestCount()).isEqualTo(4L);
+        assertThat(result.errorCount()).isEqualTo(1L);
+        assertThat(result.minDurationMs()).isEqualTo(20L);
+        assertThat(result.maxDurationMs()).isEqualTo(100L);
+        assertThat(result.averageDurationMs()).isEqualTo(53L);
+        assertThat(result.operationCounts()).isEqualTo(Map.of("operation-1", 3L, "operation-2", 1L));
+    }
+
+    @Test
+    void getServiceMetrics_WithWindow_ShouldAggregateOnlyInsideIt() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusHours(1);
+        when(traceEventRepository.aggregateByOperation("test-service", EpochMicros.of(from), EpochMicros.of(to)))
+            .thenReturn(Collections.singletonList(new Object[] {"operation-1", 4L, null, 0L, null, null, 2L}));
+
+        // When
+        ServiceMetrics result = telemetryService.getServiceMetrics("test-service", from, to);
+
+        // Then
+        assertThat(result.requestCount()).isEqualTo(4L);
+        assertThat(result.averageDurationMs()).isEqualTo(0L);
+        assertThat(result.maxDurationMs()).isNull();
+        assertThat(result.errorRate()).isEqualTo(50.0);
+        assertThat(result.from()).isEqualTo(from);
+        assertThat(result.to()).isEqualTo(to);
+        assertThatThrownBy(() -> telemetryService.getServiceMetrics("test-service", to, from))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getServiceMetrics_WithRollupsEnabled_ShouldAddPercentilesFromRollupHistograms() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(7);
+        when(traceEventRepository.aggregateByOperation("test-service", EpochMicros.of(from), EpochMicros.of(to)))
+            .thenReturn(Collections.singletonList(new Object[] {"operation-1", 1000L, 0L, 0L, null, null, 0L}));
+        RollupStats stats = new RollupStats();
+        for (int i = 0; i < 1000; i++) {
+            TraceEvent span = new TraceEvent("trace-" + i, "span-" + i, "test-service", "operation-1");
+            span.setDurationMicros(i < 990 ? 20_000L : 900_000L);
+            stats.record(span);
+        }
+        when(rollupAccumulator.isEnabled()).thenReturn(true);
+        when(rollupReader.query("test-service", null, EpochMicros.of(from), EpochMicros.of(to)))
+            .thenReturn(new RollupReader.Result(stats, new RollupQueryPlanner.Plan(List.of(), EpochMicros.of(from), EpochMicros.of(to), false)));
+
+        // When
+        ServiceMetrics result = telemetryService.getServiceMetrics("test-service", from, to);
+
+        // Then
+        assertThat(result.percentiles().p50()).isBetween(19L, 21L);
+        assertThat(result.percentiles().p90()).isBetween(19L, 21L);
+        assertThat(result.percentiles().p99()).isBetween(19L, 21L);
+        assertThat(result.percentiles().p999()).isBetween(870L, 930L);
+    }
+
+    @Test
+    void getOperationLatency_ShouldReturnPercentilesCountAndMaxWithoutThePlan() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        RollupStats stats = new RollupStats();
+        for (int i = 0; i < 100; i++) {
+            TraceEvent span = new TraceEvent("trace-" + i, "span-" + i, "test-service", "create_order");
+            span.setDurationMicros(i < 99 ? 20_000L : 900_000L);
+            stats.record(span);
+        }
+        RollupQueryPlanner.Plan plan = new RollupQueryPlanner.Plan(
+            List.of(new RollupQueryPlanner.Range(RollupResolution.HOUR, EpochMicros.of(from), EpochMicros.of(to))),
+            EpochMicros.of(from), EpochMicros.of(to), true);
+        when(rollupReader.query("test-service", "create_order", EpochMicros.of(from), EpochMicros.of(to)))
+            .thenReturn(new RollupReader.Result(stats, plan));
+
+        // When
+        OperationLatency result = telemetryService.getOperationLatency("test-service", "create_order", from, to);
+
+        // Then
+        assertThat(result.durationCount()).isEqualTo(100);
+        assertThat(result.percentiles().p50()).isBetween(19L, 21L);
+        assertThat(result.maxDurationMs()).isEqualTo(900L);
+        assertThat(result.approximate()).isTrue();
+    }
+
+    @Test
+    void getOperationLatency_WithoutTimedSpans_ShouldReturnNoPercentiles() {
+        // Given
+        when(rollupReader.query(eq("test-service"), eq("create_order"), anyLong(), anyLong()))
+            .thenReturn(new RollupReader.Result(new RollupStats(), new RollupQueryPlanner.Plan(List.of(), 0L, 1L, false)));
+
+        // When
+        OperationLatency result = telemetryService.getOperationLatency("test-service", "create_order", null, null);
+
+        // Then
+        assertThat(result.durationCount()).isZero();
+        assertThat(result.percentiles()).isNull();
+        assertThat(result.maxDurationMs()).isNull();
+    }
+
+    @Test
+    void getServiceTimeSeries_WithWholeMinuteStep_ShouldReadRollups() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 2);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 1, 0, 14);
+        long start = EpochMicros.of(LocalDateTime.of(2024, 1, 1, 0, 0));
+        long step = 5 * 60_000_000L;
+        RollupStats busy = new RollupStats();
+        TraceEvent span = new TraceEvent("trace-1", "span-1", "test-service", "operation-1");
+        span.setStatus(TraceEvent.Status.ERROR);
+        span.setDurationMicros(40_000);
+        busy.record(span);
+        when(rollupAccumulator.isEnabled()).thenReturn(true);
+        when(rollupReader.series("test-service", null, start, start + 3 * step, step)).thenReturn(List.of(
+            new RollupReader.Point(start, start + step, busy, false),
+            new RollupReader.Point(start + step, start + 2 * step, new RollupStats(), false),
+            new RollupReader.Point(start + 2 * step, start + 3 * step, new RollupStats(), false)));
+
+        // When
+        ServiceTimeSeries result = telemetryService.getServiceTimeSeries("test-service", null, from, to, "5m");
+
+        // Then
+        List<ServiceTimeSeries.Point> points = result.points();
+        assertThat(result.source()).isEqualTo("rollups");
+        assertThat(result.stepSeconds()).isEqualTo(300L);
+        assertThat(result.fromMicros()).isEqualTo(start);
+        assertThat(points).hasSize(3);
+        assertThat(points.get(0).requestCount()).isEqualTo(1L);
+        assertThat(points.get(0).errorCount()).isEqualTo(1L);
+        assertThat(points.get(0).percentiles().p99()).isEqualTo(40L);
+        assertThat(points.get(1).requestCount()).isZero();
+        assertThat(points.get(1).percentiles()).isNull();
+        verify(traceEventRepository, never()).aggregateBuckets(anyString(), any(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void getServiceTimeSeries_WithSubMinuteStep_ShouldBucketInTheDatabase() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = from.plusSeconds(30);
+        long start = EpochMicros.of(from);
+        when(traceEventRepository.aggregateBuckets("test-service", "operation-1", start, start + 30_000_000L, 10_000_000L))
+            .thenReturn(List.of(
+                new SpanBucketRepository.Bucket(0, null, 2, 0, 0, 0, 0, 0),
+                new SpanBucketRepository.Bucket(2, 318, 3, 1, 3, 60_300, 20_000, 20_200)));
+
+        // When
+        ServiceTimeSeries result = telemetryService.getServiceTimeSeries("test-service", "operation-1", from, to, "10s");
+
+        // Then
+        List<ServiceTimeSeries.Point> points = result.points();
+        assertThat(result.source()).isEqualTo("spans");
+        assertThat(result.approximate()).isFalse();
+        assertThat(points).extracting(ServiceTimeSeries.Point::requestCount).containsExactly(2L, 0L, 3L);
+        assertThat(points.get(2).errorCount()).isEqualTo(1L);
+        assertThat(points.get(2).maxDurationMs()).isEqualTo(20L);
+        assertThat(points.get(2).percentiles().p50()).isBetween(19L, 21L);
+        assertThatThrownBy(() -> telemetryService.getServiceTimeSeries("test-service", null, from, to, "5s"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> telemetryService.getServiceTimeSeries("test-service", null, from, to, "fortnightly"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void getServiceTimeSeries_WithSubMinuteStepOverCompactedSpans_ShouldRejectTheWindow() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        when(tierCompactor.getColdCutoffMicros()).thenReturn(Long.MIN_VALUE);
+        when(traceBlobCompactor.getPackCutoffMicros()).thenReturn(EpochMicros.of(now.minusMinutes(10)));
+
+        // Then
+        assertThatThrownBy(() -> telemetryService.getServiceTimeSeries("test-service", null, now.minusMinutes(15), now, "10s"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("whole-minute step");
+        verify(traceEventRepository, never()).aggregateBuckets(anyString(), any(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void getServiceTimeSeries_WithSpansWaitingInWriteBehindBuffer_ShouldMarkSubMinutePointsApproximate() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(writeBehindBuffer.getPendingCount()).thenReturn(3);
+
+        // When
+        ServiceTimeSeries result = telemetryService.getServiceTimeSeries("test-service", null, from, from.plusSeconds(30), "10s");
+
+        // Then
+        assertThat(result.approximate()).isTrue();
+        assertThat(result.points()).hasSize(3);
     }
 
     @Test
     void getServiceMetrics_WithNoEvents_ShouldReturnEmptyMetrics() {
         // Given
-        when(traceEventRepository.findByServiceNameOrderByTimestampDesc("test-service")).thenReturn(Collections.emptyList());
+        when(traceEventRepository.aggregateByOperation(eq("test-service"), anyLong(), anyLong())).thenReturn(Collections.emptyList());
 
         // When
-        Map<String, Object> result = telemetryService.getServiceMetrics("test-service");
+        ServiceMetrics result = telemetryService.getServiceMetrics("test-service");
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result.get("serviceName")).isEqualTo("test-service");
-        assertThat(result.get("requestCount")).isEqualTo(0);
-        verify(traceEventRepository).findByServiceNameOrderByTimestampDesc("test-service");
+        assertThat(result.serviceName()).isEqualTo("test-service");
+        assertThat(result.isEmpty()).isTrue();
+        verify(traceEventRepository).aggregateByOperation(eq("test-service"), anyLong(), anyLong());
     }
 
     @Test
     void getHealthStatus_ShouldReturnSystemHealth() {
         // Given
         when(traceEventRepository.count()).thenReturn(1000L);
-        when(traceEventRepository.countRecentEvents(any(LocalDateTime.class))).thenReturn(50L);
+        when(traceEventRepository.countRecentEvents(anyLong())).thenReturn(50L);
         when(traceEventRepository.findDistinctServiceNames()).thenReturn(Arrays.asList("service-1", "service-2"));
 
         // When
-        Map<String, Object> result = telemetryService.getHealthStatus();
+        HealthStatus result = telemetryService.getHealthStatus();
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result.get("status")).isEqualTo("healthy");
-        assertThat(result.get("totalEvents")).isEqualTo(1000L);
-        assertThat(result.get("recentEvents")).isEqualTo(50L);
-        assertThat(result.get("trackedServices")).isEqualTo(2);
-        assertThat(result.get("services")).isInstanceOf(List.class);
-        assertThat(result.get("timestamp")).isInstanceOf(LocalDateTime.class);
+        assertThat(result.status()).isEqualTo("healthy");
+        assertThat(result.totalEvents()).isEqualTo(1000L);
+        assertThat(result.recentEvents()).isEqualTo(50L);
+        assertThat(result.trackedServices()).isEqualTo(2);
+        assertThat(result.services()).containsExactly("service-1", "service-2");
+        assertThat(result.timestamp()).isNotNull();
         verify(traceEventRepository).count();
-        verify(traceEventRepository).countRecentEvents(any(LocalDateTime.class));
+        verify(traceEventRepository).countRecentEvents(anyLong());
         verify(traceEventRepository).findDistinctServiceNames();
     }
 
+    @Test
+    void getHealthStatus_WithHotTierCoverage_ShouldCountRecentEventsInMemory() {
+        // Given
+        when(traceEventRepository.count()).thenReturn(1000L);
+        when(hotTier.coversSince(anyLong())).thenReturn(true);
+        when(hotTier.countSince(anyLong())).thenReturn(42L);
+        when(traceEventRepository.findDistinctServiceNames()).thenReturn(List.of("service-1"));
+
+        // When
+        HealthStatus result = telemetryService.getHealthStatus();
+
+        // Then
+        assertThat(result.recentEvents()).isEqualTo(42L);
+        verify(traceEventRepository, never()).countRecentEvents(anyLong());
+    }
+
     @Test
     void cleanupOldTraces_ShouldDeleteOldTracesAndReturnResult() {
         // Given
-        when(traceEventRepository.deleteByTimestampBefore(any(LocalDateTime.class))).thenReturn(100);
+        when(traceEventRepository.deleteByTimestampBefore(anyLong())).thenReturn(100);
 
         // When
         Map<String, Object> result = telemetryService.cleanupOldTraces(7);
@@ -383,6 +1107,69 @@ public class TelemetryServiceTest {
         assertThat(result.get("deletedEvents")).isEqualTo(100);
         assertThat(result.get("cutoffDate")).isInstanceOf(LocalDateTime.class);
         assertThat(result.get("message")).isEqualTo("Cleaned up traces older than 7 days");
-        verify(traceEventRepository).deleteByTimestampBefore(any(LocalDateTime.class));
+        verify(traceEventRepository).deleteByTimestampBefore(anyLong());
+        verify(traceEventMetadataRepository).deleteOrphans();
+        verify(traceBlobRepository).deleteByEndBefore(anyLong());
+        verify(traceSummaryRepository).deleteByEndBefore(anyLong());
+        verify(traceOperationRepository).deleteOrphans();
+    }
+
+    @Test
+    void cleanupOldTraces_WithSegmentStoreEnabled_ShouldArchiveBeforeDeleting() {
+        // Given
+        ReflectionTestUtils.setField(telemetryService, "segmentRetentionDays", 90);
+        when(segmentStore.isEnabled()).thenReturn(true);
+        when(tierCompactor.moveToCold(anyLong())).thenReturn(3L);
+        when(traceEventRepository.deleteByTimestampBefore(anyLong())).thenReturn(2);
+
+        // When
+        Map<String, Object> result = telemetryService.cleanupOldTraces(7);
+
+        // Then
+        assertThat(result.get("archivedEvents")).isEqualTo(3L);
+        assertThat(result.get("deletedEvents")).isEqualTo(5L);
+        verify(tierCompactor).moveToCold(anyLong());
+        verify(segmentStore).dropSegmentsBefore(anyLong());
+        verify(hotTier).removeOlderThan(anyLong());
+        verify(indexMaintainer).prune(anyLong());
+        // Rows go at the raw cutoff; summaries and blobs stay as long as the archived spans
+        long day = 86_400_000_000L;
+        verify(traceEventRepository).deleteByTimestampBefore(longThat(cutoff -> cutoff > EpochMicros.now() - 8 * day));
+        verify(traceSummaryRepository).deleteByEndBefore(longThat(cutoff -> cutoff < EpochMicros.now() - 89 * day));
+        verify(traceBlobRepository).deleteByEndBefore(longThat(cutoff -> cutoff < EpochMicros.now() - 89 * day));
+    }
+
+    private static TraceSearchRepository.Filter noFilter() {
+        return eq(new TraceSearchRepository.Filter(null, null, null, null));
+    }
+
+    private static List<TraceSummary> summaries(String... traceIds) {
+        List<TraceSummary> summaries = new ArrayList<>();
+        for (String traceId : traceIds) {
+            summaries.add(summary(traceId, 1_000L, 2_000L));
+        }
+        return summaries;
+    }
+
+    private static TraceSummary summary(String traceId, long startMicros, long endMicros) {
+        TraceSummary summary = new TraceSummary(traceId);
+        summary.add(span("test-service", "test_operation", TraceEvent.Status.SUCCESS, startMicros));
+        summary.add(span("test-service", "test_operation", TraceEvent.Status.SUCCESS, endMicros));
+        return summary;
+    }
+
+    private static TraceEvent span(String serviceName, String operation, TraceEvent.Status status, long timestampMicros) {
+        TraceEvent span = new TraceEvent("trace-123", "span-" + timestampMicros, serviceName, operation);
+        span.setStatus(status);
+        span.setTimestampMicros(timestampMicros);
+        return span;
+    }
+
+    private Consumer<List<TraceEvent>> captureWriteBehindWriter() {
+        telemetryService.init();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<List<TraceEvent>>> writer = ArgumentCaptor.forClass(Consumer.class);
+        verify(writeBehindBuffer).setWriter(writer.capture());
+        return writer.getValue();
     }
-}
\ No newline at end of file
+}
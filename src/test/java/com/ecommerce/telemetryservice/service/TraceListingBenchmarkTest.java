@@ -0,0 +1,142 @@
+package com.ecommerce.telemetryservice.service;
+
+import com.ecommerce.telemetryservice.dto.TraceEventDto;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.repository.TraceEventMetadataRepository;
+import com.ecommerce.telemetryservice.repository.TraceEventRepository;
+import com.ecommerce.telemetryservice.repository.TraceOperationRepository;
+import com.ecommerce.telemetryservice.repository.TraceSummaryRepository;
+import com.ecommerce.telemetryservice.view.TraceListItem;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lists a page of 100 traces of 50 spans each, comparing the per-trace span fetch
+ * getTraces used to do with reading their {@code trace_summaries} rows. Timings are printed; the test
+ * asserts only on the number of statements, which does not depend on the machine.
+ * Tagged {@code benchmark}, so it runs with {@code ./gradlew benchmarkTest} rather than
+ * with the regular tests.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Tag("benchmark")
+public class TraceListingBenchmarkTest {
+
+    private static final int TRACES = 100;
+    private static final int SPANS_PER_TRACE = 50;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private TraceEventRepository traceEventRepository;
+
+    @Autowired
+    private TraceEventMetadataRepository traceEventMetadataRepository;
+
+    @Autowired
+    private TraceSummaryRepository traceSummaryRepository;
+
+    @Autowired
+    private TraceOperationRepository traceOperationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        traceEventRepository.deleteAllInBatch();
+        traceEventMetadataRepository.deleteAllInBatch();
+        traceSummaryRepository.deleteAllInBatch();
+        traceOperationRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        List<TraceEventDto> spans = new ArrayList<>(TRACES * SPANS_PER_TRACE);
+        for (int trace = 0; trace < TRACES; trace++) {
+            for (int span = 0; span < SPANS_PER_TRACE; span++) {
+                TraceEventDto dto = new TraceEventDto();
+                dto.setTraceId(String.format("bench-trace-%03d", trace));
+                dto.setSpanId("span-" + span);
+                dto.setParentSpanId(span == 0 ? null : "span-0");
+                dto.setServiceName("service-" + (span % 5));
+                dto.setOperation("operation-" + (span % 10));
+                dto.setTimestamp(start.plusSeconds(trace).plusNanos(span * 1_000_000L));
+                dto.setDurationMs(5L + span);
+                dto.setStatus(span == 49 && trace % 10 == 0 ? TraceEvent.Status.ERROR : TraceEvent.Status.SUCCESS);
+                dto.setEventType(TraceEvent.EventType.SPAN);
+                dto.setMetadata("{\"region\":\"eu-west-1\",\"attempt\":" + (span % 3) + "}");
+                spans.add(dto);
+            }
+        }
+        telemetryService.recordEventsBatch(spans);
+    }
+
+    @Test
+    void getTraces_PageOf100TracesWith50SpansEach_ShouldUseAConstantNumberOfQueries() {
+        // Given
+        PageRequest page = PageRequest.of(0, TRACES);
+        List<String> traceIds = traceEventRepository.findDistinctTraceIds(page);
+        for (int round = 0; round < 3; round++) {
+            perTraceFetch(page);
+            telemetryService.getTraces(page, null, null, null, null, false);
+        }
+
+        // When
+        statistics.clear();
+        long perTraceNanos = time(() -> perTraceFetch(page));
+        long perTraceStatements = statistics.getPrepareStatementCount() / ROUNDS;
+
+        statistics.clear();
+        long summaryNanos = time(() -> telemetryService.getTraces(page, null, null, null, null, false));
+        long summaryStatements = statistics.getPrepareStatementCount() / ROUNDS;
+        Page<TraceListItem> result = telemetryService.getTraces(page, null, null, null);
+
+        // Then
+        System.out.printf("⏱️ getTraces, %d traces x %d spans: per-trace fetch %.2fms / %d statements, summary rows %.2fms / %d statements%n",
+            TRACES, SPANS_PER_TRACE, perTraceNanos / 1e6 / ROUNDS, perTraceStatements, summaryNanos / 1e6 / ROUNDS, summaryStatements);
+        assertThat(traceIds).hasSize(TRACES);
+        assertThat(perTraceStatements).isGreaterThan(TRACES);
+        assertThat(summaryStatements).isLessThanOrEqualTo(2);
+        assertThat(result.getContent()).hasSize(TRACES);
+        assertThat(result.getContent()).allSatisfy(summary -> {
+            assertThat(summary.spanCount()).isEqualTo(SPANS_PER_TRACE);
+            assertThat(summary.services()).hasSize(5);
+            assertThat(summary.operations()).hasSize(10);
+        });
+        assertThat(result.getContent()).filteredOn(TraceListItem::error).hasSize(TRACES / 10);
+    }
+
+    // What getTraces did before: one query for the page of ids, then every span of every trace
+    private void perTraceFetch(PageRequest page) {
+        for (String traceId : traceEventRepository.findDistinctTraceIds(page)) {
+            traceEventRepository.findByTraceIdOrderByTimestamp(traceId);
+        }
+    }
+
+    private long time(Runnable work) {
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            work.run();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.telemetryservice.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class ShardRouterTest {
+
+    private ShardRouter shardRouter;
+
+    @BeforeEach
+    void setUp() {
+        DataSource shard0 = new DriverManagerDataSource("jdbc:h2:mem:router-0");
+        DataSource shard1 = new DriverManagerDataSource("jdbc:h2:mem:router-1");
+        shardRouter = new ShardRouter();
+        ReflectionTestUtils.setField(shardRouter, "routingDataSource",
+            new ShardRoutingDataSource(List.of(shard0, shard1), List.of(shard0, shard1)));
+        shardRouter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardRouter.shutdown();
+    }
+
+    @Test
+    void onAllShards_NestedInAnotherFanOut_ShouldRunInlineInsteadOfWaitingForThePool() {
+        // When
+        List<List<Integer>> result = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+            shardRouter.onAllShards(() -> shardRouter.onAllShards(ShardRoutingDataSource::currentShard)));
+
+        // Then
+        assertThat(result).containsExactly(List.of(0, 1), List.of(0, 1));
+    }
+
+    @Test
+    void byTraceId_NestedInAnotherFanOut_ShouldRunInlineOnTheShardOfEachGroup() {
+        // Given
+        List<String> traceIds = List.of("trace-1", "trace-2", "trace-3", "trace-4");
+
+        // When
+        List<Integer> result = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+            shardRouter.onAllShards(() -> shardRouter.byTraceId(traceIds, ids -> List.of(ids.size()))).get(0));
+
+        // Then
+        assertThat(result.stream().mapToInt(Integer::intValue).sum()).isEqualTo(traceIds.size());
+    }
+}
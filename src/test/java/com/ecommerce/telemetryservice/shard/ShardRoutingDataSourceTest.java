@@ -0,0 +1,101 @@
+package com.ecommerce.telemetryservice.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardRoutingDataSourceTest {
+
+    private final Connection write0 = mock(Connection.class);
+    private final Connection read0 = mock(Connection.class);
+    private final Connection write1 = mock(Connection.class);
+    private final Connection read1 = mock(Connection.class);
+
+    private ShardRoutingDataSource routingDataSource;
+    private ShardRouter shardRouter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        routingDataSource = new ShardRoutingDataSource(
+            List.of(pool(write0), pool(write1)),
+            List.of(pool(read0), pool(read1)));
+        shardRouter = new ShardRouter();
+        ReflectionTestUtils.setField(shardRouter, "routingDataSource", routingDataSource);
+        shardRouter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        shardRouter.shutdown();
+    }
+
+    @Test
+    void getConnection_OutsideReadOnlyTransaction_ShouldUseWritePool() throws Exception {
+        // When
+        Connection connection = routingDataSource.getConnection();
+
+        // Then
+        assertThat(connection).isSameAs(write0);
+    }
+
+    @Test
+    void getConnection_InReadOnlyTransaction_ShouldUseReadPool() throws Exception {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        Connection connection = routingDataSource.getConnection();
+
+        // Then
+        assertThat(connection).isSameAs(read0);
+    }
+
+    @Test
+    void getConnection_OnShard_ShouldUseThatShardsPoolForTheTransactionType() {
+        // When
+        Connection write = shardRouter.onShard(1, this::connect);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection read = shardRouter.onShard(1, this::connect);
+
+        // Then
+        assertThat(write).isSameAs(write1);
+        assertThat(read).isSameAs(read1);
+        assertThat(connect()).isSameAs(read0);
+    }
+
+    @Test
+    void constructor_ShouldRejectShardWithoutReadPool() {
+        assertThatThrownBy(() -> new ShardRoutingDataSource(List.of(pool(write0), pool(write1)), List.of(pool(read0))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Connection connect() {
+        try {
+            return routingDataSource.getConnection();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static DataSource pool(Connection connection) {
+        DataSource pool = mock(DataSource.class);
+        try {
+            when(pool.getConnection()).thenReturn(connection);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return pool;
+    }
+}
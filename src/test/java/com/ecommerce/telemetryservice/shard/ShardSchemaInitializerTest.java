@@ -0,0 +1,80 @@
+package com.ecommerce.telemetryservice.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardSchemaInitializerTest {
+
+    private DataSource shard0;
+    private DataSource shard1;
+    private HibernateProperties hibernateProperties;
+
+    @BeforeEach
+    void setUp() {
+        shard0 = database();
+        shard1 = database();
+        hibernateProperties = new HibernateProperties();
+        // The schema exists already, e.g. managed by migrations
+        hibernateProperties.setDdlAuto("none");
+    }
+
+    @Test
+    void afterPropertiesSet_WithoutDdlAuto_ShouldStillMoveShardIdsIntoTheirRange() {
+        // When
+        initializer().afterPropertiesSet();
+        new JdbcTemplate(shard1).update("INSERT INTO trace_events (trace_id) VALUES ('trace-1')");
+
+        // Then
+        Long id = new JdbcTemplate(shard1).queryForObject("SELECT MAX(id) FROM trace_events", Long.class);
+        assertThat(ShardRouter.shardOfId(id)).isEqualTo(1);
+    }
+
+    @Test
+    void afterPropertiesSet_WithSpansAlreadyInRange_ShouldKeepTheSequence() {
+        // Given
+        long firstId = (1L << ShardRouter.SHARD_ID_SHIFT) + 1;
+        new JdbcTemplate(shard1).update("INSERT INTO trace_events (id, trace_id) VALUES (?, 'trace-1')", firstId + 41);
+        new JdbcTemplate(shard1).execute("ALTER TABLE trace_events ALTER COLUMN id RESTART WITH " + (firstId + 42));
+
+        // When
+        initializer().afterPropertiesSet();
+        new JdbcTemplate(shard1).update("INSERT INTO trace_events (trace_id) VALUES ('trace-2')");
+
+        // Then
+        assertThat(new JdbcTemplate(shard1).queryForObject("SELECT MAX(id) FROM trace_events", Long.class)).isEqualTo(firstId + 42);
+    }
+
+    @Test
+    void afterPropertiesSet_WithSpansNumberedBelowTheShardRange_ShouldFailFast() {
+        // Given
+        new JdbcTemplate(shard1).update("INSERT INTO trace_events (trace_id) VALUES ('trace-1')");
+
+        // Then
+        assertThatThrownBy(() -> initializer().afterPropertiesSet())
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Shard 1");
+    }
+
+    private ShardSchemaInitializer initializer() {
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(List.of(shard0, shard1), List.of(shard0, shard1));
+        return new ShardSchemaInitializer(routingDataSource, null, new JpaProperties(), hibernateProperties);
+    }
+
+    private static DataSource database() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:schema-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(dataSource).execute(
+            "CREATE TABLE trace_events (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, trace_id VARCHAR(64))");
+        return dataSource;
+    }
+}
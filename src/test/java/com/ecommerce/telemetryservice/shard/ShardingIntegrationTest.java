@@ -0,0 +1,160 @@
+package com.ecommerce.telemetryservice.shard;
+
+import com.ecommerce.telemetryservice.dto.TraceEventDto;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.service.TelemetryService;
+import com.ecommerce.telemetryservice.view.HealthStatus;
+import com.ecommerce.telemetryservice.view.ServiceMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:sharding-test-0",
+    "telemetry.shards.urls=jdbc:h2:mem:sharding-test-1,jdbc:h2:mem:sharding-test-2"
+})
+@ActiveProfiles("test")
+public class ShardingIntegrationTest {
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < routingDataSource.getShardCount(); shard++) {
+            JdbcTemplate jdbc = new JdbcTemplate(routingDataSource.getShard(shard));
+            jdbc.execute("DELETE FROM trace_events");
+            jdbc.execute("DELETE FROM trace_event_metadata");
+            jdbc.execute("DELETE FROM trace_summaries");
+            jdbc.execute("DELETE FROM trace_operations");
+        }
+    }
+
+    @Test
+    void recordEventsBatch_ShouldKeepEveryTraceOnTheShardOfItsTraceId() {
+        // Given
+        telemetryService.recordEventsBatch(spans("placement", 30, 3, LocalDateTime.now()));
+
+        // When
+        List<Set<String>> traceIdsByShard = new ArrayList<>();
+        for (int shard = 0; shard < routingDataSource.getShardCount(); shard++) {
+            traceIdsByShard.add(new HashSet<>(new JdbcTemplate(routingDataSource.getShard(shard))
+                .queryForList("SELECT trace_id FROM trace_events", String.class)));
+        }
+
+        // Then
+        assertThat(shardRouter.getShardCount()).isEqualTo(3);
+        assertThat(traceIdsByShard).allSatisfy(traceIds -> assertThat(traceIds).isNotEmpty());
+        for (int shard = 0; shard < traceIdsByShard.size(); shard++) {
+            for (String traceId : traceIdsByShard.get(shard)) {
+                assertThat(shardRouter.shardOf(traceId)).isEqualTo(shard);
+            }
+        }
+        assertThat(traceIdsByShard.stream().mapToInt(Set::size).sum()).isEqualTo(30);
+    }
+
+    @Test
+    void recordEventsBatch_ShouldNumberSpansUniquelyAcrossShards() {
+        // When
+        List<TraceEvent> saved = telemetryService.recordEventsBatch(spans("ids", 30, 2, LocalDateTime.now()));
+
+        // Then
+        assertThat(saved).hasSize(60);
+        assertThat(saved.stream().map(TraceEvent::getId).distinct()).hasSize(60);
+        assertThat(saved).allSatisfy(event ->
+            assertThat(ShardRouter.shardOfId(event.getId())).isEqualTo(shardRouter.shardOf(event.getTraceId())));
+    }
+
+    @Test
+    void recordEventsBatch_ShouldReturnSpansInTheOrderTheyWereSent() {
+        // Given
+        List<TraceEventDto> sent = spans("order", 30, 2, LocalDateTime.now());
+
+        // When
+        List<TraceEvent> saved = telemetryService.recordEventsBatch(sent);
+
+        // Then
+        assertThat(saved).extracting(TraceEvent::getSpanId)
+            .containsExactlyElementsOf(sent.stream().map(TraceEventDto::getSpanId).toList());
+    }
+
+    @Test
+    void getTraceById_ShouldReadTheWholeTraceFromItsShard() {
+        // Given
+        telemetryService.recordEventsBatch(spans("read", 10, 4, LocalDateTime.now()));
+
+        // When
+        List<TraceEvent> trace = telemetryService.getTraceById("read-7");
+
+        // Then
+        assertThat(trace).hasSize(4);
+        assertThat(trace).extracting(TraceEvent::getSpanId).containsExactly("span-7-0", "span-7-1", "span-7-2", "span-7-3");
+        assertThat(trace.get(0).getMetadata()).isEqualTo("{\"orderId\":\"order_7\"}");
+    }
+
+    @Test
+    void queriesAcrossTraces_ShouldMergeEveryShard() {
+        // Given
+        telemetryService.recordEventsBatch(spans("fan-out", 30, 2, LocalDateTime.now()));
+
+        // When
+        List<String> services = telemetryService.getServices();
+        HealthStatus health = telemetryService.getHealthStatus();
+        ServiceMetrics metrics = telemetryService.getServiceMetrics("service-1");
+
+        // Then
+        assertThat(services).containsExactly("service-0", "service-1", "service-2");
+        assertThat(health.totalEvents()).isEqualTo(60L);
+        assertThat(metrics.requestCount()).isEqualTo(20L);
+    }
+
+    @Test
+    void cleanupOldTraces_ShouldDeleteOnEveryShard() {
+        // Given
+        telemetryService.recordEventsBatch(spans("cleanup", 30, 1, LocalDateTime.now().minusDays(10)));
+
+        // When
+        Map<String, Object> result = telemetryService.cleanupOldTraces(7);
+
+        // Then
+        assertThat(result.get("deletedEvents")).isEqualTo(30);
+        assertThat(telemetryService.getServices()).isEmpty();
+    }
+
+    private static List<TraceEventDto> spans(String prefix, int traces, int spansPerTrace, LocalDateTime start) {
+        List<TraceEventDto> spans = new ArrayList<>();
+        for (int trace = 0; trace < traces; trace++) {
+            for (int span = 0; span < spansPerTrace; span++) {
+                TraceEventDto dto = new TraceEventDto();
+                dto.setTraceId(prefix + "-" + trace);
+                dto.setSpanId("span-" + trace + "-" + span);
+                dto.setServiceName("service-" + trace % 3);
+                dto.setOperation("operation-" + span);
+                dto.setTimestamp(start.plusNanos(span * 1_000_000L));
+                dto.setDurationMs(10L);
+                dto.setStatus(TraceEvent.Status.SUCCESS);
+                dto.setMetadata("{\"orderId\":\"order_" + trace + "\"}");
+                spans.add(dto);
+            }
+        }
+        return spans;
+    }
+}
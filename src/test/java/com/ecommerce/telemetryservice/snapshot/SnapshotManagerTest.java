@@ -0,0 +1,142 @@
+package com.ecommerce.telemetryservice.snapshot;
+
+import com.ecommerce.telemetryservice.index.AttributeIndex;
+import com.ecommerce.telemetryservice.index.TraceDictionary;
+import com.ecommerce.telemetryservice.ingest.UrlTemplater;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.ecommerce.telemetryservice.storage.HotTier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SnapshotManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restore_ShouldReloadIndexesAndTemplatesFromPeriodicSnapshot() {
+        // Given
+        Components before = new Components();
+        before.attributeIndex.index(createEvent("trace-1", "{\"region\":\"eu-west-1\"}"));
+        before.attributeIndex.index(createEvent("trace-2", "{\"region\":\"us-east-1\"}"));
+        before.attributeIndex.index(createEvent("trace-3", "{\"region\":\"eu-west-1\"}"));
+        before.urlTemplater.template("/api/products/sku-1/reviews");
+        assertThat(before.manager(tempDir).write(false)).isTrue();
+
+        // When
+        Components after = new Components();
+        after.manager(tempDir).restore();
+
+        // Then
+        assertThat(after.attributeIndex.findTraceIds(Map.of("region", "eu-west-1"))).containsExactly("trace-3", "trace-1");
+        assertThat(after.traceDictionary.getTraceCount()).isEqualTo(3);
+        assertThat(after.urlTemplater.getNodeCount()).isEqualTo(before.urlTemplater.getNodeCount());
+        assertThat(Files.exists(tempDir.resolve("snapshot.bin"))).isTrue();
+    }
+
+    @Test
+    void restore_WithShutdownSnapshot_ShouldReloadHotTierAndDeleteFile() {
+        // Given
+        Components before = new Components();
+        before.hotTier.add(createSpan("trace-1", "span-1"));
+        before.hotTier.add(createSpan("trace-1", "span-2"));
+        assertThat(before.hotTier.findCompleteTrace("trace-1")).isPresent();
+        before.manager(tempDir).write(true);
+
+        // When
+        Components after = new Components();
+        after.manager(tempDir).restore();
+
+        // Then
+        assertThat(after.hotTier.findCompleteTrace("trace-1")).hasValueSatisfying(spans ->
+            assertThat(spans).extracting(TraceEvent::getSpanId).containsExactly("span-1", "span-2"));
+        assertThat(Files.exists(tempDir.resolve("snapshot.bin"))).isFalse();
+    }
+
+    @Test
+    void restore_WithPeriodicSnapshot_ShouldNotReloadHotTier() {
+        // Given
+        Components before = new Components();
+        before.hotTier.add(createSpan("trace-1", "span-1"));
+        before.manager(tempDir).write(false);
+
+        // When
+        Components after = new Components();
+        after.manager(tempDir).restore();
+
+        // Then
+        assertThat(after.hotTier.getSpanCount()).isZero();
+    }
+
+    @Test
+    void restore_WithChangedTemplateRules_ShouldIgnoreWholeSnapshot() {
+        // Given
+        Components before = new Components();
+        before.attributeIndex.index(createEvent("trace-1", "{\"region\":\"eu-west-1\"}"));
+        before.manager(tempDir).write(false);
+
+        // When
+        Components after = new Components();
+        ReflectionTestUtils.setField(after.urlTemplater, "rules", new String[] {"/api/orders/{orderId}"});
+        after.urlTemplater.init();
+        after.manager(tempDir).restore();
+
+        // Then
+        assertThat(after.attributeIndex.findTraceIds(Map.of("region", "eu-west-1"))).isEmpty();
+        assertThat(after.traceDictionary.getTraceCount()).isZero();
+    }
+
+    private TraceEvent createEvent(String traceId, String metadata) {
+        TraceEvent event = new TraceEvent(traceId, "span-" + traceId, "payment-service", "charge");
+        event.setMetadata(metadata);
+        return event;
+    }
+
+    private TraceEvent createSpan(String traceId, String spanId) {
+        TraceEvent event = new TraceEvent(traceId, spanId, "test-service", "test_operation");
+        event.setTimestamp(LocalDateTime.now().plusSeconds(spanId.equals("span-1") ? 1 : 2));
+        return event;
+    }
+
+    private static class Components {
+        final TraceDictionary traceDictionary = new TraceDictionary();
+        final AttributeIndex attributeIndex = new AttributeIndex();
+        final UrlTemplater urlTemplater = new UrlTemplater();
+        final HotTier hotTier = new HotTier();
+
+        Components() {
+            ReflectionTestUtils.setField(attributeIndex, "traceDictionary", traceDictionary);
+            ReflectionTestUtils.setField(attributeIndex, "enabled", true);
+            ReflectionTestUtils.setField(attributeIndex, "maxAttributesPerSpan", 32);
+            ReflectionTestUtils.setField(attributeIndex, "maxValueLength", 128);
+            ReflectionTestUtils.setField(urlTemplater, "rules", new String[] {"/api/products/{sku}"});
+            ReflectionTestUtils.setField(urlTemplater, "maxLiteralChildren", 5);
+            ReflectionTestUtils.setField(urlTemplater, "maxNodes", 1000);
+            urlTemplater.init();
+            ReflectionTestUtils.setField(hotTier, "enabled", true);
+            ReflectionTestUtils.setField(hotTier, "windowMinutes", 60L);
+            ReflectionTestUtils.setField(hotTier, "maxSpans", 1000);
+            ReflectionTestUtils.setField(hotTier, "completenessGraceSeconds", 0L);
+            hotTier.init();
+        }
+
+        SnapshotManager manager(Path dir) {
+            SnapshotManager manager = new SnapshotManager();
+            ReflectionTestUtils.setField(manager, "enabled", true);
+            ReflectionTestUtils.setField(manager, "path", dir.resolve("snapshot.bin").toString());
+            // Same order Spring derives from @Order: traces after the indexes
+            ReflectionTestUtils.setField(manager, "participants",
+                List.<SnapshotParticipant>of(attributeIndex, urlTemplater, hotTier, traceDictionary));
+            return manager;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HotTierTest {
+
+    private HotTier hotTier;
+
+    @BeforeEach
+    void setUp() {
+        hotTier = new HotTier();
+        ReflectionTestUtils.setField(hotTier, "enabled", true);
+        ReflectionTestUtils.setField(hotTier, "windowMinutes", 60L);
+        ReflectionTestUtils.setField(hotTier, "maxSpans", 1000);
+        ReflectionTestUtils.setField(hotTier, "completenessGraceSeconds", 0L);
+        hotTier.init();
+    }
+
+    @Test
+    void findCompleteTrace_ShouldReturnSpansOrderedByTimestamp() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        hotTier.add(createEvent("trace-1", "span-2", now.plusSeconds(2)));
+        hotTier.add(createEvent("trace-1", "span-1", now.plusSeconds(1)));
+
+        // When
+        Optional<List<TraceEvent>> result = hotTier.findCompleteTrace("trace-1");
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get()).extracting(TraceEvent::getSpanId).containsExactly("span-1", "span-2");
+    }
+
+    @Test
+    void findCompleteTrace_WithTraceArrivingWithinGraceAfterStartup_ShouldDeferToDatabase() {
+        // Given
+        ReflectionTestUtils.setField(hotTier, "completenessGraceSeconds", 60L);
+        hotTier.init();
+        // A client clock running ahead must not make the trace look newer than the restart
+        hotTier.add(createEvent("trace-1", "span-1", LocalDateTime.now().plusMinutes(5)));
+
+        // When
+        Optional<List<TraceEvent>> result = hotTier.findCompleteTrace("trace-1");
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void findCompleteTrace_WithUnknownTrace_ShouldReturnEmpty() {
+        assertThat(hotTier.findCompleteTrace("unknown")).isEmpty();
+    }
+
+    @Test
+    void countSince_ShouldCountSpansAfterTimestamp() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        hotTier.add(createEvent("trace-1", "span-1", now.plusSeconds(1)));
+        hotTier.add(createEvent("trace-2", "span-2", now.plusSeconds(2)));
+        hotTier.add(createEvent("trace-2", "span-3", now.plusSeconds(3)));
+
+        // When
+        long count = hotTier.countSince(EpochMicros.of(now.plusSeconds(1)));
+
+        // Then
+        assertThat(count).isEqualTo(2);
+        assertThat(hotTier.getSpanCount()).isEqualTo(3);
+        assertThat(hotTier.getTraceCount()).isEqualTo(2);
+    }
+
+    @Test
+    void coversSince_ShouldOnlyCoverWindowsStartingAfterStartup() {
+        assertThat(hotTier.coversSince(EpochMicros.of(LocalDateTime.now().plusSeconds(1)))).isTrue();
+        assertThat(hotTier.coversSince(EpochMicros.of(LocalDateTime.now().minusHours(1)))).isFalse();
+    }
+
+    @Test
+    void evictExpired_ShouldEvictTracesOutsideWindowAndMarkThemIncomplete() {
+        // Given
+        ReflectionTestUtils.setField(hotTier, "completenessGraceSeconds", -7200L);
+        hotTier.init();
+        LocalDateTime now = LocalDateTime.now();
+        hotTier.add(createEvent("old-trace", "span-1", now.minusMinutes(90)));
+        hotTier.add(createEvent("new-trace", "span-2", now));
+
+        // When
+        long evicted = hotTier.evictExpired();
+        hotTier.add(createEvent("old-trace", "span-3", now));
+
+        // Then
+        assertThat(evicted).isEqualTo(1);
+        assertThat(hotTier.findCompleteTrace("new-trace")).isPresent();
+        assertThat(hotTier.findCompleteTrace("old-trace")).isEmpty();
+    }
+
+    @Test
+    void evictExpired_ShouldRememberEvictedTracesAcrossManyWindows() {
+        // Given
+        ReflectionTestUtils.setField(hotTier, "completenessGraceSeconds", -7200L);
+        hotTier.init();
+        LocalDateTime now = LocalDateTime.now();
+        hotTier.add(createEvent("old-trace", "span-1", now.minusMinutes(90)));
+        hotTier.evictExpired();
+
+        // When
+        for (int window = 0; window < 10; window++) {
+            ReflectionTestUtils.setField(hotTier, "evictedRotatedAtMicros", 0L);
+            hotTier.evictExpired();
+        }
+        hotTier.add(createEvent("old-trace", "span-2", now));
+
+        // Then
+        assertThat(hotTier.findCompleteTrace("old-trace")).isEmpty();
+    }
+
+    @Test
+    void forgetEvictionsBefore_OnceRetentionDroppedTheEvictedSpans_ShouldServeTheTraceAgain() {
+        // Given
+        ReflectionTestUtils.setField(hotTier, "completenessGraceSeconds", -7200L);
+        hotTier.init();
+        LocalDateTime now = LocalDateTime.now();
+        hotTier.add(createEvent("old-trace", "span-1", now.minusMinutes(90)));
+        hotTier.evictExpired();
+        ReflectionTestUtils.setField(hotTier, "evictedRotatedAtMicros", 0L);
+        hotTier.evictExpired();
+
+        // When
+        hotTier.forgetEvictionsBefore(EpochMicros.of(now.minusMinutes(80)));
+        hotTier.add(createEvent("old-trace", "span-2", now));
+
+        // Then
+        assertThat(hotTier.findCompleteTrace("old-trace")).isPresent();
+    }
+
+    @Test
+    void evictExpired_ShouldEnforceSpanBudget() {
+        // Given
+        ReflectionTestUtils.setField(hotTier, "maxSpans", 100);
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        for (int i = 0; i < 150; i++) {
+            hotTier.add(createEvent("trace-" + i, "span-" + i, now.plusNanos(i * 1000L)));
+        }
+
+        // Then
+        assertThat(hotTier.getSpanCount()).isLessThanOrEqualTo(100);
+        assertThat(hotTier.findCompleteTrace("trace-149")).isPresent();
+    }
+
+    @Test
+    void removeOlderThan_ShouldDropExpiredSpans() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        hotTier.add(createEvent("trace-1", "span-1", now.minusDays(10)));
+        hotTier.add(createEvent("trace-2", "span-2", now));
+
+        // When
+        hotTier.removeOlderThan(EpochMicros.of(now.minusDays(7)));
+
+        // Then
+        assertThat(hotTier.getSpanCount()).isEqualTo(1);
+        assertThat(hotTier.getTraceCount()).isEqualTo(1);
+    }
+
+    @Test
+    void offHeap_ShouldServeTracesFromArenaAndLoseCoverageOnOverflow() {
+        // Given
+        ReflectionTestUtils.setField(hotTier, "offHeap", true);
+        ReflectionTestUtils.setField(hotTier, "offHeapMaxBytes", 128 * 1024L);
+        hotTier.init();
+        LocalDateTime now = LocalDateTime.now().plusSeconds(1);
+        hotTier.add(createEvent("trace-1", "span-2", now.plusSeconds(2)));
+        hotTier.add(createEvent("trace-1", "span-1", now.plusSeconds(1)));
+
+        // When
+        Optional<List<TraceEvent>> result = hotTier.findCompleteTrace("trace-1");
+        boolean coveredBeforeOverflow = hotTier.coversSince(EpochMicros.of(now));
+        for (int i = 0; i < 2000; i++) {
+            hotTier.add(createEvent("trace-" + (i + 2), "span-" + (i + 3), now.plusSeconds(10)));
+        }
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get()).extracting(TraceEvent::getSpanId).containsExactly("span-1", "span-2");
+        assertThat(coveredBeforeOverflow).isTrue();
+        assertThat(hotTier.coversSince(EpochMicros.of(now))).isFalse();
+        assertThat(hotTier.findCompleteTrace("trace-1")).isEmpty();
+        assertThat(hotTier.getOffHeapUsedBytes()).isPositive();
+    }
+
+    @Test
+    void add_WhenDisabled_ShouldIgnoreSpans() {
+        // Given
+        ReflectionTestUtils.setField(hotTier, "enabled", false);
+
+        // When
+        hotTier.add(createEvent("trace-1", "span-1", LocalDateTime.now()));
+
+        // Then
+        assertThat(hotTier.getSpanCount()).isZero();
+        assertThat(hotTier.coversSince(EpochMicros.now())).isFalse();
+    }
+
+    private TraceEvent createEvent(String traceId, String spanId, LocalDateTime timestamp) {
+        TraceEvent event = new TraceEvent(traceId, spanId, "test-service", "test_operation");
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.telemetryservice.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class MetadataMetricsTest {
+
+    private final MetadataMetrics metadataMetrics = new MetadataMetrics();
+
+    @Test
+    void recordedWritesAndReads_ShouldDriveCompressionAndSkipRatios() {
+        // Given: two payloads written, four spans loaded, one of them read
+        metadataMetrics.recordWrite(600, 200);
+        metadataMetrics.recordWrite(300, 100);
+        for (int i = 0; i < 4; i++) {
+            metadataMetrics.recordEntityLoad();
+        }
+
+        // When
+        metadataMetrics.recordDecode(600);
+
+        // Then
+        assertThat(metadataMetrics.getRawBytesWritten()).isEqualTo(900L);
+        assertThat(metadataMetrics.getStoredBytesWritten()).isEqualTo(300L);
+        assertThat(metadataMetrics.getCompressionRatio()).isCloseTo(3.0, within(0.001));
+        assertThat(metadataMetrics.getDecodedPayloads()).isEqualTo(1L);
+        assertThat(metadataMetrics.getReadSkipRatio()).isCloseTo(0.75, within(0.001));
+    }
+
+    @Test
+    void ratios_WithNothingRecorded_ShouldBeNeutral() {
+        assertThat(metadataMetrics.getCompressionRatio()).isEqualTo(1.0);
+        assertThat(metadataMetrics.getReadSkipRatio()).isZero();
+    }
+}
@@ -0,0 +1,326 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SegmentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SegmentStore segmentStore;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        segmentStore = new SegmentStore();
+        ReflectionTestUtils.setField(segmentStore, "enabled", true);
+        ReflectionTestUtils.setField(segmentStore, "directory", tempDir.toString());
+        ReflectionTestUtils.setField(segmentStore, "maxSpansPerSegment", 100);
+        segmentStore.init();
+        baseTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).minusDays(1);
+    }
+
+    @Test
+    void append_ShouldRoundTripAllSpanFields() {
+        // Given
+        TraceEvent event = createEvent("trace-1", "span-1", "order-service", baseTime);
+        event.setId(42L);
+        event.setParentSpanId("span-0");
+        event.setDurationMicros(125_250L);
+        event.setStatus(TraceEvent.Status.ERROR);
+        event.setEventType(TraceEvent.EventType.LOG);
+        event.setMetadata("{\"orderId\":\"o-1\"}");
+        event.setHttpMethod("POST");
+        event.setHttpUrl("/api/orders");
+        event.setHttpStatusCode(500);
+        event.setErrorMessage("card declined");
+        event.setUserId("user-7");
+        event.setCorrelationId("corr-9");
+
+        // When
+        segmentStore.append(List.of(event));
+        List<TraceEvent> result = segmentStore.findByTraceId("trace-1");
+
+        // Then
+        assertThat(result).hasSize(1);
+        TraceEvent stored = result.get(0);
+        assertThat(stored.getId()).isEqualTo(42L);
+        assertThat(stored.getSpanId()).isEqualTo("span-1");
+        assertThat(stored.getParentSpanId()).isEqualTo("span-0");
+        assertThat(stored.getServiceName()).isEqualTo("order-service");
+        assertThat(stored.getTimestamp()).isEqualTo(baseTime);
+        assertThat(stored.getDurationMicros()).isEqualTo(125_250L);
+        assertThat(stored.getDurationMs()).isEqualTo(125L);
+        assertThat(stored.getStatus()).isEqualTo(TraceEvent.Status.ERROR);
+        assertThat(stored.getEventType()).isEqualTo(TraceEvent.EventType.LOG);
+        assertThat(stored.getMetadata()).isEqualTo("{\"orderId\":\"o-1\"}");
+        assertThat(stored.getHttpStatusCode()).isEqualTo(500);
+        assertThat(stored.getErrorMessage()).isEqualTo("card declined");
+        assertThat(stored.getCorrelationId()).isEqualTo("corr-9");
+    }
+
+    @Test
+    void findByTraceId_ShouldMergeSpansAcrossSegmentsInTimestampOrder() {
+        // Given
+        segmentStore.append(List.of(createEvent("trace-1", "span-2", "svc", baseTime.plusSeconds(2))));
+        segmentStore.append(List.of(createEvent("trace-1", "span-1", "svc", baseTime.plusSeconds(1)),
+            createEvent("trace-2", "span-3", "svc", baseTime)));
+
+        // When
+        List<TraceEvent> result = segmentStore.findByTraceId("trace-1");
+
+        // Then
+        assertThat(segmentStore.getSegmentCount()).isEqualTo(2);
+        assertThat(result).extracting(TraceEvent::getSpanId).containsExactly("span-1", "span-2");
+    }
+
+    @Test
+    void findByTraceId_WithUnknownTrace_ShouldReturnEmptyList() {
+        // Given
+        List<TraceEvent> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            events.add(createEvent("trace-" + i, "span-" + i, "svc", baseTime.plusSeconds(i)));
+        }
+        segmentStore.append(events);
+
+        // When
+        List<TraceEvent> result = segmentStore.findByTraceId("missing-trace");
+
+        // Then
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void append_ShouldSplitIntoSegmentsOfBoundedSize() {
+        // Given
+        List<TraceEvent> events = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            events.add(createEvent("trace-" + (i % 10), "span-" + i, "svc", baseTime.plusSeconds(i)));
+        }
+
+        // When
+        int appended = segmentStore.append(events);
+
+        // Then
+        assertThat(appended).isEqualTo(250);
+        assertThat(segmentStore.getSegmentCount()).isEqualTo(3);
+        assertThat(segmentStore.getSpanCount()).isEqualTo(250);
+        assertThat(segmentStore.findByTraceId("trace-3")).hasSize(25);
+    }
+
+    @Test
+    void append_WithCompression_ShouldShrinkSegmentsAndStillFindTraces() {
+        // Given
+        List<TraceEvent> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TraceEvent event = createEvent("trace-" + (i % 10), "span-" + i, "payment-service", baseTime.plusSeconds(i));
+            event.setMetadata("{\"paymentProvider\":\"stripe\",\"region\":\"eu-west-1\",\"orderId\":\"order-" + i + "\"}");
+            events.add(event);
+        }
+        segmentStore.append(events);
+        long rawSize = segmentStore.getSizeBytes();
+
+        SegmentStore compressedStore = new SegmentStore();
+        ReflectionTestUtils.setField(compressedStore, "enabled", true);
+        ReflectionTestUtils.setField(compressedStore, "directory", tempDir.resolve("cold").toString());
+        ReflectionTestUtils.setField(compressedStore, "maxSpansPerSegment", 100);
+        ReflectionTestUtils.setField(compressedStore, "compress", true);
+        compressedStore.init();
+
+        // When
+        compressedStore.append(events);
+
+        // Then
+        assertThat(compressedStore.getSizeBytes()).isLessThan(rawSize / 2);
+        assertThat(compressedStore.findByTraceId("trace-4")).hasSize(10);
+        assertThat(readAll(compressedStore)).hasSameSizeAs(events);
+    }
+
+    @Test
+    void append_WithTraceLayout_ShouldKeepEachTraceInOneBlock() throws Exception {
+        // Given
+        SegmentStore clusteredStore = new SegmentStore();
+        ReflectionTestUtils.setField(clusteredStore, "enabled", true);
+        ReflectionTestUtils.setField(clusteredStore, "directory", tempDir.resolve("clustered").toString());
+        ReflectionTestUtils.setField(clusteredStore, "maxSpansPerSegment", 5000);
+        ReflectionTestUtils.setField(clusteredStore, "compress", true);
+        ReflectionTestUtils.setField(clusteredStore, "layout", "trace");
+        clusteredStore.init();
+        List<TraceEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            TraceEvent event = createEvent("trace-" + (i % 25), "span-" + i, "svc", baseTime.plusSeconds(5000 - i));
+            event.setMetadata("{\"orderId\":\"order-" + i + "\"}");
+            events.add(event);
+        }
+
+        // When
+        clusteredStore.append(events);
+        List<TraceEvent> result = clusteredStore.findByTraceId("trace-7");
+
+        // Then
+        Segment segment;
+        try (var files = Files.list(tempDir.resolve("clustered"))) {
+            segment = Segment.open(files.findFirst().orElseThrow());
+        }
+        assertThat(segment.isTraceClustered()).isTrue();
+        assertThat(segment.getFooter().getBlocks().size()).isGreaterThan(1);
+        assertThat(segment.getFooter().getBlocks()).filteredOn(b -> b.mightContainTrace("trace-7")).hasSize(1);
+        assertThat(result).hasSize(200);
+        assertThat(result).extracting(TraceEvent::getTimestampMicros).isSorted();
+        assertThat(clusteredStore.findByTraceId("trace-70")).isEmpty();
+        assertThat(readAll(clusteredStore)).hasSize(5000);
+    }
+
+    @Test
+    void append_WithTraceLayout_ShouldNotSplitTraceAcrossSegments() {
+        // Given
+        ReflectionTestUtils.setField(segmentStore, "layout", "trace");
+        ReflectionTestUtils.setField(segmentStore, "maxSpansPerSegment", 40);
+        segmentStore.init();
+        List<TraceEvent> events = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            events.add(createEvent("trace-" + (i % 3), "span-" + i, "svc", baseTime.plusSeconds(i)));
+        }
+
+        // When
+        segmentStore.append(events);
+
+        // Then
+        assertThat(segmentStore.getSegmentCount()).isEqualTo(3);
+        assertThat(segmentStore.getSpanCount()).isEqualTo(150);
+        assertThat(segmentStore.findByTraceId("trace-1")).hasSize(50);
+    }
+
+    @Test
+    void init_ShouldReopenExistingSegments() {
+        // Given
+        segmentStore.append(List.of(createEvent("trace-1", "span-1", "svc", baseTime)));
+
+        // When
+        SegmentStore reopened = new SegmentStore();
+        ReflectionTestUtils.setField(reopened, "enabled", true);
+        ReflectionTestUtils.setField(reopened, "directory", tempDir.toString());
+        ReflectionTestUtils.setField(reopened, "maxSpansPerSegment", 100);
+        reopened.init();
+        reopened.append(List.of(createEvent("trace-1", "span-2", "svc", baseTime.plusSeconds(1))));
+
+        // Then
+        assertThat(reopened.getSegmentCount()).isEqualTo(2);
+        assertThat(reopened.findByTraceId("trace-1")).hasSize(2);
+    }
+
+    @Test
+    void dropSegmentsBefore_ShouldDeleteWholeExpiredSegments() throws Exception {
+        // Given
+        segmentStore.append(List.of(createEvent("old-trace", "span-1", "svc", baseTime.minusDays(30))));
+        segmentStore.append(List.of(createEvent("new-trace", "span-2", "svc", baseTime)));
+
+        // When
+        int dropped = segmentStore.dropSegmentsBefore(EpochMicros.of(baseTime.minusDays(7)));
+
+        // Then
+        assertThat(dropped).isEqualTo(1);
+        assertThat(segmentStore.findByTraceId("old-trace")).isEmpty();
+        assertThat(segmentStore.findByTraceId("new-trace")).hasSize(1);
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void bloomFilter_ShouldNeverReportFalseNegatives() {
+        // Given
+        BloomFilter filter = BloomFilter.create(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("trace-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filter.mightContain("trace-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("trace-" + i)).isTrue();
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void findByTraceId_WithTruncatedCompressedBlock_ShouldFailInsteadOfSpinning() throws Exception {
+        // Given: the block's deflate stream replaced by one that runs out before the block is complete
+        Path path = tempDir.resolve("corrupt.seg");
+        List<TraceEvent> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TraceEvent event = createEvent("trace-" + (i % 10), "span-" + i, "payment-service", baseTime.plusSeconds(i));
+            event.setMetadata("{\"orderId\":\"order-" + i + "\"}");
+            events.add(event);
+        }
+        SegmentFooter.Block block = Segment.write(path, events, true).getFooter().getBlocks().get(0);
+        int literalLength = block.getStoredLength() - 7;
+        ByteBuffer truncated = ByteBuffer.allocate(block.getStoredLength()).order(ByteOrder.LITTLE_ENDIAN);
+        // zlib header, then a non-final stored block whose zero bytes are all the stream holds
+        truncated.put((byte) 0x78).put((byte) 0x9C).put((byte) 0)
+            .putShort((short) literalLength).putShort((short) ~literalLength).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(truncated, block.getOffset());
+        }
+
+        // When & Then
+        assertThat(literalLength).isLessThan(block.getRawLength());
+        assertThatThrownBy(() -> Segment.open(path).findByTraceId("trace-1"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Corrupt block");
+    }
+
+    @Test
+    void open_WithOlderFormatVersion_ShouldRejectSegment() throws Exception {
+        // Given
+        Path path = tempDir.resolve("old.seg");
+        Segment.write(path, List.of(createEvent("trace-1", "span-1", "svc", baseTime)), false);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(Segment.VERSION - 1).flip(), Integer.BYTES);
+        }
+
+        // When & Then
+        assertThatThrownBy(() -> Segment.open(path))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Unsupported segment version");
+    }
+
+    private static List<TraceEvent> readAll(SegmentStore store) {
+        List<TraceEvent> spans = new ArrayList<>();
+        store.forEach(spans::add);
+        return spans;
+    }
+
+    private TraceEvent createEvent(String traceId, String spanId, String serviceName, LocalDateTime timestamp) {
+        TraceEvent event = new TraceEvent(traceId, spanId, serviceName, "operation");
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.telemetryservice.storage;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SpanArenaTest {
+
+    private static final long BUDGET = 256 * 1024;
+
+    private List<String> evicted;
+    private SpanArena arena;
+    private long baseMicros;
+
+    @BeforeEach
+    void setUp() {
+        evicted = new ArrayList<>();
+        arena = new SpanArena(BUDGET, (traceId, ts) -> evicted.add(traceId));
+        baseMicros = EpochMicros.now();
+    }
+
+    @Test
+    void findCompleteTrace_ShouldReturnAllSpansOfTheTrace() {
+        // Given
+        TraceEvent first = createEvent("trace-1", "span-1", baseMicros);
+        first.setUrlTemplateId(7);
+        first.setDurationMicros(1_250L);
+        arena.append(first, true);
+        arena.append(createEvent("trace-2", "span-2", baseMicros + 1), true);
+        arena.append(createEvent("trace-1", "span-3", baseMicros + 2), true);
+
+        // When
+        Optional<List<TraceEvent>> result = arena.findCompleteTrace("trace-1");
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get()).extracting(TraceEvent::getSpanId).containsExactlyInAnyOrder("span-1", "span-3");
+        TraceEvent stored = result.get().stream().filter(e -> "span-1".equals(e.getSpanId())).findFirst().orElseThrow();
+        assertThat(stored.getUrlTemplateId()).isEqualTo(7);
+        assertThat(stored.getDurationMicros()).isEqualTo(1_250L);
+        assertThat(arena.getTraceCount()).isEqualTo(2);
+        assertThat(arena.getSpanCount()).isEqualTo(3);
+    }
+
+    @Test
+    void findCompleteTrace_WithTraceNotCompleteWhenFirstSeen_ShouldReturnEmpty() {
+        // Given
+        arena.append(createEvent("trace-1", "span-1", baseMicros), false);
+        arena.append(createEvent("trace-1", "span-2", baseMicros + 1), true);
+
+        // Then
+        assertThat(arena.findCompleteTrace("trace-1")).isEmpty();
+        assertThat(arena.findCompleteTrace("unknown")).isEmpty();
+    }
+
+    @Test
+    void append_WhenRingIsFull_ShouldOverwriteOldestSpansAndReportThem() {
+        // Given
+        arena.append(createEvent("long-trace", "span-0", baseMicros), true);
+
+        // When
+        for (int i = 1; i < 5000; i++) {
+            arena.append(createEvent("trace-" + i, "span-" + i, baseMicros + i), true);
+        }
+        arena.append(createEvent("long-trace", "span-late", baseMicros + 5000), true);
+
+        // Then
+        assertThat(evicted).contains("long-trace", "trace-1");
+        assertThat(arena.getUsedBytes()).isLessThanOrEqualTo(BUDGET);
+        assertThat(arena.findCompleteTrace("trace-1")).isEmpty();
+        assertThat(arena.findCompleteTrace("trace-4999")).isPresent();
+        assertThat(arena.getSpanCount()).isLessThan(5001);
+        assertThat(arena.countSince(baseMicros)).isEqualTo(arena.getSpanCount());
+    }
+
+    @Test
+    void append_WithPartiallyEvictedTrace_ShouldNotServeIt() {
+        // Given
+        arena.append(createEvent("trace-0", "span-first", baseMicros), true);
+        for (int i = 1; i < 5000; i++) {
+            arena.append(createEvent("trace-" + i, "span-" + i, baseMicros + i), true);
+            if (i % 100 == 0) {
+                arena.append(createEvent("trace-0", "span-" + i, baseMicros + i), true);
+            }
+        }
+
+        // Then
+        assertThat(evicted).contains("trace-0");
+        assertThat(arena.findCompleteTrace("trace-0")).isEmpty();
+    }
+
+    @Test
+    void evictBefore_ShouldDropSpansFromOldestEnd() {
+        // Given
+        arena.append(createEvent("trace-1", "span-1", baseMicros), true);
+        arena.append(createEvent("trace-2", "span-2", baseMicros + 10), true);
+
+        // When
+        long dropped = arena.evictBefore(baseMicros + 5);
+
+        // Then
+        assertThat(dropped).isEqualTo(1);
+        assertThat(arena.findCompleteTrace("trace-1")).isEmpty();
+        assertThat(arena.findCompleteTrace("trace-2")).isPresent();
+        assertThat(arena.getTraceCount()).isEqualTo(1);
+    }
+
+    @Test
+    void constructor_WithBudgetTooSmall_ShouldThrow() {
+        assertThatThrownBy(() -> new SpanArena(1024, (traceId, ts) -> { }))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private TraceEvent createEvent(String traceId, String spanId, long timestampMicros) {
+        TraceEvent event = new TraceEvent(traceId, spanId, "test-service", "test_operation");
+        event.setTimestampMicros(timestampMicros);
+        return event;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecommerce.telemetryservice.view;
+
+import com.ecommerce.telemetryservice.model.EpochMicros;
+import com.ecommerce.telemetryservice.model.TraceEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ViewSerializationTest {
+
+    // Configured like Spring Boot's default mapper
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+        .findAndAddModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+
+    @Test
+    void traceTimeline_ShouldWriteEveryFieldOfEverySpan() throws Exception {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000);
+        TraceEvent root = new TraceEvent("trace-1", "span-1", "order-service", "create_order");
+        root.setTimestamp(start);
+        root.setDurationMicros(2_500L);
+        root.setHttpStatusCode(201);
+        TraceEvent child = new TraceEvent("trace-1", "span-2", "payment-service", "charge");
+        child.setParentSpanId("span-1");
+        child.setTimestamp(start.plusNanos(1_000_000));
+        TraceTimeline timeline = new TraceTimeline("trace-1",
+            List.of(TimelineSpan.of(root, "/orders"), TimelineSpan.of(child, null)),
+            EpochMicros.of(start), EpochMicros.of(start) + 1_000L, 2);
+
+        // When
+        Map<String, Object> json = read(timeline);
+
+        // Then
+        assertThat(json).containsOnlyKeys("traceId", "events", "totalDuration", "totalDurationMicros", "startTime", "endTime", "serviceCount");
+        assertThat(json).containsEntry("totalDurationMicros", 1000).containsEntry("serviceCount", 2)
+            .containsEntry("startTime", "2024-01-01T12:00:00.123456");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> events = (List<Map<String, Object>>) json.get("events");
+        assertThat(events.get(0)).hasSize(13)
+            .containsEntry("durationMicros", 2500)
+            .containsEntry("httpRoute", "/orders")
+            .containsEntry("httpStatusCode", 201)
+            .containsEntry("status", "SUCCESS");
+        assertThat(events.get(1)).hasSize(13)
+            .containsEntry("parentSpanId", "span-1")
+            .containsEntry("durationMs", null)
+            .containsEntry("httpRoute", null);
+    }
+
+    @Test
+    void emptyViews_ShouldWriteOnlyTheirIdentityAndZeroCount() throws Exception {
+        assertThat(read(TraceTimeline.empty("trace-1")))
+            .isEqualTo(Map.of("traceId", "trace-1", "events", List.of(), "totalDuration", 0));
+        assertThat(read(ServiceMetrics.empty("order-service")))
+            .isEqualTo(Map.of("serviceName", "order-service", "requestCount", 0));
+    }
+
+    @Test
+    void serviceMetrics_ShouldWriteWindowAndPercentilesOnlyWhenPresent() throws Exception {
+        // Given
+        Map<String, Long> operationCounts = new LinkedHashMap<>();
+        operationCounts.put("charge", 3L);
+        operationCounts.put("refund", 1L);
+        ServiceMetrics metrics = new ServiceMetrics("payment-service", 4, 1, 0, 0, 0, 0, operationCounts,
+            LocalDateTime.of(2024, 1, 1, 0, 0), null, null);
+
+        // When
+        Map<String, Object> withoutDurations = read(metrics);
+        Map<String, Object> withPercentiles = read(metrics.withPercentiles(new ServiceMetrics.LatencyPercentiles(5, 9, 20, 31)));
+
+        // Then
+        assertThat(withoutDurations)
+            .containsEntry("minDurationMs", null)
+            .containsEntry("errorRate", 25.0)
+            .containsEntry("operationCounts", Map.of("charge", 3, "refund", 1))
+            .containsEntry("from", "2024-01-01T00:00:00")
+            .doesNotContainKeys("to", "p50DurationMs");
+        assertThat(withPercentiles).containsEntry("p50DurationMs", 5).containsEntry("p999DurationMs", 31);
+    }
+
+    @Test
+    void traceListItemAndHealthStatus_ShouldWriteDerivedFields() throws Exception {
+        // Given
+        TraceListItem trace = new TraceListItem("trace-1", EpochMicros.now(), 4_200L, List.of("order-service"),
+            List.of("create_order"), "create_order", 3, true);
+        HealthStatus health = HealthStatus.healthy(10L, 2L, List.of("order-service", "payment-service"));
+
+        // When & Then
+        assertThat(read(trace))
+            .containsEntry("duration", 4)
+            .containsEntry("durationMicros", 4200)
+            .containsEntry("services", List.of("order-service"))
+            .containsEntry("status", "ERROR")
+            .containsKey("startTime");
+        assertThat(read(health))
+            .containsEntry("status", "healthy")
+            .containsEntry("trackedServices", 2)
+            .containsKey("timestamp");
+    }
+
+    private Map<String, Object> read(Object view) throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsString(view), new TypeReference<>() {});
+    }
+}